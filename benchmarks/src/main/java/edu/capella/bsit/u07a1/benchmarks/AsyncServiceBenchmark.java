@@ -0,0 +1,64 @@
+package edu.capella.bsit.u07a1.benchmarks;
+
+import edu.capella.bsit.u07a1.Course;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ASYNCHRONOUS SERVICE CALLS UNDER LOAD: EACH INVOCATION STARTS CONCURRENCY OPERATIONS ON THE SERVICE'S EXECUTOR
+ * AND WAITS FOR ALL OF THEM, SO ONE SAMPLE IS THE TIME TO COMPLETE A BURST. COMPARES THE BOUNDED PLATFORM POOL
+ * WITH VIRTUAL THREADS.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AsyncServiceBenchmark extends ServiceFixture {
+
+    @Param({"1", "16", "128"})
+    public int concurrency;
+
+    @Param({"platform", "virtual"})
+    public String executor;
+
+    @Override
+    protected String executorMode() {
+        return executor;
+    }
+
+    @Benchmark
+    public Object getAllCoursesAsync() {
+        return burst(() -> service.getAllCoursesAsync());
+    }
+
+    @Benchmark
+    public Object getAllCourseRegistrationsAsync() {
+        return burst(() -> service.getAllCourseRegistrationsAsync(randomLearner()));
+    }
+
+    @Benchmark
+    public Object createCourseRegistrationAsync() {
+        return burst(() -> {
+            Course course = randomCourse();
+            return service.createCourseRegistrationAsync(nextNewLearner(), course.getCourseCode(), course.getCreditHours());
+        });
+    }
+
+    private Object burst(Supplier<CompletableFuture<?>> operation) {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            futures[i] = operation.get();
+        }
+        return CompletableFuture.allOf(futures).join();
+    }
+}
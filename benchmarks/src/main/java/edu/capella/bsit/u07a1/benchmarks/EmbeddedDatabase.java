@@ -0,0 +1,42 @@
+package edu.capella.bsit.u07a1.benchmarks;
+
+import edu.capella.bsit.u07a1.CourseRegistrationService;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * CONFIGURATION FOR RUNNING {@link CourseRegistrationService} AGAINST A PRIVATE, IN-MEMORY H2 DATABASE INSTEAD OF
+ * MARIADB. H2 RUNS IN MARIADB COMPATIBILITY MODE AND THE SCHEMA IS GENERATED FROM THE ENTITY MAPPINGS, SO THE SAME
+ * QUERIES, SEQUENCES AND CONSTRAINTS ARE EXERCISED. SQL ECHO IS TURNED OFF SO CONSOLE I/O DOES NOT SKEW RESULTS.
+ */
+public final class EmbeddedDatabase {
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    private EmbeddedDatabase() { }
+
+    /**
+     * @return THE CONFIGURATION OVERRIDES FOR A NEW, EMPTY DATABASE THAT LIVES UNTIL THE JVM EXITS.
+     */
+    public static Map<String, String> newDatabase() {
+        return config("jdbc:h2:mem:registration" + DATABASES.incrementAndGet() + ";MODE=MariaDB;DB_CLOSE_DELAY=-1");
+    }
+
+    /**
+     * @param url THE H2 JDBC URL TO CONNECT TO.
+     * @return THE CONFIGURATION OVERRIDES FOR THE GIVEN H2 DATABASE, RECREATING ITS SCHEMA.
+     */
+    public static Map<String, String> config(String url) {
+        Map<String, String> config = new HashMap<>();
+        config.put("jakarta.persistence.jdbc.url", url);
+        config.put("jakarta.persistence.jdbc.driver", "org.h2.Driver");
+        config.put("jakarta.persistence.jdbc.user", "sa");
+        config.put("jakarta.persistence.jdbc.password", "");
+        config.put("jakarta.persistence.schema-generation.database.action", "drop-and-create");
+        config.put("hibernate.connection.pool_size", "64");
+        config.put("hibernate.show_sql", "false");
+        config.put("hibernate.format_sql", "false");
+        config.put("hibernate.use_sql_comments", "false");
+        return config;
+    }
+}
@@ -0,0 +1,328 @@
+package edu.capella.bsit.u07a1.benchmarks;
+
+import edu.capella.bsit.u07a1.Course;
+import edu.capella.bsit.u07a1.CourseRegistrationService;
+import edu.capella.bsit.u07a1.RegistrationResult;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * HEADLESS LOAD GENERATOR THAT REPLAYS A REGISTRATION-WINDOW RUSH AGAINST {@link CourseRegistrationService}.
+ * EACH SIMULATED LEARNER DOES WHAT THE DESKTOP CLIENT DOES: SIGNS IN (LOADS ITS REGISTRATIONS AND CREDIT TOTAL),
+ * PAGES THROUGH THE CATALOG, THEN REGISTERS FOR RANDOM COURSES UNTIL IT REACHES THE CREDIT CAP OR RUNS OUT OF
+ * ATTEMPTS. A FRACTION OF REGISTRATIONS ARE SUBMITTED TWICE AT ONCE (A DOUBLE CLICK) TO EXERCISE THE DUPLICATE
+ * CHECKS. LEARNERS ARRIVE AT A STEADY RATE OVER THE RAMP, AT MOST "CONCURRENCY" OF THEM ACTIVE AT A TIME.
+ *
+ * <p>EVERY CALL IS TIMED INTO AN HDRHISTOGRAM PER OPERATION. SESSION LATENCY IS MEASURED FROM THE LEARNER'S
+ * SCHEDULED ARRIVAL, NOT FROM WHEN A CLIENT SLOT FREED UP, SO A SATURATED SERVICE SHOWS UP AS QUEUEING TIME
+ * INSTEAD OF BEING HIDDEN (COORDINATED OMISSION). AFTER THE RUN THE DATABASE IS CHECKED FOR LEARNERS OVER THE
+ * CREDIT CAP AND FOR DUPLICATE REGISTRATIONS, AND A JSON REPORT IS WRITTEN (SEE {@link RushReport}).
+ *
+ * <p>SETTINGS ARE GIVEN AS NAME=VALUE ARGUMENTS, E.G.
+ * {@code java -cp benchmarks/target/benchmarks.jar edu.capella.bsit.u07a1.benchmarks.RegistrationRush
+ * learners=20000 concurrency=2000 rampSeconds=180 executor=virtual report=rush.json}
+ * <ul>
+ *     <li>learners - NUMBER OF LEARNERS THAT SIGN IN (DEFAULT 5000)</li>
+ *     <li>concurrency - LEARNERS ACTIVE AT THE SAME TIME (DEFAULT 500)</li>
+ *     <li>rampSeconds - PERIOD OVER WHICH LEARNERS ARRIVE; 0 STARTS THEM ALL AT ONCE (DEFAULT 60)</li>
+ *     <li>courses - SIZE OF THE GENERATED CATALOG (DEFAULT 400, IGNORED WITH url)</li>
+ *     <li>pageSize - CATALOG PAGE SIZE, AS IN THE CLIENT (DEFAULT 100)</li>
+ *     <li>maxPages - MOST CATALOG PAGES A LEARNER READS (DEFAULT 3)</li>
+ *     <li>maxAttempts - MOST REGISTRATIONS A LEARNER TRIES (DEFAULT 8)</li>
+ *     <li>doubleSubmitRate - FRACTION OF REGISTRATIONS SUBMITTED TWICE CONCURRENTLY (DEFAULT 0.05)</li>
+ *     <li>executor, threads - THE SERVICE'S "service.executor" AND "service.threads" SETTINGS</li>
+ *     <li>url, user, password - RUN AGAINST AN EXISTING DATABASE AND CATALOG INSTEAD OF AN EMBEDDED ONE</li>
+ *     <li>report - WHERE THE JSON REPORT IS WRITTEN (DEFAULT "rush-report.json")</li>
+ * </ul>
+ */
+public final class RegistrationRush {
+
+    /**
+     * THE CALLS A LEARNER MAKES, EACH TIMED SEPARATELY. SESSION IS A LEARNER'S WHOLE VISIT.
+     */
+    enum Operation { SIGN_IN, READ_CATALOG, REGISTER, SESSION }
+
+    private final Map<String, String> settings;
+    private final int learners;
+    private final int concurrency;
+    private final long rampNanos;
+    private final int pageSize;
+    private final int maxPages;
+    private final int maxAttempts;
+    private final double doubleSubmitRate;
+    // LEARNER IDS ARE PREFIXED PER RUN SO REPEATED RUNS AGAINST THE SAME DATABASE DO NOT COLLIDE
+    private final String runID = "R" + Long.toString(System.currentTimeMillis() % 1_000_000_000L, 36);
+
+    private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+    private final Map<Operation, Histogram> totals = new EnumMap<>(Operation.class);
+    private final Map<RegistrationResult.Status, LongAdder> outcomes = new EnumMap<>(RegistrationResult.Status.class);
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private final LongAdder constraintViolations = new LongAdder();
+    private final LongAdder learnersAtCap = new LongAdder();
+    private final List<RushReport.Interval> timeline = new ArrayList<>();
+
+    private RegistrationRush(Map<String, String> settings) {
+        this.settings = settings;
+        this.learners = intSetting("learners", 5_000);
+        this.concurrency = intSetting("concurrency", 500);
+        this.rampNanos = TimeUnit.SECONDS.toNanos(intSetting("rampSeconds", 60));
+        this.pageSize = intSetting("pageSize", 100);
+        this.maxPages = intSetting("maxPages", 3);
+        this.maxAttempts = intSetting("maxAttempts", 8);
+        this.doubleSubmitRate = Double.parseDouble(settings.getOrDefault("doubleSubmitRate", "0.05"));
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new Recorder(3));
+            totals.put(operation, new Histogram(3));
+        }
+        for (RegistrationResult.Status status : RegistrationResult.Status.values()) {
+            outcomes.put(status, new LongAdder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> settings = new LinkedHashMap<>();
+        for (String arg : args) {
+            int split = arg.indexOf('=');
+            if (split < 1) {
+                throw new IllegalArgumentException("Expected name=value, got " + arg);
+            }
+            settings.put(arg.substring(0, split), arg.substring(split + 1));
+        }
+        RushReport report = new RegistrationRush(settings).run();
+        Path path = Path.of(settings.getOrDefault("report", "rush-report.json"));
+        report.write(path);
+        System.out.print(report.summary());
+        System.out.println("Report written to " + path.toAbsolutePath());
+    }
+
+    private RushReport run() throws InterruptedException, SQLException, IOException {
+        Map<String, String> config = databaseConfig();
+        config.put(CourseRegistrationService.EXECUTOR_KEY, settings.getOrDefault("executor", "platform"));
+        if (settings.containsKey("threads")) {
+            config.put(CourseRegistrationService.THREADS_KEY, settings.get("threads"));
+        }
+
+        try (CourseRegistrationService service = new CourseRegistrationService(config)) {
+            if (!settings.containsKey("url")) {
+                int courses = intSetting("courses", 400);
+                for (int i = 0; i < courses; i++) {
+                    service.createCourse(String.format("IT%04d", i), 1 + i % 4);
+                }
+            }
+            System.out.printf("Rush %s: %d learners, %d concurrent, %d s ramp%n",
+                    runID, learners, concurrency, TimeUnit.NANOSECONDS.toSeconds(rampNanos));
+
+            Semaphore slots = new Semaphore(concurrency);
+            ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+            Thread sampler = Thread.ofPlatform().daemon().name("rush-sampler").start(this::sampleEverySecond);
+            long start = System.nanoTime();
+            for (int i = 0; i < learners; i++) {
+                long arrival = start + (learners == 1 ? 0 : rampNanos * i / (learners - 1));
+                LockSupport.parkNanos(arrival - System.nanoTime());
+                slots.acquire();
+                String learnerID = runID + "-" + i;
+                clients.execute(() -> {
+                    try {
+                        visit(service, learnerID);
+                    } catch (RuntimeException ex) {
+                        recordError(ex);
+                    } finally {
+                        slots.release();
+                        recorders.get(Operation.SESSION).recordValue(micros(System.nanoTime() - arrival));
+                    }
+                });
+            }
+            clients.shutdown();
+            clients.awaitTermination(1, TimeUnit.HOURS);
+            long elapsed = System.nanoTime() - start;
+            sampler.interrupt();
+            sampler.join();
+            sample(elapsed);
+
+            RushReport.Integrity integrity = checkIntegrity(config);
+            return new RushReport(runID, settings, elapsed, totals, outcomes, errors, constraintViolations.sum(),
+                    learnersAtCap.sum(), integrity, timeline);
+        }
+    }
+
+    // ONE LEARNER'S VISIT, MIRRORING THE DESKTOP CLIENT
+    private void visit(CourseRegistrationService service, String learnerID) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int credits = timed(Operation.SIGN_IN, () -> {
+            service.getAllCourseRegistrations(learnerID);
+            return service.getTotalCredits(learnerID);
+        });
+
+        List<Course> seen = new ArrayList<>();
+        String after = null;
+        for (int page = random.nextInt(1, maxPages + 1); page > 0; page--) {
+            String from = after;
+            List<Course> courses = timed(Operation.READ_CATALOG, () -> service.getCourses(from, "", pageSize));
+            if (courses.isEmpty()) {
+                break;
+            }
+            seen.addAll(courses);
+            after = courses.get(courses.size() - 1).getCourseCode();
+        }
+        if (seen.isEmpty()) {
+            return;
+        }
+
+        Set<String> tried = new HashSet<>();
+        for (int attempt = 0; attempt < maxAttempts && credits < CourseRegistrationService.MAX_CREDIT_LOAD; attempt++) {
+            String courseCode = seen.get(random.nextInt(seen.size())).getCourseCode();
+            if (!tried.add(courseCode) && random.nextInt(4) != 0) {
+                continue; // MOSTLY PICK SOMETHING NEW, BUT SOMETIMES RE-SUBMIT A COURSE ALREADY TAKEN
+            }
+            CompletableFuture<RegistrationResult> second = random.nextDouble() < doubleSubmitRate
+                    ? CompletableFuture.supplyAsync(() -> register(service, learnerID, courseCode), Thread::startVirtualThread)
+                    : null;
+            RegistrationResult result = register(service, learnerID, courseCode);
+            if (second != null) {
+                RegistrationResult other = second.join();
+                result = other != null && (result == null || other.totalCredits() > result.totalCredits()) ? other : result;
+            }
+            if (result != null) {
+                credits = result.totalCredits();
+            }
+        }
+        if (credits >= CourseRegistrationService.MAX_CREDIT_LOAD) {
+            learnersAtCap.increment();
+        }
+    }
+
+    // A REGISTRATION ATTEMPT; A FAILED CALL IS COUNTED AND YIELDS NULL SO THE LEARNER CAN CARRY ON
+    private RegistrationResult register(CourseRegistrationService service, String learnerID, String courseCode) {
+        try {
+            RegistrationResult result = timed(Operation.REGISTER, () -> service.registerIfAllowed(learnerID, courseCode));
+            outcomes.get(result.status()).increment();
+            return result;
+        } catch (RuntimeException ex) {
+            recordError(ex);
+            return null;
+        }
+    }
+
+    private <T> T timed(Operation operation, Supplier<T> call) {
+        long started = System.nanoTime();
+        try {
+            return call.get();
+        } finally {
+            recorders.get(operation).recordValue(micros(System.nanoTime() - started));
+        }
+    }
+
+    // CONSTRAINT VIOLATIONS THAT ESCAPE THE SERVICE ARE COUNTED APART FROM OTHER FAILURES
+    private void recordError(Throwable ex) {
+        Throwable root = ex;
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLIntegrityConstraintViolationException
+                    || cause instanceof org.hibernate.exception.ConstraintViolationException) {
+                constraintViolations.increment();
+                return;
+            }
+            root = cause;
+        }
+        errors.computeIfAbsent(root.getClass().getName(), name -> new LongAdder()).increment();
+    }
+
+    private void sampleEverySecond() {
+        long start = System.nanoTime();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(1_000);
+            } catch (InterruptedException ex) {
+                return;
+            }
+            sample(System.nanoTime() - start);
+        }
+    }
+
+    // MOVES WHAT WAS RECORDED SINCE THE LAST SAMPLE INTO THE TOTALS AND APPENDS ONE TIMELINE ENTRY
+    private synchronized void sample(long elapsedNanos) {
+        Histogram calls = new Histogram(3);
+        Map<Operation, Long> counts = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            Histogram interval = recorders.get(operation).getIntervalHistogram();
+            totals.get(operation).add(interval);
+            counts.put(operation, interval.getTotalCount());
+            if (operation != Operation.SESSION) {
+                calls.add(interval);
+            }
+        }
+        if (calls.getTotalCount() > 0 || counts.get(Operation.SESSION) > 0) {
+            timeline.add(new RushReport.Interval(TimeUnit.NANOSECONDS.toMillis(elapsedNanos), counts,
+                    calls.getValueAtPercentile(99.0) / 1000.0));
+        }
+    }
+
+    // CHECKS THE STORED DATA DIRECTLY: NO LEARNER OF THIS RUN OVER THE CAP AND NO COURSE REGISTERED TWICE
+    private RushReport.Integrity checkIntegrity(Map<String, String> config) throws SQLException {
+        String prefix = runID + "-%";
+        try (Connection connection = DriverManager.getConnection(config.get("jakarta.persistence.jdbc.url"),
+                config.get("jakarta.persistence.jdbc.user"), config.get("jakarta.persistence.jdbc.password"));
+             Statement statement = connection.createStatement()) {
+            long rows = count(statement, "SELECT COUNT(*) FROM learner_registration WHERE learner_id LIKE '" + prefix + "'");
+            long overCap = count(statement, "SELECT COUNT(*) FROM (SELECT learner_id FROM learner_registration"
+                    + " WHERE learner_id LIKE '" + prefix + "' GROUP BY learner_id"
+                    + " HAVING SUM(credit_hours) > " + CourseRegistrationService.MAX_CREDIT_LOAD + ") over_cap");
+            long duplicates = count(statement, "SELECT COUNT(*) FROM (SELECT learner_id FROM learner_registration"
+                    + " WHERE learner_id LIKE '" + prefix + "' GROUP BY learner_id, course_code"
+                    + " HAVING COUNT(*) > 1) duplicates");
+            return new RushReport.Integrity(rows, overCap, duplicates);
+        }
+    }
+
+    private static long count(Statement statement, String sql) throws SQLException {
+        try (ResultSet result = statement.executeQuery(sql)) {
+            result.next();
+            return result.getLong(1);
+        }
+    }
+
+    private Map<String, String> databaseConfig() {
+        if (!settings.containsKey("url")) {
+            return EmbeddedDatabase.newDatabase();
+        }
+        Map<String, String> config = EmbeddedDatabase.config(settings.get("url"));
+        config.remove("jakarta.persistence.jdbc.driver");
+        config.remove("jakarta.persistence.schema-generation.database.action");
+        config.put("jakarta.persistence.jdbc.user", settings.getOrDefault("user", ""));
+        config.put("jakarta.persistence.jdbc.password", settings.getOrDefault("password", ""));
+        return config;
+    }
+
+    private int intSetting(String name, int defaultValue) {
+        String value = settings.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    private static long micros(long nanos) {
+        return Math.max(0, nanos / 1_000);
+    }
+}
@@ -0,0 +1,181 @@
+package edu.capella.bsit.u07a1.benchmarks;
+
+import edu.capella.bsit.u07a1.RegistrationResult;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.Histogram;
+
+/**
+ * RESULTS OF A {@link RegistrationRush} RUN, WRITTEN AS JSON SO RUNS CAN BE COMPARED BY A SCRIPT (E.G. BEFORE EACH
+ * DEPLOY). LATENCIES ARE IN MILLISECONDS. EACH OPERATION ALSO CARRIES ITS FULL HISTOGRAM, BASE64-ENCODED IN
+ * HDRHISTOGRAM'S COMPRESSED FORMAT ({@code Histogram.decodeFromCompressedByteBuffer}, VALUES IN MICROSECONDS), SO
+ * PERCENTILES NOT LISTED HERE CAN STILL BE RECOVERED AND RUNS CAN BE MERGED.
+ */
+final class RushReport {
+    private static final double[] PERCENTILES = {50.0, 90.0, 99.0, 99.9, 99.99};
+
+    private final String runID;
+    private final Map<String, String> settings;
+    private final long elapsedNanos;
+    private final Map<RegistrationRush.Operation, Histogram> latencies;
+    private final Map<RegistrationResult.Status, LongAdder> outcomes;
+    private final Map<String, LongAdder> errors;
+    private final long constraintViolations;
+    private final long learnersAtCap;
+    private final Integrity integrity;
+    private final List<Interval> timeline;
+
+    /**
+     * ROWS WRITTEN BY THE RUN, AND HOW MANY BROKE THE REGISTRATION RULES. BOTH VIOLATION COUNTS MUST BE ZERO.
+     */
+    record Integrity(long registrations, long learnersOverCap, long duplicateRegistrations) { }
+
+    /**
+     * CALLS COMPLETED DURING ONE SAMPLING INTERVAL, AND THE P99 OF THE SERVICE CALLS (SESSIONS EXCLUDED) IN IT.
+     */
+    record Interval(long elapsedMillis, Map<RegistrationRush.Operation, Long> counts, double p99Millis) { }
+
+    RushReport(String runID, Map<String, String> settings, long elapsedNanos,
+               Map<RegistrationRush.Operation, Histogram> latencies, Map<RegistrationResult.Status, LongAdder> outcomes,
+               Map<String, LongAdder> errors, long constraintViolations, long learnersAtCap, Integrity integrity,
+               List<Interval> timeline) {
+        this.runID = runID;
+        this.settings = settings;
+        this.elapsedNanos = elapsedNanos;
+        this.latencies = latencies;
+        this.outcomes = outcomes;
+        this.errors = errors;
+        this.constraintViolations = constraintViolations;
+        this.learnersAtCap = learnersAtCap;
+        this.integrity = integrity;
+        this.timeline = timeline;
+    }
+
+    void write(Path path) throws IOException {
+        Files.writeString(path, toJson());
+    }
+
+    String toJson() {
+        double seconds = elapsedNanos / 1e9;
+        StringBuilder json = new StringBuilder(16 * 1024).append("{\n");
+        json.append("  \"run\": ").append(quote(runID)).append(",\n");
+        json.append("  \"settings\": {");
+        String separator = "";
+        for (Map.Entry<String, String> setting : settings.entrySet()) {
+            json.append(separator).append(quote(setting.getKey())).append(": ").append(quote(setting.getValue()));
+            separator = ", ";
+        }
+        json.append("},\n");
+        json.append("  \"elapsedSeconds\": ").append(number(seconds)).append(",\n");
+        json.append("  \"operations\": {\n");
+        separator = "";
+        for (Map.Entry<RegistrationRush.Operation, Histogram> entry : latencies.entrySet()) {
+            Histogram histogram = entry.getValue();
+            json.append(separator).append("    ").append(quote(entry.getKey().name())).append(": {");
+            json.append("\"count\": ").append(histogram.getTotalCount());
+            json.append(", \"throughputPerSecond\": ").append(number(histogram.getTotalCount() / seconds));
+            json.append(", \"meanMillis\": ").append(number(histogram.getMean() / 1000.0));
+            for (double percentile : PERCENTILES) {
+                json.append(", \"p").append(String.valueOf(percentile).replace(".0", "").replace('.', '_'))
+                        .append("Millis\": ").append(number(histogram.getValueAtPercentile(percentile) / 1000.0));
+            }
+            json.append(", \"maxMillis\": ").append(number(histogram.getMaxValue() / 1000.0));
+            json.append(", \"histogram\": ").append(quote(encode(histogram))).append('}');
+            separator = ",\n";
+        }
+        json.append("\n  },\n");
+        json.append("  \"registrationOutcomes\": {");
+        separator = "";
+        for (Map.Entry<RegistrationResult.Status, LongAdder> outcome : outcomes.entrySet()) {
+            json.append(separator).append(quote(outcome.getKey().name())).append(": ").append(outcome.getValue().sum());
+            separator = ", ";
+        }
+        json.append("},\n");
+        json.append("  \"constraintViolations\": ").append(constraintViolations).append(",\n");
+        json.append("  \"errors\": {");
+        separator = "";
+        for (Map.Entry<String, LongAdder> error : errors.entrySet()) {
+            json.append(separator).append(quote(error.getKey())).append(": ").append(error.getValue().sum());
+            separator = ", ";
+        }
+        json.append("},\n");
+        json.append("  \"learnersAtCreditCap\": ").append(learnersAtCap).append(",\n");
+        json.append("  \"integrity\": {\"registrations\": ").append(integrity.registrations())
+                .append(", \"learnersOverCap\": ").append(integrity.learnersOverCap())
+                .append(", \"duplicateRegistrations\": ").append(integrity.duplicateRegistrations()).append("},\n");
+        json.append("  \"timeline\": [");
+        separator = "\n";
+        for (Interval interval : timeline) {
+            json.append(separator).append("    {\"elapsedMillis\": ").append(interval.elapsedMillis());
+            for (Map.Entry<RegistrationRush.Operation, Long> count : interval.counts().entrySet()) {
+                json.append(", ").append(quote(count.getKey().name())).append(": ").append(count.getValue());
+            }
+            json.append(", \"p99Millis\": ").append(number(interval.p99Millis())).append('}');
+            separator = ",\n";
+        }
+        return json.append("\n  ]\n}\n").toString();
+    }
+
+    /**
+     * @return A SHORT, HUMAN-READABLE SUMMARY FOR THE CONSOLE.
+     */
+    String summary() {
+        StringBuilder text = new StringBuilder();
+        double seconds = elapsedNanos / 1e9;
+        text.append(String.format("Run %s finished in %.1f s%n", runID, seconds));
+        text.append(String.format("%-13s %9s %9s %9s %9s %9s %9s%n", "operation", "count", "ops/s", "p50 ms", "p99 ms",
+                "p99.9 ms", "max ms"));
+        for (Map.Entry<RegistrationRush.Operation, Histogram> entry : latencies.entrySet()) {
+            Histogram histogram = entry.getValue();
+            text.append(String.format("%-13s %9d %9.1f %9.2f %9.2f %9.2f %9.2f%n", entry.getKey(),
+                    histogram.getTotalCount(), histogram.getTotalCount() / seconds,
+                    histogram.getValueAtPercentile(50.0) / 1000.0, histogram.getValueAtPercentile(99.0) / 1000.0,
+                    histogram.getValueAtPercentile(99.9) / 1000.0, histogram.getMaxValue() / 1000.0));
+        }
+        text.append("Outcomes: ");
+        outcomes.forEach((status, count) -> text.append(status).append('=').append(count.sum()).append(' '));
+        text.append(String.format("%nConstraint violations: %d, errors: %d, learners at cap: %d%n", constraintViolations,
+                errors.values().stream().mapToLong(LongAdder::sum).sum(), learnersAtCap));
+        text.append(String.format("Integrity: %d rows, %d learners over cap, %d duplicates%n",
+                integrity.registrations(), integrity.learnersOverCap(), integrity.duplicateRegistrations()));
+        return text.toString();
+    }
+
+    private static String encode(Histogram histogram) {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        return Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length));
+    }
+
+    private static String number(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"', '\\' -> quoted.append('\\').append(c);
+                case '\n' -> quoted.append("\\n");
+                case '\r' -> quoted.append("\\r");
+                case '\t' -> quoted.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+                }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
@@ -0,0 +1,62 @@
+package edu.capella.bsit.u07a1.benchmarks;
+
+import edu.capella.bsit.u07a1.Course;
+import edu.capella.bsit.u07a1.RegisteredCourse;
+import edu.capella.bsit.u07a1.RegistrationResult;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * SYNCHRONOUS SERVICE CALLS, MEASURED AS THROUGHPUT AND AS A SAMPLED LATENCY DISTRIBUTION (JMH REPORTS
+ * P50/P90/P99/P99.9 FOR SAMPLETIME). THE "COLD" VARIANTS INVALIDATE THE SERVICE CACHES FIRST SO THEY MEASURE THE
+ * DATABASE PATH; THE OTHERS MEASURE WHAT CALLERS SEE WITH WARM CACHES. RUN WITH JMH'S -t OPTION TO ADD
+ * CALLER THREADS.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmark extends ServiceFixture {
+
+    @Benchmark
+    public List<Course> getAllCourses() {
+        return service.getAllCourses();
+    }
+
+    @Benchmark
+    public List<Course> getAllCoursesCold() {
+        service.invalidateCatalog();
+        return service.getAllCourses();
+    }
+
+    @Benchmark
+    public List<RegisteredCourse> getAllCourseRegistrations() {
+        return service.getAllCourseRegistrations(randomLearner());
+    }
+
+    @Benchmark
+    public List<RegisteredCourse> getAllCourseRegistrationsCold() {
+        String learnerID = randomLearner();
+        service.invalidateRegistrations(learnerID);
+        return service.getAllCourseRegistrations(learnerID);
+    }
+
+    @Benchmark
+    public void createCourseRegistration() {
+        Course course = randomCourse();
+        service.createCourseRegistration(nextNewLearner(), course.getCourseCode(), course.getCreditHours());
+    }
+
+    @Benchmark
+    public RegistrationResult registerIfAllowed() {
+        return service.registerIfAllowed(nextNewLearner(), randomCourse().getCourseCode());
+    }
+}
@@ -0,0 +1,92 @@
+package edu.capella.bsit.u07a1.benchmarks;
+
+import edu.capella.bsit.u07a1.Course;
+import edu.capella.bsit.u07a1.CourseRegistrationService;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * SHARED BENCHMARK STATE: A SERVICE OVER A FRESH STORE HOLDING A CATALOG OF CATALOGSIZE COURSES AND
+ * {@value #LEARNERS} LEARNERS WITH REGISTRATIONSPERLEARNER REGISTRATIONS EACH. THE STORE IS AN EMBEDDED DATABASE
+ * ("jpa"), THE SAME WITH THE PLAIN-JDBC READS ("jdbc") OR THE IN-MEMORY ENGINE WITHOUT PERSISTENCE ("memory").
+ */
+@State(Scope.Benchmark)
+public abstract class ServiceFixture {
+    static final int LEARNERS = 1_000;
+
+    @Param({"10", "1000", "10000"})
+    public int catalogSize;
+
+    @Param({"3", "25"})
+    public int registrationsPerLearner;
+
+    @Param({"jpa", "jdbc", "memory"})
+    public String store;
+
+    protected CourseRegistrationService service;
+    protected List<Course> catalog;
+    private final AtomicLong newLearners = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Map<String, String> config = EmbeddedDatabase.newDatabase();
+        config.put(CourseRegistrationService.EXECUTOR_KEY, executorMode());
+        config.put(CourseRegistrationService.STORE_KEY, store);
+        config.put(CourseRegistrationService.STORE_PERSISTENT_KEY, "false");
+        service = new CourseRegistrationService(config);
+
+        for (int i = 0; i < catalogSize; i++) {
+            service.createCourse(String.format("IT%05d", i), 1 + i % 4);
+        }
+        catalog = service.getAllCourses();
+
+        Map<String, List<Course>> roster = new LinkedHashMap<>();
+        for (int learner = 0; learner < LEARNERS; learner++) {
+            List<Course> courses = new ArrayList<>(registrationsPerLearner);
+            for (int i = 0; i < Math.min(registrationsPerLearner, catalogSize); i++) {
+                courses.add(catalog.get((learner + i) % catalogSize));
+            }
+            roster.put(learnerID(learner), courses);
+        }
+        service.createCourseRegistrations(roster);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        service.close();
+    }
+
+    /**
+     * @return THE VALUE OF "service.executor" USED FOR THE SERVICE UNDER TEST.
+     */
+    protected String executorMode() {
+        return "platform";
+    }
+
+    protected Course randomCourse() {
+        return catalog.get(ThreadLocalRandom.current().nextInt(catalog.size()));
+    }
+
+    protected static String randomLearner() {
+        return learnerID(ThreadLocalRandom.current().nextInt(LEARNERS));
+    }
+
+    // WRITES USE LEARNERS THAT DO NOT EXIST YET, SO THE UNIQUE (LEARNER, COURSE) CONSTRAINT IS NEVER HIT
+    protected String nextNewLearner() {
+        return "N" + newLearners.incrementAndGet();
+    }
+
+    static String learnerID(int learner) {
+        return String.format("L%05d", learner);
+    }
+}
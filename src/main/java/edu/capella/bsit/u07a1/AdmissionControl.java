@@ -0,0 +1,470 @@
+package edu.capella.bsit.u07a1;
+
+import jakarta.persistence.LockTimeoutException;
+import jakarta.persistence.QueryTimeoutException;
+import java.sql.SQLTransientException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * ADMITS REGISTRATION WORK TO THE SERVICE AT A RATE THE DATABASE CAN SUSTAIN. WITHOUT IT, EVERY CLIENT FIRES ITS
+ * REGISTRATION THE MOMENT REGISTRATION OPENS, THE DATABASE TAKES ALL OF THEM AT ONCE, AND THROUGHPUT COLLAPSES
+ * WHILE EVERY REQUEST TIMES OUT.
+ *
+ * <p>AT MOST {@link #getLimit() LIMIT} UNITS OF WORK RUN AT ONCE. THE LIMIT ADAPTS TO THE OBSERVED LATENCY: IT GROWS
+ * BY ONE PER LIMIT'S WORTH OF COMPLETIONS WHILE IT IS IN USE AND THE RECENT AVERAGE LATENCY STAYS CLOSE TO THE
+ * LONG-TERM ONE, AND SHRINKS BY A TENTH (AT MOST ONCE PER LIMIT'S WORTH OF COMPLETIONS) WHEN THE RECENT AVERAGE
+ * DRIFTS FAR ABOVE IT OR WORK TIMES OUT, I.E. WHEN THE DATABASE STARTS QUEUEING (WORK THAT FAILS FOR ANY OTHER
+ * REASON, SUCH AS A DUPLICATE REGISTRATION, SAYS NOTHING ABOUT LOAD AND DOES NOT COUNT). WORK BEYOND THE LIMIT
+ * WAITS IN A FAIR FIFO QUEUE; EACH CALLER GETS A {@link Ticket} THAT REPORTS ITS POSITION IN LINE AND AN ESTIMATED
+ * WAIT, SO A CLIENT CAN SHOW PROGRESS INSTEAD OF TIMING OUT.
+ *
+ * <p>EXCESS DEMAND IS TURNED AWAY EARLY AND CHEAPLY RATHER THAN ALLOWED TO SLOW EVERYONE DOWN: A LEARNER
+ * SUBMITTING FASTER THAN THE PER-LEARNER RATE, A FULL QUEUE, AND A TICKET THAT WAITED LONGER THAN THE MAXIMUM WAIT
+ * ARE ALL REJECTED WITH A {@link Rejected} EXCEPTION.
+ */
+public final class AdmissionControl implements AutoCloseable {
+    // RECENT LATENCY THIS MUCH ABOVE THE LONG-TERM LATENCY MEANS THE DATABASE IS QUEUEING
+    private static final double LATENCY_TOLERANCE = 2.0;
+    private static final double BACKOFF = 0.9;
+    // WEIGHT OF THE NEWEST SAMPLE IN THE RECENT AVERAGE LATENCY AND IN THE THROUGHPUT ESTIMATE
+    private static final double SMOOTHING = 0.1;
+    // WEIGHT OF THE NEWEST SAMPLE IN THE LONG-TERM (BASELINE) LATENCY, WHICH FOLLOWS A CHANGING DATABASE SLOWLY
+    private static final double BASELINE_SMOOTHING = 0.01;
+
+    /**
+     * WHY WORK WAS NOT ADMITTED.
+     */
+    public enum Reason {
+        /** THE LEARNER SUBMITTED FASTER THAN THE PER-LEARNER RATE ALLOWS. */
+        RATE_LIMITED,
+        /** THE WAITING QUEUE WAS FULL. */
+        QUEUE_FULL,
+        /** THE WORK WAITED LONGER THAN THE MAXIMUM WAIT. */
+        TIMED_OUT,
+        /** THE SERVICE IS SHUTTING DOWN. */
+        CLOSED
+    }
+
+    /**
+     * THE FAILURE OF WORK THAT WAS NOT ADMITTED. NOTHING WAS WRITTEN; THE CALLER MAY TRY AGAIN LATER.
+     */
+    public static final class Rejected extends RejectedExecutionException {
+        private static final long serialVersionUID = 1L;
+        private final Reason reason;
+
+        Rejected(Reason reason, String message) {
+            super(message);
+            this.reason = reason;
+        }
+
+        /**
+         * @return WHY THE WORK WAS NOT ADMITTED.
+         */
+        public Reason getReason() {
+            return reason;
+        }
+    }
+
+    /**
+     * WHERE A TICKET STANDS.
+     *
+     * @param position ITS PLACE IN LINE (1 = NEXT TO RUN), OR 0 ONCE IT IS RUNNING OR DONE.
+     * @param etaMillis THE ESTIMATED WAIT BEFORE IT RUNS, OR -1 WHILE THERE IS NO THROUGHPUT TO ESTIMATE FROM.
+     */
+    public record QueueStatus(long position, long etaMillis) {
+        /**
+         * @return TRUE WHILE THE TICKET IS WAITING IN LINE.
+         */
+        public boolean isWaiting() {
+            return position > 0;
+        }
+    }
+
+    /**
+     * A CALLER'S CLAIM ON A UNIT OF WORK: ITS EVENTUAL RESULT, AND ITS PLACE IN LINE UNTIL IT RUNS. CANCELLING THE
+     * RESULT WHILE THE TICKET IS WAITING TAKES IT OUT OF THE QUEUE.
+     *
+     * @param <T> THE TYPE OF THE RESULT.
+     */
+    public static final class Ticket<T> {
+        private final AdmissionControl owner;
+        private final long sequence;
+        private final long enqueuedAt;
+        private final Supplier<CompletableFuture<T>> work;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private volatile boolean waiting;
+
+        private Ticket(AdmissionControl owner, long sequence, Supplier<CompletableFuture<T>> work) {
+            this.owner = owner;
+            this.sequence = sequence;
+            this.enqueuedAt = System.nanoTime();
+            this.work = work;
+        }
+
+        /**
+         * WRAPS WORK THAT WAS STARTED WITHOUT ADMISSION CONTROL.
+         *
+         * @param result THE WORK'S RESULT.
+         * @return A TICKET THAT IS ALREADY RUNNING.
+         */
+        public static <T> Ticket<T> running(CompletableFuture<T> result) {
+            Ticket<T> ticket = new Ticket<>(null, 0, null);
+            result.whenComplete((value, ex) -> ticket.settle(value, ex));
+            return ticket;
+        }
+
+        /**
+         * @return THE WORK'S RESULT; IT FAILS WITH {@link Rejected} IF THE WORK WAS NOT ADMITTED.
+         */
+        public CompletableFuture<T> result() {
+            return result;
+        }
+
+        /**
+         * @return THE TICKET'S CURRENT PLACE IN LINE AND ESTIMATED WAIT.
+         */
+        public QueueStatus status() {
+            return waiting ? owner.statusOf(sequence) : new QueueStatus(0, 0);
+        }
+
+        private void settle(T value, Throwable ex) {
+            if (ex != null) {
+                result.completeExceptionally(ex);
+            } else {
+                result.complete(value);
+            }
+        }
+    }
+
+    // ONE LEARNER'S SUBMISSION ALLOWANCE
+    private static final class TokenBucket {
+        private final double ratePerNano;
+        private final double burst;
+        private double tokens;
+        private long refilledAt;
+
+        TokenBucket(double ratePerSecond, double burst, long now) {
+            this.ratePerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.burst = burst;
+            this.tokens = burst;
+            this.refilledAt = now;
+        }
+
+        synchronized boolean tryTake(long now) {
+            refill(now);
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+            return true;
+        }
+
+        synchronized boolean isFull(long now) {
+            refill(now);
+            return tokens >= burst;
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(burst, tokens + (now - refilledAt) * ratePerNano);
+            refilledAt = now;
+        }
+    }
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueue;
+    private final long maxWaitNanos;
+    private final double learnerRatePerSecond;
+    private final int learnerBurst;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService sweeper;
+
+    // GUARDED BY this
+    private final Deque<Ticket<?>> queue = new ArrayDeque<>();
+    private double limit;
+    private int inFlight;
+    private long nextSequence = 1;
+    // SEQUENCE OF THE LAST TICKET THAT LEFT THE QUEUE FROM ITS HEAD, AND THE SEQUENCES AFTER IT OF TICKETS THAT
+    // WERE WITHDRAWN FROM THE MIDDLE. A WAITING TICKET'S POSITION IS ITS DISTANCE FROM THE FORMER LESS THE
+    // WITHDRAWN TICKETS IN BETWEEN, WHICH ARE FEW (CANCELLATIONS ARE RARE), SO COUNTING THEM IS CHEAP.
+    private long departedSequence;
+    private final NavigableSet<Long> withdrawnSequences = new TreeSet<>();
+    private double baselineNanos;
+    private double averageNanos;
+    // COMPLETIONS LEFT BEFORE THE LIMIT MAY SHRINK AGAIN, SO ONE SLOW STRETCH COUNTS ONCE
+    private int backoffCooldown;
+    private long lastCompletion;
+    private double completionIntervalNanos;
+    private long admitted;
+    private long rejected;
+    private boolean closed;
+
+    /**
+     * STARTS THE SWEEPER THAT TIMES OUT WAITING TICKETS.
+     *
+     * @param initialLimit THE CONCURRENCY LIMIT TO START FROM.
+     * @param minLimit THE LOWEST THE LIMIT MAY ADAPT TO.
+     * @param maxLimit THE HIGHEST THE LIMIT MAY ADAPT TO.
+     * @param maxQueue HOW MANY TICKETS MAY WAIT; FURTHER WORK IS REJECTED.
+     * @param maxWaitSeconds HOW LONG A TICKET MAY WAIT BEFORE IT IS REJECTED.
+     * @param learnerRatePerSecond SUBMISSIONS PER SECOND ALLOWED PER LEARNER, OR 0 FOR NO LIMIT.
+     * @param learnerBurst SUBMISSIONS A LEARNER MAY MAKE AT ONCE BEFORE THE RATE APPLIES.
+     */
+    public AdmissionControl(int initialLimit, int minLimit, int maxLimit, int maxQueue, int maxWaitSeconds,
+                            double learnerRatePerSecond, int learnerBurst) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Admission limits must satisfy 1 <= min <= max.");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.maxQueue = maxQueue;
+        this.maxWaitNanos = TimeUnit.SECONDS.toNanos(maxWaitSeconds);
+        this.learnerRatePerSecond = learnerRatePerSecond;
+        this.learnerBurst = Math.max(1, learnerBurst);
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "admission-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweep, 1, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * SUBMITS A UNIT OF WORK. IT STARTS AT ONCE IF THE LIMIT ALLOWS AND NOBODY IS WAITING, OTHERWISE IT WAITS ITS
+     * TURN. EITHER WAY THIS RETURNS IMMEDIATELY.
+     *
+     * @param learnerID THE LEARNER THE WORK IS FOR; THEIR SUBMISSIONS ARE RATE-LIMITED.
+     * @param work STARTS THE WORK AND RETURNS ITS RESULT; IT IS CALLED AT MOST ONCE, WHEN THE WORK IS ADMITTED.
+     * @return THE CALLER'S TICKET.
+     */
+    public <T> Ticket<T> submit(String learnerID, Supplier<CompletableFuture<T>> work) {
+        long now = System.nanoTime();
+        Ticket<T> ticket;
+        Reason refusal = null;
+        synchronized (this) {
+            ticket = new Ticket<>(this, nextSequence, work);
+            if (closed) {
+                refusal = Reason.CLOSED;
+            } else if (!allowed(learnerID, now)) {
+                refusal = Reason.RATE_LIMITED;
+            } else if (queue.isEmpty() && inFlight < (int) limit) {
+                inFlight++;
+                admitted++;
+            } else if (queue.size() >= maxQueue) {
+                refusal = Reason.QUEUE_FULL;
+            } else {
+                nextSequence++;
+                ticket.waiting = true;
+                queue.addLast(ticket);
+            }
+        }
+        if (refusal != null) {
+            reject(ticket, refusal);
+        } else if (ticket.waiting) {
+            ticket.result.whenComplete((value, ex) -> withdraw(ticket));
+        } else {
+            start(ticket);
+        }
+        return ticket;
+    }
+
+    /**
+     * @return THE CURRENT CONCURRENCY LIMIT.
+     */
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * @return UNITS OF WORK RUNNING NOW.
+     */
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * @return TICKETS WAITING NOW.
+     */
+    public synchronized int getQueueLength() {
+        return queue.size();
+    }
+
+    /**
+     * @return UNITS OF WORK ADMITTED SO FAR.
+     */
+    public synchronized long getAdmitted() {
+        return admitted;
+    }
+
+    /**
+     * @return UNITS OF WORK REJECTED SO FAR.
+     */
+    public synchronized long getRejected() {
+        return rejected;
+    }
+
+    private boolean allowed(String learnerID, long now) {
+        if (learnerRatePerSecond <= 0 || learnerID == null) {
+            return true;
+        }
+        return buckets.computeIfAbsent(learnerID, k -> new TokenBucket(learnerRatePerSecond, learnerBurst, now))
+                .tryTake(now);
+    }
+
+    private synchronized QueueStatus statusOf(long sequence) {
+        long ahead = withdrawnSequences.subSet(departedSequence, false, sequence, false).size();
+        long position = Math.max(1, sequence - departedSequence - ahead);
+        long eta = completionIntervalNanos == 0 ? -1
+                : TimeUnit.NANOSECONDS.toMillis((long) (position * completionIntervalNanos));
+        return new QueueStatus(position, eta);
+    }
+
+    private <T> void start(Ticket<T> ticket) {
+        long startedAt = System.nanoTime();
+        CompletableFuture<T> running;
+        try {
+            running = ticket.work.get();
+        } catch (RuntimeException ex) {
+            running = CompletableFuture.failedFuture(ex);
+        }
+        running.whenComplete((value, ex) -> {
+            finished(System.nanoTime() - startedAt, ex != null && isTimeout(ex));
+            ticket.settle(value, ex);
+        });
+    }
+
+    // TRUE IF THE WORK FAILED BECAUSE SOMETHING BELOW IT TIMED OUT: A WAIT, A QUERY OR LOCK TIMEOUT, OR A TRANSIENT
+    // DATABASE FAILURE (CONNECTION POOL TIMEOUTS AND DEADLOCK ROLLBACKS ARE SQLTRANSIENTEXCEPTIONS)
+    private static boolean isTimeout(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            if (cause instanceof TimeoutException || cause instanceof SQLTransientException
+                    || cause instanceof QueryTimeoutException || cause instanceof LockTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // RECORDS A COMPLETION, ADAPTS THE LIMIT AND STARTS AS MANY WAITING TICKETS AS IT NOW ALLOWS
+    private void finished(long latencyNanos, boolean timedOut) {
+        Deque<Ticket<?>> ready = new ArrayDeque<>();
+        Deque<Ticket<?>> expired = new ArrayDeque<>();
+        synchronized (this) {
+            inFlight--;
+            long now = System.nanoTime();
+            if (lastCompletion != 0) {
+                double interval = now - lastCompletion;
+                completionIntervalNanos = completionIntervalNanos == 0 ? interval
+                        : completionIntervalNanos + SMOOTHING * (interval - completionIntervalNanos);
+            }
+            lastCompletion = now;
+            adapt(latencyNanos, timedOut);
+            while (!queue.isEmpty() && inFlight < (int) limit) {
+                Ticket<?> next = queue.pollFirst();
+                departed(next);
+                if (now - next.enqueuedAt > maxWaitNanos) {
+                    expired.add(next);
+                } else {
+                    inFlight++;
+                    admitted++;
+                    ready.add(next);
+                }
+            }
+        }
+        expired.forEach(ticket -> reject(ticket, Reason.TIMED_OUT));
+        ready.forEach(this::start);
+    }
+
+    // GUARDED BY this
+    private void adapt(long latencyNanos, boolean timedOut) {
+        baselineNanos = baselineNanos == 0 ? latencyNanos
+                : baselineNanos + BASELINE_SMOOTHING * (latencyNanos - baselineNanos);
+        averageNanos = averageNanos == 0 ? latencyNanos : averageNanos + SMOOTHING * (latencyNanos - averageNanos);
+        if (backoffCooldown > 0) {
+            backoffCooldown--;
+        }
+        if (timedOut || averageNanos > baselineNanos * LATENCY_TOLERANCE) {
+            if (backoffCooldown == 0) {
+                limit = Math.max(minLimit, limit * BACKOFF);
+                backoffCooldown = (int) limit;
+            }
+        } else if (inFlight + 1 >= (int) limit) {
+            // ONLY GROW WHILE THE LIMIT IS ACTUALLY THE BOTTLENECK
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+    }
+
+    // TAKES A CANCELLED (OR OTHERWISE SETTLED) TICKET OUT OF THE QUEUE; THE TICKETS BEHIND IT MOVE UP
+    private synchronized void withdraw(Ticket<?> ticket) {
+        if (ticket.waiting && queue.remove(ticket)) {
+            ticket.waiting = false;
+            withdrawnSequences.add(ticket.sequence);
+        }
+    }
+
+    // GUARDED BY this: A TICKET LEFT THE HEAD OF THE QUEUE
+    private void departed(Ticket<?> ticket) {
+        departedSequence = ticket.sequence;
+        ticket.waiting = false;
+        withdrawnSequences.headSet(departedSequence, true).clear();
+    }
+
+    private void reject(Ticket<?> ticket, Reason reason) {
+        synchronized (this) {
+            rejected++;
+        }
+        String message = switch (reason) {
+            case RATE_LIMITED -> "Too many registration requests; please slow down.";
+            case QUEUE_FULL -> "Registration is at capacity; please try again shortly.";
+            case TIMED_OUT -> "Registration waited too long in line; please try again.";
+            case CLOSED -> "Registration is shutting down.";
+        };
+        ticket.result.completeExceptionally(new Rejected(reason, message));
+    }
+
+    // TIMES OUT TICKETS THAT WAITED TOO LONG AND FORGETS LEARNERS WHOSE ALLOWANCE IS FULL AGAIN
+    private void sweep() {
+        Deque<Ticket<?>> expired = new ArrayDeque<>();
+        long now = System.nanoTime();
+        synchronized (this) {
+            // THE QUEUE IS IN ARRIVAL ORDER, SO THE EXPIRED TICKETS ARE AT ITS HEAD
+            while (!queue.isEmpty() && now - queue.peekFirst().enqueuedAt > maxWaitNanos) {
+                Ticket<?> ticket = queue.pollFirst();
+                departed(ticket);
+                expired.add(ticket);
+            }
+        }
+        expired.forEach(ticket -> reject(ticket, Reason.TIMED_OUT));
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    /**
+     * STOPS ADMITTING WORK AND REJECTS EVERY WAITING TICKET. WORK ALREADY RUNNING IS LEFT TO FINISH.
+     */
+    @Override
+    public void close() {
+        sweeper.shutdownNow();
+        Deque<Ticket<?>> waiting;
+        synchronized (this) {
+            closed = true;
+            waiting = new ArrayDeque<>(queue);
+            queue.clear();
+            withdrawnSequences.clear();
+            waiting.forEach(ticket -> ticket.waiting = false);
+        }
+        waiting.forEach(ticket -> reject(ticket, Reason.CLOSED));
+    }
+}
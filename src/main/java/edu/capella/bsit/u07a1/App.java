@@ -7,16 +7,36 @@ import javafx.scene.image.Image;
 import javafx.stage.Stage;
 import java.io.IOException;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 
 /**
  * MAIN APPLICATION CLASS FOR THE JAVAFX FXML APPLICATION.
  * THIS CLASS EXTENDS JAVAFX.APPLICATION AND OVERRIDES THE START METHOD TO LAUNCH THE APPLICATION UI.
  * IT LOADS THE FXML FOR THE MAIN WINDOW, SETS UP THE SCENE, AND CONFIGURES THE PRIMARY STAGE.
+ * THE REGISTRATION SERVICE (HIBERNATE BOOT AND DATABASE CONNECTION) STARTS ON A BACKGROUND THREAD IN init(), SO
+ * THE WINDOW APPEARS WITHOUT WAITING FOR IT.
  */
 public class App extends Application {
     // INITIALIZES THE FXMLLoader WITH THE PATH TO THE FXML FILE.
     private FXMLLoader fxmlLoader;
+    // COMPLETES WITH THE SERVICE ONCE IT HAS BOOTED
+    private CompletableFuture<CourseRegistrationService> pendingService;
+
+    /**
+     * STARTS BOOTING THE REGISTRATION SERVICE ON A BACKGROUND THREAD. THIS RUNS BEFORE start(), SO HIBERNATE BOOTS
+     * WHILE JAVAFX LOADS THE FXML AND SHOWS THE WINDOW INSTEAD OF BLOCKING THE FX APPLICATION THREAD.
+     */
+    @Override
+    public void init() {
+        pendingService = CompletableFuture.supplyAsync(
+                () -> new CourseRegistrationService(CourseRegistrationController.loadConfiguration()).start(),
+                task -> {
+                    Thread bootstrap = new Thread(task, "service-bootstrap");
+                    bootstrap.setDaemon(true);
+                    bootstrap.start();
+                });
+    }
 
     /**
      * STARTS THE APPLICATION BY LOADING THE FXML FILE, CREATING THE SCENE, AND SHOWING THE PRIMARY STAGE.
@@ -38,6 +58,8 @@ public class App extends Application {
             stage.setScene(scene);
             stage.getIcons().add(new Image(Objects.requireNonNull(getClass().getResource("/edu/capella/bsit/u07a1/icon.png")).toExternalForm()));
             stage.show();
+            // THE CONTROLLER SHOWS THE CATALOG SNAPSHOT UNTIL THE SERVICE IS READY
+            fxmlLoader.<CourseRegistrationController>getController().connect(pendingService);
         } catch (IOException ex) {
             // HANDLES IO EXCEPTIONS RELATED TO LOADING THE FXML FILE.
             System.err.println("Error Loading FXML: " + ex.getMessage());
@@ -50,6 +72,10 @@ public class App extends Application {
      */
     @Override
     public void stop() {
+        // A SERVICE THAT IS STILL BOOTING IS CLOSED AS SOON AS IT IS UP
+        if (!pendingService.isDone()) {
+            pendingService.thenAccept(CourseRegistrationService::close);
+        }
         CourseRegistrationController controller = fxmlLoader.getController();
         controller.stopApplication();
     }
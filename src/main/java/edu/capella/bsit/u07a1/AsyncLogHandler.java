@@ -0,0 +1,154 @@
+package edu.capella.bsit.u07a1;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * LOGGING HANDLER THAT HANDS RECORDS TO A BACKGROUND WRITER INSTEAD OF WRITING THEM ON THE CALLING THREAD.
+ * RECORDS GO INTO A BOUNDED RING BUFFER; A SINGLE DAEMON THREAD DRAINS THEM IN BATCHES, FORMATS THEM (SO MESSAGE
+ * PARAMETERS ARE ONLY FORMATTED OFF THE CALLER'S THREAD) AND PASSES THEM TO THE TARGET HANDLER, FLUSHING THE TARGET
+ * ONCE PER BATCH. WHAT HAPPENS WHEN THE BUFFER IS FULL IS DECIDED BY THE {@link OverflowPolicy}.
+ */
+public final class AsyncLogHandler extends Handler {
+    // MAXIMUM NUMBER OF RECORDS WRITTEN BETWEEN TWO FLUSHES OF THE TARGET HANDLER.
+    private static final int MAX_BATCH = 256;
+
+    /**
+     * WHAT A LOGGING THREAD DOES WHEN THE BUFFER IS FULL.
+     */
+    public enum OverflowPolicy {
+        // WAIT FOR SPACE. NOTHING IS LOST, BUT THE CALLER STALLS WHILE THE DISK CATCHES UP.
+        BLOCK,
+        // DISCARD THE RECORD. THE CALLER NEVER STALLS.
+        DROP,
+        // WARNING AND SEVERE RECORDS WAIT FOR SPACE; ONLY ONE IN EVERY SAMPLE_RATE LOWER-LEVEL RECORDS IS KEPT
+        // (WAITING FOR SPACE) AND THE REST ARE DISCARDED.
+        SAMPLE
+    }
+
+    private static final int SAMPLE_RATE = 10;
+
+    private final Handler target;
+    private final BlockingQueue<LogRecord> buffer;
+    private final OverflowPolicy policy;
+    private final Thread writer;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong overflowed = new AtomicLong();
+    private volatile boolean closed;
+
+    // THE WRITER THREAD IS STARTED BY start(), ONCE THE HANDLER IS FULLY BUILT
+    private AsyncLogHandler(Handler target, int capacity, OverflowPolicy policy) {
+        this.target = target;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.policy = policy;
+        this.writer = new Thread(this::drain, "async-log-writer");
+        this.writer.setDaemon(true);
+    }
+
+    /**
+     * CREATES THE HANDLER AND STARTS ITS WRITER THREAD.
+     *
+     * @param target THE HANDLER THAT PERFORMS THE ACTUAL OUTPUT; IT IS ONLY EVER CALLED FROM THE WRITER THREAD.
+     * @param capacity THE NUMBER OF RECORDS THE BUFFER HOLDS.
+     * @param policy WHAT TO DO WHEN THE BUFFER IS FULL.
+     * @return THE RUNNING HANDLER.
+     */
+    public static AsyncLogHandler start(Handler target, int capacity, OverflowPolicy policy) {
+        AsyncLogHandler handler = new AsyncLogHandler(target, capacity, policy);
+        handler.writer.start();
+        return handler;
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (closed || !isLoggable(record)) {
+            return;
+        }
+        if (buffer.offer(record)) {
+            return;
+        }
+        boolean keep = switch (policy) {
+            case BLOCK -> true;
+            case DROP -> false;
+            case SAMPLE -> record.getLevel().intValue() >= Level.WARNING.intValue()
+                    || overflowed.incrementAndGet() % SAMPLE_RATE == 0;
+        };
+        if (!keep) {
+            dropped.incrementAndGet();
+            return;
+        }
+        try {
+            buffer.put(record);
+        } catch (InterruptedException ex) {
+            dropped.incrementAndGet();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // WRITER LOOP: WAIT FOR A RECORD, THEN TAKE WHATEVER ELSE IS ALREADY BUFFERED AND WRITE IT AS ONE BATCH.
+    private void drain() {
+        List<LogRecord> batch = new ArrayList<>(MAX_BATCH);
+        while (!closed || !buffer.isEmpty()) {
+            try {
+                LogRecord first = buffer.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch, MAX_BATCH - 1);
+                write(batch);
+                batch.clear();
+            } catch (InterruptedException ex) {
+                // CLOSE() INTERRUPTS THE WRITER; THE LOOP CONDITION DECIDES WHETHER ANYTHING IS LEFT TO WRITE
+            }
+        }
+    }
+
+    private void write(List<LogRecord> batch) {
+        for (LogRecord record : batch) {
+            try {
+                target.publish(record);
+            } catch (RuntimeException ex) {
+                reportError(null, ex, ErrorManager.WRITE_FAILURE);
+            }
+        }
+        target.flush();
+    }
+
+    /**
+     * @return THE NUMBER OF RECORDS DISCARDED BECAUSE THE BUFFER WAS FULL.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * NOTHING TO DO: THE WRITER FLUSHES THE TARGET AFTER EVERY BATCH.
+     */
+    @Override
+    public void flush() {
+    }
+
+    /**
+     * STOPS ACCEPTING RECORDS, WAITS (UP TO A FEW SECONDS) FOR THE WRITER TO EMPTY THE BUFFER, THEN CLOSES THE TARGET.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        writer.interrupt();
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        target.close();
+    }
+}
@@ -0,0 +1,426 @@
+package edu.capella.bsit.u07a1;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.DoubleSupplier;
+import java.util.function.Function;
+
+/**
+ * COMMAND LINE TOOL FOR LOADING AND DUMPING THE COURSE_OFFERINGS AND LEARNER_REGISTRATION TABLES AS CSV, BUILT ON
+ * {@link CourseRegistrationService}. NOTHING IS HELD IN MEMORY WHOLE: IMPORTS READ THE FILE AS A STREAM THROUGH A
+ * {@link FileChannel} AND FEED ROWS TO {@link CourseRegistrationService#importCourses} /
+ * {@link CourseRegistrationService#importRegistrations}, WHICH INSERT THEM IN JDBC BATCHES AND COMMIT IN CHUNKS;
+ * EXPORTS WRITE ROWS AS {@link CourseRegistrationService#streamCourses} /
+ * {@link CourseRegistrationService#streamRegistrations} PRODUCE THEM.
+ *
+ * <p>USAGE: {@code BulkTransfer <import|export> <courses|registrations> <file.csv>}
+ *
+ * <p>FILE FORMATS (A HEADER LINE IS WRITTEN ON EXPORT AND SKIPPED ON IMPORT IF PRESENT):
+ * <ul>
+ *     <li>courses: course_code,credit_hours[,capacity] (AN EMPTY OR MISSING CAPACITY MEANS NO LIMIT)</li>
+ *     <li>registrations: learner_id,course_code,credit_hours</li>
+ * </ul>
+ * ROWS THAT FAIL VALIDATION (MISSING FIELDS, NON-NUMERIC OR OUT-OF-RANGE CREDIT HOURS, OVER-LONG CODES) ARE SKIPPED
+ * AND REPORTED BY LINE NUMBER; THE TOOL THEN EXITS WITH STATUS 1. PROGRESS AND THROUGHPUT ARE PRINTED TO STDERR.
+ */
+public class BulkTransfer {
+    private static final String COURSES_HEADER = "course_code,credit_hours,capacity";
+    private static final String REGISTRATIONS_HEADER = "learner_id,course_code,credit_hours";
+    // LONGEST CODE OR ID ACCEPTED (THE DEFAULT VARCHAR LENGTH OF THE MAPPED COLUMNS)
+    private static final int MAX_FIELD_LENGTH = 255;
+    // HOW MANY REJECTED ROWS ARE LISTED INDIVIDUALLY
+    private static final int MAX_REPORTED_ERRORS = 20;
+    private static final int IO_BUFFER = 1 << 16;
+
+    private final CourseRegistrationService service;
+    private final Progress progress = new Progress();
+
+    /**
+     * @param service THE SERVICE THE ROWS ARE READ FROM OR WRITTEN TO.
+     */
+    public BulkTransfer(CourseRegistrationService service) {
+        this.service = service;
+    }
+
+    /**
+     * RUNS ONE TRANSFER AGAINST THE DATABASE CONFIGURED IN JDBC.PROPERTIES.
+     *
+     * @param args THE DIRECTION, THE TABLE AND THE FILE.
+     */
+    public static void main(String[] args) {
+        if (args.length != 3 || !args[0].matches("import|export") || !args[1].matches("courses|registrations")) {
+            System.err.println("Usage: BulkTransfer <import|export> <courses|registrations> <file.csv>");
+            System.exit(2);
+        }
+        Map<String, String> config = CourseRegistrationController.loadConfiguration();
+        // ECHOING EVERY STATEMENT TO THE CONSOLE WOULD DOMINATE THE RUN TIME OF A BULK LOAD
+        config.put("hibernate.show_sql", "false");
+        config.put("hibernate.format_sql", "false");
+        config.put("hibernate.use_sql_comments", "false");
+        boolean clean;
+        try (CourseRegistrationService service = new CourseRegistrationService(config)) {
+            BulkTransfer transfer = new BulkTransfer(service);
+            Path file = Path.of(args[2]);
+            boolean courses = args[1].equals("courses");
+            if (args[0].equals("import")) {
+                clean = courses ? transfer.importCourses(file) : transfer.importRegistrations(file);
+            } else {
+                if (courses) {
+                    transfer.exportCourses(file);
+                } else {
+                    transfer.exportRegistrations(file);
+                }
+                clean = true;
+            }
+        } catch (IOException | UncheckedIOException ex) {
+            System.err.println("Transfer failed: " + ex.getMessage());
+            clean = false;
+        }
+        System.exit(clean ? 0 : 1);
+    }
+
+    /**
+     * LOADS COURSES FROM A CSV FILE.
+     *
+     * @param file THE FILE TO READ.
+     * @return TRUE IF EVERY ROW WAS VALID.
+     * @throws IOException IF THE FILE CANNOT BE OPENED.
+     */
+    public boolean importCourses(Path file) throws IOException {
+        try (CsvRows<Course> rows = new CsvRows<>(file, COURSES_HEADER, fields -> {
+            if (fields.length != 2) {
+                expectFields(fields, 3);
+            }
+            return new Course(code(fields[0], "course_code"), creditHours(fields[1]),
+                    fields.length == 3 ? capacity(fields[2]) : null);
+        })) {
+            progress.start("Importing courses", rows::fraction);
+            long imported = service.importCourses(rows, progress::update);
+            progress.finish(imported);
+            return rows.reportErrors();
+        }
+    }
+
+    /**
+     * LOADS REGISTRATIONS FROM A CSV FILE.
+     *
+     * @param file THE FILE TO READ.
+     * @return TRUE IF EVERY ROW WAS VALID.
+     * @throws IOException IF THE FILE CANNOT BE OPENED.
+     */
+    public boolean importRegistrations(Path file) throws IOException {
+        try (CsvRows<RegisteredCourse> rows = new CsvRows<>(file, REGISTRATIONS_HEADER, fields -> {
+            expectFields(fields, 3);
+            return new RegisteredCourse(code(fields[0], "learner_id"), code(fields[1], "course_code"),
+                    creditHours(fields[2]));
+        })) {
+            progress.start("Importing registrations", rows::fraction);
+            long imported = service.importRegistrations(rows, progress::update);
+            progress.finish(imported);
+            return rows.reportErrors();
+        }
+    }
+
+    /**
+     * WRITES THE WHOLE CATALOG TO A CSV FILE.
+     *
+     * @param file THE FILE TO (RE)WRITE.
+     * @throws IOException IF THE FILE CANNOT BE WRITTEN.
+     */
+    public void exportCourses(Path file) throws IOException {
+        try (BufferedWriter out = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8), IO_BUFFER)) {
+            out.write(COURSES_HEADER);
+            out.newLine();
+            progress.start("Exporting courses", () -> -1);
+            long[] written = {0};
+            long exported = service.streamCourses(null, course -> {
+                writeRow(out, course.getCourseCode(), Integer.toString(course.getCreditHours()),
+                        course.getCapacity() == null ? "" : course.getCapacity().toString());
+                progress.tick(++written[0]);
+            });
+            progress.finish(exported);
+        }
+    }
+
+    /**
+     * WRITES EVERY REGISTRATION TO A CSV FILE.
+     *
+     * @param file THE FILE TO (RE)WRITE.
+     * @throws IOException IF THE FILE CANNOT BE WRITTEN.
+     */
+    public void exportRegistrations(Path file) throws IOException {
+        try (BufferedWriter out = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8), IO_BUFFER)) {
+            out.write(REGISTRATIONS_HEADER);
+            out.newLine();
+            progress.start("Exporting registrations", () -> -1);
+            long[] written = {0};
+            long exported = service.streamRegistrations(registration -> {
+                writeRow(out, registration.getLearnerID(), registration.getCourseCode(),
+                        Integer.toString(registration.getCreditHours()));
+                progress.tick(++written[0]);
+            });
+            progress.finish(exported);
+        }
+    }
+
+    // VALIDATION
+
+    private static void expectFields(String[] fields, int count) {
+        if (fields.length != count) {
+            throw new IllegalArgumentException("expected " + count + " fields, found " + fields.length);
+        }
+    }
+
+    private static String code(String value, String column) {
+        String trimmed = value.trim();
+        if (trimmed.isEmpty()) {
+            throw new IllegalArgumentException(column + " is empty");
+        }
+        if (trimmed.length() > MAX_FIELD_LENGTH) {
+            throw new IllegalArgumentException(column + " is longer than " + MAX_FIELD_LENGTH + " characters");
+        }
+        return trimmed;
+    }
+
+    private static int creditHours(String value) {
+        int credits;
+        try {
+            credits = Integer.parseInt(value.trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("credit_hours is not a number: " + value);
+        }
+        if (credits < 1 || credits > CourseRegistrationService.MAX_CREDIT_LOAD) {
+            throw new IllegalArgumentException("credit_hours must be between 1 and "
+                    + CourseRegistrationService.MAX_CREDIT_LOAD + ": " + credits);
+        }
+        return credits;
+    }
+
+    private static Integer capacity(String value) {
+        if (value.isBlank()) {
+            return null;
+        }
+        int capacity;
+        try {
+            capacity = Integer.parseInt(value.trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("capacity is not a number: " + value);
+        }
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must not be negative: " + capacity);
+        }
+        return capacity;
+    }
+
+    // CSV
+
+    // WRITES ONE RECORD, QUOTING FIELDS THAT CONTAIN A SEPARATOR, QUOTE OR LINE BREAK (RFC 4180)
+    private static void writeRow(Writer out, String... fields) {
+        try {
+            for (int i = 0; i < fields.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                String field = fields[i];
+                if (field.indexOf(',') >= 0 || field.indexOf('"') >= 0 || field.indexOf('\n') >= 0 || field.indexOf('\r') >= 0) {
+                    out.write('"');
+                    out.write(field.replace("\"", "\"\""));
+                    out.write('"');
+                } else {
+                    out.write(field);
+                }
+            }
+            out.write(System.lineSeparator());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // SPLITS ONE LINE INTO FIELDS, HONOURING DOUBLE-QUOTED FIELDS (QUOTED LINE BREAKS ARE NOT SUPPORTED)
+    private static String[] parseRow(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+
+    /**
+     * LAZY ITERATOR OVER THE VALID ROWS OF A CSV FILE. THE FILE IS READ THROUGH A FILECHANNEL, WHOSE POSITION GIVES
+     * THE FRACTION OF THE INPUT CONSUMED SO FAR; INVALID ROWS ARE SKIPPED AND REMEMBERED FOR THE FINAL REPORT.
+     */
+    private static final class CsvRows<T> implements Iterator<T>, AutoCloseable {
+        private final FileChannel channel;
+        private final BufferedReader reader;
+        private final long size;
+        private final String header;
+        private final Function<String[], T> mapper;
+        private final List<String> errors = new ArrayList<>();
+        private long rejected;
+        private long lineNumber;
+        private T next;
+
+        CsvRows(Path file, String header, Function<String[], T> mapper) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            this.size = channel.size();
+            this.reader = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT), IO_BUFFER), IO_BUFFER);
+            this.header = header;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null) {
+                String line;
+                try {
+                    line = reader.readLine();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException("Could not read line " + (lineNumber + 1), ex);
+                }
+                if (line == null) {
+                    return false;
+                }
+                lineNumber++;
+                if (line.isBlank() || (lineNumber == 1 && isHeader(line))) {
+                    continue;
+                }
+                try {
+                    next = mapper.apply(parseRow(line));
+                } catch (IllegalArgumentException ex) {
+                    rejected++;
+                    if (errors.size() < MAX_REPORTED_ERRORS) {
+                        errors.add("line " + lineNumber + ": " + ex.getMessage());
+                    }
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T row = next;
+            next = null;
+            return row;
+        }
+
+        // THE HEADER, OR A LEADING PART OF IT (FILES WRITTEN BEFORE AN OPTIONAL TRAILING COLUMN WAS ADDED)
+        private boolean isHeader(String line) {
+            String trimmed = line.trim();
+            return header.regionMatches(true, 0, trimmed, 0, trimmed.length())
+                    && (trimmed.length() == header.length() || header.charAt(trimmed.length()) == ',');
+        }
+
+        // SHARE OF THE FILE READ SO FAR (THE READER'S BUFFER RUNS SLIGHTLY AHEAD OF THE ROWS HANDED OUT)
+        double fraction() {
+            try {
+                return size == 0 ? 1.0 : (double) channel.position() / size;
+            } catch (IOException ex) {
+                return -1;
+            }
+        }
+
+        // PRINTS THE REJECTED ROWS; TRUE IF THERE WERE NONE
+        boolean reportErrors() {
+            if (rejected == 0) {
+                return true;
+            }
+            System.err.printf("%d invalid row(s) skipped:%n", rejected);
+            errors.forEach(error -> System.err.println("  " + error));
+            if (rejected > errors.size()) {
+                System.err.printf("  ... and %d more%n", rejected - errors.size());
+            }
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    /**
+     * PRINTS ROWS DONE, SHARE OF THE INPUT (FOR IMPORTS) AND ROWS PER SECOND TO STDERR, AT MOST ONCE A SECOND.
+     */
+    private static final class Progress {
+        private String label;
+        private DoubleSupplier fraction;
+        private long started;
+        private long lastPrinted;
+
+        void start(String label, DoubleSupplier fraction) {
+            this.label = label;
+            this.fraction = fraction;
+            this.started = System.nanoTime();
+            this.lastPrinted = started;
+        }
+
+        // CALLED PER ROW BY EXPORTS; ONLY LOOKS AT THE CLOCK EVERY 1024 ROWS
+        void tick(long rows) {
+            if ((rows & 1023) == 0) {
+                update(rows);
+            }
+        }
+
+        void update(long rows) {
+            long now = System.nanoTime();
+            if (now - lastPrinted >= 1_000_000_000L) {
+                lastPrinted = now;
+                print(rows, now);
+            }
+        }
+
+        void finish(long rows) {
+            print(rows, System.nanoTime());
+        }
+
+        private void print(long rows, long now) {
+            double seconds = Math.max(now - started, 1) / 1e9;
+            double done = fraction.getAsDouble();
+            System.err.printf("%s: %,d rows%s in %.1fs (%,.0f rows/s)%n", label, rows,
+                    done >= 0 ? String.format(" (%.0f%% of input)", Math.min(done, 1.0) * 100) : "",
+                    seconds, rows / seconds);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package edu.capella.bsit.u07a1;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * LOCAL COPY OF THE LAST COURSE CATALOG PAGE THE APPLICATION RECEIVED, SO THE COURSE TABLE CAN BE FILLED THE MOMENT
+ * THE WINDOW OPENS, BEFORE HIBERNATE HAS BOOTED AND CONNECTED. THE CONTROLLER SHOWS THE SNAPSHOT FIRST AND REPLACES
+ * IT WITH THE LIVE CATALOG ONCE THE SERVICE IS READY (STALE-WHILE-REVALIDATE), THEN WRITES THE FRESH PAGE BACK.
+ *
+ * <p>THE FILE IS PLAIN TEXT: A VERSION HEADER, THEN ONE "COURSE_CODE TAB CREDIT_HOURS" LINE PER COURSE. ITS
+ * LOCATION IS THE "u07a1.catalog.snapshot" SYSTEM PROPERTY, OR ".u07a1/catalog.snapshot" IN THE USER'S HOME.
+ */
+public class CatalogSnapshot {
+    private static final String HEADER = "# U07A1 CATALOG SNAPSHOT 1";
+
+    private final Path file;
+
+    /**
+     * @param file WHERE THE SNAPSHOT IS READ FROM AND WRITTEN TO.
+     */
+    public CatalogSnapshot(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * @return THE SNAPSHOT AT THE CONFIGURED (OR DEFAULT) LOCATION.
+     */
+    public static CatalogSnapshot atDefaultLocation() {
+        String configured = System.getProperty("u07a1.catalog.snapshot");
+        return new CatalogSnapshot(configured != null
+                ? Path.of(configured)
+                : Path.of(System.getProperty("user.home"), ".u07a1", "catalog.snapshot"));
+    }
+
+    /**
+     * READS THE SNAPSHOT.
+     *
+     * @return THE SNAPSHOT'S COURSES IN FILE ORDER, OR AN EMPTY LIST IF THERE IS NO SNAPSHOT YET.
+     * @throws IOException IF THE FILE CANNOT BE READ OR WAS NOT WRITTEN BY THIS VERSION.
+     */
+    public List<Course> read() throws IOException {
+        if (!Files.exists(file)) {
+            return List.of();
+        }
+        List<Course> courses = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            if (!HEADER.equals(reader.readLine())) {
+                throw new IOException("Unrecognized catalog snapshot " + file);
+            }
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                int tab = line.indexOf('\t');
+                if (tab < 1) {
+                    throw new IOException("Malformed catalog snapshot line: " + line);
+                }
+                try {
+                    courses.add(new Course(line.substring(0, tab), Integer.parseInt(line.substring(tab + 1))));
+                } catch (NumberFormatException ex) {
+                    throw new IOException("Malformed catalog snapshot line: " + line, ex);
+                }
+            }
+        }
+        return courses;
+    }
+
+    /**
+     * REPLACES THE SNAPSHOT. THE NEW CONTENT IS WRITTEN TO A TEMPORARY FILE AND MOVED INTO PLACE, SO A CRASH
+     * MID-WRITE NEVER LEAVES A TRUNCATED SNAPSHOT BEHIND.
+     *
+     * @param courses THE COURSES TO SAVE.
+     * @throws IOException IF THE SNAPSHOT CANNOT BE WRITTEN.
+     */
+    public void write(List<Course> courses) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, "catalog", ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                writer.write(HEADER);
+                writer.newLine();
+                for (Course course : courses) {
+                    writer.write(course.getCourseCode());
+                    writer.write('\t');
+                    writer.write(Integer.toString(course.getCreditHours()));
+                    writer.newLine();
+                }
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
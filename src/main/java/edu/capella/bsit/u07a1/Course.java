@@ -1,12 +1,18 @@
 package edu.capella.bsit.u07a1;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * ENTITY REPRESENTATION OF A COURSE OFFERING. THIS CLASS MAPS TO THE "COURSE_OFFERINGS" TABLE IN THE DATABASE.
- * IT INCLUDES PROPERTIES FOR THE COURSE CODE, CREDIT HOURS, AND A FLAG INDICATING WHETHER A STUDENT IS REGISTERED FOR THE COURSE.
+ * IT INCLUDES PROPERTIES FOR THE COURSE CODE, CREDIT HOURS AND SEAT CAPACITY. A COURSE CARRIES NO PER-LEARNER STATE (WHO IS
+ * REGISTERED IS TRACKED BY {@link LearnerRegistrations}), SO ONE CATALOG CAN BE SHARED BY EVERY SESSION.
+ * THE CATALOG RARELY CHANGES, SO COURSES ARE HELD IN HIBERNATE'S SECOND-LEVEL CACHE.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name="course_offerings")
 public class Course {
     // UNIQUE IDENTIFIER FOR THE COURSE. MAPPED TO THE "COURSE_CODE" COLUMN IN THE DATABASE.
@@ -18,9 +24,16 @@ public class Course {
     @Column(name="credit_hours")
     private int creditHours;
 
-    // TRANSIENT PROPERTY TO INDICATE WHETHER THE COURSE IS REGISTERED FOR. NOT PERSISTED IN THE DATABASE.
-    @Transient
-    private boolean isRegisteredFor;
+    // MAXIMUM NUMBER OF LEARNERS, OR NULL FOR NO LIMIT. MAPPED TO THE "CAPACITY" COLUMN IN THE DATABASE.
+    @Column(name="capacity")
+    private Integer capacity;
+
+    // SEATS TAKEN AS LAST FLUSHED BY THE SERVICE'S SeatLedger. REGISTRATIONS DO NOT UPDATE THIS ROW
+    // THEMSELVES (THE LEDGER COUNTS SEATS IN MEMORY AND WRITES THE TOTALS IN BATCHES), SO IT MAY LAG BY A SECOND.
+    // THE FLUSHES DO NOT EVICT CACHED COURSES, SO ON A COURSE SERVED FROM THE SECOND-LEVEL CACHE IT MAY BE OLDER
+    // STILL. MAPPED TO THE "SEATS_TAKEN" COLUMN IN THE DATABASE.
+    @Column(name="seats_taken", nullable=false)
+    private int seatsTaken;
 
     /**
      * DEFAULT CONSTRUCTOR REQUIRED BY THE JPA SPECIFICATION. USED BY THE PERSISTENCE FRAMEWORK TO CREATE INSTANCES OF THE ENTITY.
@@ -29,26 +42,28 @@ public class Course {
 
     /**
      * CONSTRUCTS A NEW COURSE INSTANCE WITH SPECIFIED COURSE CODE AND CREDIT HOURS.
-     * INITIALLY, THE COURSE IS NOT REGISTERED FOR.
      *
      * @param courseCode THE UNIQUE CODE IDENTIFYING THE COURSE.
      * @param creditHours THE NUMBER OF CREDIT HOURS THE COURSE CARRIES.
      */
     public Course(String courseCode, int creditHours) {
+        this(courseCode, creditHours, null);
+    }
+
+    /**
+     * CONSTRUCTS A NEW COURSE INSTANCE WITH A SEAT CAPACITY.
+     *
+     * @param courseCode THE UNIQUE CODE IDENTIFYING THE COURSE.
+     * @param creditHours THE NUMBER OF CREDIT HOURS THE COURSE CARRIES.
+     * @param capacity THE MAXIMUM NUMBER OF LEARNERS, OR NULL FOR NO LIMIT.
+     */
+    public Course(String courseCode, int creditHours, Integer capacity) {
         this.courseCode = courseCode;
         this.creditHours = creditHours;
-        this.isRegisteredFor = false;
+        this.capacity = capacity;
     }
 
     // SETTERS AND GETTERS FOR THE CLASSES'S PROPERTIES.
-    public void setIsRegisteredFor(boolean trueOrFalse){
-        this.isRegisteredFor = trueOrFalse;
-    }
-
-    public boolean getIsRegisteredFor() {
-        return this.isRegisteredFor;
-    }
-
     public String getCourseCode() {
         return courseCode;
     }
@@ -65,6 +80,22 @@ public class Course {
         this.creditHours = creditHours;
     }
 
+    public Integer getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(Integer capacity) {
+        this.capacity = capacity;
+    }
+
+    public int getSeatsTaken() {
+        return seatsTaken;
+    }
+
+    public void setSeatsTaken(int seatsTaken) {
+        this.seatsTaken = seatsTaken;
+    }
+
     /**
      * RETURNS A STRING REPRESENTATION OF THE COURSE, COMBINING COURSE CODE AND CREDIT HOURS.
      *
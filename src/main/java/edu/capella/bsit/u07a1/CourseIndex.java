@@ -0,0 +1,97 @@
+package edu.capella.bsit.u07a1;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * INTERNS COURSE CODES TO DENSE INT IDS (0, 1, 2, ...) AND KEEPS EACH COURSE'S CATALOG CREDIT HOURS IN A PRIMITIVE
+ * ARRAY INDEXED BY THAT ID. A LEARNER'S REGISTRATIONS CAN THEN BE HELD AS A SMALL SORTED ARRAY OF IDS (SEE
+ * {@link LearnerRegistrations}) INSTEAD OF A LIST OF ENTITIES, AND MEMBERSHIP AND CREDIT LOOKUPS ARE ARRAY READS.
+ *
+ * <p>ONLY CATALOG COURSES ({@link #intern(Course)}) RECORD CREDIT HOURS. REGISTRATION ROWS ARE INTERNED BY CODE
+ * ALONE ({@link #intern(String)}): THEY KEEP THE CREDITS THEY WERE REGISTERED WITH, WHICH MAY BE OLDER THAN THE
+ * CATALOG'S, AND MUST NOT OVERWRITE THEM.
+ *
+ * <p>IDS ARE NEVER REUSED OR REMOVED, SO THEY STAY VALID FOR THE LIFE OF THE INDEX. THE INDEX IS SAFE FOR
+ * CONCURRENT USE: LOOKUPS ARE LOCK-FREE, AND ONLY INTERNING A NEW CODE TAKES A LOCK.
+ */
+public final class CourseIndex {
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    // ARRAYS INDEXED BY ID; REPLACED (NOT RESIZED IN PLACE) WHEN THEY GROW, SO READERS ALWAYS SEE A WHOLE ARRAY
+    private volatile String[] codes = new String[64];
+    private volatile int[] creditHours = new int[64];
+    private int size;
+
+    /**
+     * @param courseCode A COURSE CODE.
+     * @return THE CODE'S ID, ASSIGNING THE NEXT FREE ONE IF THE CODE IS NEW. RECORDED CREDIT HOURS ARE LEFT AS THEY
+     * ARE (ZERO FOR A CODE NO CATALOG COURSE HAS BEEN INTERNED FOR YET).
+     */
+    public int intern(String courseCode) {
+        Integer id = ids.get(courseCode);
+        return id != null ? id : assign(courseCode);
+    }
+
+    /**
+     * INTERNS A CATALOG COURSE AND RECORDS ITS CURRENT CREDIT HOURS.
+     *
+     * @param course A COURSE FROM THE CATALOG.
+     * @return THE COURSE'S ID (SEE {@link #intern(String)}).
+     */
+    public int intern(Course course) {
+        int id = intern(course.getCourseCode());
+        if (creditHours[id] != course.getCreditHours()) {
+            synchronized (this) {
+                creditHours[id] = course.getCreditHours();
+            }
+        }
+        return id;
+    }
+
+    private synchronized int assign(String courseCode) {
+        Integer id = ids.get(courseCode);
+        if (id == null) {
+            if (size == codes.length) {
+                creditHours = Arrays.copyOf(creditHours, size * 2);
+                codes = Arrays.copyOf(codes, size * 2);
+            }
+            id = size++;
+            codes[id] = courseCode;
+            // PUBLISHED LAST, SO A READER THAT FINDS THE ID ALSO SEES ITS CODE
+            ids.put(courseCode, id);
+        }
+        return id;
+    }
+
+    /**
+     * @param courseCode A COURSE CODE.
+     * @return THE CODE'S ID, OR -1 IF IT HAS NOT BEEN INTERNED.
+     */
+    public int idOf(String courseCode) {
+        Integer id = ids.get(courseCode);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @param id AN ID RETURNED BY THIS INDEX.
+     * @return THE COURSE CODE WITH THAT ID.
+     */
+    public String codeOf(int id) {
+        return codes[id];
+    }
+
+    /**
+     * @param id AN ID RETURNED BY THIS INDEX.
+     * @return THE CATALOG CREDIT HOURS LAST RECORDED FOR THE COURSE.
+     */
+    public int creditHoursOf(int id) {
+        return creditHours[id];
+    }
+
+    /**
+     * @return THE NUMBER OF INTERNED CODES (ONE MORE THAN THE HIGHEST ID).
+     */
+    public int size() {
+        return ids.size();
+    }
+}
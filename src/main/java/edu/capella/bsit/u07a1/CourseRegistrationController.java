@@ -1,8 +1,9 @@
 package edu.capella.bsit.u07a1;
 
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.EntityManagerFactory;
-import jakarta.persistence.Persistence;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.PauseTransition;
+import javafx.animation.Timeline;
 import javafx.application.Platform;
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.ReadOnlyObjectWrapper;
@@ -15,14 +16,14 @@ import javafx.scene.control.*;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.paint.Color;
+import javafx.util.Duration;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 
 /**
@@ -31,16 +32,35 @@ import java.util.stream.Collectors;
  */
 public class CourseRegistrationController {
     // *******************************************
-    // SETUP HIBERNATE ACCESS -> IT WILL BE CONFIGURED & INITIALIZED IN THE CONSTRUCTOR
+    // HIBERNATE ACCESS -> BOOTED ON A BACKGROUND THREAD BY App.init() AND HANDED OVER THROUGH connect()
     // *******************************************
     CourseRegistrationService service;
-    EntityManager em;
-    EntityManagerFactory emf;
-    ExecutorService executorService = Executors.newCachedThreadPool();
+    // LAST CATALOG PAGE SEEN, SHOWN AT STARTUP UNTIL THE SERVICE IS READY TO SERVE THE LIVE ONE
+    private final CatalogSnapshot catalogSnapshot = CatalogSnapshot.atDefaultLocation();
     private static final Logger logger = Logger.getLogger(CourseRegistrationController.class.getName());
     private String currentUser = "";
-    final int MAX_CREDIT_LOAD = 9;
+    final int MAX_CREDIT_LOAD = CourseRegistrationService.MAX_CREDIT_LOAD;
     private final IntegerProperty totalCredit = new SimpleIntegerProperty(0);
+    // THE CATALOG IS LOADED ONE KEYSET PAGE AT A TIME AS THE USER SCROLLS. THE NEXT PAGE IS REQUESTED WHEN A ROW
+    // WITHIN PREFETCH_ROWS OF THE END OF THE LOADED COURSES IS RENDERED.
+    static final int PAGE_SIZE = 100;
+    private static final int PREFETCH_ROWS = 20;
+    private String lastLoadedCourseCode;
+    private boolean catalogExhausted;
+    private boolean pageLoading;
+    // SET WHEN THE CATALOG IS RELOADED: THE ROWS ON SCREEN STAY UNTIL THE FIRST NEW PAGE REPLACES THEM
+    private boolean replaceOnNextPage;
+    // BUMPED WHENEVER THE CATALOG IS RELOADED (E.G. THE FILTER CHANGES) SO PAGES FROM AN OLDER LOAD ARE DROPPED
+    private int catalogGeneration;
+    private final PauseTransition filterDelay = new PauseTransition(Duration.millis(250));
+    // THE SIGNED-IN LEARNER'S REGISTRATIONS AS COURSE IDS FROM THE SERVICE'S COURSE INDEX. THE CATALOG'S COURSE
+    // OBJECTS CARRY NO PER-LEARNER STATE, SO THEY ARE NEVER TOUCHED WHEN THIS CHANGES.
+    private LearnerRegistrations registered = LearnerRegistrations.NONE;
+    // COURSES WHOSE JOURNALED REGISTRATION HAS BEEN ACKNOWLEDGED BUT NOT YET APPLIED, BY JOURNAL SEQUENCE
+    private final Map<Long, Course> journaledChoices = new HashMap<>();
+    // SEQUENCES OF THE SIGNED-IN LEARNER'S JOURNALED REGISTRATIONS WHOSE OUTCOME WAS SHOWN BEFORE THEIR
+    // ACKNOWLEDGEMENT REACHED THE UI; THE LATE ACKNOWLEDGEMENT MUST NOT ADD THE PENDING ROW BACK
+    private final Set<Long> settledJournalEntries = new HashSet<>();
     @FXML
     public HBox learnerHBox;
     @FXML
@@ -53,6 +73,8 @@ public class CourseRegistrationController {
     public TextField learnerIDValue;
     @FXML
     public Label selectPromptLabel;
+    @FXML
+    public TextField courseFilterField;
     private final ObservableList<Course> courseList = FXCollections.observableArrayList();
     private final ObservableList<RegisteredCourse> regCourseList = FXCollections.observableArrayList();
     @FXML
@@ -79,11 +101,13 @@ public class CourseRegistrationController {
     public Label confirmPromptLabel;
 
     /**
-     * INITIALIZES THE CONTROLLER BY SETTING UP DATABASE CONNECTION AND LOADING UI COMPONENTS.
-     * CONFIGURATION OVERRIDES FOR THE ENTITYMANAGERFACTORY ARE SPECIFIED TO ALLOW DYNAMIC DATABASE SETTINGS.
+     * LOADS THE DATABASE AND SERVICE SETTINGS FROM `jdbc.properties` AS CONFIGURATION OVERRIDES FOR THE
+     * ENTITYMANAGERFACTORY, ALLOWING DYNAMIC DATABASE SETTINGS. CALLED OFF THE FX APPLICATION THREAD BY
+     * {@link App#init()}, TOGETHER WITH THE SERVICE BOOTSTRAP.
+     *
+     * @return THE CONFIGURATION OVERRIDES FOR {@link CourseRegistrationService}.
      */
-    public CourseRegistrationController(){
-        // LOAD THE PROPERTIES FILE AND CREATE THE SERVICE IN THE CONSTRUCTOR
+    static Map<String, String> loadConfiguration() {
         // CREATE A HASHMAP OF THE CONFIGS THAT WILL NEED TO BE OVERWRITTEN, POINTING TO THE PROPERTIES
         Map<String, String> configOverrides = new HashMap<>();
 
@@ -92,75 +116,202 @@ public class CourseRegistrationController {
         Properties props = new Properties();
 
         // TRY WITH RESOURCE TO LOAD THE RESOURCE FILE & THEN SET THE CONFIG OVERRIDES
-        try (InputStream is = getClass().getResourceAsStream("/edu/capella/bsit/u07a1/jdbc.properties")) { // Adjust the path if necessary
+        try (InputStream is = CourseRegistrationController.class.getResourceAsStream("/edu/capella/bsit/u07a1/jdbc.properties")) { // Adjust the path if necessary
             props.load(is);
             // ADD THE PROPERTIES THAT NEED TO BE OVERWRITTEN - URL, USERNAME, PASSWORD, ETC.
             configOverrides.put("jakarta.persistence.jdbc.url", props.getProperty("db.url"));
             configOverrides.put("jakarta.persistence.jdbc.user", props.getProperty("db.username"));
             configOverrides.put("jakarta.persistence.jdbc.password", props.getProperty("db.password"));
-
-            // CREATE THE ENTITY MANAGER FACTORY WITH THE CONFIGURATION OVERRIDES (PASSES IN URL, USERNAME, & PASSWORD
-            emf = Persistence.createEntityManagerFactory("CourseRegistrationService", configOverrides);
-            em = emf.createEntityManager();
+            // PASS THROUGH THE SERVICE SETTINGS (EXECUTOR, CACHES, ETC.) -> ALL KEYS STARTING WITH "service."
+            for (String name : props.stringPropertyNames()) {
+                if (name.startsWith("service.")) {
+                    configOverrides.put(name, props.getProperty(name));
+                }
+            }
         } catch (IOException ex) {
             logger.log(Level.SEVERE, "Could not load 'jdbc.properties'.", ex);
         }
-        // SET THE SERVICE TO THE NEW COURSE REGISTRATION SERVICE WITH THE CONFIGS SET FOR THE PERSISTENCE.XML FILE
-        this.service = new CourseRegistrationService(em);
+        return configOverrides;
+    }
+
+    /**
+     * HANDS THE CONTROLLER THE SERVICE THAT IS BOOTING IN THE BACKGROUND. UNTIL IT IS READY THE WINDOW SHOWS THE
+     * CATALOG SNAPSHOT AND A "CONNECTING" PROMPT, AND SIGN-IN IS DISABLED; ONCE READY, THE CATALOG IS RELOADED
+     * FROM THE DATABASE. MUST BE CALLED ON THE FX APPLICATION THREAD.
+     *
+     * @param pendingService COMPLETES WITH THE SERVICE ONCE HIBERNATE HAS BOOTED (OR WITH THE BOOT FAILURE).
+     */
+    public void connect(CompletableFuture<CourseRegistrationService> pendingService) {
+        learnerSignIn.setDisable(true);
+        confirmPromptLabel.setTextFill(Color.WHITE);
+        confirmPromptLabel.setText("Connecting to the registration service...");
+        pendingService.whenComplete((ready, ex) -> Platform.runLater(() -> {
+            if (ex != null) {
+                confirmPromptLabel.setTextFill(Color.RED);
+                confirmPromptLabel.setText("Could not connect to the registration service.");
+                logger.log(Level.SEVERE, "Could not start the registration service.", ex);
+                return;
+            }
+            service = ready;
+            if (service.getJournal() != null) {
+                service.getJournal().addListener(new JournalReconciler());
+            }
+            learnerSignIn.setDisable(false);
+            confirmPromptLabel.setText("");
+            Label noCourses = new Label("No courses match.");
+            noCourses.setStyle("-fx-text-fill: white; -fx-font-weight: bold;");
+            coursesTable.setPlaceholder(noCourses);
+            // REVALIDATE -> REPLACE THE SNAPSHOT WITH THE LIVE CATALOG
+            loadCoursesAsync();
+        }));
     }
 
     /**
-     * ASYNCHRONOUSLY LOADS ALL COURSES FROM THE DATABASE AND UPDATES THE COURSE LIST IN THE UI.
+     * FILLS THE COURSE TABLE FROM THE LOCAL CATALOG SNAPSHOT, IF THERE IS ONE. THE FILE HOLDS ONE PAGE OF COURSES,
+     * SO READING IT ON THE FX APPLICATION THREAD IS CHEAP.
+     */
+    private void showCatalogSnapshot() {
+        try {
+            courseList.setAll(catalogSnapshot.read());
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Ignoring unreadable catalog snapshot.", ex);
+        }
+    }
+
+    /**
+     * SAVES A FRESH FIRST PAGE OF THE UNFILTERED CATALOG AS THE SNAPSHOT FOR THE NEXT START, OFF THE FX THREAD.
+     *
+     * @param courses THE FIRST PAGE OF THE CATALOG.
+     */
+    private void saveCatalogSnapshot(List<Course> courses) {
+        CompletableFuture.runAsync(() -> {
+            try {
+                catalogSnapshot.write(courses);
+            } catch (IOException ex) {
+                logger.log(Level.WARNING, "Could not save the catalog snapshot.", ex);
+            }
+        });
+    }
+
+    /**
+     * (RE)LOADS THE COURSE CATALOG INTO THE UI, STARTING WITH THE FIRST PAGE THAT MATCHES THE CURRENT FILTER.
+     * FURTHER PAGES ARE LOADED ON DEMAND AS THE USER SCROLLS (SEE {@link #loadNextCoursePage()}), SO MEMORY AND
+     * FIRST-PAINT TIME DO NOT GROW WITH THE SIZE OF THE CATALOG. THE ROWS CURRENTLY SHOWN STAY UNTIL THE FIRST
+     * PAGE ARRIVES, SO THE TABLE DOES NOT FLASH EMPTY. DOES NOTHING UNTIL THE SERVICE IS READY (SEE
+     * {@link #connect(CompletableFuture)}, WHICH RELOADS THE CATALOG ONCE IT IS).
      */
     public void loadCoursesAsync() {
-        service.getAllCoursesAsync().thenAcceptAsync(courses -> {
+        catalogGeneration++;
+        lastLoadedCourseCode = null;
+        catalogExhausted = false;
+        pageLoading = false;
+        replaceOnNextPage = true;
+        loadNextCoursePage();
+    }
+
+    /**
+     * ASYNCHRONOUSLY LOADS THE NEXT PAGE OF COURSES (AFTER THE LAST LOADED COURSE CODE, MATCHING THE FILTER PREFIX)
+     * AND APPENDS IT TO THE COURSE LIST IN THE UI. DOES NOTHING IF A PAGE IS ALREADY LOADING OR THE LAST PAGE WAS
+     * REACHED. MUST BE CALLED ON THE FX APPLICATION THREAD.
+     */
+    private void loadNextCoursePage() {
+        if (service == null || pageLoading || catalogExhausted) {
+            return;
+        }
+        pageLoading = true;
+        int generation = catalogGeneration;
+        String prefix = courseFilterField == null ? null : courseFilterField.getText();
+        service.getCoursesAsync(lastLoadedCourseCode, prefix, PAGE_SIZE).thenAcceptAsync(courses -> {
+            Platform.runLater(() -> {
+                // DROP THE PAGE IF THE CATALOG WAS RELOADED WHILE IT WAS IN FLIGHT
+                if (generation != catalogGeneration) {
+                    return;
+                }
+                pageLoading = false;
+                catalogExhausted = courses.size() < PAGE_SIZE;
+                if (!courses.isEmpty()) {
+                    lastLoadedCourseCode = courses.get(courses.size() - 1).getCourseCode();
+                }
+                // PLATFORM WILL APPEND THE PAGE OF COURSES ONCE THEY HAVE BEEN RETRIEVED
+                if (replaceOnNextPage) {
+                    replaceOnNextPage = false;
+                    courseList.setAll(courses);
+                    if (prefix == null || prefix.isBlank()) {
+                        saveCatalogSnapshot(courses);
+                    }
+                } else {
+                    courseList.addAll(courses);
+                }
+                logger.log(Level.CONFIG, "The following course were added:\n{0}", courses);
+            });
+        }).exceptionally(ex -> {
             Platform.runLater(() -> {
-                // PLATFORM WILL UPDATE THE LIST OF COURSES AND COMBOBOX ONCE THEY COURSES HAVE BEEN RETRIEVED
-                courseList.setAll(courses);
-                logger.log(Level.CONFIG, "The following course were added:\n{0}", courseList);
+                if (generation == catalogGeneration) {
+                    pageLoading = false;
+                }
             });
+            logger.log(Level.SEVERE, "Could not load the course catalog.", ex);
+            return null;
         });
     }
 
     /**
-     * UPDATES THE CURRENT REGISTRATION STATUS FOR THE LEARNER, INCLUDING REGISTERED COURSES AND TOTAL CREDIT HOURS.
+     * LOADS THE SIGNED-IN LEARNER'S REGISTRATIONS INTO THE UI. ONE READ OF THE REGISTRATIONS IS ENOUGH: THE COURSE
+     * CODES AND THE CREDIT TOTAL ARE DERIVED FROM THEM AS THEY ARE APPLIED (SEE {@link #showRegistrations(List)}).
      */
     private void updateCurrentRegistration() {
-        // GET THE CURRENT LEARNER ID, ASYNCHRONOUSLY GET ALL REGISTERED COURSES
         String learnerId = learnerIDValue.getText();
-        service.getAllCourseRegistrationsAsync(learnerId).thenAcceptAsync(registeredCourses -> {
-            Platform.runLater(() -> {
-                // CLEAR THE PREVIOUS COURSE LIST AND UPDATE IT
-                regCourseList.clear();
-                regCourseList.addAll(registeredCourses);
-
-                // CREATE A SET OF REGISTERED COURSE CODE THAT IS MAPED TO THE GET COURSE CODE METHOD
-                Set<String> registeredCourseCodes = registeredCourses.stream()
-                        .map(RegisteredCourse::getCourseCode)
-                        .collect(Collectors.toSet());
-
-                // RUN A FOR EACH TO SET IS REGISTERED TO TRUE IF THERE IS A MATCH IN THE SET
-                courseList.forEach(course -> course.setIsRegisteredFor(registeredCourseCodes.contains(course.getCourseCode())));
-
-                updateRegistrationUI(regCourseList);
-            });
-        });
+        service.getAllCourseRegistrationsAsync(learnerId).whenComplete((registrations, ex) -> Platform.runLater(() -> {
+            // IGNORE A LOAD FOR A LEARNER WHO HAS SINCE SIGNED IN WITH A DIFFERENT ID
+            if (!Objects.equals(learnerId, currentUser)) {
+                return;
+            }
+            if (ex != null) {
+                confirmPromptLabel.setTextFill(Color.RED);
+                confirmPromptLabel.setText("Could not load your registrations, please sign in again.");
+                logger.log(Level.SEVERE, ex, () -> "Could not load the registrations of " + learnerId + ".");
+                return;
+            }
+            showRegistrations(registrations);
+        }));
     }
 
     /**
-     * UPDATES THE UI TO REFLECT THE CURRENT REGISTRATION STATUS, INCLUDING UPDATING THE LIST OF REGISTERED COURSES
-     * AND THE TOTAL CREDIT HOURS.
+     * BRINGS THE REGISTERED-COURSES TABLE AND THE CREDIT TOTAL IN LINE WITH THE GIVEN REGISTRATIONS BY APPLYING
+     * ONLY THE DIFFERENCE: ROWS THAT ARE GONE ARE REMOVED AND NEW ONES ARE APPENDED, SO UNCHANGED ROWS ARE LEFT
+     * ALONE AND THE TABLE DOES NOT REBUILD. MEMBERSHIP IS TESTED AGAINST THE LEARNER'S COURSE IDS AND THE TOTAL
+     * COMES FROM THEM. JOURNALED REGISTRATIONS THAT ARE STILL PENDING STAY SHOWN. MUST BE CALLED ON THE FX
+     * APPLICATION THREAD.
      *
-     * @param registeredCourses THE LIST OF COURSES THE LEARNER IS CURRENTLY REGISTERED FOR.
+     * @param registrations ALL OF THE SIGNED-IN LEARNER'S REGISTRATIONS.
      */
-    private void updateRegistrationUI(ObservableList<RegisteredCourse> registeredCourses) {
-        // RESET THE TOTAL CREDITS
-        totalCredit.setValue(0);
-
-        // UPDATE THE TOTAL CREDIT HOURS
-        for (RegisteredCourse course : registeredCourses) {
-            totalCredit.set(totalCredit.get() + course.getCreditHours());
+    private void showRegistrations(List<RegisteredCourse> registrations) {
+        CourseIndex index = service.getCourseIndex();
+        LearnerRegistrations updated = LearnerRegistrations.of(registrations, index);
+        for (Course pending : journaledChoices.values()) {
+            updated = updated.with(index.intern(pending.getCourseCode()), pending.getCreditHours());
+        }
+        List<RegisteredCourse> removed = new ArrayList<>();
+        for (RegisteredCourse shown : regCourseList) {
+            if (!updated.contains(index.idOf(shown.getCourseCode()))) {
+                removed.add(shown);
+            }
+        }
+        List<RegisteredCourse> added = new ArrayList<>();
+        for (RegisteredCourse registration : registrations) {
+            if (!registered.contains(index.idOf(registration.getCourseCode()))) {
+                added.add(registration);
+            }
+        }
+        registered = updated;
+        if (!removed.isEmpty()) {
+            regCourseList.removeAll(removed);
         }
+        if (!added.isEmpty()) {
+            regCourseList.addAll(added);
+        }
+        // UPDATE THE TOTAL CREDIT HOURS -> LABEL IS BOUND, AUTO UPDATES
+        totalCredit.set(updated.totalCredits());
     }
 
     // METHOD TO CONFIGURE THE LOGGER
@@ -185,16 +336,18 @@ public class CourseRegistrationController {
             // SELECTION FROM THE COMBOBOX
             currentUser = learnerIDValue.getText();
 
-            // UPDATE REGISTRATION AND SET ALL COURSES TO NOT REGISTERED FOR
-            for (Course c : courseList){
-                c.setIsRegisteredFor(false);
-            }
+            // CLEAR THE PREVIOUS LEARNER'S REGISTRATIONS, THEN LOAD THIS LEARNER'S
+            registered = LearnerRegistrations.NONE;
+            journaledChoices.clear();
+            settledJournalEntries.clear();
+            regCourseList.clear();
+            totalCredit.set(0);
             updateCurrentRegistration();
 
             // USER FEEDBACK
             confirmPromptLabel.setTextFill(Color.GREEN);
             confirmPromptLabel.setText(String.format("Signed in with Learner ID: %s", learnerIDValue.getText()));
-            logger.log(Level.INFO, String.format("Signed in with Learner ID: %s", learnerIDValue.getText()));
+            logger.log(Level.INFO, "Signed in with Learner ID: {0}", currentUser);
         }
     }
 
@@ -211,36 +364,18 @@ public class CourseRegistrationController {
         if (!Objects.equals(learnerIDValue.getText(), "") & Objects.equals(learnerIDValue.getText(), currentUser)){
             // BOOLEAN TO CHECK IF COURSE HAS BEEN REGISTERED FOR BY
             // CHECKING IF THE CHOICE IS REGISTERED FOR
-            boolean isRegistered = choice.getIsRegisteredFor();
-            // BOOLEAN CHECK && CREDIT HOURS LESS THAN 9
-            if (!isRegistered & totalCredit.get() < MAX_CREDIT_LOAD){
-                // CHANGE CONFIRM PROMPT LABEL TO GREEN
-                confirmPromptLabel.setTextFill(Color.GREEN);
-
-                // UPDATES THE LABEL TO REFLECT SUCCESSFUL REGISTRATION
-                confirmPromptLabel.setText(String.format("Successfully registered for %s!", choice));
-
-                // UPDATES THE CURRENT CREDIT HOURS -> LABEL IS BOUND, AUTO UPDATES
-                totalCredit.set(totalCredit.get() + choice.getCreditHours());
-
-                // SET COURSE TO CURRENTLY REGISTERED FOR
-                choice.setIsRegisteredFor(true);
-
+            boolean isRegistered = registered.contains(service.getCourseIndex().idOf(choice.getCourseCode()));
+            // QUICK LOCAL CHECK (NOT REGISTERED && STAYS WITHIN THE CREDIT LIMIT) TO SKIP OBVIOUS REJECTIONS.
+            // THE SERVICE RE-CHECKS BOTH ATOMICALLY, SO THIS IS ONLY A SHORTCUT, NOT THE ENFORCEMENT.
+            if (!isRegistered & totalCredit.get() + choice.getCreditHours() <= MAX_CREDIT_LOAD){
                 // WRITE THE REGISTERED COURSE TO THE DATABASE -> ASYNCHRONOUS CALL TO HIBERNATE SERVICE
                 registerCourse(learnerIDValue.getText(), choice);
             } else if (isRegistered){
-                // IF THE COURSE HAS ALREADY BEEN REGISTERED FOR, CHANGE THE COLOR FILL TO RED
-                // AND DISPLAY CONFIRM PROMPT LABEL AS FAILED TO REGISTER
-                confirmPromptLabel.setTextFill(Color.RED);
-                confirmPromptLabel.setText(String.format("Failed to register duplicate class: %s.", choice));
-                logger.log(Level.WARNING, String.format("Failed to register duplicate class: %s.", choice));
+                showRejection(RegistrationResult.Status.DUPLICATE, choice);
             } else {
                 // IN THE EVENT THAT THE PREVIOUS CONDITIONALS FAIL, THE ONLY PATH LEFT IS
-                // THE EVENT THAT THERE ARE CURRENTLY 9 CREDIT HOURS ALREADY REGISTERED FOR
-                // SET FILL TO RED AND DISPLAY ONLY 9 CREDIT ARE ALLOWED TO BE REGISTERED FOR
-                confirmPromptLabel.setTextFill(Color.RED);
-                confirmPromptLabel.setText(String.format("Failed to register for %s, only %s credits are allowed.", choice, MAX_CREDIT_LOAD));
-                logger.log(Level.WARNING, String.format("Failed to register for %s, only %s credits are allowed.", choice, MAX_CREDIT_LOAD));
+                // THE EVENT THAT THE COURSE WOULD EXCEED THE CREDIT HOURS ALLOWED
+                showRejection(RegistrationResult.Status.CREDIT_LIMIT_EXCEEDED, choice);
             }
         } else if (Objects.equals(learnerIDValue.getText(), "")){
             confirmPromptLabel.setTextFill(Color.RED);
@@ -254,33 +389,245 @@ public class CourseRegistrationController {
     }
 
     /**
-     * ASYNCHRONOUSLY REGISTERS A COURSE FOR THE CURRENT USER. THIS METHOD INITIATES A BACKGROUND OPERATION TO
-     * REGISTER A NEW COURSE UNDER THE USER'S LEARNER ID AND UPDATES THE UI UPON COMPLETION.
+     * ASYNCHRONOUSLY REGISTERS A COURSE FOR THE CURRENT USER. THIS METHOD INITIATES A BACKGROUND OPERATION THAT
+     * CHECKS THE DUPLICATE AND CREDIT RULES AND REGISTERS THE COURSE IN ONE TRANSACTION, THEN UPDATES THE UI FROM
+     * THE RETURNED STATE (NO SECOND QUERY IS NEEDED). IF THE OPERATION FAILS (E.G. THE DATABASE IS UNREACHABLE)
+     * THE FAILURE IS SHOWN INSTEAD.
+     *
+     * <p>WITH THE REGISTRATION JOURNAL ENABLED THE REQUEST IS ONLY WRITTEN TO THE LOCAL JOURNAL HERE, AND SHOWN AS
+     * PENDING AS SOON AS IT IS ON DISK; THE DATABASE OUTCOME ARRIVES LATER THROUGH {@link JournalReconciler}.
      *
      * @param learnerID THE IDENTIFIER FOR THE LEARNER.
      * @param choice THE COURSE TO BE REGISTERED.
      */
     public void registerCourse(String learnerID, Course choice) {
-        service.createCourseRegistrationAsync(learnerID, choice.getCourseCode(), choice.getCreditHours())
-                .thenRunAsync(() -> {
-                    Platform.runLater(this::updateCurrentRegistration);
-                });
+        RegistrationJournal journal = service.getJournal();
+        if (journal != null) {
+            journal.append(learnerID, choice.getCourseCode())
+                    .whenComplete((entry, ex) -> Platform.runLater(() -> {
+                        if (ex != null) {
+                            showRegistrationFailure(choice, ex);
+                        } else {
+                            showJournaledRegistration(entry, choice);
+                        }
+                    }));
+            return;
+        }
+        AdmissionControl.Ticket<RegistrationResult> ticket = service.enqueueRegistration(learnerID, choice.getCourseCode());
+        Timeline progress = showQueuePosition(ticket, choice);
+        ticket.result().whenComplete((result, ex) -> Platform.runLater(() -> {
+            if (progress != null) {
+                progress.stop();
+            }
+            if (ex != null) {
+                showRegistrationFailure(choice, ex);
+            } else {
+                applyRegistrationResult(learnerID, result, choice);
+            }
+        }));
+    }
+
+    /**
+     * WHILE A REGISTRATION WAITS FOR ADMISSION, SHOWS THE LEARNER THEIR PLACE IN LINE AND ESTIMATED WAIT,
+     * REFRESHED TWICE A SECOND. MUST BE CALLED ON THE FX APPLICATION THREAD.
+     *
+     * @param ticket THE REGISTRATION'S ADMISSION TICKET.
+     * @param choice THE COURSE THAT WAS REQUESTED.
+     * @return THE RUNNING REFRESH, TO BE STOPPED WHEN THE REGISTRATION COMPLETES, OR NULL IF IT IS NOT WAITING.
+     */
+    private Timeline showQueuePosition(AdmissionControl.Ticket<RegistrationResult> ticket, Course choice) {
+        if (!ticket.status().isWaiting()) {
+            return null;
+        }
+        Runnable refresh = () -> {
+            AdmissionControl.QueueStatus status = ticket.status();
+            confirmPromptLabel.setTextFill(Color.WHITE);
+            if (!status.isWaiting()) {
+                confirmPromptLabel.setText(String.format("Registering for %s...", choice));
+            } else if (status.etaMillis() < 0) {
+                confirmPromptLabel.setText(String.format("Registration for %s: you are #%d in line.", choice,
+                        status.position()));
+            } else {
+                confirmPromptLabel.setText(String.format("Registration for %s: you are #%d in line (about %d s).",
+                        choice, status.position(), Math.max(1, (status.etaMillis() + 999) / 1000)));
+            }
+        };
+        refresh.run();
+        Timeline progress = new Timeline(new KeyFrame(Duration.millis(500), e -> refresh.run()));
+        progress.setCycleCount(Animation.INDEFINITE);
+        progress.play();
+        return progress;
+    }
+
+    /**
+     * SHOWS AN ACKNOWLEDGED (JOURNALED) REGISTRATION OPTIMISTICALLY: THE COURSE IS LISTED AND COUNTED UNTIL THE
+     * DATABASE OUTCOME CONFIRMS OR CORRECTS IT. MUST BE CALLED ON THE FX APPLICATION THREAD.
+     *
+     * @param entry THE JOURNAL ENTRY OF THE REQUEST.
+     * @param choice THE COURSE THAT WAS REQUESTED.
+     */
+    private void showJournaledRegistration(RegistrationJournal.Entry entry, Course choice) {
+        if (!Objects.equals(entry.learnerID(), currentUser) || settledJournalEntries.remove(entry.sequence())) {
+            return;
+        }
+        journaledChoices.put(entry.sequence(), choice);
+        int courseId = service.getCourseIndex().intern(choice.getCourseCode());
+        if (!registered.contains(courseId)) {
+            registered = registered.with(courseId, choice.getCreditHours());
+            regCourseList.add(new RegisteredCourse(entry.learnerID(), choice.getCourseCode(), choice.getCreditHours()));
+            totalCredit.set(registered.totalCredits());
+        }
+        confirmPromptLabel.setTextFill(Color.WHITE);
+        confirmPromptLabel.setText(String.format("Registration for %s received, confirming...", choice));
+    }
+
+    /**
+     * SHOWS AND LOGS A REGISTRATION THAT COULD NOT BE COMPLETED OR JOURNALED. MUST BE CALLED ON THE FX APPLICATION
+     * THREAD.
+     *
+     * @param choice THE COURSE THAT WAS REQUESTED.
+     * @param cause WHY THE REGISTRATION FAILED.
+     */
+    private void showRegistrationFailure(Course choice, Throwable cause) {
+        Throwable failure = cause instanceof CompletionException && cause.getCause() != null ? cause.getCause() : cause;
+        if (failure instanceof AdmissionControl.Rejected rejected) {
+            // TURNED AWAY BY ADMISSION CONTROL: NOTHING WAS WRITTEN, AND TRYING AGAIN LATER IS THE RIGHT ADVICE
+            confirmPromptLabel.setTextFill(Color.YELLOW);
+            confirmPromptLabel.setText(String.format("Could not register for %s: %s", choice, rejected.getMessage()));
+            logger.log(Level.INFO, "Registration for {0} was not admitted: {1}", new Object[]{choice, rejected.getReason()});
+            return;
+        }
+        confirmPromptLabel.setTextFill(Color.RED);
+        confirmPromptLabel.setText(String.format("Could not register for %s, please try again.", choice));
+        logger.log(Level.SEVERE, cause, () -> "Registration for " + choice + " failed.");
+    }
+
+    /**
+     * RECONCILES THE UI WITH THE DATABASE OUTCOMES OF JOURNALED REGISTRATIONS: A CONFIRMED REGISTRATION STAYS, A
+     * DUPLICATE OR CREDIT-LIMIT REJECTION REPLACES THE OPTIMISTIC STATE WITH THE LEARNER'S REAL ONE, AND A DELAY
+     * (DATABASE UNREACHABLE) IS REPORTED WHILE THE JOURNAL KEEPS RETRYING, AND A PERMANENT FAILURE DROPS THE
+     * OPTIMISTIC ROW AGAIN.
+     */
+    private final class JournalReconciler implements RegistrationJournal.Listener {
+
+        @Override
+        public void applied(RegistrationJournal.Entry entry, RegistrationResult result) {
+            Platform.runLater(() -> {
+                Course choice = journaledChoices.remove(entry.sequence());
+                if (choice == null && Objects.equals(entry.learnerID(), currentUser)) {
+                    settledJournalEntries.add(entry.sequence());
+                }
+                applyRegistrationResult(entry.learnerID(), result,
+                        choice != null ? choice : findCourse(entry.courseCode()));
+            });
+        }
+
+        @Override
+        public void delayed(RegistrationJournal.Entry entry, Throwable cause) {
+            Platform.runLater(() -> {
+                if (Objects.equals(entry.learnerID(), currentUser)) {
+                    confirmPromptLabel.setTextFill(Color.YELLOW);
+                    confirmPromptLabel.setText(String.format("Registration for %s is saved and will be applied when "
+                            + "the registration service is reachable.", findCourse(entry.courseCode())));
+                }
+            });
+        }
+
+        @Override
+        public void failed(RegistrationJournal.Entry entry, Throwable cause) {
+            Platform.runLater(() -> {
+                Course choice = journaledChoices.remove(entry.sequence());
+                if (!Objects.equals(entry.learnerID(), currentUser)) {
+                    return;
+                }
+                if (choice == null) {
+                    settledJournalEntries.add(entry.sequence());
+                }
+                // THE OPTIMISTIC ROW IS GONE FROM journaledChoices, SO RELOADING DROPS IT FROM THE TABLE
+                confirmPromptLabel.setTextFill(Color.RED);
+                confirmPromptLabel.setText(String.format("Registration for %s could not be completed, please try again.",
+                        choice != null ? choice : findCourse(entry.courseCode())));
+                updateCurrentRegistration();
+            });
+        }
+    }
+
+    // THE LOADED COURSE WITH THE GIVEN CODE, OR A PLACEHOLDER IF IT IS NOT ON SCREEN
+    private Course findCourse(String courseCode) {
+        for (Course course : courseList) {
+            if (course.getCourseCode().equals(courseCode)) {
+                return course;
+            }
+        }
+        return new Course(courseCode, 0);
+    }
+
+    /**
+     * APPLIES THE OUTCOME OF A CHECKED REGISTRATION TO THE UI: THE REGISTERED COURSES, THE REGISTERED FLAGS, THE
+     * TOTAL CREDITS, AND THE CONFIRMATION PROMPT. MUST BE CALLED ON THE FX APPLICATION THREAD.
+     *
+     * @param learnerID THE LEARNER THE REGISTRATION WAS MADE FOR.
+     * @param result THE OUTCOME RETURNED BY THE SERVICE.
+     * @param choice THE COURSE THAT WAS REQUESTED.
+     */
+    private void applyRegistrationResult(String learnerID, RegistrationResult result, Course choice) {
+        // IGNORE RESULTS FOR A LEARNER WHO HAS SINCE SIGNED IN WITH A DIFFERENT ID
+        if (!Objects.equals(learnerID, currentUser)) {
+            return;
+        }
+        // THE RESULT CARRIES THE LEARNER'S STATE AFTER THE WRITE, SO NO RE-READ IS NEEDED; USUALLY THE DIFFERENCE
+        // IS THE ONE NEW ROW
+        showRegistrations(result.registrations());
+
+        if (result.isRegistered()) {
+            // CHANGE CONFIRM PROMPT LABEL TO GREEN & UPDATE IT TO REFLECT SUCCESSFUL REGISTRATION
+            confirmPromptLabel.setTextFill(Color.GREEN);
+            confirmPromptLabel.setText(String.format("Successfully registered for %s!", choice));
+        } else {
+            showRejection(result.status(), choice);
+        }
+    }
+
+    /**
+     * SHOWS AND LOGS WHY A REGISTRATION WAS REJECTED.
+     *
+     * @param status THE REJECTION REASON.
+     * @param choice THE COURSE THAT WAS REQUESTED.
+     */
+    private void showRejection(RegistrationResult.Status status, Course choice) {
+        String message;
+        switch (status) {
+            case DUPLICATE:
+                message = String.format("Failed to register duplicate class: %s.", choice);
+                break;
+            case CREDIT_LIMIT_EXCEEDED:
+                message = String.format("Failed to register for %s, only %s credits are allowed.", choice, MAX_CREDIT_LOAD);
+                break;
+            case COURSE_FULL:
+                message = String.format("Failed to register for %s, the course is full.", choice);
+                break;
+            default:
+                message = String.format("Failed to register for %s, the course is no longer offered.", choice);
+                break;
+        }
+        confirmPromptLabel.setTextFill(Color.RED);
+        confirmPromptLabel.setText(message);
+        // THE MESSAGE IS ALREADY BUILT FOR THE LABEL, SO IT IS LOGGED AS-IS (NO PARAMETERS TO FORMAT)
+        logger.log(Level.WARNING, message);
     }
 
     /**
      * PREPARES THE APPLICATION FOR SHUTDOWN BY TERMINATING ACTIVE BACKGROUND OPERATIONS AND CLOSING DATABASE CONNECTIONS.
-     * THIS METHOD ENSURES ALL RESOURCES ARE PROPERLY RELEASED BEFORE THE APPLICATION EXITS.
+     * THIS METHOD ENSURES ALL RESOURCES ARE PROPERLY RELEASED BEFORE THE APPLICATION EXITS. A SERVICE THAT IS STILL
+     * BOOTING IS CLOSED BY {@link App#stop()}.
      */
     public void stopApplication() {
-        // ATTEMPT TO STOP ALL ACTIVELY EXECUTING TASKS
-        executorService.shutdownNow();
-        // CLOSE THE ENTITY MANAGER & FACTORY
-        if (em != null && em.isOpen()) {
-            em.close();
-        }
-        if (emf != null && emf.isOpen()) {
-            emf.close();
+        // STOP THE SERVICE'S EXECUTOR & CLOSE THE ENTITY MANAGER FACTORY
+        if (service != null) {
+            service.close();
         }
+        // WRITE OUT ANY BUFFERED LOG RECORDS
+        LogManager.shutdown();
     }
 
     /**
@@ -314,6 +661,22 @@ public class CourseRegistrationController {
         registeredCoursesTable.setItems(regCourseList);
         coursesTable.setItems(courseList);
 
+        // REQUEST THE NEXT PAGE OF COURSES WHEN A ROW NEAR THE END OF THE LOADED ONES IS RENDERED. THE TABLE ONLY
+        // CREATES ROWS FOR THE VISIBLE PART OF THE LIST, SO THIS FIRES AS THE USER SCROLLS TOWARDS THE END.
+        coursesTable.setRowFactory(table -> new TableRow<>() {
+            @Override
+            protected void updateItem(Course course, boolean empty) {
+                super.updateItem(course, empty);
+                if (!empty && getIndex() >= courseList.size() - PREFETCH_ROWS) {
+                    loadNextCoursePage();
+                }
+            }
+        });
+
+        // RELOAD THE CATALOG (FILTERED BY COURSE CODE PREFIX IN SQL) ONCE THE USER PAUSES TYPING
+        filterDelay.setOnFinished(e -> loadCoursesAsync());
+        courseFilterField.textProperty().addListener((obs, oldText, newText) -> filterDelay.playFromStart());
+
         coursesTable.getSelectionModel().selectedItemProperty().addListener((obs, oldSelection, newSelection) -> {
             if (newSelection != null) {
                 // CALL THE METHOD TO HANDLE THE ADDITION OF THE SELECTED ROW TO THE REGISTERED COURSES LIST
@@ -327,8 +690,11 @@ public class CourseRegistrationController {
         placeholder.setStyle("-fx-text-fill: white; -fx-font-weight: bold;");
         registeredCoursesTable.setPlaceholder(placeholder);
 
-        // LOAD THE COURSES INTO THE OBSERVABLE LIST & CONFIG THE LOGGER
-        loadCoursesAsync();
+        // SHOW THE LAST KNOWN CATALOG RIGHT AWAY; THE LIVE ONE IS LOADED ONCE THE SERVICE IS CONNECTED
+        ProgressIndicator loading = new ProgressIndicator();
+        loading.setMaxSize(40, 40);
+        coursesTable.setPlaceholder(loading);
+        showCatalogSnapshot();
         configureLogger();
     }
 }
@@ -1,41 +1,377 @@
 package edu.capella.bsit.u07a1;
 
-import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.Persistence;
-import jakarta.persistence.TypedQuery;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import org.hibernate.SessionFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 // THIS FILE WAS USED TO PRACTICE CREATING DEV COMMENTS THAT ARE
 // MORE ALIGNED WITH INDUSTRY STANDARDS/EXPECTATIONS. THE OTHER FILES
 // WILL EVENTUALLY MIRROR THIS APPROACH
 
-public class CourseRegistrationService {
-    protected EntityManager em;
+public class CourseRegistrationService implements AutoCloseable {
+    // CONFIGURATION KEYS (READ FROM THE SAME OVERRIDE MAP AS THE JDBC SETTINGS) THAT SELECT THE EXECUTOR USED
+    // BY THE ASYNCHRONOUS METHODS. "platform" USES A BOUNDED POOL OF "service.threads" THREADS, "virtual" USES
+    // ONE VIRTUAL THREAD PER TASK.
+    public static final String EXECUTOR_KEY = "service.executor";
+    public static final String THREADS_KEY = "service.threads";
+    // CONFIGURATION KEY THAT SELECTS THE STORAGE ENGINE (SEE RegistrationStore): "jpa" (THE DEFAULT; HIBERNATE
+    // OVER THE JDBC SETTINGS), "jdbc" (JdbcRegistrationStore: THE SAME WITH PLAIN-JDBC HOT READS) OR "memory"
+    // (MemoryRegistrationStore).
+    public static final String STORE_KEY = "service.store";
+    // CONFIGURATION KEYS FOR THE IN-MEMORY ENGINE: WHETHER IT PERSISTS AT ALL, THE DIRECTORY OF ITS SNAPSHOT AND
+    // JOURNAL FILES, HOW OFTEN THE JOURNAL IS WRITTEN TO DISK, AND HOW OFTEN A NEW SNAPSHOT REPLACES THE JOURNAL.
+    public static final String STORE_PERSISTENT_KEY = "service.store.persistent";
+    public static final String STORE_DIR_KEY = "service.store.dir";
+    public static final String STORE_FLUSH_KEY = "service.store.flushMillis";
+    public static final String STORE_SNAPSHOT_KEY = "service.store.snapshotSeconds";
+    // CONFIGURATION KEYS FOR THE IN-PROCESS CATALOG CACHE: HOW LONG A CACHED CATALOG IS SERVED BEFORE IT IS
+    // RE-READ, AND HOW MANY DISTINCT CATALOG QUERIES (THE FULL LIST AND INDIVIDUAL PAGES) ARE KEPT.
+    public static final String CATALOG_TTL_KEY = "service.catalog.ttlSeconds";
+    public static final String CATALOG_MAX_ENTRIES_KEY = "service.catalog.maxEntries";
+    // CONFIGURATION KEYS FOR THE PER-LEARNER REGISTRATION CACHE: HOW MANY LEARNERS ARE KEPT (LEAST RECENTLY
+    // USED ARE EVICTED FIRST) AND HOW LONG A LEARNER'S LIST IS TRUSTED BEFORE IT IS RE-READ.
+    public static final String REGISTRATIONS_MAX_LEARNERS_KEY = "service.registrations.maxLearners";
+    public static final String REGISTRATIONS_TTL_KEY = "service.registrations.ttlSeconds";
+    // CONFIGURATION KEYS FOR THE OPTIONAL GROUP-COMMIT MODE OF registerIfAllowed AND createCourseRegistrationAsync
+    // (SEE GroupCommitWriter): WHETHER IT IS ON, THE LARGEST BATCH, HOW LONG A BATCH MAY WAIT TO FILL, AND HOW MANY
+    // REGISTRATIONS MAY BE QUEUED BEFORE NEW ONES ARE REJECTED. CHECKED REGISTRATIONS THEN HOLD THE LEARNER STILL
+    // ONLY WITHIN THIS PROCESS (THE UNIQUE CONSTRAINT STILL STOPS DUPLICATES FROM ANYWHERE), SO TURN IT ON WHERE ONE
+    // PROCESS DOES THE WRITING, E.G. THE REGISTRATION SERVER.
+    public static final String GROUP_COMMIT_KEY = "service.groupCommit.enabled";
+    public static final String GROUP_COMMIT_MAX_BATCH_KEY = "service.groupCommit.maxBatch";
+    public static final String GROUP_COMMIT_MAX_DELAY_KEY = "service.groupCommit.maxDelayMillis";
+    public static final String GROUP_COMMIT_QUEUE_KEY = "service.groupCommit.queueCapacity";
+    // CONFIGURATION KEYS FOR THE OPTIONAL LOCAL REGISTRATION JOURNAL (SEE RegistrationJournal): WHETHER IT IS ON
+    // AND WHERE ITS FILE LIVES (DEFAULT ~/.u07a1/registrations.journal).
+    public static final String JOURNAL_KEY = "service.journal.enabled";
+    public static final String JOURNAL_FILE_KEY = "service.journal.file";
+    // CONFIGURATION KEY FOR THE STARTUP SCHEMA CHECK (SEE SchemaVerifier): "none" SKIPS IT, "warn" LOGS MISSING
+    // TABLES, COLUMNS, INDEXES, CONSTRAINTS AND SEQUENCES, "fail" (THE DEFAULT) ALSO REFUSES TO START, SO AN
+    // UNMIGRATED DATABASE STOPS THE SERVICE AT ONCE INSTEAD OF FAILING ON THE FIRST QUERY THAT TOUCHES A NEW COLUMN.
+    public static final String SCHEMA_VALIDATION_KEY = "service.schema.validation";
+    // CONFIGURATION KEYS FOR READ REPLICAS (SEE ReplicaRouter): A COMMA-SEPARATED LIST OF JDBC URLS (SAME USER AND
+    // PASSWORD AS THE PRIMARY; EMPTY FOR NONE), HOW OFTEN THEY ARE HEALTH-CHECKED, AND HOW LONG A LEARNER'S READS
+    // STAY ON THE PRIMARY AFTER THEIR OWN WRITE.
+    public static final String REPLICA_URLS_KEY = "service.replicas.urls";
+    public static final String REPLICA_HEALTH_CHECK_KEY = "service.replicas.healthCheckSeconds";
+    public static final String REPLICA_READ_YOUR_WRITES_KEY = "service.replicas.readYourWritesSeconds";
+    // CONFIGURATION KEY FOR LEARNER SHARDING (SEE ShardRouter): A COMMA-SEPARATED LIST OF JDBC URLS (SAME USER AND
+    // PASSWORD AS THE PRIMARY; EMPTY FOR NONE) OVER WHICH REGISTRATIONS ARE PARTITIONED BY LEARNER. THE CATALOG
+    // STAYS ON THE PRIMARY.
+    public static final String SHARD_URLS_KEY = "service.shards.urls";
+    // CONFIGURATION KEY FOR THE SEAT LEDGER (SEE SeatLedger): HOW OFTEN CONFIRMED SEATS ARE WRITTEN TO THE
+    // SEATS_TAKEN COLUMN.
+    public static final String SEATS_FLUSH_KEY = "service.seats.flushMillis";
+    // CONFIGURATION KEYS FOR ADMISSION CONTROL OF ASYNCHRONOUS REGISTRATIONS (SEE AdmissionControl): AN ADAPTIVE
+    // CONCURRENCY LIMIT, A FAIR WAITING QUEUE WITH A MAXIMUM LENGTH AND WAIT, AND A PER-LEARNER SUBMISSION RATE.
+    public static final String ADMISSION_KEY = "service.admission.enabled";
+    public static final String ADMISSION_INITIAL_LIMIT_KEY = "service.admission.initialLimit";
+    public static final String ADMISSION_MIN_LIMIT_KEY = "service.admission.minLimit";
+    public static final String ADMISSION_MAX_LIMIT_KEY = "service.admission.maxLimit";
+    public static final String ADMISSION_MAX_QUEUE_KEY = "service.admission.maxQueue";
+    public static final String ADMISSION_MAX_WAIT_KEY = "service.admission.maxWaitSeconds";
+    public static final String ADMISSION_LEARNER_RATE_KEY = "service.admission.learnerRatePerSecond";
+    public static final String ADMISSION_LEARNER_BURST_KEY = "service.admission.learnerBurst";
+    // NUMBER OF ENTITIES PERSISTED BEFORE THE PERSISTENCE CONTEXT IS FLUSHED AND CLEARED. KEEP IN STEP WITH
+    // "hibernate.jdbc.batch_size" IN PERSISTENCE.XML SO EACH FLUSH SENDS ONE FULL JDBC BATCH.
+    public static final int BATCH_SIZE = 50;
+    // NUMBER OF ROWS A BULK IMPORT COMMITS PER TRANSACTION. LONG IMPORTS COMMIT AS THEY GO, SO THEY NEITHER HOLD
+    // ONE HUGE TRANSACTION OPEN NOR LOSE ALL PROGRESS TO ONE BAD ROW NEAR THE END.
+    public static final int IMPORT_CHUNK_SIZE = 100 * BATCH_SIZE;
+    // MAXIMUM NUMBER OF CREDIT HOURS A LEARNER MAY HOLD, ENFORCED BY registerIfAllowed.
+    public static final int MAX_CREDIT_LOAD = 9;
+    // ATTEMPTS MADE BY registerIfAllowed WHEN THE STORE ABORTS IT OVER A LOCK CONFLICT (E.G. A DEADLOCK BETWEEN
+    // TWO FIRST-TIME REGISTRATIONS OF THE SAME LEARNER).
+    private static final int LOCK_RETRIES = 3;
+    private static final int DEFAULT_THREADS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+    private static final Logger logger = Logger.getLogger(CourseRegistrationService.class.getName());
+
+    // WHERE COURSES AND REGISTRATIONS LIVE; OWNED BY THE SERVICE
+    protected final RegistrationStore store;
+    protected final ExecutorService executor;
+    private final LruCache<String, List<Course>> catalogCache;
+    // COURSE CODE -> DENSE INT ID AND CREDIT HOURS; THE KEY SPACE OF THE PER-LEARNER ID ARRAYS BELOW
+    private final CourseIndex courseIndex = new CourseIndex();
+    // EACH CACHED LEARNER'S REGISTRATIONS AS A SORTED ARRAY OF courseIndex IDS (A FEW DOZEN BYTES PER LEARNER)
+    private final LruCache<String, LearnerRegistrations> registrationCache;
+    // STRIPED PER-LEARNER LOCKS THAT SERIALIZE CHECKED REGISTRATIONS OF ONE LEARNER WITHIN THIS PROCESS. THE
+    // STORE'S OWN LOCKING (ROW LOCKS IN THE DATABASE) COVERS OTHER PROCESSES.
+    private final ReentrantLock[] learnerLocks = new ReentrantLock[64];
+    // CALL COUNTS, LATENCIES AND FAILURES PER OPERATION, PUBLISHED OVER JMX (SEE ServiceMetrics FOR ITS SETTINGS)
+    private final ServiceMetrics metrics;
+    // BATCHES ASYNCHRONOUS REGISTRATIONS INTO SHARED TRANSACTIONS; NULL UNLESS GROUP COMMIT IS ENABLED
+    private final GroupCommitWriter groupCommit;
+    // ACKNOWLEDGES REGISTRATIONS ONCE THEY ARE ON LOCAL DISK AND APPLIES THEM IN THE BACKGROUND; NULL UNLESS THE
+    // JOURNAL IS ENABLED
+    // THE JOURNAL FILE IF "service.journal.enabled" IS SET (NULL OTHERWISE); OPENED BY start()
+    private final String journalFile;
+    private volatile RegistrationJournal journal;
+    // COUNTS TAKEN SEATS PER COURSE IN MEMORY SO CAPACITY CHECKS DO NOT LOCK THE COURSE ROW
+    private final SeatLedger seatLedger;
+    // PACES ASYNCHRONOUS REGISTRATIONS AND QUEUES THE EXCESS FAIRLY; NULL UNLESS ADMISSION CONTROL IS ENABLED
+    private final AdmissionControl admission;
 
     /**
      * CONSTRUCTOR THAT ACCEPTS CONFIGURATION OVERRIDES FOR ENTITYMANAGERFACTORY CREATION.
      * THIS ALLOWS FOR DYNAMIC DATABASE CONNECTION SETTINGS RATHER THAN HARD-CODED VALUES IN THE PERSISTENCE.XML.
-     * THE CONFIGURATION OVERRIDES ARE PASSED AS A MAP AND USED TO CREATE THE ENTITYMANAGERFACTORY AND ENTITYMANAGER.
+     * THE CONFIGURATION OVERRIDES ARE PASSED AS A MAP AND USED TO OPEN THE STORAGE ENGINE SELECTED BY
+     * "service.store" (SEE {@link #openStore(Map)}) AND TO CREATE THE EXECUTOR.
+     * THE SERVICE OWNS BOTH AND RELEASES THEM IN {@link #close()}.
      * 
      * @param configOverrides A MAP OF CONFIGURATION PROPERTIES TO OVERRIDE DEFAULT SETTINGS IN PERSISTENCE.XML.
      */
     public CourseRegistrationService(Map<String, String> configOverrides) {
-        EntityManagerFactory emf = Persistence.createEntityManagerFactory("CourseRegistrationService", configOverrides);
-        this.em = emf.createEntityManager();
+        this(openStore(configOverrides), createExecutor(configOverrides), configOverrides);
     }
 
     /**
-     * CONSTRUCTOR THAT ACCEPTS AN ENTITYMANAGER DIRECTLY.
-     * THIS CAN BE USED WHEN AN ENTITYMANAGER IS ALREADY CREATED AND CONFIGURED EXTERNALLY.
+     * CONSTRUCTOR THAT ACCEPTS AN ENTITYMANAGERFACTORY DIRECTLY.
+     * THIS CAN BE USED WHEN A FACTORY IS ALREADY CREATED AND CONFIGURED EXTERNALLY. THE SERVICE TAKES OWNERSHIP OF
+     * THE EXECUTOR AND SHUTS IT DOWN IN {@link #close()}; THE CALLER REMAINS RESPONSIBLE FOR CLOSING THE FACTORY.
      * 
-     * @param em THE ENTITYMANAGER TO BE USED BY THE SERVICE.
+     * @param emf THE ENTITYMANAGERFACTORY USED TO OPEN ONE ENTITYMANAGER PER UNIT OF WORK.
+     * @param executor THE EXECUTOR THAT RUNS THE ASYNCHRONOUS OPERATIONS.
+     */
+    public CourseRegistrationService(EntityManagerFactory emf, ExecutorService executor) {
+        this(new JpaRegistrationStore(emf, Map.of(), false), executor, Map.of());
+    }
+
+    /**
+     * CONSTRUCTOR THAT ACCEPTS A STORAGE ENGINE DIRECTLY, E.G. A {@link MemoryRegistrationStore} BUILT BY A TEST.
+     * THE SERVICE TAKES OWNERSHIP OF BOTH THE STORE AND THE EXECUTOR AND CLOSES THEM IN {@link #close()}.
+     *
+     * @param store THE STORAGE ENGINE.
+     * @param executor THE EXECUTOR THAT RUNS THE ASYNCHRONOUS OPERATIONS.
+     * @param config THE SERVICE SETTINGS ("service.*" KEYS; MAY BE NULL).
+     */
+    public CourseRegistrationService(RegistrationStore store, ExecutorService executor, Map<String, String> config) {
+        this.store = store;
+        this.executor = executor;
+        this.catalogCache = new LruCache<>(intSetting(config, CATALOG_MAX_ENTRIES_KEY, 256),
+                intSetting(config, CATALOG_TTL_KEY, 300) * 1000L);
+        this.registrationCache = new LruCache<>(intSetting(config, REGISTRATIONS_MAX_LEARNERS_KEY, 10_000),
+                intSetting(config, REGISTRATIONS_TTL_KEY, 600) * 1000L);
+        for (int i = 0; i < learnerLocks.length; i++) {
+            learnerLocks[i] = new ReentrantLock();
+        }
+        this.metrics = new ServiceMetrics(config, executor, catalogCache::stats, registrationCache::stats,
+                store instanceof JpaRegistrationStore jpa
+                        ? new HibernateMetrics(jpa.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics(), true)
+                        : null);
+        metrics.start();
+        validateSchema(config == null ? null : config.get(SCHEMA_VALIDATION_KEY));
+        this.seatLedger = openSeatLedger(intSetting(config, SEATS_FLUSH_KEY, 1000));
+        this.admission = config != null && Boolean.parseBoolean(config.get(ADMISSION_KEY))
+                ? createAdmissionControl(config)
+                : null;
+        this.groupCommit = config != null && Boolean.parseBoolean(config.get(GROUP_COMMIT_KEY))
+                ? new GroupCommitWriter(intSetting(config, GROUP_COMMIT_QUEUE_KEY, 10_000),
+                        intSetting(config, GROUP_COMMIT_MAX_BATCH_KEY, BATCH_SIZE),
+                        intSetting(config, GROUP_COMMIT_MAX_DELAY_KEY, 5), this::writeRegistrations, metrics)
+                : null;
+        this.journalFile = config != null && Boolean.parseBoolean(config.get(JOURNAL_KEY))
+                ? Objects.requireNonNullElse(config.get(JOURNAL_FILE_KEY), "")
+                : null;
+    }
+
+    /**
+     * STARTS THE BACKGROUND WORK THAT CALLS BACK INTO THE SERVICE: WITH "service.journal.enabled", OPENS THE LOCAL
+     * REGISTRATION JOURNAL, WHOSE REPLAYER STARTS APPLYING REQUESTS LEFT BY A PREVIOUS RUN RIGHT AWAY. UNTIL THIS
+     * IS CALLED {@link #getJournal()} RETURNS NULL. CALLING IT AGAIN DOES NOTHING.
+     *
+     * @return THIS SERVICE.
+     * @throws UncheckedIOException IF THE JOURNAL CANNOT BE OPENED; THE SERVICE IS THEN CLOSED.
+     */
+    public synchronized CourseRegistrationService start() {
+        if (journalFile != null && journal == null) {
+            journal = openJournal(journalFile);
+        }
+        return this;
+    }
+
+    /**
+     * OPENS THE STORAGE ENGINE SELECTED BY "service.store": "memory" FOR A {@link MemoryRegistrationStore} (SET UP
+     * BY THE "service.store.*" KEYS), OTHERWISE A {@link JpaRegistrationStore} ("jpa") OR
+     * {@link JdbcRegistrationStore} ("jdbc") OVER A NEW ENTITYMANAGERFACTORY BUILT FROM THE CONFIGURATION.
+     *
+     * @param config THE CONFIGURATION MAP (MAY BE NULL, IN WHICH CASE PERSISTENCE.XML IS USED AS IS).
+     * @return A NEW STORE, OWNED BY THE CALLER.
+     */
+    public static RegistrationStore openStore(Map<String, String> config) {
+        String engine = config == null ? null : config.get(STORE_KEY);
+        if (engine != null && engine.trim().equalsIgnoreCase("memory")) {
+            boolean persistent = config.get(STORE_PERSISTENT_KEY) == null
+                    || Boolean.parseBoolean(config.get(STORE_PERSISTENT_KEY).trim());
+            String dir = config.get(STORE_DIR_KEY);
+            Path directory = !persistent ? null : dir == null || dir.isBlank()
+                    ? Path.of(System.getProperty("user.home"), ".u07a1", "store")
+                    : Path.of(dir.trim());
+            return new MemoryRegistrationStore(directory, intSetting(config, STORE_FLUSH_KEY, 200),
+                    intSetting(config, STORE_SNAPSHOT_KEY, 300));
+        }
+        if (engine != null && engine.trim().equalsIgnoreCase("jdbc")) {
+            return new JdbcRegistrationStore(
+                    Persistence.createEntityManagerFactory("CourseRegistrationService", config), config, true);
+        }
+        if (engine != null && !engine.isBlank() && !engine.trim().equalsIgnoreCase("jpa")) {
+            throw new IllegalArgumentException("Unknown storage engine \"" + engine.trim() + "\" in " + STORE_KEY
+                    + "; expected jpa, jdbc or memory.");
+        }
+        return new JpaRegistrationStore(Persistence.createEntityManagerFactory("CourseRegistrationService", config),
+                config, true);
+    }
+
+    // OPENS THE REGISTRATION JOURNAL; ITS REPLAYER MAY START APPLYING LEFTOVER REQUESTS RIGHT AWAY, SO THIS WAITS
+    // FOR start(), WHEN THE SERVICE IS FULLY BUILT.
+    private RegistrationJournal openJournal(String file) {
+        Path path = file.isBlank()
+                ? Path.of(System.getProperty("user.home"), ".u07a1", "registrations.journal")
+                : Path.of(file.trim());
+        try {
+            return RegistrationJournal.open(path, this::registerIfAllowed, this::isReplayRetryable);
+        } catch (IOException ex) {
+            close();
+            throw new UncheckedIOException("Could not open the registration journal " + path, ex);
+        }
+    }
+
+    // WHETHER A JOURNAL REPLAY THAT FAILED SHOULD BE TRIED AGAIN: WHILE THE DATABASE IS UNREACHABLE, AFTER A LOCK
+    // CONFLICT, OR WHILE THE GROUP-COMMIT QUEUE IS FULL. ANYTHING ELSE WOULD FAIL THE SAME WAY EVERY TIME.
+    private boolean isReplayRetryable(RuntimeException failure) {
+        return ReplicaRouter.isConnectionFailure(failure) || store.isRetryable(failure)
+                || failure instanceof RejectedExecutionException;
+    }
+
+    // SETS UP ADMISSION CONTROL; THE LIMITS DEFAULT TO THE SIZE OF THE EXECUTOR'S POOL, WHICH IS WHAT RUNS THE
+    // ADMITTED WORK
+    private static AdmissionControl createAdmissionControl(Map<String, String> config) {
+        int threads = intSetting(config, THREADS_KEY, DEFAULT_THREADS);
+        String rate = config.get(ADMISSION_LEARNER_RATE_KEY);
+        double learnerRate;
+        try {
+            learnerRate = rate == null || rate.isBlank() ? 2.0 : Double.parseDouble(rate.trim());
+        } catch (NumberFormatException ex) {
+            learnerRate = 2.0;
+        }
+        int minLimit = intSetting(config, ADMISSION_MIN_LIMIT_KEY, 1);
+        int maxLimit = Math.max(minLimit, intSetting(config, ADMISSION_MAX_LIMIT_KEY, threads));
+        return new AdmissionControl(intSetting(config, ADMISSION_INITIAL_LIMIT_KEY, Math.max(minLimit, maxLimit / 2)),
+                minLimit, maxLimit, intSetting(config, ADMISSION_MAX_QUEUE_KEY, 10_000),
+                intSetting(config, ADMISSION_MAX_WAIT_KEY, 120), learnerRate,
+                intSetting(config, ADMISSION_LEARNER_BURST_KEY, 5));
+    }
+
+    // STARTS THE SEAT LEDGER AND RECONCILES IT WITH THE REGISTRATIONS. IF THE DATABASE CANNOT BE COUNTED NOW, THE
+    // FIRST RESERVATION TRIES AGAIN.
+    private SeatLedger openSeatLedger(int flushMillis) {
+        SeatLedger ledger = new SeatLedger(this::reconcileSeats, store::findSeatsTaken, this::writeSeats,
+                store::claimSeat, flushMillis);
+        try {
+            ledger.reconcile();
+        } catch (RuntimeException ex) {
+            logger.log(Level.WARNING, "Could not count the seats taken; retrying with the first registration.", ex);
+        }
+        return ledger;
+    }
+
+    // RUNS THE STARTUP SCHEMA CHECK IN THE CONFIGURED MODE
+    private void validateSchema(String mode) {
+        if (mode != null && mode.trim().equalsIgnoreCase("none")) {
+            return;
+        }
+        boolean fail = mode == null || mode.isBlank() || mode.trim().equalsIgnoreCase("fail");
+        List<SchemaVerifier.Problem> problems;
+        try {
+            problems = store.verifySchema();
+        } catch (RuntimeException ex) {
+            if (fail) {
+                abandon();
+                throw ex;
+            }
+            logger.log(Level.WARNING, "Could not check the database schema.", ex);
+            return;
+        }
+        for (SchemaVerifier.Problem problem : problems) {
+            logger.log(Level.WARNING, "Schema check: {0}", problem);
+        }
+        if (fail && !problems.isEmpty()) {
+            abandon();
+            throw new IllegalStateException("The database schema does not match the entity mappings: " + problems
+                    + ". Apply the scripts in db/migration (or run SchemaVerifier migrate <file.sql> for the exact "
+                    + "statements), or set " + SCHEMA_VALIDATION_KEY + " = warn to start anyway.");
+        }
+    }
+
+    // RELEASES WHAT THE CONSTRUCTOR HAS SET UP SO FAR WHEN IT IS ABOUT TO THROW
+    private void abandon() {
+        if (admission != null) {
+            admission.close();
+        }
+        if (seatLedger != null) {
+            seatLedger.close();
+        }
+        metrics.close();
+        executor.shutdown();
+        store.close();
+    }
+
+    /**
+     * CREATES THE EXECUTOR DESCRIBED BY THE "service.executor" AND "service.threads" KEYS.
+     * THE PLATFORM POOL IS BOUNDED IN THREADS; ITS QUEUE ABSORBS BURSTS INSTEAD OF SPAWNING MORE THREADS.
+     *
+     * @param config THE CONFIGURATION MAP (MAY BE NULL, IN WHICH CASE THE DEFAULT BOUNDED POOL IS USED).
+     * @return A NEW EXECUTOR SERVICE.
      */
-    public CourseRegistrationService(EntityManager em) {
-        this.em = em;
+    public static ExecutorService createExecutor(Map<String, String> config) {
+        String mode = config == null ? null : config.get(EXECUTOR_KEY);
+        if ("virtual".equalsIgnoreCase(mode)) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("registration-vt-", 0).factory());
+        }
+        int threads = intSetting(config, THREADS_KEY, DEFAULT_THREADS);
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "registration-worker-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    // READS AN INTEGER SETTING FROM THE CONFIGURATION MAP, FALLING BACK TO THE DEFAULT WHEN IT IS ABSENT.
+    static int intSetting(Map<String, String> config, String key, int defaultValue) {
+        String value = config == null ? null : config.get(key);
+        return value == null || value.isBlank() ? defaultValue : Integer.parseInt(value.trim());
     }
 
     // SYNCHRONOUS
@@ -43,6 +379,7 @@ public class CourseRegistrationService {
     /**
      * CREATES A NEW COURSE ENTITY IN THE DATABASE.
      * THIS METHOD INITIATES A TRANSACTION, PERSISTS THE NEW COURSE ENTITY TO THE DATABASE, AND COMMITS THE TRANSACTION.
+     * THE CACHED CATALOG IS INVALIDATED AFTER THE COMMIT SO THE NEXT READ SEES THE NEW COURSE.
      * IT IS DESIGNED TO BE SYNCHRONOUS AND WILL BLOCK UNTIL THE OPERATION COMPLETES.
      * 
      * @param courseCode THE UNIQUE CODE IDENTIFYING THE COURSE.
@@ -50,29 +387,214 @@ public class CourseRegistrationService {
      * @return THE PERSISTED COURSE ENTITY.
      */
     public Course createCourse(String courseCode, int creditHours) {
-        Course course = new Course(courseCode, creditHours);
-        em.getTransaction().begin();
-        em.persist(course);
-        em.getTransaction().commit();
-        return course;
+        return createCourse(courseCode, creditHours, null);
     }
 
     /**
-     * RETRIEVES ALL COURSES FROM THE DATABASE.
-     * UTILIZES HIBERNATE QUERY LANGUAGE (HQL) TO SELECT ALL COURSE ENTITIES, ORDERED BY THEIR COURSE CODE.
+     * CREATES A NEW COURSE WITH A SEAT CAPACITY, ENFORCED BY {@link #registerIfAllowed(String, String)}. SEE
+     * {@link #createCourse(String, int)}.
+     *
+     * @param courseCode THE UNIQUE CODE IDENTIFYING THE COURSE.
+     * @param creditHours THE NUMBER OF CREDIT HOURS THE COURSE CARRIES.
+     * @param capacity THE MAXIMUM NUMBER OF LEARNERS, OR NULL FOR NO LIMIT.
+     * @return THE PERSISTED COURSE ENTITY.
+     */
+    public Course createCourse(String courseCode, int creditHours, Integer capacity) {
+        return metrics.time("createCourse", () -> {
+            Course course = new Course(courseCode, creditHours, capacity);
+            store.insertCourse(course);
+            invalidateCatalog();
+            return course;
+        });
+    }
+
+    /**
+     * RETRIEVES ALL COURSES, SERVED FROM THE IN-PROCESS CATALOG CACHE WHEN A FRESH COPY IS HELD.
+     * ON A MISS, THE STORE LOADS ALL COURSES, ORDERED BY THEIR COURSE CODE.
      * THIS OPERATION IS SYNCHRONOUS AND WILL BLOCK UNTIL COMPLETED.
      * 
-     * @return A LIST OF ALL COURSE ENTITIES IN THE DATABASE.
+     * @return AN UNMODIFIABLE LIST OF ALL COURSE ENTITIES IN THE DATABASE.
      */
     public List<Course> getAllCourses() {
-        String hql = "SELECT crs FROM Course crs ORDER BY courseCode";
-        TypedQuery<Course> query = em.createQuery(hql, Course.class);
-        return query.getResultList();
+        return metrics.time("getAllCourses", () -> catalogCache.get("all", () -> indexed(store.findAllCourses())));
+    }
+
+    // INTERNS LOADED COURSES (RECORDING THEIR CURRENT CREDIT HOURS) AND RETURNS THEM AS AN UNMODIFIABLE LIST
+    private List<Course> indexed(List<Course> courses) {
+        for (Course course : courses) {
+            courseIndex.intern(course);
+        }
+        return List.copyOf(courses);
+    }
+
+    /**
+     * RETRIEVES ONE PAGE OF THE CATALOG, ORDERED BY COURSE CODE, STARTING AFTER THE GIVEN COURSE CODE.
+     * SEE {@link #getCourses(String, String, int)}.
+     *
+     * @param afterCourseCode THE LAST COURSE CODE OF THE PREVIOUS PAGE, OR NULL FOR THE FIRST PAGE.
+     * @param limit THE MAXIMUM NUMBER OF COURSES RETURNED.
+     * @return AN UNMODIFIABLE LIST OF AT MOST LIMIT COURSES.
+     */
+    public List<Course> getCourses(String afterCourseCode, int limit) {
+        return getCourses(afterCourseCode, null, limit);
+    }
+
+    /**
+     * RETRIEVES ONE PAGE OF THE CATALOG USING KEYSET PAGINATION: COURSES WHOSE CODE SORTS AFTER AFTERCOURSECODE,
+     * OPTIONALLY RESTRICTED TO CODES STARTING WITH A PREFIX, ORDERED BY COURSE CODE. EACH PAGE COSTS THE SAME NO
+     * MATTER HOW DEEP INTO THE CATALOG IT IS (UNLIKE OFFSET PAGINATION). PAGES ARE HELD IN THE CATALOG CACHE UNTIL
+     * THE CATALOG IS INVALIDATED.
+     *
+     * @param afterCourseCode THE LAST COURSE CODE OF THE PREVIOUS PAGE, OR NULL FOR THE FIRST PAGE.
+     * @param prefix ONLY COURSES WHOSE CODE STARTS WITH THIS PREFIX ARE RETURNED; NULL OR BLANK FOR ALL COURSES.
+     * @param limit THE MAXIMUM NUMBER OF COURSES RETURNED.
+     * @return AN UNMODIFIABLE LIST OF AT MOST LIMIT COURSES. A SHORTER LIST MEANS THE LAST PAGE WAS REACHED.
+     */
+    public List<Course> getCourses(String afterCourseCode, String prefix, int limit) {
+        String normalizedPrefix = prefix == null || prefix.isBlank() ? null : prefix.trim();
+        String key = "page:" + afterCourseCode + "|" + normalizedPrefix + "|" + limit;
+        return metrics.time("getCourses", () -> catalogCache.get(key,
+                () -> indexed(store.findCourses(afterCourseCode, normalizedPrefix, limit))));
+    }
+
+    /**
+     * STREAMS THE CATALOG (OPTIONALLY RESTRICTED TO A COURSE CODE PREFIX) TO A CONSUMER, ORDERED BY COURSE CODE,
+     * WITHOUT MATERIALIZING IT (THE JPA STORE READS A SCROLLABLE JDBC RESULT IN FETCHES OF {@link #BATCH_SIZE} AND
+     * CLEARS THE PERSISTENCE CONTEXT AFTER EVERY BATCH), SO MEMORY STAYS FLAT FOR ANY CATALOG SIZE. THE STREAMED
+     * COURSES ARE NOT CACHED.
+     *
+     * @param prefix ONLY COURSES WHOSE CODE STARTS WITH THIS PREFIX ARE STREAMED; NULL OR BLANK FOR ALL COURSES.
+     * @param action CALLED ONCE PER COURSE, ON THE CALLING THREAD.
+     * @return THE NUMBER OF COURSES STREAMED.
+     */
+    public long streamCourses(String prefix, Consumer<Course> action) {
+        String normalizedPrefix = prefix == null || prefix.isBlank() ? null : prefix.trim();
+        return metrics.time("streamCourses", () -> store.streamCourses(normalizedPrefix, action));
+    }
+
+    /**
+     * STREAMS EVERY REGISTRATION (ALL LEARNERS), ORDERED BY LEARNER ID AND COURSE CODE, TO A CONSUMER WITHOUT
+     * MATERIALIZING THE TABLE, LIKE {@link #streamCourses(String, Consumer)}. USED FOR BULK EXPORTS.
+     * WHEN LEARNERS ARE SHARDED, EVERY SHARD IS READ IN PARALLEL AND THE ROWS ARE MERGED INTO THE SAME ORDER.
+     *
+     * @param action CALLED ONCE PER REGISTRATION, ON THE CALLING THREAD.
+     * @return THE NUMBER OF REGISTRATIONS STREAMED.
+     */
+    public long streamRegistrations(Consumer<RegisteredCourse> action) {
+        return metrics.time("streamRegistrations", () -> store.streamRegistrations(action));
+    }
+
+    /**
+     * COUNTS THE LEARNERS REGISTERED FOR EACH COURSE. AN ADMINISTRATIVE QUERY OVER ALL LEARNERS: WHEN LEARNERS ARE
+     * SHARDED, EVERY SHARD IS COUNTED IN PARALLEL AND THE COUNTS ARE ADDED UP.
+     *
+     * @return AN UNMODIFIABLE MAP OF COURSE CODE TO NUMBER OF REGISTRATIONS, SORTED BY COURSE CODE. COURSES WITHOUT
+     * REGISTRATIONS ARE LEFT OUT.
+     */
+    public Map<String, Long> getEnrollmentCounts() {
+        return metrics.time("getEnrollmentCounts", () -> Collections.unmodifiableMap(enrollmentCounts()));
+    }
+
+    private Map<String, Long> enrollmentCounts() {
+        return new TreeMap<>(store.countEnrollments());
+    }
+
+    // THE SEAT LEDGER'S COUNTER: COUNTS EVERY COURSE'S REGISTRATIONS AND CORRECTS THE STORED SEATS_TAKEN COUNTS
+    // THAT DISAGREE (E.G. AFTER A SHUTDOWN THAT COULD NOT FLUSH THE LEDGER)
+    private Map<String, Integer> reconcileSeats() {
+        Map<String, Long> counts = enrollmentCounts();
+        Map<String, Integer> seats = new HashMap<>();
+        Map<String, Integer> corrections = new TreeMap<>();
+        store.findSeatsTaken().forEach((courseCode, stored) -> {
+            int taken = counts.getOrDefault(courseCode, 0L).intValue();
+            seats.put(courseCode, taken);
+            if (stored != taken) {
+                corrections.put(courseCode, taken);
+            }
+        });
+        if (!corrections.isEmpty()) {
+            store.setSeatsTaken(corrections);
+            logger.log(Level.INFO, "Corrected the stored seat counts of {0} courses.", corrections.size());
+        }
+        return seats;
+    }
+
+    // THE SEAT LEDGER'S WRITER: ADDS NEWLY CONFIRMED SEATS TO THE STORED COUNTS
+    private void writeSeats(Map<String, Integer> confirmed) {
+        metrics.time("writeSeats", () -> {
+            store.addSeatsTaken(confirmed);
+            return null;
+        });
+    }
+
+    /**
+     * BULK-LOADS COURSES (E.G. A NEW TERM'S CATALOG) FROM A LAZY SOURCE. THE JPA STORE INSERTS THE ROWS IN JDBC
+     * BATCHES AND COMMITS EVERY {@link #IMPORT_CHUNK_SIZE} ROWS. THE CATALOG CACHE IS INVALIDATED AFTERWARDS, EVEN
+     * IF THE IMPORT FAILED PART WAY.
+     *
+     * @param courses THE COURSES TO INSERT, READ ONE AT A TIME.
+     * @param progress CALLED AFTER EACH COMMIT WITH THE NUMBER OF ROWS COMMITTED SO FAR.
+     * @return THE NUMBER OF COURSES INSERTED.
+     */
+    public long importCourses(Iterator<Course> courses, LongConsumer progress) {
+        return metrics.time("importCourses", () -> {
+            try {
+                return store.importCourses(courses, progress);
+            } finally {
+                invalidateCatalog();
+            }
+        });
+    }
+
+    /**
+     * BULK-LOADS REGISTRATIONS (E.G. A HISTORICAL ROSTER) FROM A LAZY SOURCE. THIS IS AN ADMINISTRATIVE LOAD LIKE
+     * {@link #createCourseRegistrations(Map)}: THE CREDIT LIMIT IS NOT CHECKED, BUT THE UNIQUE (LEARNER_ID,
+     * COURSE_CODE) CONSTRAINT STILL APPLIES. ALL CACHED REGISTRATION LISTS ARE DISCARDED AFTERWARDS.
+     *
+     * @param registrations THE REGISTRATIONS TO INSERT, READ ONE AT A TIME.
+     * @param progress CALLED AFTER EACH COMMIT WITH THE NUMBER OF ROWS COMMITTED SO FAR.
+     * @return THE NUMBER OF REGISTRATIONS INSERTED.
+     */
+    public long importRegistrations(Iterator<RegisteredCourse> registrations, LongConsumer progress) {
+        return metrics.time("importRegistrations", () -> {
+            // SEATS TAKEN PER COURSE BY THE IMPORTED ROWS. ROWS OF A CHUNK THAT FAILED ARE COUNTED TOO, WHICH CAN
+            // ONLY UNDER-SELL UNTIL THE NEXT START RECONCILES THE LEDGER.
+            Map<String, Integer> seats = new HashMap<>();
+            Iterator<RegisteredCourse> counted = new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return registrations.hasNext();
+                }
+
+                @Override
+                public RegisteredCourse next() {
+                    RegisteredCourse registration = registrations.next();
+                    seats.merge(registration.getCourseCode(), 1, Integer::sum);
+                    return registration;
+                }
+            };
+            try {
+                return store.importRegistrations(counted, progress);
+            } finally {
+                seats.forEach(seatLedger::add);
+                registrationCache.invalidateAll();
+            }
+        });
+    }
+
+    /**
+     * DISCARDS THE CACHED CATALOG AND THE STORE'S CACHED COURSE DATA (E.G. HIBERNATE'S) SO THE NEXT READ GOES TO
+     * THE STORE. CALL THIS AFTER THE COURSE_OFFERINGS TABLE HAS BEEN CHANGED OUTSIDE OF THIS SERVICE.
+     */
+    public void invalidateCatalog() {
+        catalogCache.invalidateAll();
+        store.evictCatalog();
     }
 
     /**
      * CREATES A NEW COURSE REGISTRATION IN THE DATABASE FOR A GIVEN LEARNER.
      * BEGINS A TRANSACTION TO PERSIST A NEW REGISTEREDCOURSE ENTITY, COMMITTING THE TRANSACTION UPON SUCCESS.
+     * THE NEW REGISTRATION IS WRITTEN THROUGH TO THE LEARNER'S CACHED REGISTRATION LIST.
      * THIS METHOD IS SYNCHRONOUS AND BLOCKS UNTIL THE DATABASE OPERATION IS COMPLETE.
      * 
      * @param learnerID THE ID OF THE LEARNER REGISTERING FOR THE COURSE.
@@ -80,49 +602,430 @@ public class CourseRegistrationService {
      * @param creditHours THE NUMBER OF CREDIT HOURS FOR THE COURSE.
      */
     public void createCourseRegistration(String learnerID, String courseCode, int creditHours) {
-        RegisteredCourse registration = new RegisteredCourse(learnerID, courseCode, creditHours);
-        em.getTransaction().begin();
-        em.persist(registration);
-        em.getTransaction().commit();
+        metrics.time("createCourseRegistration", () -> {
+            RegisteredCourse registration = new RegisteredCourse(learnerID, courseCode, creditHours);
+            store.insertRegistrations(List.of(registration));
+            cacheRegistrations(learnerID, List.of(registration));
+            seatLedger.add(courseCode, 1);
+            return registration;
+        });
+    }
+
+    /**
+     * REGISTERS A LEARNER FOR A COURSE ONLY IF THE LEARNER IS NOT ALREADY REGISTERED FOR IT AND THE COURSE KEEPS
+     * THE LEARNER WITHIN {@link #MAX_CREDIT_LOAD} CREDIT HOURS, AND THE COURSE HAS A SEAT LEFT. SEATS ARE
+     * RESERVED IN THE IN-MEMORY {@link SeatLedger}, SO REGISTRATIONS FOR ONE COURSE DO NOT QUEUE ON ITS ROW.
+     * THE CHECKS AND THE INSERT ARE ONE ATOMIC STEP OF THE STORE (SEE
+     * {@link RegistrationStore#register(String, String, RegistrationStore.RegistrationRule)}; THE JPA STORE RUNS
+     * THEM IN ONE TRANSACTION THAT FIRST LOCKS THE LEARNER'S REGISTRATION ROWS), SO CONCURRENT CLIENTS OF THE SAME
+     * LEARNER CANNOT BOTH PASS THE LIMIT. THE RETURNED RESULT CARRIES THE LEARNER'S STATE AS OF THE COMMIT, SO NO
+     * FOLLOW-UP READ IS NEEDED.
+     * WITH "service.groupCommit.enabled" THE CHECKS RUN HERE UNDER THE LEARNER'S LOCK AND THE INSERT IS COMMITTED
+     * TOGETHER WITH OTHER LEARNERS' REGISTRATIONS BY THE GROUP-COMMIT WRITER; THE CALL RETURNS ONCE ITS BATCH HAS
+     * COMMITTED.
+     *
+     * @param learnerID THE ID OF THE LEARNER REGISTERING FOR THE COURSE.
+     * @param courseCode THE CODE OF THE COURSE TO REGISTER.
+     * @return THE OUTCOME, INCLUDING THE LEARNER'S TOTAL CREDITS AND REGISTRATIONS.
+     */
+    public RegistrationResult registerIfAllowed(String learnerID, String courseCode) {
+        return metrics.time("registerIfAllowed", () -> groupCommit != null
+                ? lockAndQueue(learnerID, courseCode)
+                : lockAndRegister(learnerID, courseCode));
+    }
+
+    // THE BODY OF registerIfAllowed: SERIALIZES THE LEARNER WITHIN THIS PROCESS AND RETRIES LOCK CONFLICTS.
+    private RegistrationResult lockAndRegister(String learnerID, String courseCode) {
+        ReentrantLock lock = learnerLocks[Math.floorMod(learnerID.hashCode(), learnerLocks.length)];
+        lock.lock();
+        try {
+            for (int attempt = 1; ; attempt++) {
+                AtomicBoolean seatReserved = new AtomicBoolean();
+                try {
+                    RegistrationResult result = store.register(learnerID, courseCode,
+                            (current, course) -> check(current, course, seatReserved));
+                    if (result.isRegistered()) {
+                        seatLedger.confirm(courseCode);
+                    } else if (seatReserved.get()) {
+                        // THE INSERT TURNED OUT TO BE A DUPLICATE AFTER THE SEAT WAS RESERVED
+                        seatLedger.release(courseCode);
+                    }
+                    registrationCache.put(learnerID, LearnerRegistrations.of(result.registrations(), courseIndex));
+                    return result;
+                } catch (RuntimeException ex) {
+                    if (seatReserved.get()) {
+                        seatLedger.release(courseCode);
+                    }
+                    if (attempt >= LOCK_RETRIES || !store.isRetryable(ex)) {
+                        throw ex;
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // THE BODY OF registerIfAllowed WITH GROUP COMMIT: CHECKS THE LEARNER'S CURRENT REGISTRATIONS UNDER THE LEARNER'S
+    // LOCK, THEN HOLDS THE LOCK UNTIL THE WRITER HAS COMMITTED THE INSERT, SO THE LEARNER'S NEXT REQUEST SEES IT.
+    private RegistrationResult lockAndQueue(String learnerID, String courseCode) {
+        Course course = getCourses(null, courseCode, 1).stream()
+                .filter(c -> c.getCourseCode().equals(courseCode)).findFirst().orElse(null);
+        ReentrantLock lock = learnerLocks[Math.floorMod(learnerID.hashCode(), learnerLocks.length)];
+        lock.lock();
+        try {
+            List<RegisteredCourse> current = store.findRegistrations(learnerID);
+            RegistrationResult.Status rejection = course == null
+                    ? RegistrationResult.Status.UNKNOWN_COURSE
+                    : check(current, course, new AtomicBoolean());
+            if (rejection != null) {
+                return cachedResult(learnerID, rejection, null, current);
+            }
+            RegisteredCourse registration;
+            try {
+                registration = groupCommit.submit(new RegisteredCourse(learnerID, courseCode, course.getCreditHours()))
+                        .join();
+            } catch (CompletionException ex) {
+                seatLedger.release(courseCode);
+                List<RegisteredCourse> now = store.findRegistrations(learnerID);
+                if (now.stream().anyMatch(r -> r.getCourseCode().equals(courseCode))) {
+                    // ANOTHER PROCESS REGISTERED THE SAME PAIR FIRST, AND THE UNIQUE CONSTRAINT TURNED THIS ONE AWAY
+                    return cachedResult(learnerID, RegistrationResult.Status.DUPLICATE, null, now);
+                }
+                throw ex.getCause() instanceof RuntimeException cause ? cause : ex;
+            }
+            seatLedger.confirm(courseCode);
+            List<RegisteredCourse> after = new ArrayList<>(current);
+            after.add(registration);
+            return cachedResult(learnerID, RegistrationResult.Status.REGISTERED, registration, after);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // BUILDS A RESULT FROM THE LEARNER'S REGISTRATIONS AND STORES THEM AS THE LEARNER'S CACHED STATE
+    private RegistrationResult cachedResult(String learnerID, RegistrationResult.Status status,
+                                            RegisteredCourse registration, List<RegisteredCourse> registrations) {
+        int totalCredits = 0;
+        for (RegisteredCourse registered : registrations) {
+            totalCredits += registered.getCreditHours();
+        }
+        registrationCache.put(learnerID, LearnerRegistrations.of(registrations, courseIndex));
+        return new RegistrationResult(status, registration, totalCredits, registrations);
+    }
+
+    // THE RULE OF registerIfAllowed, RUN BY THE STORE WHILE THE LEARNER'S REGISTRATIONS ARE HELD STILL
+    private RegistrationResult.Status check(List<RegisteredCourse> current, Course course, AtomicBoolean seatReserved) {
+        LearnerRegistrations state = LearnerRegistrations.of(current, courseIndex);
+        if (state.contains(courseIndex.intern(course.getCourseCode()))) {
+            return RegistrationResult.Status.DUPLICATE;
+        }
+        if (state.totalCredits() + course.getCreditHours() > MAX_CREDIT_LOAD) {
+            return RegistrationResult.Status.CREDIT_LIMIT_EXCEEDED;
+        }
+        // LAST CHECK, SO A SEAT IS ONLY HELD BY A REGISTRATION THAT IS ABOUT TO BE INSERTED
+        if (!seatLedger.tryReserve(course.getCourseCode(), course.getCapacity())) {
+            return RegistrationResult.Status.COURSE_FULL;
+        }
+        seatReserved.set(true);
+        return null;
+    }
+
+    /**
+     * REGISTERS ONE LEARNER FOR SEVERAL COURSES IN A SINGLE TRANSACTION (A LEARNER'S ROWS ALWAYS LIVE ON ONE SHARD).
+     * THE INSERTS ARE SENT AS JDBC BATCHES OF {@link #BATCH_SIZE} ROWS; IF ANY INSERT FAILS, NONE ARE COMMITTED.
+     * THE NEW REGISTRATIONS ARE WRITTEN THROUGH TO THE LEARNER'S CACHED REGISTRATION LIST.
+     *
+     * @param learnerID THE ID OF THE LEARNER REGISTERING FOR THE COURSES.
+     * @param courses THE COURSES TO REGISTER FOR.
+     * @return THE PERSISTED REGISTEREDCOURSE ENTITIES, IN THE ORDER OF THE GIVEN COURSES.
+     */
+    public List<RegisteredCourse> createCourseRegistrations(String learnerID, List<Course> courses) {
+        return createCourseRegistrations(Map.of(learnerID, courses));
     }
 
     /**
-     * RETRIEVES ALL COURSE REGISTRATIONS FOR A GIVEN LEARNER ID FROM THE DATABASE.
-     * PERFORMS AN HQL QUERY TO FIND ALL REGISTEREDCOURSE ENTITIES ASSOCIATED WITH THE LEARNER ID.
+     * REGISTERS MANY LEARNERS (E.G. A WHOLE COHORT ENROLLED BY AN ADVISOR) IN A SINGLE TRANSACTION PER SHARD.
+     * THE PERSISTENCE CONTEXT IS FLUSHED AND CLEARED EVERY {@link #BATCH_SIZE} ROWS SO IT DOES NOT GROW WITH THE
+     * COHORT, AND EACH FLUSH IS SENT AS ONE JDBC BATCH. WITHOUT LEARNER SHARDS, IF ANY INSERT FAILS NONE ARE
+     * COMMITTED. WITH SHARDS EACH SHARD COMMITS ITS OWN LEARNERS: A FAILURE ON ONE SHARD ROLLS BACK ONLY THAT
+     * SHARD'S ROWS, AND THE CALL THEN THROWS A {@link RegistrationStore.PartialInsertException} NAMING THE ROWS THE
+     * OTHER SHARDS COMMITTED.
+     * THE NEW (COMMITTED) REGISTRATIONS ARE WRITTEN THROUGH TO THE CACHED REGISTRATION LISTS OF THE LEARNERS
+     * INVOLVED.
+     *
+     * @param coursesByLearner THE COURSES TO REGISTER, KEYED BY LEARNER ID.
+     * @return THE PERSISTED REGISTEREDCOURSE ENTITIES.
+     * @throws RegistrationStore.PartialInsertException IF SOME SHARDS COMMITTED THEIR ROWS AND OTHERS FAILED.
+     */
+    public List<RegisteredCourse> createCourseRegistrations(Map<String, List<Course>> coursesByLearner) {
+        return metrics.time("createCourseRegistrations", () -> insertRegistrations(coursesByLearner));
+    }
+
+    private List<RegisteredCourse> insertRegistrations(Map<String, List<Course>> coursesByLearner) {
+        List<RegisteredCourse> registrations = new ArrayList<>();
+        for (Map.Entry<String, List<Course>> entry : coursesByLearner.entrySet()) {
+            for (Course course : entry.getValue()) {
+                registrations.add(new RegisteredCourse(entry.getKey(), course.getCourseCode(), course.getCreditHours()));
+            }
+        }
+        persistRegistrations(registrations);
+        return registrations;
+    }
+
+    // INSERTS NEW REGISTRATIONS AND COUNTS THEIR SEATS IN THE LEDGER, INCLUDING THE ROWS SOME SHARDS COMMITTED
+    // BEFORE OTHERS FAILED
+    private void persistRegistrations(List<RegisteredCourse> registrations) {
+        try {
+            writeRegistrations(registrations);
+        } catch (RegistrationStore.PartialInsertException ex) {
+            addSeats(ex.getCommitted());
+            throw ex;
+        }
+        addSeats(registrations);
+    }
+
+    // INSERTS NEW REGISTRATIONS THROUGH THE STORE (ONE TRANSACTION IN THE JPA STORE, PER SHARD WHEN SHARDED), THEN
+    // WRITES THEM THROUGH TO THE CACHED LISTS OF THE LEARNERS INVOLVED. ALSO THE BATCH SINK OF THE GROUP-COMMIT
+    // WRITER, WHOSE CALLERS ACCOUNT FOR THEIR OWN SEATS. ROWS SOME SHARDS COMMITTED BEFORE OTHERS FAILED ARE WRITTEN
+    // THROUGH AS WELL BEFORE THE FAILURE IS THROWN ON.
+    private void writeRegistrations(List<RegisteredCourse> registrations) {
+        try {
+            store.insertRegistrations(registrations);
+        } catch (RegistrationStore.PartialInsertException ex) {
+            cacheInserted(ex.getCommitted());
+            throw ex;
+        }
+        cacheInserted(registrations);
+    }
+
+    // WRITES COMMITTED REGISTRATIONS THROUGH TO THE CACHED LISTS OF THEIR LEARNERS
+    private void cacheInserted(List<RegisteredCourse> registrations) {
+        Map<String, List<RegisteredCourse>> byLearner = new HashMap<>();
+        for (RegisteredCourse registration : registrations) {
+            byLearner.computeIfAbsent(registration.getLearnerID(), k -> new ArrayList<>()).add(registration);
+        }
+        byLearner.forEach(this::cacheRegistrations);
+    }
+
+    // COUNTS THE SEATS OF COMMITTED, UNCHECKED REGISTRATIONS IN THE SEAT LEDGER
+    private void addSeats(List<RegisteredCourse> registrations) {
+        for (RegisteredCourse registration : registrations) {
+            seatLedger.add(registration.getCourseCode(), 1);
+        }
+    }
+
+    /**
+     * RETRIEVES ALL COURSE REGISTRATIONS FOR A GIVEN LEARNER ID, SERVED FROM THE PER-LEARNER CACHE WHEN POSSIBLE.
+     * ON A MISS, THE STORE LOADS ALL REGISTRATIONS OF THE LEARNER ID.
      * THIS OPERATION IS SYNCHRONOUS AND WILL BLOCK UNTIL THE QUERY COMPLETES AND RESULTS ARE RETURNED.
-     * 
+     * THE ROWS ARE BUILT FROM THE LEARNER'S INDEXED STATE (SEE {@link #getLearnerRegistrations(String)}), SO THEY
+     * ARE DETACHED VALUES WITHOUT A REGISTRATION ID, ORDERED BY WHEN THEIR COURSES WERE FIRST SEEN.
+     *
      * @param id THE LEARNER ID WHOSE COURSE REGISTRATIONS ARE BEING REQUESTED.
-     * @return A LIST OF REGISTEREDCOURSE ENTITIES FOR THE SPECIFIED LEARNER ID.
+     * @return AN UNMODIFIABLE LIST OF REGISTEREDCOURSE ENTITIES FOR THE SPECIFIED LEARNER ID.
      */
     public List<RegisteredCourse> getAllCourseRegistrations(String id) {
-        String hql = "SELECT reg FROM RegisteredCourse reg WHERE learnerID = :id";
-        TypedQuery<RegisteredCourse> query = em.createQuery(hql, RegisteredCourse.class);
-        query.setParameter("id", id);
-        return query.getResultList();
+        return metrics.time("getAllCourseRegistrations",
+                () -> loadLearnerRegistrations(id).toRegistrations(id, courseIndex));
+    }
+
+    /**
+     * RETURNS A LEARNER'S REGISTRATIONS AS A SORTED ARRAY OF {@link #getCourseIndex()} IDS WITH THEIR CREDIT TOTAL,
+     * SERVED FROM THE PER-LEARNER CACHE WHEN POSSIBLE. DUPLICATE AND CREDIT CHECKS AGAINST IT ALLOCATE NOTHING.
+     *
+     * @param learnerID THE LEARNER WHOSE REGISTRATIONS ARE RETURNED.
+     * @return THE LEARNER'S REGISTRATIONS (IMMUTABLE).
+     */
+    public LearnerRegistrations getLearnerRegistrations(String learnerID) {
+        return metrics.time("getLearnerRegistrations", () -> loadLearnerRegistrations(learnerID));
+    }
+
+    private LearnerRegistrations loadLearnerRegistrations(String learnerID) {
+        return registrationCache.get(learnerID, () -> store.findLearnerRegistrations(learnerID, courseIndex));
+    }
+
+    /**
+     * COMPARES THE STORAGE WITH THE TABLES, COLUMNS, INDEXES AND UNIQUE CONSTRAINTS DECLARED BY THE ENTITY
+     * MAPPINGS (SEE {@link SchemaVerifier}). WHEN LEARNERS ARE SHARDED, EVERY SHARD IS CHECKED TOO. A STORE
+     * WITHOUT A SCHEMA (THE IN-MEMORY ENGINE) HAS NOTHING TO REPORT.
+     *
+     * @return THE DIFFERENCES FOUND, EMPTY IF THE SCHEMA MATCHES. A SHARD'S PROBLEMS NAME THE SHARD IN THEIR TABLE.
+     */
+    public List<SchemaVerifier.Problem> verifySchema() {
+        return store.verifySchema();
+    }
+
+    /**
+     * @return THE INDEX THAT MAPS COURSE CODES TO THE IDS USED BY {@link LearnerRegistrations}. SHARED BY ALL
+     * LEARNERS AND SESSIONS OF THIS SERVICE.
+     */
+    public CourseIndex getCourseIndex() {
+        return courseIndex;
+    }
+
+    /**
+     * RETURNS A LEARNER'S TOTAL CREDIT HOURS.
+     * ANSWERED FROM THE REGISTRATION CACHE WHEN THE LEARNER IS CACHED; OTHERWISE THE STORE SUMS THEM (THE JPA
+     * STORE RUNS A READ-ONLY SCALAR QUERY, SO NO ENTITIES ARE LOADED).
+     *
+     * @param learnerID THE LEARNER WHOSE CREDITS ARE SUMMED.
+     * @return THE TOTAL CREDIT HOURS (ZERO IF THE LEARNER HAS NO REGISTRATIONS).
+     */
+    public int getTotalCredits(String learnerID) {
+        return metrics.time("getTotalCredits", () -> sumCreditsOf(learnerID));
+    }
+
+    private int sumCreditsOf(String learnerID) {
+        LearnerRegistrations cached = registrationCache.get(learnerID);
+        if (cached != null) {
+            return cached.totalCredits();
+        }
+        return store.sumCredits(learnerID);
+    }
+
+    /**
+     * RETURNS THE CODES OF THE COURSES A LEARNER IS REGISTERED FOR.
+     * ANSWERED FROM THE REGISTRATION CACHE WHEN THE LEARNER IS CACHED; OTHERWISE THE STORE LOOKS THEM UP (THE JPA
+     * STORE SELECTS ONLY THE COURSE_CODE COLUMN, SO NO ENTITIES ARE LOADED).
+     *
+     * @param learnerID THE LEARNER WHOSE COURSE CODES ARE RETURNED.
+     * @return AN UNMODIFIABLE SET OF COURSE CODES.
+     */
+    public Set<String> getRegisteredCourseCodes(String learnerID) {
+        return metrics.time("getRegisteredCourseCodes", () -> courseCodesOf(learnerID));
+    }
+
+    private Set<String> courseCodesOf(String learnerID) {
+        LearnerRegistrations cached = registrationCache.get(learnerID);
+        if (cached != null) {
+            Set<String> codes = new HashSet<>();
+            for (int id : cached.courseIds()) {
+                codes.add(courseIndex.codeOf(id));
+            }
+            return Set.copyOf(codes);
+        }
+        return store.findCourseCodes(learnerID);
+    }
+
+    /**
+     * DISCARDS A LEARNER'S CACHED REGISTRATIONS SO THE NEXT READ GOES TO THE STORE.
+     * CALL THIS AFTER THE LEARNER'S ROWS HAVE BEEN CHANGED OUTSIDE OF THIS SERVICE.
+     *
+     * @param learnerID THE LEARNER WHOSE CACHED REGISTRATIONS ARE DISCARDED.
+     */
+    public void invalidateRegistrations(String learnerID) {
+        store.evictRegistrations(learnerID);
+        registrationCache.invalidate(learnerID);
+    }
+
+    /**
+     * @return THE HIT, MISS AND EVICTION COUNTERS OF THE PER-LEARNER REGISTRATION CACHE.
+     */
+    public LruCache.CacheStats getRegistrationCacheStats() {
+        return registrationCache.stats();
+    }
+
+    /**
+     * @return THE HIT, MISS AND EVICTION COUNTERS OF THE CATALOG CACHE.
+     */
+    public LruCache.CacheStats getCatalogCacheStats() {
+        return catalogCache.stats();
+    }
+
+    /**
+     * @return THE SERVICE'S OPERATION METRICS (ALSO PUBLISHED AS MBEANS).
+     */
+    public ServiceMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return THE STORAGE ENGINE (E.G. A {@link JpaRegistrationStore}, WHICH ALSO HOLDS THE READ REPLICAS AND
+     * LEARNER SHARDS).
+     */
+    public RegistrationStore getStore() {
+        return store;
+    }
+
+    /**
+     * @return THE LEDGER THAT COUNTS TAKEN SEATS PER COURSE.
+     */
+    public SeatLedger getSeatLedger() {
+        return seatLedger;
+    }
+
+    /**
+     * @return THE ADMISSION CONTROL OF ASYNCHRONOUS REGISTRATIONS, OR NULL UNLESS "service.admission.enabled" IS SET.
+     */
+    public AdmissionControl getAdmissionControl() {
+        return admission;
+    }
+
+    /**
+     * @return THE LOCAL REGISTRATION JOURNAL, OR NULL UNLESS "service.journal.enabled" IS SET AND THE SERVICE HAS
+     * BEEN STARTED.
+     */
+    public RegistrationJournal getJournal() {
+        return journal;
+    }
+
+    // ADDS NEWLY COMMITTED REGISTRATIONS TO THE LEARNER'S CACHED STATE (WRITE-THROUGH). IF THE LEARNER IS NOT
+    // CACHED NOTHING IS STORED; THE NEXT READ LOADS THE FULL STATE FROM THE DATABASE.
+    private void cacheRegistrations(String learnerID, List<RegisteredCourse> added) {
+        registrationCache.update(learnerID, cached -> {
+            LearnerRegistrations merged = cached;
+            for (RegisteredCourse registration : added) {
+                merged = merged.with(courseIndex.intern(registration.getCourseCode()), registration.getCreditHours());
+            }
+            return merged;
+        });
     }
 
     // ASYNCHRONOUS
 
+    // STARTS REGISTRATION WORK THROUGH ADMISSION CONTROL, OR AT ONCE WITHOUT IT
+    private <T> AdmissionControl.Ticket<T> admitted(String learnerID, Supplier<CompletableFuture<T>> work) {
+        return admission == null ? AdmissionControl.Ticket.running(work.get()) : admission.submit(learnerID, work);
+    }
+
+    // SUBMITS WORK TO THE SHARED EXECUTOR, COUNTED AS QUEUED UNTIL A THREAD PICKS IT UP (SEE ServiceMetrics)
+    private <T> CompletableFuture<T> supplyAsync(Supplier<T> work) {
+        return CompletableFuture.supplyAsync(metrics.queued(work), executor);
+    }
+
     /**
      * ASYNCHRONOUSLY RETRIEVES ALL COURSES FROM THE DATABASE.
-     * THIS METHOD EXECUTES THE QUERY ON A BACKGROUND THREAD PROVIDED BY A NEWCACHEDTHREADPOOL TO AVOID BLOCKING THE MAIN THREAD.
-     * THE HIBERNATE QUERY LANGUAGE (HQL) STATEMENT 'SELECT CRS FROM COURSE CRS ORDER BY COURSECODE' IS USED TO RETRIEVE ALL COURSES,
-     * ORDERED BY THEIR COURSE CODE. THE RESULT IS A LIST OF COURSE ENTITIES.
+     * THIS METHOD EXECUTES {@link #getAllCourses()} ON THE SERVICE'S SHARED EXECUTOR TO AVOID BLOCKING THE MAIN THREAD.
      *
      * @return A COMPLETABLEFUTURE THAT, WHEN COMPLETED, PROVIDES A LIST OF ALL COURSE ENTITIES FROM THE DATABASE.
      */
     public CompletableFuture<List<Course>> getAllCoursesAsync() {
-        return CompletableFuture.supplyAsync(() -> {
-            String hql = "SELECT crs FROM Course crs ORDER BY courseCode";
-            TypedQuery<Course> query = em.createQuery(hql, Course.class);
-            return query.getResultList();
-        }, Executors.newCachedThreadPool());
+        return supplyAsync(this::getAllCourses);
+    }
+
+    /**
+     * ASYNCHRONOUSLY RETRIEVES ONE KEYSET-PAGINATED PAGE OF THE CATALOG.
+     * THIS METHOD EXECUTES {@link #getCourses(String, String, int)} ON THE SERVICE'S SHARED EXECUTOR.
+     *
+     * @param afterCourseCode THE LAST COURSE CODE OF THE PREVIOUS PAGE, OR NULL FOR THE FIRST PAGE.
+     * @param prefix ONLY COURSES WHOSE CODE STARTS WITH THIS PREFIX ARE RETURNED; NULL OR BLANK FOR ALL COURSES.
+     * @param limit THE MAXIMUM NUMBER OF COURSES RETURNED.
+     * @return A COMPLETABLEFUTURE THAT, WHEN COMPLETED, PROVIDES THE PAGE OF COURSES.
+     */
+    public CompletableFuture<List<Course>> getCoursesAsync(String afterCourseCode, String prefix, int limit) {
+        return supplyAsync(() -> getCourses(afterCourseCode, prefix, limit));
     }
 
     /**
      * ASYNCHRONOUSLY CREATES A COURSE REGISTRATION IN THE DATABASE.
-     * THIS METHOD PERFORMS THE DATABASE OPERATION ON A BACKGROUND THREAD PROVIDED BY A NEWCACHEDTHREADPOOL TO AVOID UI BLOCKING.
-     * IT BEGINS A TRANSACTION, PERSISTS THE NEW REGISTEREDCOURSE ENTITY, AND COMMITS THE TRANSACTION.
+     * THIS METHOD EXECUTES {@link #createCourseRegistration(String, String, int)} ON THE SERVICE'S SHARED EXECUTOR
+     * TO AVOID UI BLOCKING. EACH CALL USES ITS OWN ENTITYMANAGER AND TRANSACTION.
+     * WITH "service.groupCommit.enabled" THE REGISTRATION IS INSTEAD QUEUED FOR THE GROUP-COMMIT WRITER AND
+     * COMMITTED TOGETHER WITH OTHER CALLERS' REGISTRATIONS; THE FUTURE STILL FAILS ONLY IF THIS REGISTRATION
+     * FAILED (OR IF THE QUEUE IS FULL).
+     * WITH "service.admission.enabled" THE CALL FIRST WAITS ITS TURN IN THE ADMISSION QUEUE, AND THE FUTURE FAILS
+     * WITH {@link AdmissionControl.Rejected} IF IT IS TURNED AWAY.
      *
      * @param learnerID THE LEARNER'S ID TO BE ASSOCIATED WITH THE COURSE REGISTRATION.
      * @param courseCode THE COURSE CODE OF THE COURSE TO BE REGISTERED.
@@ -130,29 +1033,125 @@ public class CourseRegistrationService {
      * @return A COMPLETABLEFUTURE REPRESENTING THE COMPLETION OF THE ASYNCHRONOUS OPERATION.
      */
     public CompletableFuture<Void> createCourseRegistrationAsync(String learnerID, String courseCode, int creditHours) {
-        return CompletableFuture.runAsync(() -> {
-            RegisteredCourse registration = new RegisteredCourse(learnerID, courseCode, creditHours);
-            em.getTransaction().begin();
-            em.persist(registration);
-            em.getTransaction().commit();
-        }, Executors.newCachedThreadPool());
+        return this.<Void>admitted(learnerID, () -> {
+            if (groupCommit != null) {
+                // COMPLETE ON THE EXECUTOR SO CALLERS' CONTINUATIONS NEVER RUN ON (AND STALL) THE WRITER THREAD
+                return groupCommit.submit(new RegisteredCourse(learnerID, courseCode, creditHours))
+                        .thenApplyAsync(registration -> {
+                            seatLedger.add(courseCode, 1);
+                            return null;
+                        }, executor);
+            }
+            return supplyAsync(() -> {
+                createCourseRegistration(learnerID, courseCode, creditHours);
+                return null;
+            });
+        }).result();
+    }
+
+    /**
+     * ASYNCHRONOUSLY RETURNS A LEARNER'S TOTAL CREDIT HOURS.
+     * THIS METHOD EXECUTES {@link #getTotalCredits(String)} ON THE SERVICE'S SHARED EXECUTOR.
+     *
+     * @param learnerID THE LEARNER WHOSE CREDITS ARE SUMMED.
+     * @return A COMPLETABLEFUTURE THAT, WHEN COMPLETED, PROVIDES THE TOTAL CREDIT HOURS.
+     */
+    public CompletableFuture<Integer> getTotalCreditsAsync(String learnerID) {
+        return supplyAsync(() -> getTotalCredits(learnerID));
+    }
+
+    /**
+     * ASYNCHRONOUSLY RETURNS THE CODES OF THE COURSES A LEARNER IS REGISTERED FOR.
+     * THIS METHOD EXECUTES {@link #getRegisteredCourseCodes(String)} ON THE SERVICE'S SHARED EXECUTOR.
+     *
+     * @param learnerID THE LEARNER WHOSE COURSE CODES ARE RETURNED.
+     * @return A COMPLETABLEFUTURE THAT, WHEN COMPLETED, PROVIDES THE SET OF COURSE CODES.
+     */
+    public CompletableFuture<Set<String>> getRegisteredCourseCodesAsync(String learnerID) {
+        return supplyAsync(() -> getRegisteredCourseCodes(learnerID));
+    }
+
+    /**
+     * ASYNCHRONOUSLY REGISTERS A LEARNER FOR A COURSE IF THE DUPLICATE AND CREDIT-LIMIT CHECKS PASS.
+     * THIS METHOD EXECUTES {@link #registerIfAllowed(String, String)} ON THE SERVICE'S SHARED EXECUTOR, AFTER
+     * ADMISSION CONTROL (IF ENABLED) HAS LET IT THROUGH.
+     *
+     * @param learnerID THE ID OF THE LEARNER REGISTERING FOR THE COURSE.
+     * @param courseCode THE CODE OF THE COURSE TO REGISTER.
+     * @return A COMPLETABLEFUTURE THAT, WHEN COMPLETED, PROVIDES THE OUTCOME AND THE LEARNER'S UPDATED STATE.
+     */
+    public CompletableFuture<RegistrationResult> registerIfAllowedAsync(String learnerID, String courseCode) {
+        return enqueueRegistration(learnerID, courseCode).result();
+    }
+
+    /**
+     * LIKE {@link #registerIfAllowedAsync(String, String)}, BUT RETURNS THE ADMISSION TICKET ITSELF, SO THE CALLER
+     * CAN SHOW THE LEARNER THEIR PLACE IN LINE AND ESTIMATED WAIT WHILE THE REGISTRATION IS QUEUED. WITHOUT
+     * ADMISSION CONTROL THE TICKET IS RUNNING FROM THE START.
+     *
+     * @param learnerID THE ID OF THE LEARNER REGISTERING FOR THE COURSE.
+     * @param courseCode THE CODE OF THE COURSE TO REGISTER.
+     * @return THE TICKET; ITS RESULT PROVIDES THE OUTCOME, OR FAILS WITH {@link AdmissionControl.Rejected}.
+     */
+    public AdmissionControl.Ticket<RegistrationResult> enqueueRegistration(String learnerID, String courseCode) {
+        return admitted(learnerID, () -> supplyAsync(() -> registerIfAllowed(learnerID, courseCode)));
+    }
+
+    /**
+     * ASYNCHRONOUSLY REGISTERS ONE LEARNER FOR SEVERAL COURSES IN A SINGLE BATCHED TRANSACTION.
+     * THIS METHOD EXECUTES {@link #createCourseRegistrations(String, List)} ON THE SERVICE'S SHARED EXECUTOR.
+     *
+     * @param learnerID THE ID OF THE LEARNER REGISTERING FOR THE COURSES.
+     * @param courses THE COURSES TO REGISTER FOR.
+     * @return A COMPLETABLEFUTURE THAT, WHEN COMPLETED, PROVIDES THE PERSISTED REGISTEREDCOURSE ENTITIES.
+     */
+    public CompletableFuture<List<RegisteredCourse>> createCourseRegistrationsAsync(String learnerID, List<Course> courses) {
+        return admitted(learnerID, () -> supplyAsync(() -> createCourseRegistrations(learnerID, courses))).result();
     }
 
     /**
      * ASYNCHRONOUSLY RETRIEVES ALL COURSE REGISTRATIONS FOR A GIVEN LEARNER ID FROM THE DATABASE.
-     * THIS METHOD USES A BACKGROUND THREAD PROVIDED BY A NEWCACHEDTHREADPOOL TO PERFORM THE DATABASE OPERATION ASYNCHRONOUSLY.
-     * THE HQL QUERY 'SELECT REG FROM REGISTEREDCOURSE REG WHERE LEARNERID = :ID' IS USED TO FIND ALL REGISTRATIONS FOR THE SPECIFIED LEARNER ID.
+     * THIS METHOD EXECUTES {@link #getAllCourseRegistrations(String)} ON THE SERVICE'S SHARED EXECUTOR.
      *
      * @param id THE LEARNER ID FOR WHICH TO RETRIEVE ALL COURSE REGISTRATIONS.
      * @return A COMPLETABLEFUTURE THAT, WHEN COMPLETED, PROVIDES A LIST OF REGISTEREDCOURSE ENTITIES FOR THE SPECIFIED LEARNER ID.
      */
     public CompletableFuture<List<RegisteredCourse>> getAllCourseRegistrationsAsync(String id) {
-        return CompletableFuture.supplyAsync(() -> {
-            String hql = "SELECT reg FROM RegisteredCourse reg WHERE learnerID = :id";
-            TypedQuery<RegisteredCourse> query = em.createQuery(hql, RegisteredCourse.class);
-            query.setParameter("id", id);
-            return query.getResultList();
-        }, Executors.newCachedThreadPool());
+        return supplyAsync(() -> getAllCourseRegistrations(id));
     }
-}
 
+    // LIFECYCLE
+
+    /**
+     * STOPS THE REGISTRATION JOURNAL (UNAPPLIED REQUESTS STAY IN ITS FILE FOR THE NEXT START), TURNS AWAY
+     * REGISTRATIONS STILL WAITING FOR ADMISSION, COMMITS ANY
+     * REGISTRATIONS STILL QUEUED FOR GROUP COMMIT, SHUTS DOWN THE SHARED EXECUTOR, WAITING BRIEFLY
+     * FOR IN-FLIGHT OPERATIONS, WRITES THE SEAT LEDGER'S LAST CONFIRMED SEATS, AND CLOSES THE STORE (WHICH CLOSES
+     * THE ENTITYMANAGERFACTORY IF THE SERVICE CREATED IT).
+     */
+    @Override
+    public void close() {
+        if (journal != null) {
+            journal.close();
+        }
+        if (admission != null) {
+            admission.close();
+        }
+        if (groupCommit != null) {
+            groupCommit.close();
+        }
+        metrics.close();
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException ex) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        // AFTER THE IN-FLIGHT OPERATIONS, WHICH MAY STILL CONFIRM SEATS
+        seatLedger.close();
+        store.close();
+    }
+}
@@ -0,0 +1,217 @@
+package edu.capella.bsit.u07a1;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * WRITE-BEHIND QUEUE THAT GROUPS INDEPENDENT REGISTRATION INSERTS INTO SHARED TRANSACTIONS (GROUP COMMIT).
+ * CALLERS ENQUEUE ONE REGISTRATION AND GET A FUTURE BACK; A SINGLE WRITER THREAD DRAINS THE QUEUE IN MICRO-BATCHES
+ * (UP TO maxBatch REGISTRATIONS, OR WHATEVER ARRIVED WITHIN maxDelay OF THE FIRST ONE) AND HANDS EACH BATCH TO THE
+ * SINK AS ONE TRANSACTION, SO THE DATABASE PAYS ONE COMMIT (ONE LOG FSYNC) PER BATCH INSTEAD OF ONE PER CLICK.
+ *
+ * <p>EACH FUTURE STILL COMPLETES WITH ITS OWN OUTCOME: IF A BATCH FAILS (E.G. ONE ROW BREAKS THE UNIQUE
+ * CONSTRAINT), THE BATCH IS ROLLED BACK AND ITS REGISTRATIONS ARE RETRIED ONE TRANSACTION EACH, SO ONLY THE
+ * OFFENDING REQUEST FAILS, WITH ITS OWN EXCEPTION. WHEN LEARNERS ARE SHARDED A BATCH IS ONE TRANSACTION PER SHARD
+ * AND MAY FAIL ONLY IN PART; THE REGISTRATIONS ITS OTHER SHARDS COMMITTED COMPLETE NORMALLY AND ONLY THE REST ARE
+ * RETRIED. THE QUEUE IS BOUNDED; WHEN IT IS FULL NEW REQUESTS FAIL
+ * IMMEDIATELY WITH A {@link RejectedExecutionException} INSTEAD OF PILING UP UNBOUNDED WORK.
+ */
+public class GroupCommitWriter implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(GroupCommitWriter.class.getName());
+
+    /**
+     * WRITES ONE BATCH OF REGISTRATIONS IN ONE TRANSACTION (ONE PER SHARD WHEN LEARNERS ARE SHARDED). IT EITHER
+     * WRITES ALL OF THEM, THROWS AND WRITES NONE, OR THROWS A {@link RegistrationStore.PartialInsertException} THAT
+     * NAMES THE ONES IT WROTE.
+     */
+    @FunctionalInterface
+    public interface BatchSink {
+        void write(List<RegisteredCourse> batch);
+    }
+
+    // A QUEUED REGISTRATION AND THE FUTURE OF THE CALLER WAITING FOR IT
+    private record Pending(RegisteredCourse registration, CompletableFuture<RegisteredCourse> future) { }
+
+    private final BlockingQueue<Pending> queue;
+    private final int maxBatch;
+    private final long maxDelayNanos;
+    private final BatchSink sink;
+    private final ServiceMetrics metrics;
+    private final Thread writer;
+    private volatile boolean closed;
+
+    /**
+     * CREATES THE QUEUE AND STARTS ITS WRITER THREAD.
+     *
+     * @param capacity HOW MANY REGISTRATIONS MAY WAIT IN THE QUEUE.
+     * @param maxBatch THE LARGEST NUMBER OF REGISTRATIONS COMMITTED TOGETHER.
+     * @param maxDelayMillis HOW LONG THE WRITER WAITS FOR A BATCH TO FILL AFTER ITS FIRST REGISTRATION ARRIVES.
+     * @param sink WRITES A BATCH IN ONE TRANSACTION.
+     * @param metrics WHERE BATCH COMMITS ARE TIMED (AS "groupCommitBatch").
+     */
+    public GroupCommitWriter(int capacity, int maxBatch, long maxDelayMillis, BatchSink sink, ServiceMetrics metrics) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatch = maxBatch;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.sink = sink;
+        this.metrics = metrics;
+        this.writer = new Thread(this::drain, "registration-group-commit");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * QUEUES A REGISTRATION FOR THE NEXT BATCH.
+     *
+     * @param registration THE REGISTRATION TO INSERT.
+     * @return A FUTURE THAT COMPLETES WITH THE PERSISTED REGISTRATION ONCE ITS BATCH HAS COMMITTED, OR
+     * EXCEPTIONALLY WITH THE FAILURE OF ITS OWN INSERT. IT FAILS AT ONCE WITH A {@link RejectedExecutionException}
+     * IF THE QUEUE IS FULL OR THE WRITER IS CLOSED.
+     */
+    public CompletableFuture<RegisteredCourse> submit(RegisteredCourse registration) {
+        CompletableFuture<RegisteredCourse> future = new CompletableFuture<>();
+        if (closed) {
+            future.completeExceptionally(new RejectedExecutionException("The group-commit writer is closed."));
+            return future;
+        }
+        Pending pending = new Pending(registration, future);
+        if (!queue.offer(pending)) {
+            future.completeExceptionally(new RejectedExecutionException("The group-commit queue is full."));
+        } else if (closed && queue.remove(pending)) {
+            // CLOSED WHILE THIS WAS BEING QUEUED, AND THE WRITER MAY ALREADY HAVE SEEN THE QUEUE EMPTY
+            future.completeExceptionally(new RejectedExecutionException("The group-commit writer is closed."));
+        }
+        return future;
+    }
+
+    /**
+     * @return REGISTRATIONS WAITING FOR THE WRITER.
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    // THE WRITER LOOP: WAIT FOR A FIRST REGISTRATION, GATHER MORE UNTIL THE BATCH IS FULL OR THE DELAY HAS PASSED,
+    // COMMIT, REPEAT. AFTER close() IT KEEPS GOING UNTIL THE QUEUE IS EMPTY.
+    private void drain() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatch) {
+                    // TAKE WHAT IS ALREADY THERE WITHOUT WAITING, THEN WAIT OUT THE REST OF THE DELAY
+                    if (queue.drainTo(batch, maxBatch - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException ex) {
+                // close() INTERRUPTS ONLY IF THE DRAIN TAKES TOO LONG; FAIL WHAT IS LEFT
+                failRemaining(batch, ex);
+                return;
+            }
+            commit(batch);
+            batch.clear();
+        }
+    }
+
+    private void commit(List<Pending> batch) {
+        List<RegisteredCourse> registrations = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            registrations.add(pending.registration());
+        }
+        try {
+            metrics.time("groupCommitBatch", () -> {
+                sink.write(registrations);
+                return null;
+            });
+            for (Pending pending : batch) {
+                pending.future().complete(pending.registration());
+            }
+        } catch (RuntimeException batchFailure) {
+            RuntimeException failure = batchFailure;
+            List<Pending> failed = batch;
+            if (batchFailure instanceof RegistrationStore.PartialInsertException partial) {
+                // SOME SHARDS COMMITTED THEIR PART: THOSE ROWS ARE DONE, AND RETRYING THEM WOULD BE DUPLICATES
+                Set<RegisteredCourse> committed = Collections.newSetFromMap(new IdentityHashMap<>());
+                committed.addAll(partial.getCommitted());
+                failed = new ArrayList<>(batch.size());
+                for (Pending pending : batch) {
+                    if (committed.contains(pending.registration())) {
+                        pending.future().complete(pending.registration());
+                    } else {
+                        failed.add(pending);
+                    }
+                }
+                failure = (RuntimeException) partial.getCause();
+            }
+            if (failed.size() == 1) {
+                failed.get(0).future().completeExceptionally(failure);
+                return;
+            }
+            // ONE BAD ROW ROLLED BACK THE WHOLE BATCH (OR ITS SHARD'S PART OF IT) -> RETRY EACH ROW ALONE SO ONLY ITS
+            // OWN CALLER SEES THE ERROR
+            logger.log(Level.FINE, "Group commit of {0} registrations failed, retrying them one by one.", failed.size());
+            // (AS FRESH ENTITIES: THE ROLLED-BACK ONES ALREADY CARRY IDS FROM THE SEQUENCE)
+            for (Pending pending : failed) {
+                RegisteredCourse original = pending.registration();
+                RegisteredCourse retry = new RegisteredCourse(original.getLearnerID(), original.getCourseCode(),
+                        original.getCreditHours());
+                try {
+                    sink.write(List.of(retry));
+                    pending.future().complete(retry);
+                } catch (RuntimeException ex) {
+                    pending.future().completeExceptionally(ex);
+                }
+            }
+        }
+    }
+
+    private void failRemaining(List<Pending> batch, InterruptedException cause) {
+        RejectedExecutionException rejected = new RejectedExecutionException("The group-commit writer was stopped.", cause);
+        batch.forEach(pending -> pending.future().completeExceptionally(rejected));
+        for (Pending pending = queue.poll(); pending != null; pending = queue.poll()) {
+            pending.future().completeExceptionally(rejected);
+        }
+    }
+
+    /**
+     * STOPS ACCEPTING REGISTRATIONS AND WAITS (UP TO FIVE SECONDS) FOR THE QUEUED ONES TO BE COMMITTED. ANYTHING
+     * STILL QUEUED AFTER THAT FAILS WITH A {@link RejectedExecutionException}.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            writer.join(5000);
+            if (writer.isAlive()) {
+                writer.interrupt();
+                writer.join();
+            }
+            failRemaining(List.of(), null);
+        } catch (InterruptedException ex) {
+            writer.interrupt();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package edu.capella.bsit.u07a1;
+
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * BRIDGES HIBERNATE'S {@link Statistics} INTO THE SERVICE METRICS: QUERY EXECUTION TIMES, SECOND-LEVEL AND QUERY
+ * CACHE HIT RATIOS, AND ENTITY LOAD/FETCH/INSERT COUNTS.
+ *
+ * <p>STATISTICS ARE SWITCHED ON AT RUNTIME RATHER THAN WITH "hibernate.generate_statistics" IN PERSISTENCE.XML:
+ * THAT PROPERTY ALSO MAKES HIBERNATE LOG A "SESSION METRICS" BLOCK EVERY TIME AN ENTITYMANAGER CLOSES, WHICH IS
+ * ONCE PER SERVICE CALL HERE.
+ */
+public class HibernateMetrics implements HibernateMetricsMBean {
+    // HOW MANY QUERIES getSlowestQueries LISTS
+    private static final int SLOWEST_QUERIES = 10;
+
+    private final Statistics statistics;
+
+    /**
+     * @param statistics THE STATISTICS OF THE SESSIONFACTORY BEHIND THE SERVICE.
+     * @param enabled WHETHER TO START COLLECTING IMMEDIATELY.
+     */
+    public HibernateMetrics(Statistics statistics, boolean enabled) {
+        this.statistics = statistics;
+        statistics.setStatisticsEnabled(enabled);
+    }
+
+    @Override
+    public boolean isStatisticsEnabled() {
+        return statistics.isStatisticsEnabled();
+    }
+
+    @Override
+    public void setStatisticsEnabled(boolean enabled) {
+        statistics.setStatisticsEnabled(enabled);
+    }
+
+    @Override
+    public long getQueryExecutionCount() {
+        return statistics.getQueryExecutionCount();
+    }
+
+    @Override
+    public long getQueryExecutionMaxTime() {
+        return statistics.getQueryExecutionMaxTime();
+    }
+
+    @Override
+    public String getQueryExecutionMaxTimeQueryString() {
+        return statistics.getQueryExecutionMaxTimeQueryString();
+    }
+
+    /**
+     * @return THE QUERIES WITH THE HIGHEST MAXIMUM EXECUTION TIME, ONE LINE EACH: MAX, AVERAGE AND COUNT, THEN THE HQL.
+     */
+    @Override
+    public String[] getSlowestQueries() {
+        record Timed(String hql, QueryStatistics query) { }
+        return Arrays.stream(statistics.getQueries())
+                .map(hql -> new Timed(hql, statistics.getQueryStatistics(hql)))
+                .sorted(Comparator.comparingLong((Timed timed) -> timed.query().getExecutionMaxTime()).reversed())
+                .limit(SLOWEST_QUERIES)
+                .map(timed -> String.format("max=%dms avg=%dms count=%d : %s", timed.query().getExecutionMaxTime(),
+                        timed.query().getExecutionAvgTime(), timed.query().getExecutionCount(), timed.hql()))
+                .toArray(String[]::new);
+    }
+
+    @Override
+    public long getSecondLevelCacheHitCount() {
+        return statistics.getSecondLevelCacheHitCount();
+    }
+
+    @Override
+    public long getSecondLevelCacheMissCount() {
+        return statistics.getSecondLevelCacheMissCount();
+    }
+
+    @Override
+    public double getSecondLevelCacheHitRatio() {
+        return ratio(statistics.getSecondLevelCacheHitCount(), statistics.getSecondLevelCacheMissCount());
+    }
+
+    @Override
+    public long getQueryCacheHitCount() {
+        return statistics.getQueryCacheHitCount();
+    }
+
+    @Override
+    public long getQueryCacheMissCount() {
+        return statistics.getQueryCacheMissCount();
+    }
+
+    @Override
+    public double getQueryCacheHitRatio() {
+        return ratio(statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount());
+    }
+
+    @Override
+    public long getEntityLoadCount() {
+        return statistics.getEntityLoadCount();
+    }
+
+    @Override
+    public long getEntityFetchCount() {
+        return statistics.getEntityFetchCount();
+    }
+
+    @Override
+    public long getEntityInsertCount() {
+        return statistics.getEntityInsertCount();
+    }
+
+    @Override
+    public long getEntityUpdateCount() {
+        return statistics.getEntityUpdateCount();
+    }
+
+    @Override
+    public long getTransactionCount() {
+        return statistics.getTransactionCount();
+    }
+
+    @Override
+    public long getSessionOpenCount() {
+        return statistics.getSessionOpenCount();
+    }
+
+    @Override
+    public long getPrepareStatementCount() {
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Override
+    public long getOptimisticFailureCount() {
+        return statistics.getOptimisticFailureCount();
+    }
+
+    @Override
+    public void clear() {
+        statistics.clear();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Hibernate queries=%d maxQuery=%dms L2hit=%.1f%% queryCacheHit=%.1f%% entityLoads=%d "
+                        + "entityFetches=%d inserts=%d transactions=%d statements=%d",
+                getQueryExecutionCount(), getQueryExecutionMaxTime(), getSecondLevelCacheHitRatio() * 100,
+                getQueryCacheHitRatio() * 100, getEntityLoadCount(), getEntityFetchCount(), getEntityInsertCount(),
+                getTransactionCount(), getPrepareStatementCount());
+    }
+
+    private static double ratio(long hits, long misses) {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+}
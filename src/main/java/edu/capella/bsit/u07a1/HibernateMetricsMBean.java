@@ -0,0 +1,53 @@
+package edu.capella.bsit.u07a1;
+
+/**
+ * JMX VIEW OF HIBERNATE'S STATISTICS FOR THE SERVICE'S ENTITYMANAGERFACTORY (SEE {@link HibernateMetrics}).
+ * TIMES ARE IN MILLISECONDS; RATIOS ARE BETWEEN 0 AND 1.
+ */
+public interface HibernateMetricsMBean {
+
+    boolean isStatisticsEnabled();
+
+    void setStatisticsEnabled(boolean enabled);
+
+    long getQueryExecutionCount();
+
+    long getQueryExecutionMaxTime();
+
+    String getQueryExecutionMaxTimeQueryString();
+
+    String[] getSlowestQueries();
+
+    long getSecondLevelCacheHitCount();
+
+    long getSecondLevelCacheMissCount();
+
+    double getSecondLevelCacheHitRatio();
+
+    long getQueryCacheHitCount();
+
+    long getQueryCacheMissCount();
+
+    double getQueryCacheHitRatio();
+
+    long getEntityLoadCount();
+
+    long getEntityFetchCount();
+
+    long getEntityInsertCount();
+
+    long getEntityUpdateCount();
+
+    long getTransactionCount();
+
+    long getSessionOpenCount();
+
+    long getPrepareStatementCount();
+
+    long getOptimisticFailureCount();
+
+    /**
+     * RESETS ALL HIBERNATE STATISTICS.
+     */
+    void clear();
+}
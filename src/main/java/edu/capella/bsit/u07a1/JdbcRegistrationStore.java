@@ -0,0 +1,88 @@
+package edu.capella.bsit.u07a1;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.hibernate.Session;
+
+/**
+ * THE HIBERNATE STORAGE ENGINE WITH A PLAIN-JDBC FAST PATH FOR THE HOTTEST READS ("service.store = jdbc"): THE FULL
+ * CATALOG AND A LEARNER'S REGISTRATIONS. INSTEAD OF AN HQL QUERY (PARSED AND TRANSLATED, ITS ROWS HYDRATED INTO
+ * MANAGED ENTITIES AND TRACKED BY THE PERSISTENCE CONTEXT) EACH RUNS ONE FIXED PREPAREDSTATEMENT ON THE SESSION'S
+ * POOLED CONNECTION AND MAPS THE COLUMNS IT NEEDS STRAIGHT INTO VALUES: DETACHED COURSES FOR THE CATALOG, AND FOR
+ * REGISTRATIONS THE COMPACT {@link LearnerRegistrations} WITHOUT ANY REGISTEREDCOURSE OBJECTS IN BETWEEN.
+ * EVERYTHING ELSE, INCLUDING ALL WRITES, IS INHERITED UNCHANGED.
+ *
+ * <p>THE STATEMENTS GO THROUGH THE SAME ROUTING AS THE HQL READS, SO READ REPLICAS AND LEARNER SHARDS STILL APPLY.
+ * THEY BYPASS HIBERNATE'S SECOND-LEVEL AND QUERY CACHES, WHICH THE SERVICE'S OWN CATALOG AND REGISTRATION CACHES
+ * ALREADY STAND IN FRONT OF.
+ */
+public class JdbcRegistrationStore extends JpaRegistrationStore {
+    private static final String ALL_COURSES_SQL =
+            "SELECT course_code, credit_hours, capacity, seats_taken FROM course_offerings ORDER BY course_code";
+    private static final String LEARNER_REGISTRATIONS_SQL =
+            "SELECT course_code, credit_hours FROM learner_registration WHERE learner_id = ?";
+
+    /**
+     * SEE {@link JpaRegistrationStore#JpaRegistrationStore(EntityManagerFactory, Map, boolean)}.
+     *
+     * @param emf THE PRIMARY DATABASE'S FACTORY.
+     * @param config THE SERVICE CONFIGURATION (MAY BE NULL).
+     * @param ownsFactory WHETHER {@link #close()} CLOSES THE FACTORY.
+     */
+    public JdbcRegistrationStore(EntityManagerFactory emf, Map<String, String> config, boolean ownsFactory) {
+        super(emf, config, ownsFactory);
+    }
+
+    @Override
+    public List<Course> findAllCourses() {
+        return withReadEntityManager(null, em -> em.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(ALL_COURSES_SQL);
+                 ResultSet rows = statement.executeQuery()) {
+                List<Course> courses = new ArrayList<>();
+                while (rows.next()) {
+                    int capacity = rows.getInt(3);
+                    Course course = new Course(rows.getString(1), rows.getInt(2), rows.wasNull() ? null : capacity);
+                    course.setSeatsTaken(rows.getInt(4));
+                    courses.add(course);
+                }
+                return courses;
+            }
+        }));
+    }
+
+    @Override
+    public List<RegisteredCourse> findRegistrations(String learnerID) {
+        return withReadEntityManager(learnerID, em -> em.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(LEARNER_REGISTRATIONS_SQL)) {
+                statement.setString(1, learnerID);
+                try (ResultSet rows = statement.executeQuery()) {
+                    List<RegisteredCourse> registrations = new ArrayList<>();
+                    while (rows.next()) {
+                        registrations.add(new RegisteredCourse(learnerID, rows.getString(1), rows.getInt(2)));
+                    }
+                    return registrations;
+                }
+            }
+        }));
+    }
+
+    @Override
+    public LearnerRegistrations findLearnerRegistrations(String learnerID, CourseIndex index) {
+        return withReadEntityManager(learnerID, em -> em.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(LEARNER_REGISTRATIONS_SQL)) {
+                statement.setString(1, learnerID);
+                try (ResultSet rows = statement.executeQuery()) {
+                    LearnerRegistrations registrations = LearnerRegistrations.NONE;
+                    while (rows.next()) {
+                        registrations = registrations.with(index.intern(rows.getString(1)), rows.getInt(2));
+                    }
+                    return registrations;
+                }
+            }
+        }));
+    }
+}
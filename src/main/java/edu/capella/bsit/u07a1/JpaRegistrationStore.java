@@ -0,0 +1,688 @@
+package edu.capella.bsit.u07a1;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceException;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.exception.LockAcquisitionException;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.query.NativeQuery;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+
+/**
+ * THE HIBERNATE STORAGE ENGINE: COURSES AND REGISTRATIONS IN A RELATIONAL DATABASE (MARIADB IN PRODUCTION),
+ * ACCESSED THROUGH ONE SHORT-LIVED ENTITYMANAGER PER UNIT OF WORK. READS CAN BE SPREAD OVER READ REPLICAS (SEE
+ * {@link ReplicaRouter}) AND REGISTRATIONS PARTITIONED ACROSS LEARNER SHARDS (SEE {@link ShardRouter}), AS
+ * CONFIGURED BY "service.replicas.urls" AND "service.shards.urls".
+ */
+public class JpaRegistrationStore implements RegistrationStore {
+    // THE ORDER OF allRegistrations, FOR MERGING SHARDS
+    private static final Comparator<RegisteredCourse> REGISTRATION_ORDER = Comparator
+            .comparing(RegisteredCourse::getLearnerID).thenComparing(RegisteredCourse::getCourseCode);
+    // THE QUERY SPACE THE SEAT-COUNT UPDATES DECLARE. IT NAMES NO ENTITY TABLE, SO THEY INVALIDATE NOTHING IN THE
+    // SECOND-LEVEL OR QUERY CACHES (SEE setSeatsTaken).
+    private static final String SEAT_COUNTS_SPACE = "seat_counts";
+    private static final String SET_SEATS_SQL = "UPDATE course_offerings SET seats_taken = ? WHERE course_code = ?";
+    private static final String ADD_SEATS_SQL =
+            "UPDATE course_offerings SET seats_taken = seats_taken + ? WHERE course_code = ?";
+    private static final String CLAIM_SEAT_SQL = "UPDATE course_offerings SET seats_taken = seats_taken + 1 "
+            + "WHERE course_code = ? AND (capacity IS NULL OR seats_taken + 1 <= capacity)";
+
+    protected final EntityManagerFactory emf;
+    private final boolean ownsFactory;
+    // SENDS READ-ONLY WORK TO READ REPLICAS; NULL UNLESS REPLICA URLS ARE CONFIGURED
+    private final ReplicaRouter replicas;
+    // PARTITIONS REGISTRATIONS ACROSS LEARNER SHARDS; NULL UNLESS SHARD URLS ARE CONFIGURED, IN WHICH CASE THE
+    // PRIMARY HOLDS THEM
+    private final ShardRouter shards;
+
+    /**
+     * OPENS THE LEARNER SHARDS AND READ REPLICAS LISTED IN THE CONFIGURATION, IF ANY. IF A SHARD CANNOT BE OPENED
+     * NOTHING IS LEFT OPEN (INCLUDING THE FACTORY, IF IT WAS HANDED OVER).
+     *
+     * @param emf THE PRIMARY DATABASE'S FACTORY.
+     * @param config THE SERVICE CONFIGURATION (MAY BE NULL).
+     * @param ownsFactory WHETHER {@link #close()} CLOSES THE FACTORY.
+     */
+    public JpaRegistrationStore(EntityManagerFactory emf, Map<String, String> config, boolean ownsFactory) {
+        this.emf = emf;
+        this.ownsFactory = ownsFactory;
+        try {
+            this.shards = createShardRouter(config);
+        } catch (RuntimeException ex) {
+            if (ownsFactory) {
+                emf.close();
+            }
+            throw ex;
+        }
+        this.replicas = createReplicaRouter(config);
+    }
+
+    // OPENS THE READ REPLICAS LISTED IN THE CONFIGURATION, IF ANY
+    private ReplicaRouter createReplicaRouter(Map<String, String> config) {
+        List<String> urls = urlList(config, CourseRegistrationService.REPLICA_URLS_KEY);
+        if (urls.isEmpty()) {
+            return null;
+        }
+        return new ReplicaRouter(emf, config, urls,
+                CourseRegistrationService.intSetting(config, CourseRegistrationService.REPLICA_HEALTH_CHECK_KEY, 5),
+                CourseRegistrationService.intSetting(config, CourseRegistrationService.REPLICA_READ_YOUR_WRITES_KEY, 5));
+    }
+
+    // OPENS THE LEARNER SHARDS LISTED IN THE CONFIGURATION, IF ANY
+    private ShardRouter createShardRouter(Map<String, String> config) {
+        List<String> urls = urlList(config, CourseRegistrationService.SHARD_URLS_KEY);
+        return urls.isEmpty() ? null : new ShardRouter(emf, config, urls);
+    }
+
+    private static List<String> urlList(Map<String, String> config, String key) {
+        String urls = config == null ? null : config.get(key);
+        if (urls == null || urls.isBlank()) {
+            return List.of();
+        }
+        return Stream.of(urls.split(",")).map(String::trim).filter(url -> !url.isEmpty()).toList();
+    }
+
+    /**
+     * RUNS A READ-ONLY UNIT OF WORK WITH ITS OWN SHORT-LIVED ENTITYMANAGER, WHICH IS CLOSED BEFORE RETURNING.
+     * ENTITYMANAGERS ARE NOT THREAD-SAFE, SO EACH OPERATION GETS ONE INSTEAD OF SHARING A STORE-WIDE INSTANCE.
+     *
+     * @param work THE WORK TO PERFORM.
+     * @return THE RESULT OF THE WORK.
+     */
+    protected <T> T withEntityManager(Function<EntityManager, T> work) {
+        return withEntityManager(emf, work);
+    }
+
+    private static <T> T withEntityManager(EntityManagerFactory factory, Function<EntityManager, T> work) {
+        EntityManager em = factory.createEntityManager();
+        try {
+            return work.apply(em);
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * RUNS A READ-ONLY UNIT OF WORK LIKE {@link #withEntityManager(Function)}, BUT ON A READ REPLICA WHEN REPLICAS
+     * ARE CONFIGURED (SEE {@link ReplicaRouter}). READS OF A LEARNER WHO HAS JUST WRITTEN STAY ON THE PRIMARY.
+     * WHEN LEARNERS ARE SHARDED, A LEARNER'S READS GO TO THE LEARNER'S SHARD INSTEAD; REPLICAS THEN SERVE ONLY THE
+     * CATALOG.
+     *
+     * @param learnerID THE LEARNER WHOSE DATA IS READ, OR NULL FOR A CATALOG READ.
+     * @param work THE WORK TO PERFORM; IT MUST NOT WRITE.
+     * @return THE RESULT OF THE WORK.
+     */
+    protected <T> T withReadEntityManager(String learnerID, Function<EntityManager, T> work) {
+        if (shards != null && learnerID != null) {
+            return withEntityManager(shards.factoryFor(learnerID), work);
+        }
+        return replicas == null ? withEntityManager(work) : replicas.read(learnerID, work);
+    }
+
+    /**
+     * RUNS A UNIT OF WORK INSIDE A TRANSACTION ON ITS OWN SHORT-LIVED ENTITYMANAGER.
+     * THE TRANSACTION IS COMMITTED ON SUCCESS AND ROLLED BACK IF THE WORK (OR THE COMMIT) THROWS.
+     *
+     * @param work THE WORK TO PERFORM.
+     * @return THE RESULT OF THE WORK.
+     */
+    protected <T> T inTransaction(Function<EntityManager, T> work) {
+        return inTransaction(emf, work);
+    }
+
+    // RUNS A UNIT OF WORK INSIDE A TRANSACTION ON THE GIVEN DATABASE (THE PRIMARY OR A LEARNER SHARD)
+    private static <T> T inTransaction(EntityManagerFactory factory, Function<EntityManager, T> work) {
+        return withEntityManager(factory, em -> {
+            EntityTransaction tx = em.getTransaction();
+            tx.begin();
+            try {
+                T result = work.apply(em);
+                tx.commit();
+                return result;
+            } catch (RuntimeException ex) {
+                if (tx.isActive()) {
+                    tx.rollback();
+                }
+                throw ex;
+            }
+        });
+    }
+
+    // THE DATABASE THAT HOLDS A LEARNER'S REGISTRATIONS: THE LEARNER'S SHARD, OR THE PRIMARY WHEN NOT SHARDED
+    private EntityManagerFactory registrationsOf(String learnerID) {
+        return shards == null ? emf : shards.factoryFor(learnerID);
+    }
+
+    // CATALOG
+
+    @Override
+    public void insertCourse(Course course) {
+        inTransaction(em -> {
+            em.persist(course);
+            return null;
+        });
+    }
+
+    // THE QUERY IS MARKED CACHEABLE, SO HIBERNATE'S QUERY CACHE AND SECOND-LEVEL CACHE CAN ALSO ANSWER IT
+    @Override
+    public List<Course> findAllCourses() {
+        return withReadEntityManager(null, em -> {
+            String hql = "SELECT crs FROM Course crs ORDER BY courseCode";
+            TypedQuery<Course> query = em.createQuery(hql, Course.class);
+            query.setHint(HibernateHints.HINT_CACHEABLE, true);
+            query.setHint(HibernateHints.HINT_READ_ONLY, true);
+            return query.getResultList();
+        });
+    }
+
+    // BOTH CONDITIONS ARE RANGE PREDICATES ON THE PRIMARY KEY, SO EACH PAGE COSTS THE SAME NO MATTER HOW DEEP INTO
+    // THE CATALOG IT IS (UNLIKE OFFSET PAGINATION)
+    @Override
+    public List<Course> findCourses(String afterCourseCode, String prefix, int limit) {
+        return withReadEntityManager(null, em -> {
+            TypedQuery<Course> query = em.createQuery(catalogQuery(afterCourseCode, prefix), Course.class);
+            bindCatalogQuery(query, afterCourseCode, prefix);
+            query.setMaxResults(limit);
+            query.setHint(HibernateHints.HINT_CACHEABLE, true);
+            query.setHint(HibernateHints.HINT_READ_ONLY, true);
+            return query.getResultList();
+        });
+    }
+
+    // ROWS ARE READ THROUGH getResultStream() (A SCROLLABLE JDBC RESULT) IN FETCHES OF BATCH_SIZE, AND THE
+    // PERSISTENCE CONTEXT IS CLEARED AFTER EVERY BATCH SO MEMORY STAYS FLAT FOR ANY CATALOG SIZE
+    @Override
+    public long streamCourses(String prefix, Consumer<Course> action) {
+        return withEntityManager(em -> {
+            TypedQuery<Course> query = em.createQuery(catalogQuery(null, prefix), Course.class);
+            bindCatalogQuery(query, null, prefix);
+            query.setHint(HibernateHints.HINT_FETCH_SIZE, CourseRegistrationService.BATCH_SIZE);
+            query.setHint(HibernateHints.HINT_READ_ONLY, true);
+            // BYPASS THE SECOND-LEVEL CACHE SO A FULL SCAN DOES NOT EVICT THE HOT CATALOG ENTRIES. THIS IS SET ON THE
+            // SESSION: QUERY-LEVEL CACHE HINTS ARE NOT APPLIED TO SCROLLED RESULTS, WHICH WERE STILL PUT ROW BY ROW.
+            em.unwrap(Session.class).setCacheMode(CacheMode.IGNORE);
+            try (Stream<Course> courses = query.getResultStream()) {
+                return drain(em, courses, action);
+            }
+        });
+    }
+
+    // PASSES A SCROLLED RESULT TO THE CONSUMER, CLEARING THE PERSISTENCE CONTEXT EVERY BATCH_SIZE ROWS
+    private static <T> long drain(EntityManager em, Stream<T> rows, Consumer<T> action) {
+        long count = 0;
+        Iterator<T> it = rows.iterator();
+        while (it.hasNext()) {
+            action.accept(it.next());
+            if (++count % CourseRegistrationService.BATCH_SIZE == 0) {
+                em.clear();
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public long importCourses(Iterator<Course> courses, LongConsumer progress) {
+        return importInChunks(emf, courses, progress);
+    }
+
+    // BUILDS THE CATALOG QUERY FOR THE OPTIONAL KEYSET AND PREFIX CONDITIONS.
+    private static String catalogQuery(String afterCourseCode, String prefix) {
+        StringBuilder hql = new StringBuilder("SELECT crs FROM Course crs WHERE 1 = 1");
+        if (afterCourseCode != null) {
+            hql.append(" AND crs.courseCode > :after");
+        }
+        if (prefix != null) {
+            hql.append(" AND crs.courseCode LIKE :prefix ESCAPE '!'");
+        }
+        return hql.append(" ORDER BY crs.courseCode").toString();
+    }
+
+    private static void bindCatalogQuery(TypedQuery<Course> query, String afterCourseCode, String prefix) {
+        if (afterCourseCode != null) {
+            query.setParameter("after", afterCourseCode);
+        }
+        if (prefix != null) {
+            String escaped = prefix.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+            query.setParameter("prefix", escaped + "%");
+        }
+    }
+
+    // DROPS HIBERNATE'S CACHED COURSE DATA AND SENDS CATALOG READS TO THE PRIMARY FOR THE READ-YOUR-WRITES WINDOW
+    @Override
+    public void evictCatalog() {
+        if (replicas != null) {
+            replicas.recordWrite(null);
+        }
+        emf.getCache().evict(Course.class);
+        emf.unwrap(SessionFactory.class).getCache().evictDefaultQueryRegion();
+    }
+
+    // REGISTRATIONS
+
+    @Override
+    public List<RegisteredCourse> findRegistrations(String learnerID) {
+        return withReadEntityManager(learnerID, em -> {
+            String hql = "SELECT reg FROM RegisteredCourse reg WHERE learnerID = :id";
+            TypedQuery<RegisteredCourse> query = em.createQuery(hql, RegisteredCourse.class);
+            query.setParameter("id", learnerID);
+            query.setHint(HibernateHints.HINT_READ_ONLY, true);
+            return query.getResultList();
+        });
+    }
+
+    // A SQL SUM RUN AS A READ-ONLY SCALAR QUERY, SO NO ENTITIES ARE LOADED
+    @Override
+    public int sumCredits(String learnerID) {
+        return withReadEntityManager(learnerID, em -> {
+            String hql = "SELECT COALESCE(SUM(reg.creditHours), 0) FROM RegisteredCourse reg WHERE reg.learnerID = :id";
+            TypedQuery<Number> query = em.createQuery(hql, Number.class);
+            query.setParameter("id", learnerID);
+            query.setHint(HibernateHints.HINT_READ_ONLY, true);
+            return query.getSingleResult().intValue();
+        });
+    }
+
+    // ONLY THE COURSE_CODE COLUMN IS SELECTED (A READ-ONLY PROJECTION), SO NO ENTITIES ARE LOADED
+    @Override
+    public Set<String> findCourseCodes(String learnerID) {
+        return withReadEntityManager(learnerID, em -> {
+            String hql = "SELECT reg.courseCode FROM RegisteredCourse reg WHERE reg.learnerID = :id";
+            TypedQuery<String> query = em.createQuery(hql, String.class);
+            query.setParameter("id", learnerID);
+            query.setHint(HibernateHints.HINT_READ_ONLY, true);
+            return Set.copyOf(query.getResultList());
+        });
+    }
+
+    /**
+     * RUNS THE CHECKS AND THE INSERT IN ONE TRANSACTION ON THE LEARNER'S DATABASE THAT FIRST LOCKS THE LEARNER'S
+     * EXISTING REGISTRATION ROWS (SELECT ... FOR UPDATE), SO CONCURRENT PROCESSES REGISTERING THE SAME LEARNER
+     * CANNOT BOTH PASS THE CREDIT LIMIT. THE UNIQUE (LEARNER_ID, COURSE_CODE) CONSTRAINT IS THE LAST LINE OF
+     * DEFENCE AGAINST DUPLICATES; A VIOLATION IS REPORTED AS {@link RegistrationResult.Status#DUPLICATE}.
+     */
+    @Override
+    public RegistrationResult register(String learnerID, String courseCode, RegistrationRule rule) {
+        try {
+            RegistrationResult result = inTransaction(registrationsOf(learnerID),
+                    em -> checkAndRegister(em, learnerID, courseCode, rule));
+            if (result.isRegistered() && replicas != null) {
+                replicas.recordWrite(learnerID);
+            }
+            return result;
+        } catch (PersistenceException ex) {
+            if (!causedBy(ex, ConstraintViolationException.class)) {
+                throw ex;
+            }
+            // ANOTHER PROCESS INSERTED THE SAME (LEARNER, COURSE) PAIR FIRST
+            evictRegistrations(learnerID);
+            List<RegisteredCourse> current = findRegistrations(learnerID);
+            return new RegistrationResult(RegistrationResult.Status.DUPLICATE, null, total(current), current);
+        }
+    }
+
+    // THE BODY OF register, RUN INSIDE ITS TRANSACTION ON THE LEARNER'S DATABASE. WHEN LEARNERS ARE SHARDED THE
+    // COURSE IS LOOKED UP ON THE CATALOG NODE (THROUGH ITS SECOND-LEVEL CACHE) INSTEAD.
+    private RegistrationResult checkAndRegister(EntityManager em, String learnerID, String courseCode,
+                                                RegistrationRule rule) {
+        String hql = "SELECT reg FROM RegisteredCourse reg WHERE learnerID = :id";
+        List<RegisteredCourse> current = new ArrayList<>(em.createQuery(hql, RegisteredCourse.class)
+                .setParameter("id", learnerID)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList());
+        int total = total(current);
+        Course course = shards == null
+                ? em.find(Course.class, courseCode)
+                : withReadEntityManager(null, catalog -> catalog.find(Course.class, courseCode));
+        if (course == null) {
+            return new RegistrationResult(RegistrationResult.Status.UNKNOWN_COURSE, null, total, current);
+        }
+        RegistrationResult.Status rejection = rule.check(current, course);
+        if (rejection != null) {
+            return new RegistrationResult(rejection, null, total, current);
+        }
+        RegisteredCourse registration = new RegisteredCourse(learnerID, courseCode, course.getCreditHours());
+        em.persist(registration);
+        // FLUSH INSIDE THE TRANSACTION SO A UNIQUE-CONSTRAINT VIOLATION SURFACES HERE RATHER THAN AT COMMIT
+        em.flush();
+        current.add(registration);
+        return new RegistrationResult(RegistrationResult.Status.REGISTERED, registration,
+                total + registration.getCreditHours(), current);
+    }
+
+    private static int total(List<RegisteredCourse> registrations) {
+        int total = 0;
+        for (RegisteredCourse registration : registrations) {
+            total += registration.getCreditHours();
+        }
+        return total;
+    }
+
+    // A DEADLOCK, E.G. BETWEEN TWO FIRST-TIME REGISTRATIONS OF THE SAME LEARNER
+    @Override
+    public boolean isRetryable(RuntimeException failure) {
+        return failure instanceof PersistenceException && causedBy(failure, LockAcquisitionException.class);
+    }
+
+    private static boolean causedBy(Throwable ex, Class<? extends Throwable> type) {
+        for (Throwable t = ex; t != null; t = t.getCause()) {
+            if (type.isInstance(t)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ONE TRANSACTION, FLUSHED AND CLEARED EVERY BATCH_SIZE ROWS SO EACH FLUSH IS ONE JDBC BATCH. WHEN LEARNERS ARE
+    // SHARDED THERE IS ONE TRANSACTION PER SHARD INVOLVED, AND EVERY SHARD IS TRIED EVEN IF ANOTHER FAILED; IF SOME
+    // SHARDS COMMITTED AND OTHERS FAILED, A PartialInsertException NAMES THE ROWS THAT WERE COMMITTED.
+    @Override
+    public void insertRegistrations(List<RegisteredCourse> registrations) {
+        if (shards == null) {
+            insertAll(emf, registrations);
+            recordWrites(registrations);
+            return;
+        }
+        Map<Integer, List<RegisteredCourse>> byShard = new TreeMap<>();
+        for (RegisteredCourse registration : registrations) {
+            byShard.computeIfAbsent(shards.shardOf(registration.getLearnerID()), k -> new ArrayList<>())
+                    .add(registration);
+        }
+        List<RegisteredCourse> committed = new ArrayList<>(registrations.size());
+        RuntimeException failure = null;
+        for (Map.Entry<Integer, List<RegisteredCourse>> shard : byShard.entrySet()) {
+            try {
+                insertAll(shards.factory(shard.getKey()), shard.getValue());
+                committed.addAll(shard.getValue());
+            } catch (RuntimeException ex) {
+                if (failure == null) {
+                    failure = ex;
+                } else {
+                    failure.addSuppressed(ex);
+                }
+            }
+        }
+        recordWrites(committed);
+        if (failure != null) {
+            throw committed.isEmpty() ? failure : new PartialInsertException(committed, failure);
+        }
+    }
+
+    // SENDS THE LEARNERS' READS TO THE PRIMARY FOR THE READ-YOUR-WRITES WINDOW
+    private void recordWrites(List<RegisteredCourse> registrations) {
+        if (replicas != null) {
+            for (RegisteredCourse registration : registrations) {
+                replicas.recordWrite(registration.getLearnerID());
+            }
+        }
+    }
+
+    private static void insertAll(EntityManagerFactory factory, List<RegisteredCourse> registrations) {
+        inTransaction(factory, em -> {
+            int persisted = 0;
+            for (RegisteredCourse registration : registrations) {
+                em.persist(registration);
+                if (++persisted % CourseRegistrationService.BATCH_SIZE == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+            return null;
+        });
+    }
+
+    // WHEN LEARNERS ARE SHARDED, EACH CHUNK IS SPLIT BY SHARD AND EVERY SHARD COMMITS ITS PART SEPARATELY
+    @Override
+    public long importRegistrations(Iterator<RegisteredCourse> registrations, LongConsumer progress) {
+        try {
+            return shards == null
+                    ? importInChunks(emf, registrations, progress)
+                    : importShardedRegistrations(registrations, progress);
+        } finally {
+            if (replicas != null) {
+                replicas.recordWriteToAll();
+            }
+        }
+    }
+
+    // PERSISTS ENTITIES FROM AN ITERATOR, FLUSHING AND CLEARING EVERY BATCH_SIZE ROWS AND COMMITTING EVERY
+    // IMPORT_CHUNK_SIZE ROWS, SO NEITHER THE SOURCE NOR THE PERSISTENCE CONTEXT IS EVER HELD IN MEMORY WHOLE. IF A
+    // CHUNK FAILS, THE CHUNKS BEFORE IT STAY COMMITTED AND THE EXCEPTION NAMES THE ROWS THAT WERE ROLLED BACK.
+    private static long importInChunks(EntityManagerFactory factory, Iterator<?> entities, LongConsumer progress) {
+        int chunkSize = CourseRegistrationService.IMPORT_CHUNK_SIZE;
+        long committed = 0;
+        while (entities.hasNext()) {
+            long chunkStart = committed;
+            int inserted;
+            try {
+                inserted = inTransaction(factory, em -> {
+                    // KEEP BULK-LOADED ROWS OUT OF THE SECOND-LEVEL CACHE SO THEY DO NOT EVICT THE HOT CATALOG
+                    em.unwrap(Session.class).setCacheMode(CacheMode.IGNORE);
+                    int rows = 0;
+                    while (rows < chunkSize && entities.hasNext()) {
+                        em.persist(entities.next());
+                        if (++rows % CourseRegistrationService.BATCH_SIZE == 0) {
+                            em.flush();
+                            em.clear();
+                        }
+                    }
+                    return rows;
+                });
+            } catch (PersistenceException ex) {
+                throw new PersistenceException(String.format("Import failed in rows %d-%d; the %d rows before them "
+                        + "were committed", chunkStart + 1, chunkStart + chunkSize, chunkStart), ex);
+            }
+            committed += inserted;
+            progress.accept(committed);
+        }
+        return committed;
+    }
+
+    // THE SHARDED FORM OF importInChunks FOR REGISTRATIONS: READS IMPORT_CHUNK_SIZE ROWS, SPLITS THEM BY LEARNER
+    // SHARD AND IMPORTS EACH SHARD'S PART, SO ONLY ONE CHUNK IS EVER HELD IN MEMORY.
+    private long importShardedRegistrations(Iterator<RegisteredCourse> registrations, LongConsumer progress) {
+        long committed = 0;
+        while (registrations.hasNext()) {
+            List<List<RegisteredCourse>> byShard = new ArrayList<>();
+            for (int i = 0; i < shards.size(); i++) {
+                byShard.add(new ArrayList<>());
+            }
+            for (int rows = 0; rows < CourseRegistrationService.IMPORT_CHUNK_SIZE && registrations.hasNext(); rows++) {
+                RegisteredCourse registration = registrations.next();
+                byShard.get(shards.shardOf(registration.getLearnerID())).add(registration);
+            }
+            for (int i = 0; i < shards.size(); i++) {
+                long before = committed;
+                try {
+                    committed += importInChunks(shards.factory(i), byShard.get(i).iterator(), rows -> { });
+                } catch (PersistenceException ex) {
+                    throw new PersistenceException(String.format("Import failed on shard %d; the %d rows before "
+                            + "this chunk's part for it were committed", i, before), ex);
+                }
+            }
+            progress.accept(committed);
+        }
+        return committed;
+    }
+
+    // WHEN LEARNERS ARE SHARDED, EVERY SHARD IS READ IN PARALLEL AND THE ROWS ARE MERGED INTO THE SAME ORDER
+    @Override
+    public long streamRegistrations(Consumer<RegisteredCourse> action) {
+        if (shards != null) {
+            return shards.mergeOrdered(JpaRegistrationStore::allRegistrations, REGISTRATION_ORDER,
+                    CourseRegistrationService.BATCH_SIZE, action);
+        }
+        return withEntityManager(em -> {
+            try (Stream<RegisteredCourse> registrations = allRegistrations(em)) {
+                return drain(em, registrations, action);
+            }
+        });
+    }
+
+    // OPENS A SCROLLED, READ-ONLY STREAM OF EVERY REGISTRATION IN ONE DATABASE, ORDERED BY LEARNER AND COURSE
+    private static Stream<RegisteredCourse> allRegistrations(EntityManager em) {
+        String hql = "SELECT reg FROM RegisteredCourse reg ORDER BY reg.learnerID, reg.courseCode";
+        TypedQuery<RegisteredCourse> query = em.createQuery(hql, RegisteredCourse.class);
+        query.setHint(HibernateHints.HINT_FETCH_SIZE, CourseRegistrationService.BATCH_SIZE);
+        query.setHint(HibernateHints.HINT_READ_ONLY, true);
+        return query.getResultStream();
+    }
+
+    // SENDS THE LEARNER'S READS TO THE PRIMARY FOR THE READ-YOUR-WRITES WINDOW
+    @Override
+    public void evictRegistrations(String learnerID) {
+        if (replicas != null) {
+            replicas.recordWrite(learnerID);
+        }
+    }
+
+    // AGGREGATES
+
+    // WHEN LEARNERS ARE SHARDED, EVERY SHARD IS COUNTED IN PARALLEL AND THE COUNTS ARE ADDED UP
+    @Override
+    public Map<String, Long> countEnrollments() {
+        Map<String, Long> counts = new TreeMap<>();
+        List<List<Object[]>> perShard = shards == null
+                ? List.of(withEntityManager(JpaRegistrationStore::enrollmentsOf))
+                : shards.fanOut(JpaRegistrationStore::enrollmentsOf);
+        for (List<Object[]> rows : perShard) {
+            for (Object[] row : rows) {
+                counts.merge((String) row[0], ((Number) row[1]).longValue(), Long::sum);
+            }
+        }
+        return counts;
+    }
+
+    private static List<Object[]> enrollmentsOf(EntityManager em) {
+        String hql = "SELECT reg.courseCode, COUNT(reg) FROM RegisteredCourse reg GROUP BY reg.courseCode";
+        return em.createQuery(hql, Object[].class).getResultList();
+    }
+
+    @Override
+    public Map<String, Integer> findSeatsTaken() {
+        return withEntityManager(em -> {
+            Map<String, Integer> seats = new HashMap<>();
+            String hql = "SELECT crs.courseCode, crs.seatsTaken FROM Course crs";
+            for (Object[] row : em.createQuery(hql, Object[].class).getResultList()) {
+                seats.put((String) row[0], ((Number) row[1]).intValue());
+            }
+            return seats;
+        });
+    }
+
+    // THE SEAT LEDGER FLUSHES EVERY SECOND OR SO WHILE REGISTRATION IS BUSY. A BULK HQL UPDATE OF COURSE WOULD
+    // EVICT THE WHOLE COURSE REGION AND EVERY CACHED CATALOG QUERY EACH TIME, SO THE COLUMN IS UPDATED WITH NATIVE
+    // SQL THAT DECLARES ONLY SEAT_COUNTS_SPACE. CACHED COURSES KEEP THEIR OLD SEATS_TAKEN, WHICH NOTHING READS:
+    // findSeatsTaken IS NOT CACHED, AND LIVE COUNTS COME FROM THE LEDGER.
+    @Override
+    public void setSeatsTaken(Map<String, Integer> seats) {
+        updateSeats(SET_SEATS_SQL, seats);
+    }
+
+    // ONE UPDATE PER COURSE, ALL IN ONE TRANSACTION
+    @Override
+    public void addSeatsTaken(Map<String, Integer> seats) {
+        updateSeats(ADD_SEATS_SQL, seats);
+    }
+
+    // ITS OWN SHORT TRANSACTION: THE COURSE ROW IS LOCKED ONLY FOR THIS ONE STATEMENT
+    @Override
+    public boolean claimSeat(String courseCode) {
+        return inTransaction(em -> em.createNativeQuery(CLAIM_SEAT_SQL)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace(SEAT_COUNTS_SPACE)
+                .setParameter(1, courseCode)
+                .executeUpdate() == 1);
+    }
+
+    private void updateSeats(String sql, Map<String, Integer> seats) {
+        inTransaction(em -> {
+            seats.forEach((courseCode, value) -> em.createNativeQuery(sql)
+                    .unwrap(NativeQuery.class)
+                    .addSynchronizedQuerySpace(SEAT_COUNTS_SPACE)
+                    .setParameter(1, value)
+                    .setParameter(2, courseCode)
+                    .executeUpdate());
+            return null;
+        });
+    }
+
+    /**
+     * COMPARES THE DATABASE WITH THE TABLES, COLUMNS, INDEXES AND UNIQUE CONSTRAINTS DECLARED BY THE ENTITY
+     * MAPPINGS (SEE {@link SchemaVerifier}). WHEN LEARNERS ARE SHARDED, EVERY SHARD IS CHECKED TOO, AND A SHARD'S
+     * PROBLEMS NAME THE SHARD IN THEIR TABLE.
+     */
+    @Override
+    public List<SchemaVerifier.Problem> verifySchema() {
+        List<SchemaVerifier.Problem> problems = new ArrayList<>(withEntityManager(JpaRegistrationStore::verify));
+        if (shards != null) {
+            List<List<SchemaVerifier.Problem>> perShard = shards.fanOut(JpaRegistrationStore::verify);
+            for (int i = 0; i < perShard.size(); i++) {
+                for (SchemaVerifier.Problem problem : perShard.get(i)) {
+                    problems.add(new SchemaVerifier.Problem("shard " + i + " " + problem.table(),
+                            problem.description(), problem.fix()));
+                }
+            }
+        }
+        return problems;
+    }
+
+    private static List<SchemaVerifier.Problem> verify(EntityManager em) {
+        return em.unwrap(Session.class)
+                .doReturningWork(connection -> SchemaVerifier.verify(connection, SchemaVerifier.ENTITIES));
+    }
+
+    /**
+     * @return THE PRIMARY DATABASE'S FACTORY.
+     */
+    public EntityManagerFactory getEntityManagerFactory() {
+        return emf;
+    }
+
+    /**
+     * @return THE READ-REPLICA ROUTER, OR NULL UNLESS "service.replicas.urls" IS SET.
+     */
+    public ReplicaRouter getReplicaRouter() {
+        return replicas;
+    }
+
+    /**
+     * @return THE LEARNER SHARD ROUTER, OR NULL UNLESS "service.shards.urls" IS SET.
+     */
+    public ShardRouter getShardRouter() {
+        return shards;
+    }
+
+    /**
+     * CLOSES THE REPLICAS AND SHARDS, AND THE PRIMARY'S FACTORY IF THIS STORE OWNS IT.
+     */
+    @Override
+    public void close() {
+        if (replicas != null) {
+            replicas.close();
+        }
+        if (shards != null) {
+            shards.close();
+        }
+        if (ownsFactory && emf.isOpen()) {
+            emf.close();
+        }
+    }
+}
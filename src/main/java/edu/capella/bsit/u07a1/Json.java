@@ -0,0 +1,205 @@
+package edu.capella.bsit.u07a1;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * THE SMALL SUBSET OF JSON THE HTTP API NEEDS, WITHOUT PULLING IN A JSON LIBRARY: WRITING COURSES, REGISTRATIONS AND
+ * STRINGS, AND READING FLAT REQUEST OBJECTS SUCH AS {"courseCode": "IT4782"}.
+ */
+final class Json {
+
+    private Json() { }
+
+    /**
+     * @param value THE STRING TO ENCODE (MAY BE NULL).
+     * @return THE VALUE AS A QUOTED, ESCAPED JSON STRING, OR "null".
+     */
+    static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder out = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        return out.append('"').toString();
+    }
+
+    /**
+     * @param courses THE COURSES TO ENCODE.
+     * @return A JSON ARRAY OF {"courseCode", "creditHours"[, "capacity"]} OBJECTS (CAPACITY ONLY FOR LIMITED COURSES).
+     */
+    static String courses(List<Course> courses) {
+        StringBuilder out = new StringBuilder(courses.size() * 40 + 2).append('[');
+        for (int i = 0; i < courses.size(); i++) {
+            Course course = courses.get(i);
+            if (i > 0) {
+                out.append(',');
+            }
+            out.append("{\"courseCode\":").append(quote(course.getCourseCode()))
+                    .append(",\"creditHours\":").append(course.getCreditHours());
+            if (course.getCapacity() != null) {
+                out.append(",\"capacity\":").append(course.getCapacity());
+            }
+            out.append('}');
+        }
+        return out.append(']').toString();
+    }
+
+    /**
+     * @param registrations THE REGISTRATIONS TO ENCODE.
+     * @return A JSON ARRAY OF {"courseCode", "creditHours"} OBJECTS (THE LEARNER IS IMPLIED BY THE REQUEST).
+     */
+    static String registrations(List<RegisteredCourse> registrations) {
+        StringBuilder out = new StringBuilder(registrations.size() * 40 + 2).append('[');
+        for (int i = 0; i < registrations.size(); i++) {
+            RegisteredCourse registration = registrations.get(i);
+            if (i > 0) {
+                out.append(',');
+            }
+            out.append("{\"courseCode\":").append(quote(registration.getCourseCode()))
+                    .append(",\"creditHours\":").append(registration.getCreditHours()).append('}');
+        }
+        return out.append(']').toString();
+    }
+
+    /**
+     * PARSES A FLAT JSON OBJECT. NESTED OBJECTS AND ARRAYS ARE REJECTED; NUMBERS AND BOOLEANS ARE RETURNED AS THEIR
+     * TEXT AND NULL AS A NULL VALUE.
+     *
+     * @param text THE JSON TEXT.
+     * @return THE OBJECT'S MEMBERS IN DOCUMENT ORDER.
+     * @throws IllegalArgumentException IF THE TEXT IS NOT A FLAT JSON OBJECT.
+     */
+    static Map<String, String> parseObject(String text) {
+        Parser parser = new Parser(text);
+        Map<String, String> members = new LinkedHashMap<>();
+        parser.expect('{');
+        if (!parser.consume('}')) {
+            do {
+                String name = parser.string();
+                parser.expect(':');
+                members.put(name, parser.scalar());
+            } while (parser.consume(','));
+            parser.expect('}');
+        }
+        parser.end();
+        return members;
+    }
+
+    private static final class Parser {
+        private final String text;
+        private int pos;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        void skipWhitespace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        boolean consume(char c) {
+            skipWhitespace();
+            if (pos < text.length() && text.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        void expect(char c) {
+            if (!consume(c)) {
+                throw error("'" + c + "' expected");
+            }
+        }
+
+        void end() {
+            skipWhitespace();
+            if (pos != text.length()) {
+                throw error("unexpected trailing content");
+            }
+        }
+
+        String scalar() {
+            skipWhitespace();
+            if (pos < text.length() && text.charAt(pos) == '"') {
+                return string();
+            }
+            int start = pos;
+            while (pos < text.length() && "{}[],: \t\r\n\"".indexOf(text.charAt(pos)) < 0) {
+                pos++;
+            }
+            String literal = text.substring(start, pos);
+            if (literal.equals("null")) {
+                return null;
+            }
+            if (literal.equals("true") || literal.equals("false") || literal.matches("-?\\d+(\\.\\d+)?([eE][+-]?\\d+)?")) {
+                return literal;
+            }
+            throw error("string, number, boolean or null expected");
+        }
+
+        String string() {
+            expect('"');
+            StringBuilder out = new StringBuilder();
+            while (pos < text.length()) {
+                char c = text.charAt(pos++);
+                if (c == '"') {
+                    return out.toString();
+                }
+                if (c != '\\') {
+                    out.append(c);
+                    continue;
+                }
+                if (pos >= text.length()) {
+                    break;
+                }
+                char escaped = text.charAt(pos++);
+                switch (escaped) {
+                    case '"', '\\', '/' -> out.append(escaped);
+                    case 'b' -> out.append('\b');
+                    case 'f' -> out.append('\f');
+                    case 'n' -> out.append('\n');
+                    case 'r' -> out.append('\r');
+                    case 't' -> out.append('\t');
+                    case 'u' -> {
+                        if (pos + 4 > text.length()) {
+                            throw error("truncated \\u escape");
+                        }
+                        try {
+                            out.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException ex) {
+                            throw error("invalid \\u escape");
+                        }
+                        pos += 4;
+                    }
+                    default -> throw error("invalid escape");
+                }
+            }
+            throw error("unterminated string");
+        }
+
+        IllegalArgumentException error(String problem) {
+            return new IllegalArgumentException("Malformed JSON at offset " + pos + ": " + problem);
+        }
+    }
+}
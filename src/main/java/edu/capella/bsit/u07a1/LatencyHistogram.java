@@ -0,0 +1,114 @@
+package edu.capella.bsit.u07a1;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LOCK-FREE LATENCY HISTOGRAM WITH LOG-LINEAR BUCKETS (THE SAME LAYOUT HDRHISTOGRAM USES, AT LOWER PRECISION).
+ * VALUES BELOW 16 MICROSECONDS ARE COUNTED EXACTLY; ABOVE THAT EACH POWER OF TWO IS SPLIT INTO 8 BUCKETS, SO A
+ * REPORTED PERCENTILE IS WITHIN 12.5% OF THE TRUE VALUE FOR ANY LATENCY FROM MICROSECONDS TO HOURS, IN A FIXED
+ * 488-SLOT ARRAY. RECORDING IS A FEW ATOMIC INCREMENTS, SO IT IS SAFE ON EVERY SERVICE CALL FROM ANY THREAD.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // VALUES BELOW THIS ARE COUNTED IN THEIR OWN BUCKET
+    private static final int LINEAR = 2 * SUB_BUCKETS;
+    private static final int FIRST_EXPONENT = 4;
+    private static final int BUCKETS = LINEAR + (63 - FIRST_EXPONENT) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * RECORDS ONE LATENCY.
+     *
+     * @param micros THE LATENCY IN MICROSECONDS; NEGATIVE VALUES ARE RECORDED AS ZERO.
+     */
+    public void record(long micros) {
+        long value = Math.max(0, micros);
+        counts.incrementAndGet(index(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * @return A CONSISTENT-ENOUGH COPY OF THE DISTRIBUTION (CALLS RECORDED WHILE IT IS TAKEN MAY BE PARTLY MISSED).
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        long maxValue = max.get();
+        long recorded = count.sum();
+        return new Snapshot(total, recorded == 0 ? 0.0 : (double) sum.sum() / recorded,
+                percentile(copy, total, 50.0, maxValue), percentile(copy, total, 90.0, maxValue),
+                percentile(copy, total, 99.0, maxValue), percentile(copy, total, 99.9, maxValue), maxValue);
+    }
+
+    /**
+     * CLEARS ALL RECORDED VALUES.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    private static long percentile(long[] buckets, long total, double percentile, long maxValue) {
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= target) {
+                return Math.min(upperBound(i), maxValue);
+            }
+        }
+        return maxValue;
+    }
+
+    static int index(long value) {
+        if (value < LINEAR) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR + (exponent - FIRST_EXPONENT) * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBound(int index) {
+        if (index < LINEAR) {
+            return index;
+        }
+        int exponent = (index - LINEAR) / SUB_BUCKETS + FIRST_EXPONENT;
+        int subBucket = (index - LINEAR) % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return (1L << exponent) + subBucket * width + width - 1;
+    }
+
+    /**
+     * POINT-IN-TIME SUMMARY OF A HISTOGRAM. ALL VALUES ARE IN MICROSECONDS.
+     *
+     * @param count NUMBER OF RECORDED VALUES.
+     * @param mean MEAN OF THE RECORDED VALUES.
+     * @param p50 MEDIAN.
+     * @param p90 90TH PERCENTILE.
+     * @param p99 99TH PERCENTILE.
+     * @param p999 99.9TH PERCENTILE.
+     * @param max LARGEST RECORDED VALUE.
+     */
+    public record Snapshot(long count, double mean, long p50, long p90, long p99, long p999, long max) { }
+}
@@ -0,0 +1,16 @@
+package edu.capella.bsit.u07a1;
+
+/**
+ * MAIN CLASS OF THE PACKAGED JAR. JAVAFX REFUSES TO START WHEN THE MAIN CLASS ITSELF EXTENDS Application AND THE
+ * JAVAFX MODULES ARE ON THE CLASS PATH, SO "java -jar" STARTS HERE AND HANDS OVER TO {@link App}. STARTING FROM
+ * JARS ON THE CLASS PATH IS WHAT LETS THE JVM KEEP AN APPCDS ARCHIVE OF THE APPLICATION'S CLASSES (SEE README.md).
+ */
+public class Launcher {
+
+    /**
+     * @param args COMMAND LINE ARGUMENTS, PASSED ON TO {@link App#main(String[])}.
+     */
+    public static void main(String[] args) {
+        App.main(args);
+    }
+}
@@ -0,0 +1,136 @@
+package edu.capella.bsit.u07a1;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * ONE LEARNER'S REGISTRATIONS AS A SORTED ARRAY OF {@link CourseIndex} IDS, THE CREDIT HOURS OF EACH REGISTRATION IN
+ * A PARALLEL ARRAY, AND THE CREDIT TOTAL, IN PLACE OF A LIST OF REGISTEREDCOURSE ENTITIES. A LEARNER HOLDS AT MOST A
+ * HANDFUL OF COURSES, SO THIS TAKES A FEW DOZEN BYTES NO MATTER HOW LARGE THE CATALOG GROWS, AND THE DUPLICATE AND
+ * CREDIT-LIMIT CHECKS ARE A BINARY SEARCH AND AN INT COMPARISON WITH NO ALLOCATION.
+ *
+ * <p>THE CREDIT HOURS ARE THE ONES ON THE LEARNER'S OWN REGISTRATION ROWS, NOT THE CATALOG'S, SO A COURSE WHOSE
+ * CREDITS CHANGE AFTER A LEARNER REGISTERED STILL COUNTS WHAT THE LEARNER ACTUALLY REGISTERED FOR.
+ *
+ * <p>INSTANCES ARE IMMUTABLE ({@link #with(int, int)} RETURNS A NEW ONE), SO THEY CAN BE CACHED AND SHARED BETWEEN
+ * THREADS AND UI SESSIONS WITHOUT COPYING.
+ */
+public final class LearnerRegistrations {
+    /**
+     * A LEARNER WITH NO REGISTRATIONS.
+     */
+    public static final LearnerRegistrations NONE = new LearnerRegistrations(new int[0], new int[0], 0);
+
+    private final int[] ids;
+    private final int[] credits;
+    private final int totalCredits;
+
+    private LearnerRegistrations(int[] ids, int[] credits, int totalCredits) {
+        this.ids = ids;
+        this.credits = credits;
+        this.totalCredits = totalCredits;
+    }
+
+    /**
+     * BUILDS A LEARNER'S STATE FROM REGISTRATION ROWS, INTERNING THEIR COURSE CODES. EACH REGISTRATION KEEPS ITS
+     * ROW'S OWN CREDIT HOURS, AND THE CREDIT TOTAL IS THEIR SUM.
+     *
+     * @param registrations THE LEARNER'S REGISTRATIONS.
+     * @param index THE INDEX THAT ASSIGNS COURSE IDS.
+     * @return THE LEARNER'S REGISTRATIONS.
+     */
+    public static LearnerRegistrations of(List<RegisteredCourse> registrations, CourseIndex index) {
+        LearnerRegistrations result = NONE;
+        for (RegisteredCourse registration : registrations) {
+            result = result.with(index.intern(registration.getCourseCode()), registration.getCreditHours());
+        }
+        return result;
+    }
+
+    /**
+     * @param courseId A {@link CourseIndex} ID.
+     * @return TRUE IF THE LEARNER IS REGISTERED FOR THE COURSE.
+     */
+    public boolean contains(int courseId) {
+        return Arrays.binarySearch(ids, courseId) >= 0;
+    }
+
+    /**
+     * @param courseId A {@link CourseIndex} ID.
+     * @param creditHours THE CREDIT HOURS OF THE REGISTRATION.
+     * @return THIS STATE WITH THE COURSE ADDED (THIS INSTANCE IF IT WAS ALREADY THERE).
+     */
+    public LearnerRegistrations with(int courseId, int creditHours) {
+        int at = Arrays.binarySearch(ids, courseId);
+        if (at >= 0) {
+            return this;
+        }
+        at = -at - 1;
+        int[] addedIds = new int[ids.length + 1];
+        int[] addedCredits = new int[ids.length + 1];
+        System.arraycopy(ids, 0, addedIds, 0, at);
+        System.arraycopy(credits, 0, addedCredits, 0, at);
+        addedIds[at] = courseId;
+        addedCredits[at] = creditHours;
+        System.arraycopy(ids, at, addedIds, at + 1, ids.length - at);
+        System.arraycopy(credits, at, addedCredits, at + 1, ids.length - at);
+        return new LearnerRegistrations(addedIds, addedCredits, totalCredits + creditHours);
+    }
+
+    /**
+     * @param courseId A {@link CourseIndex} ID.
+     * @return THIS STATE WITH THE COURSE, AND THE CREDIT HOURS IT WAS REGISTERED WITH, REMOVED (THIS INSTANCE IF IT
+     * WAS NOT THERE).
+     */
+    public LearnerRegistrations without(int courseId) {
+        int at = Arrays.binarySearch(ids, courseId);
+        if (at < 0) {
+            return this;
+        }
+        int[] removedIds = new int[ids.length - 1];
+        int[] removedCredits = new int[ids.length - 1];
+        System.arraycopy(ids, 0, removedIds, 0, at);
+        System.arraycopy(credits, 0, removedCredits, 0, at);
+        System.arraycopy(ids, at + 1, removedIds, at, ids.length - at - 1);
+        System.arraycopy(credits, at + 1, removedCredits, at, ids.length - at - 1);
+        return new LearnerRegistrations(removedIds, removedCredits, totalCredits - credits[at]);
+    }
+
+    /**
+     * @return THE NUMBER OF COURSES THE LEARNER IS REGISTERED FOR.
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * @return THE LEARNER'S TOTAL CREDIT HOURS.
+     */
+    public int totalCredits() {
+        return totalCredits;
+    }
+
+    /**
+     * @return THE IDS OF THE LEARNER'S COURSES, IN ASCENDING ORDER.
+     */
+    public int[] courseIds() {
+        return ids.clone();
+    }
+
+    /**
+     * MATERIALIZES THE REGISTRATIONS AS (DETACHED, UNSAVED) REGISTEREDCOURSE OBJECTS FOR CALLERS THAT NEED ROWS,
+     * SUCH AS TABLES AND THE HTTP API. EACH ROW CARRIES THE CREDIT HOURS IT WAS REGISTERED WITH.
+     *
+     * @param learnerID THE LEARNER THESE REGISTRATIONS BELONG TO.
+     * @param index THE INDEX THE IDS CAME FROM.
+     * @return AN UNMODIFIABLE LIST OF REGISTRATIONS, ORDERED BY COURSE ID.
+     */
+    public List<RegisteredCourse> toRegistrations(String learnerID, CourseIndex index) {
+        List<RegisteredCourse> registrations = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            registrations.add(new RegisteredCourse(learnerID, index.codeOf(ids[i]), credits[i]));
+        }
+        return List.copyOf(registrations);
+    }
+}
@@ -1,47 +1,119 @@
 package edu.capella.bsit.u07a1;
 
 import java.io.IOException;
-import java.util.logging.FileHandler;
+import java.nio.file.Path;
+import java.text.MessageFormat;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
 import java.util.logging.Level;
+import java.util.logging.Formatter;
+import java.util.logging.LogRecord;
 import java.util.logging.Logger;
-import java.util.logging.SimpleFormatter;
 
 /**
  * LOG MANAGER CLASS DESIGNED TO CONFIGURE AND MANAGE LOGGING FOR THE APPLICATION.
- * THIS CLASS INITIALIZES A FILE HANDLER FOR LOGGING TO A SPECIFIED FILE AND SETS A CUSTOM FORMAT FOR LOG MESSAGES.
+ * THIS CLASS INITIALIZES AN ASYNCHRONOUS HANDLER THAT WRITES TO A ROTATING LOG FILE AND SETS A CUSTOM FORMAT FOR
+ * LOG MESSAGES. LOGGING THREADS ONLY ENQUEUE RECORDS; FORMATTING AND DISK I/O HAPPEN ON A BACKGROUND WRITER, SO
+ * LOGGING NEVER STALLS THE UI OR SERVICE THREADS (UNLESS THE "BLOCK" OVERFLOW POLICY IS CHOSEN).
+ *
+ * <p>THE PIPELINE IS TUNED WITH SYSTEM PROPERTIES:
+ * <ul>
+ *     <li>u07a1.log.file - LOG FILE PATH (DEFAULT "courses_db.log")</li>
+ *     <li>u07a1.log.bufferSize - RECORDS HELD BEFORE THE OVERFLOW POLICY APPLIES (DEFAULT 8192)</li>
+ *     <li>u07a1.log.overflow - BLOCK, DROP OR SAMPLE (DEFAULT SAMPLE)</li>
+ *     <li>u07a1.log.maxBytes - ROTATE AT THIS FILE SIZE (DEFAULT 10 MB, 0 DISABLES)</li>
+ *     <li>u07a1.log.backups - ROTATED FILES KEPT (DEFAULT 5)</li>
+ *     <li>u07a1.log.rotateHours - ROTATE AFTER THIS MANY HOURS (DEFAULT 24, 0 DISABLES)</li>
+ * </ul>
+ *
+ * <p>CALL SITES SHOULD USE PARAMETERIZED MESSAGES, E.G. {@code logger.log(Level.INFO, "Signed in: {0}", id)}, OR A
+ * {@code Supplier<String>}, RATHER THAN {@code String.format}: THE MESSAGE IS THEN ONLY BUILT IF THE RECORD PASSES
+ * THE LEVEL CHECK, AND IT IS BUILT ON THE WRITER THREAD.
  */
 public class LogManager {
 
-    private static FileHandler logFileHandler;
+    private static Handler logFileHandler;
     private static final String LOG_FORMAT = "[%1$tm/%1$td/%1$tY %1$tT] %4$s: %5$s %n";
 
     // INITIALIZES THE LOG FILE HANDLER AND SETS THE LOGGING FORMAT UPON LOADING THE CLASS.
     static {
         try {
-            // CONFIGURE THE FILE HANDLER TO WRITE LOG MESSAGES TO "COURSES_DB.LOG".
-            logFileHandler = new FileHandler("courses_db.log");
-            // SET A CUSTOM FORMAT FOR LOG MESSAGES.
+            // SET A CUSTOM FORMAT FOR LOG MESSAGES (READ BY SIMPLEFORMATTER, E.G. FOR THE CONSOLE).
             System.setProperty("java.util.logging.SimpleFormatter.format", LOG_FORMAT);
-            SimpleFormatter simpleFormatter = new SimpleFormatter();
-            logFileHandler.setFormatter(simpleFormatter);
-        } catch (IOException ex){
+            // CONFIGURE THE ROTATING FILE HANDLER TO WRITE LOG MESSAGES TO "COURSES_DB.LOG".
+            RotatingFileHandler fileHandler = RotatingFileHandler.open(
+                    Path.of(System.getProperty("u07a1.log.file", "courses_db.log")),
+                    Long.getLong("u07a1.log.maxBytes", 10L * 1024 * 1024),
+                    Integer.getInteger("u07a1.log.backups", 5),
+                    TimeUnit.HOURS.toMillis(Long.getLong("u07a1.log.rotateHours", 24L)),
+                    new LogFormatter());
+            // PUT THE BACKGROUND WRITER IN FRONT OF IT.
+            logFileHandler = AsyncLogHandler.start(fileHandler,
+                    Integer.getInteger("u07a1.log.bufferSize", 8192),
+                    AsyncLogHandler.OverflowPolicy.valueOf(System.getProperty("u07a1.log.overflow", "SAMPLE").toUpperCase()));
+        } catch (IOException | IllegalArgumentException ex){
             // HANDLE EXCEPTIONS RELATED TO LOG FILE CREATION AND CONFIGURATION
             System.err.printf("Unable to create log the log file.\n%s\n", ex.getMessage());
         }
     }
 
     /**
-     * ADDS THE FILE HANDLER TO A SPECIFIED LOGGER, ALLOWING IT TO WRITE LOG MESSAGES TO THE CONFIGURED FILE.
+     * ADDS THE ASYNCHRONOUS FILE HANDLER TO A SPECIFIED LOGGER, ALLOWING IT TO WRITE LOG MESSAGES TO THE CONFIGURED FILE.
      * THIS METHOD ALSO SETS THE LOG LEVEL TO "ALL", ENABLING ALL LOG MESSAGES TO BE CAPTURED.
      *
      * @param logger THE LOGGER TO WHICH THE FILE HANDLER WILL BE ADDED.
      */
     public static void addFileHandlerToLogger(Logger logger){
-        logFileHandler.setFormatter(new SimpleFormatter());
-
+        if (logFileHandler == null) {
+            return;
+        }
         // ADD THE PREVIOUSLY CONFIGURED FILE HANDLER TO THE LOGGER.
         logger.addHandler(logFileHandler);
         // SPECIFY THAT THE LOGGER SHOULD LOG ALL MESSAGES.
         logger.setLevel(Level.ALL);
     }
+
+    /**
+     * WRITES OUT ANY BUFFERED RECORDS AND CLOSES THE LOG FILE. CALLED WHEN THE APPLICATION SHUTS DOWN.
+     */
+    public static void shutdown() {
+        if (logFileHandler != null) {
+            logFileHandler.close();
+        }
+    }
+
+    /**
+     * PRODUCES THE SAME LINES AS LOG_FORMAT WITH SIMPLEFORMATTER, BUT WITHOUT ITS OVERHEAD: SIMPLEFORMATTER ALWAYS
+     * INFERS THE CALLER (A STACK WALK, AND THE WRONG ONE ON THE WRITER THREAD) AND BUILDS A NEW MESSAGEFORMAT PER
+     * RECORD. HERE MESSAGE PATTERNS ARE PARSED ONCE AND REUSED. ONLY CALLED FROM THE ASYNC WRITER THREAD.
+     */
+    private static final class LogFormatter extends Formatter {
+        private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("MM/dd/yyyy HH:mm:ss");
+        private final Map<String, MessageFormat> patterns = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, MessageFormat> eldest) {
+                return size() > 256;
+            }
+        };
+
+        @Override
+        public synchronized String format(LogRecord record) {
+            StringBuilder line = new StringBuilder(128).append('[');
+            TIMESTAMP.formatTo(ZonedDateTime.ofInstant(record.getInstant(), ZoneId.systemDefault()), line);
+            line.append("] ").append(record.getLevel().getLocalizedName()).append(": ");
+            String message = record.getMessage();
+            Object[] params = record.getParameters();
+            if (message != null && params != null && params.length > 0 && message.indexOf('{') >= 0) {
+                line.append(patterns.computeIfAbsent(message, MessageFormat::new).format(params));
+            } else {
+                line.append(message);
+            }
+            return line.append(' ').append(System.lineSeparator()).toString();
+        }
+    }
 }
@@ -0,0 +1,213 @@
+package edu.capella.bsit.u07a1;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * SMALL IN-PROCESS CACHE WITH A SIZE BOUND AND AN OPTIONAL TIME-TO-LIVE.
+ * ENTRIES ARE KEPT IN ACCESS ORDER SO THE LEAST RECENTLY USED ENTRY IS EVICTED WHEN THE BOUND IS REACHED.
+ * HIT, MISS AND EVICTION COUNTS ARE KEPT SO THE BOUND CAN BE SIZED FROM REAL TRAFFIC (SEE {@link #stats()}).
+ * ALL METHODS ARE SYNCHRONIZED; THE CACHE IS MEANT FOR A MODEST NUMBER OF ENTRIES WHOSE VALUES ARE EXPENSIVE
+ * TO LOAD (A DATABASE ROUND TRIP), SO LOCK HOLD TIMES ARE NEGLIGIBLE COMPARED TO A MISS.
+ *
+ * @param <K> THE KEY TYPE.
+ * @param <V> THE VALUE TYPE. VALUES SHOULD BE IMMUTABLE, SINCE THEY ARE SHARED BETWEEN CALLERS.
+ */
+public class LruCache<K, V> {
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LinkedHashMap<K, Entry<V>> entries;
+    // VERSIONS, SO A LOAD THAT RACED WITH A WRITE OF ITS OWN KEY DOES NOT STORE A STALE VALUE. THE CLOCK TICKS ON
+    // EVERY WRITE; A KEY'S LAST WRITE IS ONLY RECORDED WHILE LOADS OF THAT KEY ARE IN FLIGHT, SO WRITES TO OTHER
+    // KEYS NEVER DISCARD A LOAD AND THE BOOKKEEPING STAYS AS SMALL AS THE NUMBER OF CONCURRENT LOADS.
+    private long clock;
+    private long clearedAt;
+    private final Map<K, Integer> loading = new HashMap<>();
+    private final Map<K, Long> writtenAt = new HashMap<>();
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * CREATES A CACHE HOLDING AT MOST MAXENTRIES ENTRIES, EACH VALID FOR TTLMILLIS AFTER IT WAS STORED.
+     *
+     * @param maxEntries THE MAXIMUM NUMBER OF ENTRIES KEPT.
+     * @param ttlMillis HOW LONG AN ENTRY STAYS VALID, IN MILLISECONDS. ZERO OR LESS MEANS ENTRIES NEVER EXPIRE.
+     */
+    public LruCache(int maxEntries, long ttlMillis) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be at least 1");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlMillis <= 0 ? 0 : ttlMillis * 1_000_000L;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * RETURNS THE CACHED VALUE FOR THE KEY, OR NULL IF IT IS ABSENT OR HAS EXPIRED.
+     *
+     * @param key THE KEY TO LOOK UP.
+     * @return THE CACHED VALUE OR NULL.
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (isExpired(entry, System.nanoTime())) {
+            entries.remove(key);
+            evictions++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    /**
+     * RETURNS THE CACHED VALUE FOR THE KEY, LOADING AND STORING IT WHEN IT IS ABSENT OR EXPIRED.
+     * THE LOADER RUNS OUTSIDE THE CACHE LOCK, SO TWO CONCURRENT MISSES MAY BOTH LOAD; THE LAST ONE WINS.
+     * A VALUE LOADED WHILE THE SAME KEY WAS WRITTEN OR INVALIDATED (OR THE WHOLE CACHE WAS CLEARED) IS RETURNED TO
+     * THE CALLER BUT NOT STORED; WRITES TO OTHER KEYS DO NOT AFFECT IT.
+     *
+     * @param key THE KEY TO LOOK UP.
+     * @param loader PRODUCES THE VALUE ON A MISS. A NULL RESULT IS RETURNED BUT NOT CACHED.
+     * @return THE CACHED OR FRESHLY LOADED VALUE.
+     */
+    public V get(K key, Supplier<V> loader) {
+        long startedAt;
+        synchronized (this) {
+            V value = get(key);
+            if (value != null) {
+                return value;
+            }
+            startedAt = clock;
+            loading.merge(key, 1, Integer::sum);
+        }
+        V value = null;
+        try {
+            value = loader.get();
+        } finally {
+            synchronized (this) {
+                boolean stale = clearedAt > startedAt || writtenAt.getOrDefault(key, Long.MIN_VALUE) > startedAt;
+                if (loading.merge(key, -1, Integer::sum) == 0) {
+                    loading.remove(key);
+                    writtenAt.remove(key);
+                }
+                if (value != null && !stale) {
+                    store(key, value);
+                }
+            }
+        }
+        return value;
+    }
+
+    // RECORDS A WRITE OF THE KEY, SO ITS LOADS IN FLIGHT DO NOT STORE THEIR RESULT
+    private void written(K key) {
+        clock++;
+        if (loading.containsKey(key)) {
+            writtenAt.put(key, clock);
+        }
+    }
+
+    /**
+     * STORES A VALUE, EVICTING THE LEAST RECENTLY USED ENTRIES IF THE BOUND IS EXCEEDED.
+     * THE VALUE IS TREATED AS AUTHORITATIVE: ANY LOAD OF THE SAME KEY THAT IS IN PROGRESS WILL NOT OVERWRITE IT.
+     *
+     * @param key THE KEY TO STORE UNDER.
+     * @param value THE VALUE TO STORE.
+     */
+    public synchronized void put(K key, V value) {
+        written(key);
+        store(key, value);
+    }
+
+    private void store(K key, V value) {
+        entries.put(key, new Entry<>(value, System.nanoTime()));
+        Iterator<K> eldest = entries.keySet().iterator();
+        while (entries.size() > maxEntries && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * REPLACES THE VALUE FOR A KEY THAT IS CURRENTLY CACHED, E.G. TO WRITE A CHANGE THROUGH TO THE CACHE.
+     * NOTHING IS STORED IF THE KEY IS ABSENT OR EXPIRED, BUT ANY LOAD OF THE KEY THAT IS IN PROGRESS IS
+     * PREVENTED FROM STORING ITS (NOW STALE) RESULT.
+     *
+     * @param key THE KEY TO UPDATE.
+     * @param update COMPUTES THE NEW VALUE FROM THE CACHED ONE.
+     * @return TRUE IF A CACHED VALUE WAS UPDATED.
+     */
+    public synchronized boolean update(K key, UnaryOperator<V> update) {
+        written(key);
+        Entry<V> entry = entries.get(key);
+        if (entry == null || isExpired(entry, System.nanoTime())) {
+            entries.remove(key);
+            return false;
+        }
+        entries.put(key, new Entry<>(update.apply(entry.value), entry.storedAt));
+        return true;
+    }
+
+    /**
+     * REMOVES ONE ENTRY.
+     *
+     * @param key THE KEY TO REMOVE.
+     */
+    public synchronized void invalidate(K key) {
+        written(key);
+        entries.remove(key);
+    }
+
+    /**
+     * REMOVES ALL ENTRIES.
+     */
+    public synchronized void invalidateAll() {
+        clearedAt = ++clock;
+        entries.clear();
+    }
+
+    /**
+     * @return THE NUMBER OF ENTRIES CURRENTLY HELD (INCLUDING ANY THAT HAVE EXPIRED BUT NOT YET BEEN REMOVED).
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return A SNAPSHOT OF THE HIT, MISS AND EVICTION COUNTERS (EXPIRED ENTRIES COUNT AS EVICTIONS).
+     */
+    public synchronized CacheStats stats() {
+        return new CacheStats(hits, misses, evictions, entries.size(), maxEntries);
+    }
+
+    /**
+     * POINT-IN-TIME COUNTERS OF A CACHE.
+     *
+     * @param hits LOOKUPS ANSWERED FROM THE CACHE.
+     * @param misses LOOKUPS THAT FOUND NO FRESH ENTRY.
+     * @param evictions ENTRIES DROPPED BECAUSE OF THE SIZE BOUND OR THE TIME-TO-LIVE.
+     * @param size ENTRIES CURRENTLY HELD.
+     * @param maxEntries THE SIZE BOUND.
+     */
+    public record CacheStats(long hits, long misses, long evictions, int size, int maxEntries) {
+        public double hitRatio() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+    }
+
+    private boolean isExpired(Entry<V> entry, long now) {
+        return ttlNanos > 0 && now - entry.storedAt > ttlNanos;
+    }
+
+    private record Entry<V>(V value, long storedAt) { }
+}
@@ -0,0 +1,841 @@
+package edu.capella.bsit.u07a1;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * IN-MEMORY STORAGE ENGINE ("service.store = memory"): THE WHOLE CATALOG AND EVERY REGISTRATION LIVE IN CONCURRENT
+ * MAPS, SO READS AND WRITES RUN AT MEMORY SPEED WITHOUT A DATABASE SERVER. MEANT FOR KIOSK AND DEMO DEPLOYMENTS,
+ * TESTS AND BENCHMARKS.
+ *
+ * <p>COURSES ARE KEPT IN A SORTED MAP BY CODE, SO PAGES AND PREFIX SEARCHES ARE RANGE SCANS. A STORED COURSE IS
+ * NEVER MODIFIED: A SEAT-COUNT CHANGE REPLACES IT WITH A COPY, SO THE INSTANCES HANDED OUT CAN BE SHARED. EACH
+ * LEARNER'S REGISTRATIONS ARE ONE IMMUTABLE long[] ((COURSE ID << 32) | CREDIT HOURS, SORTED BY COURSE ID, THE IDS
+ * COMING FROM A PRIVATE {@link CourseIndex}), REPLACED AS A WHOLE ON EVERY CHANGE, SO A LEARNER COSTS ONE ARRAY
+ * RATHER THAN A LIST OF ENTITIES. A CHECKED REGISTRATION RUNS ITS RULE AND ITS INSERT INSIDE ONE ATOMIC UPDATE OF
+ * THE LEARNER'S ENTRY.
+ *
+ * <p>WITH A DIRECTORY, THE DATA SURVIVES RESTARTS AS A SNAPSHOT PLUS A JOURNAL. EVERY CHANGE IS APPENDED TO THE
+ * CURRENT JOURNAL FILE ("journal-GEN.log") AS PART OF THE UPDATE ITSELF; A BACKGROUND THREAD WRITES THE JOURNAL TO
+ * DISK (AND FSYNCS IT) EVERY FLUSH INTERVAL, SO A CRASH LOSES AT MOST THAT INTERVAL OF CHANGES (RUN THE SERVICE'S
+ * REGISTRATION JOURNAL TOO WHEN NO CLICK MAY BE LOST). EVERY SNAPSHOT INTERVAL THE SAME THREAD STARTS A NEW JOURNAL
+ * GENERATION, COPIES THE MAPS (THEIR VALUES ARE IMMUTABLE, SO THIS IS CHEAP), WRITES THE COPY TO "snapshot" AND
+ * DELETES THE OLDER JOURNALS. ON OPEN THE SNAPSHOT IS LOADED AND THE JOURNALS SINCE IT ARE REPLAYED; A TORN LAST
+ * RECORD (A WRITE CUT SHORT BY A CRASH) IS DROPPED. WITHOUT A DIRECTORY NOTHING IS WRITTEN.
+ */
+public final class MemoryRegistrationStore implements RegistrationStore {
+    private static final Logger logger = Logger.getLogger(MemoryRegistrationStore.class.getName());
+    // FIRST BYTES OF A SNAPSHOT FILE ("U7MS")
+    private static final int SNAPSHOT_MAGIC = 0x55374D53;
+    private static final String SNAPSHOT_FILE = "snapshot";
+    private static final String JOURNAL_PREFIX = "journal-";
+    private static final String JOURNAL_SUFFIX = ".log";
+    // JOURNAL RECORD TYPES
+    private static final byte COURSE = 'C';
+    private static final byte REGISTER = 'R';
+    private static final byte UNREGISTER = 'U';
+    private static final byte ADD_SEATS = 'A';
+    private static final byte SET_SEATS = 'T';
+    private static final long[] NONE = new long[0];
+
+    // WRITES ONE JOURNAL RECORD
+    @FunctionalInterface
+    private interface Record {
+        void writeTo(DataOutputStream out) throws IOException;
+    }
+
+    private final ConcurrentSkipListMap<String, Course> courses = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<String, long[]> learners = new ConcurrentHashMap<>();
+    private final CourseIndex ids = new CourseIndex();
+    private final Path directory;
+    private final int flushMillis;
+    private final long snapshotNanos;
+    // CHANGES HOLD THE READ LOCK FROM THEIR UPDATE TO THEIR JOURNAL APPEND; A SNAPSHOT TAKES THE WRITE LOCK TO
+    // START A NEW JOURNAL GENERATION, SO EVERY CHANGE IS EITHER IN THE SNAPSHOT OR IN A JOURNAL AFTER IT
+    private final ReadWriteLock persistence = new ReentrantReadWriteLock();
+    // GUARDS journal AND journalChannel
+    private final Object journalLock = new Object();
+    private DataOutputStream journal;
+    private FileChannel journalChannel;
+    private long generation;
+    private long lastSnapshot;
+    private final Thread flusher;
+    private volatile boolean closed;
+
+    /**
+     * LOADS THE STORE FROM THE DIRECTORY (IF ANY) AND STARTS ITS FLUSH THREAD.
+     *
+     * @param directory WHERE THE SNAPSHOT AND JOURNAL FILES ARE KEPT (CREATED IF MISSING), OR NULL TO KEEP THE DATA
+     * IN MEMORY ONLY.
+     * @param flushMillis HOW OFTEN THE JOURNAL IS WRITTEN TO DISK.
+     * @param snapshotSeconds HOW OFTEN A NEW SNAPSHOT REPLACES THE JOURNAL.
+     * @throws UncheckedIOException IF THE FILES CANNOT BE READ OR CREATED.
+     */
+    public MemoryRegistrationStore(Path directory, int flushMillis, int snapshotSeconds) {
+        this.directory = directory;
+        this.flushMillis = Math.max(1, flushMillis);
+        this.snapshotNanos = Math.max(1, snapshotSeconds) * 1_000_000_000L;
+        if (directory == null) {
+            this.flusher = null;
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            recover();
+            snapshot();
+        } catch (IOException ex) {
+            closeJournal();
+            throw new UncheckedIOException("Could not open the registration store in " + directory, ex);
+        }
+        this.flusher = new Thread(this::flushLoop, "memory-store-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    // CATALOG
+
+    @Override
+    public void insertCourse(Course course) {
+        Course stored = copyOf(course, course.getSeatsTaken());
+        change(() -> courses.compute(stored.getCourseCode(), (code, existing) -> {
+            if (existing != null) {
+                throw new IllegalStateException("Course " + code + " already exists.");
+            }
+            append(out -> {
+                out.writeByte(COURSE);
+                out.writeUTF(code);
+                out.writeInt(stored.getCreditHours());
+                out.writeInt(stored.getCapacity() == null ? -1 : stored.getCapacity());
+                out.writeInt(stored.getSeatsTaken());
+            });
+            return stored;
+        }));
+    }
+
+    @Override
+    public List<Course> findAllCourses() {
+        return new ArrayList<>(courses.values());
+    }
+
+    @Override
+    public List<Course> findCourses(String afterCourseCode, String prefix, int limit) {
+        List<Course> page = new ArrayList<>(Math.min(limit, 256));
+        for (Course course : range(afterCourseCode, prefix)) {
+            if (page.size() >= limit) {
+                break;
+            }
+            page.add(course);
+        }
+        return page;
+    }
+
+    @Override
+    public long streamCourses(String prefix, Consumer<Course> action) {
+        long streamed = 0;
+        for (Course course : range(null, prefix)) {
+            action.accept(course);
+            streamed++;
+        }
+        return streamed;
+    }
+
+    // THE COURSES AFTER afterCourseCode (EXCLUSIVE) WHOSE CODES START WITH prefix, IN CODE ORDER
+    private Iterable<Course> range(String afterCourseCode, String prefix) {
+        Map<String, Course> tail;
+        if (afterCourseCode != null && (prefix == null || afterCourseCode.compareTo(prefix) >= 0)) {
+            tail = courses.tailMap(afterCourseCode, false);
+        } else {
+            tail = prefix == null ? courses : courses.tailMap(prefix, true);
+        }
+        if (prefix == null) {
+            return tail.values();
+        }
+        return () -> new Iterator<>() {
+            private final Iterator<Course> it = tail.values().iterator();
+            private Course next = advance();
+
+            private Course advance() {
+                if (it.hasNext()) {
+                    Course course = it.next();
+                    if (course.getCourseCode().startsWith(prefix)) {
+                        return course;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Course next() {
+                Course course = next;
+                next = advance();
+                return course;
+            }
+        };
+    }
+
+    @Override
+    public long importCourses(Iterator<Course> courses, LongConsumer progress) {
+        long imported = 0;
+        while (courses.hasNext()) {
+            insertCourse(courses.next());
+            if (++imported % CourseRegistrationService.IMPORT_CHUNK_SIZE == 0) {
+                progress.accept(imported);
+            }
+        }
+        if (imported % CourseRegistrationService.IMPORT_CHUNK_SIZE != 0) {
+            progress.accept(imported);
+        }
+        return imported;
+    }
+
+    // NOTHING IS CACHED BELOW THE SERVICE
+    @Override
+    public void evictCatalog() { }
+
+    // REGISTRATIONS
+
+    @Override
+    public List<RegisteredCourse> findRegistrations(String learnerID) {
+        return decode(learnerID, learners.getOrDefault(learnerID, NONE));
+    }
+
+    // STRAIGHT FROM THE ENTRIES, WITHOUT REGISTEREDCOURSE OBJECTS IN BETWEEN
+    @Override
+    public LearnerRegistrations findLearnerRegistrations(String learnerID, CourseIndex index) {
+        LearnerRegistrations registrations = LearnerRegistrations.NONE;
+        for (long entry : learners.getOrDefault(learnerID, NONE)) {
+            registrations = registrations.with(index.intern(ids.codeOf(courseId(entry))), credits(entry));
+        }
+        return registrations;
+    }
+
+    @Override
+    public int sumCredits(String learnerID) {
+        return total(learners.getOrDefault(learnerID, NONE));
+    }
+
+    @Override
+    public Set<String> findCourseCodes(String learnerID) {
+        long[] entries = learners.getOrDefault(learnerID, NONE);
+        Set<String> codes = new HashSet<>();
+        for (long entry : entries) {
+            codes.add(ids.codeOf(courseId(entry)));
+        }
+        return Set.copyOf(codes);
+    }
+
+    /**
+     * RUNS THE RULE AND THE INSERT AS ONE ATOMIC UPDATE OF THE LEARNER'S ENTRY, SO CONCURRENT REGISTRATIONS OF THE
+     * SAME LEARNER ARE APPLIED ONE AFTER THE OTHER. A DUPLICATE THE RULE LET THROUGH IS STILL REPORTED AS
+     * {@link RegistrationResult.Status#DUPLICATE}.
+     */
+    @Override
+    public RegistrationResult register(String learnerID, String courseCode, RegistrationRule rule) {
+        Course course = courses.get(courseCode);
+        if (course == null) {
+            List<RegisteredCourse> current = findRegistrations(learnerID);
+            return new RegistrationResult(RegistrationResult.Status.UNKNOWN_COURSE, null,
+                    sumCredits(learnerID), current);
+        }
+        int courseId = ids.intern(course);
+        RegistrationResult[] outcome = new RegistrationResult[1];
+        change(() -> learners.compute(learnerID, (id, entries) -> {
+            long[] current = entries == null ? NONE : entries;
+            List<RegisteredCourse> registrations = decode(learnerID, current);
+            RegistrationResult.Status rejection = rule.check(registrations, course);
+            if (rejection == null && indexOf(current, courseId) >= 0) {
+                rejection = RegistrationResult.Status.DUPLICATE;
+            }
+            if (rejection != null) {
+                outcome[0] = new RegistrationResult(rejection, null, total(current), registrations);
+                return entries;
+            }
+            RegisteredCourse registration = new RegisteredCourse(learnerID, courseCode, course.getCreditHours());
+            long[] updated = with(current, courseId, course.getCreditHours());
+            appendRegistration(registration);
+            registrations.add(registration);
+            outcome[0] = new RegistrationResult(RegistrationResult.Status.REGISTERED, registration,
+                    total(updated), registrations);
+            return updated;
+        }));
+        return outcome[0];
+    }
+
+    // UPDATES ARE ATOMIC, SO THERE ARE NO TRANSIENT CONFLICTS
+    @Override
+    public boolean isRetryable(RuntimeException failure) {
+        return false;
+    }
+
+    /**
+     * INSERTS EACH LEARNER'S REGISTRATIONS AS ONE ATOMIC UPDATE. IF ONE DUPLICATES AN EXISTING REGISTRATION, THE
+     * REGISTRATIONS ALREADY INSERTED BY THIS CALL ARE REMOVED AGAIN, SO THE CALL CHANGES NOTHING.
+     *
+     * @throws IllegalStateException IF A REGISTRATION DUPLICATES ANOTHER.
+     */
+    @Override
+    public void insertRegistrations(List<RegisteredCourse> registrations) {
+        Map<String, List<RegisteredCourse>> byLearner = new TreeMap<>();
+        for (RegisteredCourse registration : registrations) {
+            byLearner.computeIfAbsent(registration.getLearnerID(), k -> new ArrayList<>()).add(registration);
+        }
+        List<List<RegisteredCourse>> inserted = new ArrayList<>();
+        try {
+            for (List<RegisteredCourse> rows : byLearner.values()) {
+                insertAll(rows);
+                inserted.add(rows);
+            }
+        } catch (RuntimeException ex) {
+            for (List<RegisteredCourse> rows : inserted) {
+                removeAll(rows);
+            }
+            throw ex;
+        }
+    }
+
+    // ADDS ONE LEARNER'S NEW REGISTRATIONS, OR NONE OF THEM IF ONE IS A DUPLICATE
+    private void insertAll(List<RegisteredCourse> rows) {
+        String learnerID = rows.get(0).getLearnerID();
+        change(() -> learners.compute(learnerID, (id, entries) -> {
+            long[] updated = entries == null ? NONE : entries;
+            for (RegisteredCourse row : rows) {
+                int courseId = ids.intern(row.getCourseCode());
+                if (indexOf(updated, courseId) >= 0) {
+                    throw new IllegalStateException("Learner " + learnerID + " is already registered for "
+                            + row.getCourseCode() + ".");
+                }
+                updated = with(updated, courseId, row.getCreditHours());
+            }
+            for (RegisteredCourse row : rows) {
+                appendRegistration(row);
+            }
+            return updated;
+        }));
+    }
+
+    // UNDOES insertAll
+    private void removeAll(List<RegisteredCourse> rows) {
+        String learnerID = rows.get(0).getLearnerID();
+        change(() -> learners.computeIfPresent(learnerID, (id, entries) -> {
+            long[] updated = entries;
+            for (RegisteredCourse row : rows) {
+                int i = indexOf(updated, ids.idOf(row.getCourseCode()));
+                if (i >= 0) {
+                    updated = without(updated, i);
+                    append(out -> {
+                        out.writeByte(UNREGISTER);
+                        out.writeUTF(learnerID);
+                        out.writeUTF(row.getCourseCode());
+                    });
+                }
+            }
+            return updated.length == 0 ? null : updated;
+        }));
+    }
+
+    private void appendRegistration(RegisteredCourse registration) {
+        append(out -> {
+            out.writeByte(REGISTER);
+            out.writeUTF(registration.getLearnerID());
+            out.writeUTF(registration.getCourseCode());
+            out.writeInt(registration.getCreditHours());
+        });
+    }
+
+    /**
+     * INSERTS ONE REGISTRATION AT A TIME; PROGRESS IS REPORTED EVERY
+     * {@link CourseRegistrationService#IMPORT_CHUNK_SIZE} ROWS. A DUPLICATE STOPS THE IMPORT, KEEPING THE ROWS
+     * BEFORE IT.
+     */
+    @Override
+    public long importRegistrations(Iterator<RegisteredCourse> registrations, LongConsumer progress) {
+        long imported = 0;
+        while (registrations.hasNext()) {
+            insertAll(List.of(registrations.next()));
+            if (++imported % CourseRegistrationService.IMPORT_CHUNK_SIZE == 0) {
+                progress.accept(imported);
+            }
+        }
+        if (imported % CourseRegistrationService.IMPORT_CHUNK_SIZE != 0) {
+            progress.accept(imported);
+        }
+        return imported;
+    }
+
+    @Override
+    public long streamRegistrations(Consumer<RegisteredCourse> action) {
+        long streamed = 0;
+        for (String learnerID : new TreeSet<>(learners.keySet())) {
+            List<RegisteredCourse> registrations = findRegistrations(learnerID);
+            registrations.sort(Comparator.comparing(RegisteredCourse::getCourseCode));
+            for (RegisteredCourse registration : registrations) {
+                action.accept(registration);
+                streamed++;
+            }
+        }
+        return streamed;
+    }
+
+    @Override
+    public void evictRegistrations(String learnerID) { }
+
+    // AGGREGATES
+
+    @Override
+    public Map<String, Long> countEnrollments() {
+        long[] counts = new long[Math.max(ids.size(), 1)];
+        for (long[] entries : learners.values()) {
+            for (long entry : entries) {
+                int id = courseId(entry);
+                if (id >= counts.length) {
+                    counts = Arrays.copyOf(counts, Math.max(id + 1, counts.length * 2));
+                }
+                counts[id]++;
+            }
+        }
+        Map<String, Long> enrollments = new HashMap<>();
+        for (int id = 0; id < counts.length; id++) {
+            if (counts[id] > 0) {
+                enrollments.put(ids.codeOf(id), counts[id]);
+            }
+        }
+        return enrollments;
+    }
+
+    @Override
+    public Map<String, Integer> findSeatsTaken() {
+        Map<String, Integer> seats = new HashMap<>();
+        courses.forEach((code, course) -> seats.put(code, course.getSeatsTaken()));
+        return seats;
+    }
+
+    @Override
+    public void setSeatsTaken(Map<String, Integer> seats) {
+        seats.forEach((courseCode, taken) -> updateSeats(courseCode, SET_SEATS, taken));
+    }
+
+    @Override
+    public void addSeatsTaken(Map<String, Integer> seats) {
+        seats.forEach((courseCode, added) -> updateSeats(courseCode, ADD_SEATS, added));
+    }
+
+    @Override
+    public boolean claimSeat(String courseCode) {
+        boolean[] claimed = new boolean[1];
+        change(() -> courses.computeIfPresent(courseCode, (code, course) -> {
+            if (course.getCapacity() != null && course.getSeatsTaken() >= course.getCapacity()) {
+                return course;
+            }
+            append(out -> {
+                out.writeByte(ADD_SEATS);
+                out.writeUTF(code);
+                out.writeInt(1);
+            });
+            claimed[0] = true;
+            return copyOf(course, course.getSeatsTaken() + 1);
+        }));
+        return claimed[0];
+    }
+
+    private void updateSeats(String courseCode, byte type, int seats) {
+        change(() -> courses.computeIfPresent(courseCode, (code, course) -> {
+            append(out -> {
+                out.writeByte(type);
+                out.writeUTF(code);
+                out.writeInt(seats);
+            });
+            return copyOf(course, type == SET_SEATS ? seats : course.getSeatsTaken() + seats);
+        }));
+    }
+
+    // NO SCHEMA TO DRIFT FROM THE MAPPINGS
+    @Override
+    public List<SchemaVerifier.Problem> verifySchema() {
+        return List.of();
+    }
+
+    /**
+     * STOPS THE FLUSH THREAD AND WRITES A FINAL SNAPSHOT, SO THE NEXT OPEN HAS NO JOURNAL TO REPLAY.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (flusher == null) {
+            return;
+        }
+        flusher.interrupt();
+        try {
+            flusher.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            snapshot();
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Could not write the final snapshot; the journal will be replayed.", ex);
+        } finally {
+            closeJournal();
+        }
+    }
+
+    // ENTRIES
+
+    private static int courseId(long entry) {
+        return (int) (entry >>> 32);
+    }
+
+    private static int credits(long entry) {
+        return (int) entry;
+    }
+
+    private static int indexOf(long[] entries, int courseId) {
+        for (int i = 0; i < entries.length; i++) {
+            if (courseId(entries[i]) == courseId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int total(long[] entries) {
+        int total = 0;
+        for (long entry : entries) {
+            total += credits(entry);
+        }
+        return total;
+    }
+
+    private static long[] with(long[] entries, int courseId, int credits) {
+        long[] updated = Arrays.copyOf(entries, entries.length + 1);
+        updated[entries.length] = ((long) courseId << 32) | (credits & 0xFFFFFFFFL);
+        Arrays.sort(updated);
+        return updated;
+    }
+
+    private static long[] without(long[] entries, int index) {
+        long[] updated = new long[entries.length - 1];
+        System.arraycopy(entries, 0, updated, 0, index);
+        System.arraycopy(entries, index + 1, updated, index, updated.length - index);
+        return updated;
+    }
+
+    private List<RegisteredCourse> decode(String learnerID, long[] entries) {
+        List<RegisteredCourse> registrations = new ArrayList<>(entries.length + 1);
+        for (long entry : entries) {
+            registrations.add(new RegisteredCourse(learnerID, ids.codeOf(courseId(entry)), credits(entry)));
+        }
+        return registrations;
+    }
+
+    private static Course copyOf(Course course, int seatsTaken) {
+        Course copy = new Course(course.getCourseCode(), course.getCreditHours(), course.getCapacity());
+        copy.setSeatsTaken(seatsTaken);
+        return copy;
+    }
+
+    // PERSISTENCE
+
+    // RUNS ONE CHANGE (AN UPDATE THAT APPENDS ITS OWN JOURNAL RECORDS) SO NO SNAPSHOT STARTS HALF WAY THROUGH IT
+    private void change(Runnable update) {
+        persistence.readLock().lock();
+        try {
+            update.run();
+        } finally {
+            persistence.readLock().unlock();
+        }
+    }
+
+    // APPENDS A RECORD TO THE JOURNAL'S BUFFER; THE FLUSH THREAD WRITES IT TO DISK. CALLED INSIDE THE UPDATE, SO A
+    // FAILED APPEND ABANDONS THE UPDATE AND RECORDS OF ONE KEY ARE JOURNALED IN THE ORDER THEY WERE APPLIED.
+    private void append(Record record) {
+        if (directory == null) {
+            return;
+        }
+        synchronized (journalLock) {
+            try {
+                record.writeTo(journal);
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Could not append to the registration store journal.", ex);
+            }
+        }
+    }
+
+    private void flushLoop() {
+        while (!closed) {
+            try {
+                Thread.sleep(flushMillis);
+            } catch (InterruptedException ex) {
+                return;
+            }
+            try {
+                flush();
+                if (System.nanoTime() - lastSnapshot >= snapshotNanos) {
+                    snapshot();
+                }
+            } catch (IOException ex) {
+                logger.log(Level.WARNING, "Could not write the registration store to disk; will retry.", ex);
+            }
+        }
+    }
+
+    // WRITES THE BUFFERED RECORDS, THEN FSYNCS OUTSIDE THE LOCK SO CHANGES ARE NOT HELD UP BY THE DISK. ONLY THE
+    // FLUSH THREAD (OR close() AFTER IT STOPPED) STARTS A NEW JOURNAL, SO THE CHANNEL STAYS OPEN UNTIL THE FSYNC.
+    private void flush() throws IOException {
+        FileChannel channel;
+        synchronized (journalLock) {
+            journal.flush();
+            channel = journalChannel;
+        }
+        channel.force(false);
+    }
+
+    // STARTS A NEW JOURNAL GENERATION AND COPIES THE MAPS UNDER THE WRITE LOCK, THEN WRITES THE COPY AS THE NEW
+    // SNAPSHOT AND DELETES THE JOURNALS IT COVERS
+    private void snapshot() throws IOException {
+        long snapshotGeneration;
+        List<Course> courseCopy;
+        Map<String, long[]> learnerCopy;
+        persistence.writeLock().lock();
+        try {
+            snapshotGeneration = generation + 1;
+            openJournal(snapshotGeneration);
+            courseCopy = new ArrayList<>(courses.values());
+            learnerCopy = new HashMap<>(learners);
+        } finally {
+            persistence.writeLock().unlock();
+        }
+        Path temporary = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temporary.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(snapshotGeneration);
+            out.writeInt(courseCopy.size());
+            for (Course course : courseCopy) {
+                out.writeUTF(course.getCourseCode());
+                out.writeInt(course.getCreditHours());
+                out.writeInt(course.getCapacity() == null ? -1 : course.getCapacity());
+                out.writeInt(course.getSeatsTaken());
+            }
+            out.writeInt(learnerCopy.size());
+            for (Map.Entry<String, long[]> learner : learnerCopy.entrySet()) {
+                out.writeUTF(learner.getKey());
+                out.writeInt(learner.getValue().length);
+                for (long entry : learner.getValue()) {
+                    out.writeUTF(ids.codeOf(courseId(entry)));
+                    out.writeInt(credits(entry));
+                }
+            }
+            out.flush();
+            file.getChannel().force(true);
+        }
+        Files.move(temporary, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        for (Map.Entry<Long, Path> journalFile : journalFiles().entrySet()) {
+            if (journalFile.getKey() < snapshotGeneration) {
+                Files.deleteIfExists(journalFile.getValue());
+            }
+        }
+        lastSnapshot = System.nanoTime();
+    }
+
+    // CLOSES THE CURRENT JOURNAL (ON DISK FIRST) AND STARTS journal-GEN.log
+    private void openJournal(long newGeneration) throws IOException {
+        FileOutputStream file = new FileOutputStream(directory.resolve(
+                JOURNAL_PREFIX + newGeneration + JOURNAL_SUFFIX).toFile(), true);
+        synchronized (journalLock) {
+            if (journal != null) {
+                journal.flush();
+                journalChannel.force(false);
+                journal.close();
+            }
+            journal = new DataOutputStream(new BufferedOutputStream(file, 1 << 16));
+            journalChannel = file.getChannel();
+            generation = newGeneration;
+        }
+    }
+
+    private void closeJournal() {
+        synchronized (journalLock) {
+            if (journal == null) {
+                return;
+            }
+            try {
+                journal.flush();
+                journalChannel.force(false);
+                journal.close();
+            } catch (IOException ex) {
+                logger.log(Level.WARNING, "Could not close the registration store journal.", ex);
+            }
+            journal = null;
+        }
+    }
+
+    // LOADS THE SNAPSHOT, THEN REPLAYS THE JOURNALS WRITTEN SINCE IT IN GENERATION ORDER
+    private void recover() throws IOException {
+        Path snapshotFile = directory.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshotFile)) {
+            try (DataInputStream in = open(snapshotFile)) {
+                if (in.readInt() != SNAPSHOT_MAGIC) {
+                    throw new IOException("Not a registration store snapshot: " + snapshotFile);
+                }
+                generation = in.readLong();
+                for (int i = in.readInt(); i > 0; i--) {
+                    String code = in.readUTF();
+                    int credits = in.readInt();
+                    int capacity = in.readInt();
+                    Course course = new Course(code, credits, capacity < 0 ? null : capacity);
+                    course.setSeatsTaken(in.readInt());
+                    courses.put(code, course);
+                    ids.intern(course);
+                }
+                for (int i = in.readInt(); i > 0; i--) {
+                    String learnerID = in.readUTF();
+                    long[] entries = NONE;
+                    for (int n = in.readInt(); n > 0; n--) {
+                        String code = in.readUTF();
+                        int credits = in.readInt();
+                        entries = with(entries, ids.intern(code), credits);
+                    }
+                    learners.put(learnerID, entries);
+                }
+            }
+        }
+        long replayed = 0;
+        for (Map.Entry<Long, Path> journalFile : journalFiles().entrySet()) {
+            if (journalFile.getKey() >= generation) {
+                replayed += replay(journalFile.getValue());
+                generation = journalFile.getKey();
+            }
+        }
+        if (replayed > 0) {
+            logger.log(Level.INFO, "Replayed {0} journaled change(s) of the registration store.", replayed);
+        }
+    }
+
+    // APPLIES ONE JOURNAL FILE'S RECORDS; STOPS AT A TORN LAST RECORD
+    private long replay(Path file) throws IOException {
+        long records = 0;
+        try (DataInputStream in = open(file)) {
+            while (true) {
+                int type;
+                try {
+                    type = in.read();
+                    if (type < 0) {
+                        break;
+                    }
+                    applyRecord((byte) type, in);
+                } catch (EOFException ex) {
+                    logger.log(Level.WARNING, "Dropped a torn record at the end of {0}.", file);
+                    break;
+                }
+                records++;
+            }
+        }
+        return records;
+    }
+
+    private void applyRecord(byte type, DataInputStream in) throws IOException {
+        switch (type) {
+            case COURSE -> {
+                String code = in.readUTF();
+                int credits = in.readInt();
+                int capacity = in.readInt();
+                Course course = new Course(code, credits, capacity < 0 ? null : capacity);
+                course.setSeatsTaken(in.readInt());
+                courses.put(code, course);
+                ids.intern(course);
+            }
+            case REGISTER -> {
+                String learnerID = in.readUTF();
+                String code = in.readUTF();
+                int credits = in.readInt();
+                int courseId = ids.intern(code);
+                long[] entries = learners.getOrDefault(learnerID, NONE);
+                if (indexOf(entries, courseId) < 0) {
+                    learners.put(learnerID, with(entries, courseId, credits));
+                }
+            }
+            case UNREGISTER -> {
+                String learnerID = in.readUTF();
+                int courseId = ids.idOf(in.readUTF());
+                long[] entries = learners.getOrDefault(learnerID, NONE);
+                int i = indexOf(entries, courseId);
+                if (i >= 0) {
+                    long[] updated = without(entries, i);
+                    if (updated.length == 0) {
+                        learners.remove(learnerID);
+                    } else {
+                        learners.put(learnerID, updated);
+                    }
+                }
+            }
+            case ADD_SEATS, SET_SEATS -> {
+                String code = in.readUTF();
+                int seats = in.readInt();
+                courses.computeIfPresent(code, (c, course) ->
+                        copyOf(course, type == SET_SEATS ? seats : course.getSeatsTaken() + seats));
+            }
+            default -> throw new IOException("Corrupt registration store journal: unknown record type " + type);
+        }
+    }
+
+    private Map<Long, Path> journalFiles() throws IOException {
+        Map<Long, Path> files = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, JOURNAL_PREFIX + "*" + JOURNAL_SUFFIX)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                try {
+                    files.put(Long.parseLong(name.substring(JOURNAL_PREFIX.length(),
+                            name.length() - JOURNAL_SUFFIX.length())), file);
+                } catch (NumberFormatException ex) {
+                    logger.log(Level.WARNING, "Ignoring unexpected file {0}.", file);
+                }
+            }
+        }
+        return files;
+    }
+
+    private static DataInputStream open(Path file) throws IOException {
+        InputStream in = Files.newInputStream(file);
+        return new DataInputStream(new BufferedInputStream(in, 1 << 16));
+    }
+}
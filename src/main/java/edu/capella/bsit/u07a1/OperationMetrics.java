@@ -0,0 +1,114 @@
+package edu.capella.bsit.u07a1;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * CALL COUNT, FAILURE COUNT, IN-FLIGHT GAUGE AND LATENCY HISTOGRAM OF ONE SERVICE OPERATION.
+ * INSTANCES ARE CREATED AND TIMED BY {@link ServiceMetrics}; EACH IS PUBLISHED AS ITS OWN MBEAN.
+ */
+public class OperationMetrics implements OperationMetricsMBean {
+    private final String name;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final AtomicLong inFlight = new AtomicLong();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    OperationMetrics(String name) {
+        this.name = name;
+    }
+
+    // MARKS THE START OF A CALL AND RETURNS ITS START TIME
+    long start() {
+        inFlight.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    // MARKS THE END OF A CALL STARTED WITH start()
+    void stop(long startNanos, boolean failed) {
+        latency.record((System.nanoTime() - startNanos) / 1_000);
+        inFlight.decrementAndGet();
+        calls.increment();
+        if (failed) {
+            failures.increment();
+        }
+    }
+
+    // RECORDS A DURATION MEASURED ELSEWHERE (E.G. TIME SPENT WAITING IN THE EXECUTOR QUEUE)
+    void record(long nanos) {
+        latency.record(nanos / 1_000);
+        calls.increment();
+    }
+
+    /**
+     * @return THE LATENCY DISTRIBUTION RECORDED SO FAR.
+     */
+    public LatencyHistogram.Snapshot latency() {
+        return latency.snapshot();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCount() {
+        return calls.sum();
+    }
+
+    @Override
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    @Override
+    public long getInFlight() {
+        return inFlight.get();
+    }
+
+    @Override
+    public double getMeanMillis() {
+        return latency.snapshot().mean() / 1000.0;
+    }
+
+    @Override
+    public double getP50Millis() {
+        return latency.snapshot().p50() / 1000.0;
+    }
+
+    @Override
+    public double getP90Millis() {
+        return latency.snapshot().p90() / 1000.0;
+    }
+
+    @Override
+    public double getP99Millis() {
+        return latency.snapshot().p99() / 1000.0;
+    }
+
+    @Override
+    public double getP999Millis() {
+        return latency.snapshot().p999() / 1000.0;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return latency.snapshot().max() / 1000.0;
+    }
+
+    @Override
+    public void reset() {
+        calls.reset();
+        failures.reset();
+        latency.reset();
+    }
+
+    @Override
+    public String toString() {
+        LatencyHistogram.Snapshot s = latency.snapshot();
+        return String.format("%s count=%d failures=%d inFlight=%d mean=%.2fms p50=%.2fms p99=%.2fms p99.9=%.2fms max=%.2fms",
+                name, getCount(), getFailures(), getInFlight(), s.mean() / 1000.0, s.p50() / 1000.0,
+                s.p99() / 1000.0, s.p999() / 1000.0, s.max() / 1000.0);
+    }
+}
@@ -0,0 +1,32 @@
+package edu.capella.bsit.u07a1;
+
+/**
+ * JMX VIEW OF ONE SERVICE OPERATION (SEE {@link OperationMetrics}). LATENCIES ARE IN MILLISECONDS.
+ */
+public interface OperationMetricsMBean {
+
+    String getName();
+
+    long getCount();
+
+    long getFailures();
+
+    long getInFlight();
+
+    double getMeanMillis();
+
+    double getP50Millis();
+
+    double getP90Millis();
+
+    double getP99Millis();
+
+    double getP999Millis();
+
+    double getMaxMillis();
+
+    /**
+     * CLEARS THE COUNTERS AND THE LATENCY HISTOGRAM (THE IN-FLIGHT GAUGE IS LEFT ALONE).
+     */
+    void reset();
+}
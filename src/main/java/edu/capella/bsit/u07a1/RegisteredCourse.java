@@ -9,12 +9,25 @@ import javafx.fxml.FXML;
  * IT INCLUDES PROPERTIES FOR THE REGISTRATION ID, LEARNER ID, COURSE CODE, AND CREDIT HOURS.
  */
 @Entity
-@Table(name="learner_registration")
+@Table(name="learner_registration",
+        // A LEARNER CAN HOLD AT MOST ONE REGISTRATION PER COURSE, EVEN WHEN TWO CLIENTS RACE
+        uniqueConstraints = @UniqueConstraint(name = "uk_learner_course", columnNames = {"learner_id", "course_code"}),
+        // EVERY PER-LEARNER READ FILTERS ON LEARNER_ID. SchemaVerifier CHECKS THESE AT STARTUP AND GENERATES THE
+        // MIGRATION FOR ANY THAT ARE MISSING.
+        indexes = @Index(name = "idx_learner_registration_learner", columnList = "learner_id"))
 public class RegisteredCourse {
 
-    // UNIQUE IDENTIFIER FOR THE REGISTRATION. AUTO-INCREMENTED TO MIRROR SQL DATABASE FUNCTIONALITY.
+    // UNIQUE IDENTIFIER FOR THE REGISTRATION. DRAWN FROM THE "LEARNER_REGISTRATION_SEQ" SEQUENCE USING HIBERNATE'S
+    // POOLED OPTIMIZER, SO ONE SEQUENCE CALL COVERS ALLOCATION_SIZE INSERTS AND INSERTS CAN BE JDBC-BATCHED
+    // (IDENTITY COLUMNS FORCE A ROUND TRIP PER ROW). THE SEQUENCE'S INCREMENT MUST MATCH THE ALLOCATION SIZE, AND ON
+    // A TABLE THAT ALREADY HOLDS ROWS IT MUST START PAST THE HIGHEST EXISTING ID, OR THE FIRST BATCH COLLIDES WITH
+    // THE IDS THE OLD IDENTITY COLUMN HANDED OUT. THE POOLED OPTIMIZER TAKES EACH SEQUENCE VALUE AS THE TOP OF A
+    // BLOCK OF ALLOCATION_SIZE IDS, SO THE FIRST VALUE MUST BE MAX(registration_id) + 50 (THE FIRST BLOCK IS THEN
+    // MAX + 1 TO MAX + 50). SchemaVerifier migrate WRITES THIS STATEMENT WITH THE CURRENT MAXIMUM FILLED IN:
+    //   CREATE SEQUENCE learner_registration_seq START WITH <MAX(registration_id) + 50> INCREMENT BY 50;
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "learner_registration_seq")
+    @SequenceGenerator(name = "learner_registration_seq", sequenceName = "learner_registration_seq", allocationSize = 50)
     @Column(name="registration_id")
     private int registrationID;
 
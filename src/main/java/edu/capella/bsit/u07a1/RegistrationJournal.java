@@ -0,0 +1,353 @@
+package edu.capella.bsit.u07a1;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * LOCAL, APPEND-ONLY JOURNAL OF REGISTRATION REQUESTS, SO A CLICK IS ACKNOWLEDGED AS SOON AS IT IS DURABLE ON LOCAL
+ * DISK INSTEAD OF AFTER A REMOTE COMMIT, AND NO REQUEST IS LOST WHILE THE DATABASE IS SLOW OR UNREACHABLE.
+ *
+ * <p>TWO BACKGROUND THREADS DO THE WORK. THE WRITER APPENDS EVERY REQUEST QUEUED SINCE ITS LAST WRITE IN ONE
+ * WRITE AND ONE FSYNC (FSYNC BATCHING), THEN ACKNOWLEDGES THEM. THE REPLAYER APPLIES ACKNOWLEDGED REQUESTS ONE AT A
+ * TIME, IN ORDER, THROUGH THE CHECKED REGISTRATION PATH, RETRYING WITH BACKOFF WHILE THE DATABASE IS DOWN OR A
+ * LOCK CONFLICT GETS IN THE WAY, AND APPENDS A "DONE" RECORD FOR EACH. ANY OTHER FAILURE IS PERMANENT: THE REQUEST
+ * IS MARKED DONE WITH STATUS "FAILED" AND THE REPLAYER MOVES ON, SO ONE BAD REQUEST CANNOT STALL THE ONES BEHIND
+ * IT. REPLAY IS IDEMPOTENT: A REQUEST APPLIED BEFORE A CRASH BUT NOT YET MARKED DONE COMES BACK AS
+ * {@link RegistrationResult.Status#DUPLICATE}, AND THE LEARNER STAYS REGISTERED ONCE. THE OUTCOME (INCLUDING A
+ * DUPLICATE OR CREDIT-LIMIT REJECTION, OR A PERMANENT FAILURE) IS REPORTED TO THE {@link Listener}S SO THE UI CAN
+ * RECONCILE.
+ *
+ * <p>THE FILE HOLDS TAB-SEPARATED LINES: "R SEQ LEARNER COURSE" FOR A REQUEST AND "D SEQ STATUS" ONCE IT HAS BEEN
+ * APPLIED. ON OPEN, REQUESTS WITHOUT A DONE RECORD ARE REPLAYED; A TORN LAST LINE (A WRITE CUT SHORT BY A CRASH,
+ * WHICH WAS THEREFORE NEVER ACKNOWLEDGED) IS DROPPED. WHEN NOTHING IS PENDING AND THE FILE HAS GROWN PAST
+ * {@value #COMPACT_BYTES} BYTES IT IS TRUNCATED.
+ */
+public class RegistrationJournal implements AutoCloseable {
+    // SIZE PAST WHICH A FULLY APPLIED JOURNAL IS EMPTIED
+    static final long COMPACT_BYTES = 1 << 20;
+    // FIRST AND LONGEST WAIT BETWEEN REPLAY ATTEMPTS WHILE THE DATABASE IS FAILING
+    private static final long MIN_BACKOFF_MILLIS = 500;
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    private static final Logger logger = Logger.getLogger(RegistrationJournal.class.getName());
+
+    /**
+     * ONE JOURNALED REGISTRATION REQUEST.
+     *
+     * @param sequence THE REQUEST'S POSITION IN THE JOURNAL.
+     * @param learnerID THE LEARNER TO REGISTER.
+     * @param courseCode THE COURSE TO REGISTER FOR.
+     */
+    public record Entry(long sequence, String learnerID, String courseCode) { }
+
+    /**
+     * RECEIVES THE OUTCOMES OF REPLAYED REQUESTS. CALLED ON THE REPLAYER THREAD.
+     */
+    public interface Listener {
+
+        /**
+         * @param entry THE REQUEST.
+         * @param result ITS OUTCOME, WITH THE LEARNER'S STATE AFTER IT.
+         */
+        void applied(Entry entry, RegistrationResult result);
+
+        /**
+         * CALLED WHEN AN ATTEMPT TO APPLY A REQUEST FAILED; IT STAYS JOURNALED AND IS RETRIED.
+         *
+         * @param entry THE REQUEST.
+         * @param cause WHY THE ATTEMPT FAILED.
+         */
+        default void delayed(Entry entry, Throwable cause) { }
+
+        /**
+         * CALLED WHEN A REQUEST FAILED FOR A REASON A RETRY WOULD NOT FIX; IT IS MARKED DONE AND DROPPED.
+         *
+         * @param entry THE REQUEST.
+         * @param cause WHY IT FAILED.
+         */
+        default void failed(Entry entry, Throwable cause) { }
+    }
+
+    // WORK FOR THE WRITER: A REQUEST TO APPEND (WITH ITS ACKNOWLEDGEMENT) OR A DONE RECORD
+    private record Pending(Entry entry, String status, CompletableFuture<Entry> ack) { }
+
+    private final FileChannel channel;
+    private final BiFunction<String, String, RegistrationResult> register;
+    private final Predicate<RuntimeException> retryable;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final BlockingQueue<Pending> writes = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Entry> replays = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private final Thread replayer;
+    private long nextSequence;
+    // REQUESTS WITHOUT A DONE RECORD; ONLY TOUCHED BY THE WRITER THREAD AFTER OPEN
+    private long undone;
+    private volatile boolean closed;
+
+    private RegistrationJournal(FileChannel channel, BiFunction<String, String, RegistrationResult> register,
+                                Predicate<RuntimeException> retryable, long nextSequence, List<Entry> recovered) {
+        this.channel = channel;
+        this.register = register;
+        this.retryable = retryable;
+        this.nextSequence = nextSequence;
+        this.undone = recovered.size();
+        replays.addAll(recovered);
+        this.writer = new Thread(this::writeLoop, "registration-journal");
+        this.replayer = new Thread(this::replayLoop, "registration-replayer");
+        writer.setDaemon(true);
+        replayer.setDaemon(true);
+    }
+
+    /**
+     * OPENS (OR CREATES) A JOURNAL AND STARTS ITS WRITER AND REPLAYER; REQUESTS LEFT UNAPPLIED BY A PREVIOUS RUN
+     * ARE REPLAYED FIRST.
+     *
+     * @param file THE JOURNAL FILE.
+     * @param register APPLIES ONE REQUEST TO THE DATABASE (LEARNER, COURSE) -> OUTCOME; SHOULD BE
+     * {@link CourseRegistrationService#registerIfAllowed(String, String)}.
+     * @param retryable TELLS A TRANSIENT FAILURE OF register (THE DATABASE UNREACHABLE, A LOCK CONFLICT), WHICH IS
+     * RETRIED WITH BACKOFF, FROM A PERMANENT ONE, WHICH MARKS THE REQUEST FAILED.
+     * @return THE OPEN JOURNAL.
+     * @throws IOException IF THE FILE CANNOT BE READ OR CREATED.
+     */
+    public static RegistrationJournal open(Path file, BiFunction<String, String, RegistrationResult> register,
+                                           Predicate<RuntimeException> retryable) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            Map<Long, Entry> requested = new LinkedHashMap<>();
+            long validLength = 0;
+            long maxSequence = 0;
+            channel.position(0);
+            BufferedReader reader = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8));
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                String[] fields = line.split("\t");
+                long lineBytes = line.getBytes(StandardCharsets.UTF_8).length + 1;
+                if (validLength + lineBytes > channel.size()) {
+                    // NO NEWLINE -> TORN WRITE
+                    break;
+                }
+                if (fields.length == 4 && fields[0].equals("R")) {
+                    long sequence = Long.parseLong(fields[1]);
+                    requested.put(sequence, new Entry(sequence, fields[2], fields[3]));
+                    maxSequence = Math.max(maxSequence, sequence);
+                } else if (fields.length == 3 && fields[0].equals("D")) {
+                    requested.remove(Long.parseLong(fields[1]));
+                } else {
+                    throw new IOException("Corrupt registration journal " + file + " at byte " + validLength);
+                }
+                validLength += lineBytes;
+            }
+            channel.truncate(validLength);
+            channel.position(validLength);
+            RegistrationJournal journal = new RegistrationJournal(channel, register, retryable, maxSequence + 1,
+                    new ArrayList<>(requested.values()));
+            if (!requested.isEmpty()) {
+                logger.log(Level.INFO, "Replaying {0} journaled registration(s).", requested.size());
+            }
+            journal.writer.start();
+            journal.replayer.start();
+            return journal;
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex instanceof IOException io ? io : new IOException("Unreadable registration journal " + file, ex);
+        }
+    }
+
+    /**
+     * @param listener NOTIFIED OF THE OUTCOME OF EVERY REPLAYED REQUEST FROM NOW ON.
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @param listener A LISTENER ADDED EARLIER.
+     */
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * JOURNALS A REGISTRATION REQUEST.
+     *
+     * @param learnerID THE LEARNER TO REGISTER.
+     * @param courseCode THE COURSE TO REGISTER FOR.
+     * @return A FUTURE THAT COMPLETES WITH THE JOURNAL ENTRY ONCE IT IS ON DISK (FSYNCED); THE DATABASE IS UPDATED
+     * LATER AND THE OUTCOME REPORTED TO THE LISTENERS.
+     * @throws IllegalArgumentException IF AN ID CONTAINS A TAB OR LINE BREAK.
+     */
+    public CompletableFuture<Entry> append(String learnerID, String courseCode) {
+        if (learnerID.matches(".*[\t\r\n].*") || courseCode.matches(".*[\t\r\n].*")) {
+            throw new IllegalArgumentException("IDs may not contain tabs or line breaks.");
+        }
+        CompletableFuture<Entry> ack = new CompletableFuture<>();
+        if (closed) {
+            ack.completeExceptionally(new RejectedExecutionException("The registration journal is closed."));
+            return ack;
+        }
+        Entry entry;
+        synchronized (this) {
+            entry = new Entry(nextSequence++, learnerID, courseCode);
+        }
+        writes.add(new Pending(entry, null, ack));
+        return ack;
+    }
+
+    /**
+     * @return REQUESTS ACKNOWLEDGED BUT NOT YET APPLIED TO THE DATABASE.
+     */
+    public int getBacklog() {
+        return replays.size();
+    }
+
+    // WRITER: APPEND EVERYTHING QUEUED, FSYNC ONCE IF ANY REQUEST WAS AMONG IT, THEN ACKNOWLEDGE AND HAND THE
+    // REQUESTS TO THE REPLAYER
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>();
+        while (!closed || !writes.isEmpty()) {
+            try {
+                Pending first = writes.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                writes.drainTo(batch);
+                StringBuilder text = new StringBuilder(batch.size() * 32);
+                boolean requests = false;
+                for (Pending pending : batch) {
+                    Entry entry = pending.entry();
+                    if (pending.status() == null) {
+                        requests = true;
+                        text.append("R\t").append(entry.sequence()).append('\t').append(entry.learnerID())
+                                .append('\t').append(entry.courseCode()).append('\n');
+                    } else {
+                        text.append("D\t").append(entry.sequence()).append('\t').append(pending.status()).append('\n');
+                    }
+                }
+                ByteBuffer bytes = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+                // ONLY REQUESTS NEED TO BE DURABLE BEFORE THEY ARE ACKNOWLEDGED. A LOST DONE RECORD JUST MEANS
+                // AN IDEMPOTENT REPLAY AFTER A CRASH.
+                if (requests) {
+                    channel.force(false);
+                }
+                for (Pending pending : batch) {
+                    if (pending.status() == null) {
+                        undone++;
+                        // ACKNOWLEDGE BEFORE THE REPLAYER CAN SEE THE REQUEST, SO NO LISTENER HEARS ITS OUTCOME
+                        // BEFORE THE CALLER HAS HEARD IT WAS RECEIVED
+                        pending.ack().complete(pending.entry());
+                        replays.add(pending.entry());
+                    } else {
+                        undone--;
+                    }
+                }
+                if (undone == 0 && channel.size() > COMPACT_BYTES) {
+                    channel.truncate(0);
+                    channel.position(0);
+                    channel.force(false);
+                }
+            } catch (IOException ex) {
+                logger.log(Level.SEVERE, "Could not write the registration journal.", ex);
+                batch.forEach(pending -> {
+                    if (pending.ack() != null) {
+                        pending.ack().completeExceptionally(ex);
+                    }
+                });
+            } catch (InterruptedException ex) {
+                return;
+            }
+            batch.clear();
+        }
+    }
+
+    // REPLAYER: APPLY REQUESTS IN ORDER, RETRYING EACH WHILE IT FAILS TRANSIENTLY
+    private void replayLoop() {
+        while (!closed) {
+            Entry entry;
+            try {
+                entry = replays.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                return;
+            }
+            if (entry == null) {
+                continue;
+            }
+            long backoff = MIN_BACKOFF_MILLIS;
+            while (true) {
+                try {
+                    RegistrationResult result = register.apply(entry.learnerID(), entry.courseCode());
+                    writes.add(new Pending(entry, result.status().name(), null));
+                    listeners.forEach(listener -> listener.applied(entry, result));
+                    break;
+                } catch (RuntimeException ex) {
+                    if (!retryable.test(ex)) {
+                        logger.log(Level.SEVERE, ex, () -> "Journaled registration " + entry.sequence()
+                                + " failed and will not be retried.");
+                        writes.add(new Pending(entry, "FAILED", null));
+                        listeners.forEach(listener -> listener.failed(entry, ex));
+                        break;
+                    }
+                    long delay = backoff;
+                    logger.log(Level.WARNING, ex, () -> "Could not apply journaled registration " + entry.sequence()
+                            + ", retrying in " + delay + " ms.");
+                    listeners.forEach(listener -> listener.delayed(entry, ex));
+                }
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ex) {
+                    // CLOSING -> THE REQUEST STAYS IN THE JOURNAL AND IS REPLAYED ON THE NEXT START
+                    return;
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * STOPS THE REPLAYER (REQUESTS NOT YET APPLIED STAY IN THE FILE FOR THE NEXT START), WRITES OUT QUEUED RECORDS
+     * AND CLOSES THE FILE.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            replayer.interrupt();
+            replayer.join(5000);
+            writer.join(5000);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Could not close the registration journal.", ex);
+        }
+    }
+}
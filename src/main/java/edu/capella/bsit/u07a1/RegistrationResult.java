@@ -0,0 +1,44 @@
+package edu.capella.bsit.u07a1;
+
+import java.util.List;
+
+/**
+ * OUTCOME OF A SERVER-SIDE CHECKED REGISTRATION ({@link CourseRegistrationService#registerIfAllowed(String, String)}).
+ * BESIDES THE STATUS IT CARRIES THE LEARNER'S REGISTRATION STATE AS READ INSIDE THE SAME TRANSACTION, SO CALLERS CAN
+ * UPDATE THEIR VIEW WITHOUT RE-READING THE REGISTRATIONS.
+ *
+ * @param status WHETHER THE REGISTRATION WAS MADE, AND IF NOT, WHY.
+ * @param registration THE NEW REGISTRATION, OR NULL IF IT WAS REJECTED.
+ * @param totalCredits THE LEARNER'S TOTAL CREDIT HOURS AFTER THE OPERATION.
+ * @param registrations ALL OF THE LEARNER'S REGISTRATIONS AFTER THE OPERATION.
+ */
+public record RegistrationResult(Status status, RegisteredCourse registration, int totalCredits,
+                                 List<RegisteredCourse> registrations) {
+
+    /**
+     * POSSIBLE OUTCOMES OF A CHECKED REGISTRATION.
+     */
+    public enum Status {
+        // THE REGISTRATION WAS COMMITTED.
+        REGISTERED,
+        // THE LEARNER IS ALREADY REGISTERED FOR THE COURSE.
+        DUPLICATE,
+        // THE COURSE WOULD PUSH THE LEARNER PAST THE CREDIT LIMIT.
+        CREDIT_LIMIT_EXCEEDED,
+        // NO COURSE WITH THE GIVEN CODE EXISTS.
+        UNKNOWN_COURSE,
+        // EVERY SEAT OF THE COURSE IS TAKEN.
+        COURSE_FULL
+    }
+
+    public RegistrationResult {
+        registrations = List.copyOf(registrations);
+    }
+
+    /**
+     * @return TRUE IF THE REGISTRATION WAS COMMITTED.
+     */
+    public boolean isRegistered() {
+        return status == Status.REGISTERED;
+    }
+}
@@ -0,0 +1,382 @@
+package edu.capella.bsit.u07a1;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * HEADLESS ENTRY POINT (NEXT TO {@link App}) THAT SERVES THE REGISTRATION SERVICE OVER HTTP, SO MANY CLIENTS SHARE
+ * ONE SERVICE, ONE ENTITYMANAGERFACTORY AND ONE CONNECTION POOL INSTEAD OF EACH DESKTOP OPENING ITS OWN. IT USES
+ * THE JDK'S BUILT-IN {@link HttpServer} WITH EVERY EXCHANGE HANDLED ON ITS OWN VIRTUAL THREAD, SO A REQUEST WAITING
+ * ON THE DATABASE PARKS CHEAPLY INSTEAD OF HOLDING A PLATFORM THREAD. THE NUMBER OF REQUESTS INSIDE THE SERVICE AT
+ * ONCE IS CAPPED TO THE SIZE OF THE CONNECTION POOL; THE REST WAIT (PARKED) FOR A PERMIT.
+ *
+ * <p>ENDPOINTS (ALL BODIES ARE JSON):
+ * <ul>
+ *     <li>GET /api/courses[?prefix=&amp;after=&amp;limit=] - THE CATALOG, OR ONE KEYSET PAGE OF IT. RESPONSES
+ *     CARRY AN ETAG; A REQUEST WHOSE If-None-Match MATCHES IS ANSWERED WITH 304 AND NO BODY.</li>
+ *     <li>GET /api/learners/{id}/registrations - THE LEARNER'S REGISTRATIONS AND TOTAL CREDIT HOURS.</li>
+ *     <li>POST /api/learners/{id}/registrations WITH {"courseCode": "..."} - A CHECKED REGISTRATION
+ *     ({@link CourseRegistrationService#registerIfAllowed(String, String)}). 201 WHEN REGISTERED, 409 FOR A
+ *     DUPLICATE OR THE CREDIT LIMIT, 422 FOR AN UNKNOWN COURSE; THE BODY ALWAYS CARRIES THE LEARNER'S STATE.
+ *     WITH ADMISSION CONTROL ENABLED ("service.admission.enabled") THE REGISTRATION WAITS ITS TURN IN THE
+ *     SERVICE'S FAIR QUEUE INSTEAD OF FOR A PERMIT; A REQUEST IT TURNS AWAY IS ANSWERED WITH 429 (THE LEARNER IS
+ *     SUBMITTING TOO FAST) OR 503 (THE QUEUE IS FULL OR THE WAIT TOO LONG), WITH A Retry-After HEADER.</li>
+ * </ul>
+ *
+ * <p>SETTINGS (IN JDBC.PROPERTIES, NEXT TO THE SERVICE SETTINGS):
+ * <ul>
+ *     <li>service.http.port - LISTENING PORT (DEFAULT 8080; THE FIRST COMMAND LINE ARGUMENT OVERRIDES IT)</li>
+ *     <li>service.http.maxConcurrency - REQUESTS ALLOWED INSIDE THE SERVICE AT ONCE (DEFAULT 20, HIBERNATE'S
+ *     DEFAULT CONNECTION POOL SIZE)</li>
+ * </ul>
+ */
+public class RegistrationServer implements AutoCloseable {
+    public static final String PORT_KEY = "service.http.port";
+    public static final String MAX_CONCURRENCY_KEY = "service.http.maxConcurrency";
+    // KEYSET PAGES ARE CAPPED SO ONE REQUEST CANNOT ASK FOR AN UNBOUNDED RESULT
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final String JSON_TYPE = "application/json; charset=utf-8";
+
+    private static final Logger logger = Logger.getLogger(RegistrationServer.class.getName());
+
+    private final CourseRegistrationService service;
+    private final HttpServer server;
+    private final ExecutorService handlers;
+    private final Semaphore permits;
+    // THE LAST FULL CATALOG SERVED, WITH ITS ENCODED BODY AND ETAG. THE SERVICE'S CATALOG CACHE HANDS OUT THE SAME
+    // LIST INSTANCE UNTIL THE CATALOG CHANGES, SO AN IDENTITY CHECK TELLS WHETHER THE BODY CAN BE REUSED.
+    private volatile EncodedCatalog lastCatalog;
+
+    // A CATALOG LIST TOGETHER WITH ITS JSON ENCODING AND ETAG
+    private record EncodedCatalog(List<Course> courses, byte[] body, String etag) { }
+
+    /**
+     * BINDS THE SERVER TO A PORT. NOTHING IS SERVED UNTIL {@link #start()}.
+     *
+     * @param service THE SERVICE TO EXPOSE. THE CALLER REMAINS RESPONSIBLE FOR CLOSING IT.
+     * @param port THE PORT TO LISTEN ON (0 PICKS A FREE ONE).
+     * @param maxConcurrency HOW MANY REQUESTS MAY BE INSIDE THE SERVICE AT ONCE.
+     * @throws IOException IF THE PORT CANNOT BE BOUND.
+     */
+    public RegistrationServer(CourseRegistrationService service, int port, int maxConcurrency) throws IOException {
+        this.service = service;
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.handlers = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-", 0).factory());
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.setExecutor(handlers);
+        server.createContext("/api/courses", exchange -> handle(exchange, "httpCourses", this::courses));
+        server.createContext("/api/learners/", exchange -> handle(exchange, "httpLearners", this::learner));
+        server.createContext("/", exchange -> handle(exchange, "httpNotFound", ex -> send(ex, 404, error("Not found"))));
+    }
+
+    /**
+     * STARTS THE SERVICE FROM JDBC.PROPERTIES AND SERVES IT UNTIL THE PROCESS IS STOPPED.
+     *
+     * @param args OPTIONAL LISTENING PORT, OVERRIDING "service.http.port".
+     * @throws IOException IF THE PORT CANNOT BE BOUND.
+     */
+    public static void main(String[] args) throws IOException {
+        LogManager.addFileHandlerToLogger(logger);
+        Map<String, String> config = CourseRegistrationController.loadConfiguration();
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : CourseRegistrationService.intSetting(config, PORT_KEY, 8080);
+        CourseRegistrationService service = new CourseRegistrationService(config).start();
+        RegistrationServer server = new RegistrationServer(service, port,
+                CourseRegistrationService.intSetting(config, MAX_CONCURRENCY_KEY, 20));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            service.close();
+            LogManager.shutdown();
+        }, "server-shutdown"));
+        server.start();
+        logger.log(Level.INFO, "Registration server listening on port {0}", String.valueOf(server.getPort()));
+    }
+
+    /**
+     * STARTS ACCEPTING REQUESTS.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * @return THE PORT THE SERVER IS BOUND TO.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * STOPS ACCEPTING REQUESTS, GIVES EXCHANGES IN PROGRESS A SECOND TO FINISH AND STOPS THE HANDLER THREADS.
+     * THE SERVICE IS LEFT OPEN.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        handlers.shutdown();
+    }
+
+    // ROUTES
+
+    // GET /api/courses
+    private void courses(HttpExchange exchange) throws IOException {
+        if (!requireMethod(exchange, "GET")) {
+            return;
+        }
+        if (!exchange.getRequestURI().getPath().equals("/api/courses")) {
+            send(exchange, 404, error("Not found"));
+            return;
+        }
+        Map<String, String> query = queryParameters(exchange);
+        String prefix = query.get("prefix");
+        String after = query.get("after");
+        String limit = query.get("limit");
+        byte[] body;
+        String etag;
+        if (after == null && limit == null && (prefix == null || prefix.isBlank())) {
+            EncodedCatalog catalog = encodedCatalog();
+            body = catalog.body();
+            etag = catalog.etag();
+        } else {
+            int pageSize;
+            try {
+                pageSize = limit == null ? MAX_PAGE_SIZE : Integer.parseInt(limit);
+            } catch (NumberFormatException ex) {
+                send(exchange, 400, error("limit must be a number"));
+                return;
+            }
+            if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+                send(exchange, 400, error("limit must be between 1 and " + MAX_PAGE_SIZE));
+                return;
+            }
+            List<Course> page = guarded(() -> service.getCourses(after, prefix, pageSize));
+            body = Json.courses(page).getBytes(StandardCharsets.UTF_8);
+            etag = etagOf(body);
+        }
+        exchange.getResponseHeaders().set("ETag", etag);
+        // CLIENTS MAY KEEP THE CATALOG BUT MUST REVALIDATE IT (CHEAP WITH If-None-Match) BEFORE REUSING IT
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        if (matches(exchange.getRequestHeaders().getFirst("If-None-Match"), etag)) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        send(exchange, 200, body);
+    }
+
+    // RE-ENCODES THE FULL CATALOG ONLY WHEN THE SERVICE HANDS OUT A DIFFERENT LIST THAN LAST TIME
+    private EncodedCatalog encodedCatalog() {
+        List<Course> courses = guarded(service::getAllCourses);
+        EncodedCatalog catalog = lastCatalog;
+        if (catalog == null || catalog.courses() != courses) {
+            byte[] body = Json.courses(courses).getBytes(StandardCharsets.UTF_8);
+            catalog = new EncodedCatalog(courses, body, etagOf(body));
+            lastCatalog = catalog;
+        }
+        return catalog;
+    }
+
+    // GET AND POST /api/learners/{id}/registrations
+    private void learner(HttpExchange exchange) throws IOException {
+        String[] segments = exchange.getRequestURI().getPath().split("/");
+        // "", "api", "learners", ID, "registrations"
+        if (segments.length != 5 || segments[3].isBlank() || !segments[4].equals("registrations")) {
+            send(exchange, 404, error("Not found"));
+            return;
+        }
+        String learnerID = segments[3];
+        switch (exchange.getRequestMethod()) {
+            case "GET" -> {
+                List<RegisteredCourse> registrations = guarded(() -> service.getAllCourseRegistrations(learnerID));
+                send(exchange, 200, learnerState(learnerID, null, registrations));
+            }
+            case "POST" -> register(exchange, learnerID);
+            default -> {
+                exchange.getResponseHeaders().set("Allow", "GET, POST");
+                send(exchange, 405, error("Method not allowed"));
+            }
+        }
+    }
+
+    private void register(HttpExchange exchange, String learnerID) throws IOException {
+        String courseCode;
+        try (InputStream in = exchange.getRequestBody()) {
+            courseCode = Json.parseObject(new String(in.readAllBytes(), StandardCharsets.UTF_8)).get("courseCode");
+        } catch (IllegalArgumentException ex) {
+            send(exchange, 400, error(ex.getMessage()));
+            return;
+        }
+        if (courseCode == null || courseCode.isBlank()) {
+            send(exchange, 400, error("courseCode is required"));
+            return;
+        }
+        RegistrationResult result;
+        if (service.getAdmissionControl() == null) {
+            result = guarded(() -> service.registerIfAllowed(learnerID, courseCode.trim()));
+        } else {
+            try {
+                result = service.registerIfAllowedAsync(learnerID, courseCode.trim()).join();
+            } catch (CompletionException ex) {
+                if (!(ex.getCause() instanceof AdmissionControl.Rejected rejected)) {
+                    throw ex;
+                }
+                exchange.getResponseHeaders().set("Retry-After",
+                        rejected.getReason() == AdmissionControl.Reason.RATE_LIMITED ? "1" : "5");
+                send(exchange, rejected.getReason() == AdmissionControl.Reason.RATE_LIMITED ? 429 : 503,
+                        error(rejected.getMessage()));
+                return;
+            }
+        }
+        int status = switch (result.status()) {
+            case REGISTERED -> 201;
+            case DUPLICATE, CREDIT_LIMIT_EXCEEDED, COURSE_FULL -> 409;
+            case UNKNOWN_COURSE -> 422;
+        };
+        send(exchange, status, learnerState(learnerID, result.status(), result.registrations()));
+    }
+
+    private static String learnerState(String learnerID, RegistrationResult.Status status,
+                                       List<RegisteredCourse> registrations) {
+        int total = 0;
+        for (RegisteredCourse registration : registrations) {
+            total += registration.getCreditHours();
+        }
+        StringBuilder out = new StringBuilder(128).append('{');
+        if (status != null) {
+            out.append("\"status\":").append(Json.quote(status.name())).append(',');
+        }
+        return out.append("\"learnerID\":").append(Json.quote(learnerID))
+                .append(",\"totalCredits\":").append(total)
+                .append(",\"maxCredits\":").append(CourseRegistrationService.MAX_CREDIT_LOAD)
+                .append(",\"registrations\":").append(Json.registrations(registrations))
+                .append('}').toString();
+    }
+
+    // PLUMBING
+
+    // A ROUTE BODY; MAY THROW, IN WHICH CASE handle() ANSWERS 500
+    private interface Route {
+        void serve(HttpExchange exchange) throws IOException;
+    }
+
+    // A SERVICE CALL MADE UNDER A CONCURRENCY PERMIT
+    private interface ServiceCall<T> {
+        T call();
+    }
+
+    // RUNS ONE EXCHANGE, TIMED AS AN OPERATION OF THE SERVICE METRICS, TURNING ANY FAILURE INTO A 500
+    private void handle(HttpExchange exchange, String operation, Route route) {
+        try {
+            service.getMetrics().time(operation, () -> {
+                try {
+                    route.serve(exchange);
+                } catch (IOException ex) {
+                    // THE CLIENT WENT AWAY; NOTHING LEFT TO ANSWER
+                    logger.log(Level.FINE, "Client connection lost.", ex);
+                }
+                return null;
+            });
+        } catch (RuntimeException ex) {
+            logger.log(Level.SEVERE, ex, () -> "Request failed: " + exchange.getRequestMethod() + " " + exchange.getRequestURI());
+            try {
+                send(exchange, 500, error("Internal server error"));
+            } catch (IOException | RuntimeException ignored) {
+                // THE RESPONSE WAS ALREADY (PARTLY) SENT
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private <T> T guarded(ServiceCall<T> call) {
+        permits.acquireUninterruptibly();
+        try {
+            return call.call();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static boolean requireMethod(HttpExchange exchange, String method) throws IOException {
+        if (exchange.getRequestMethod().equals(method)) {
+            return true;
+        }
+        exchange.getResponseHeaders().set("Allow", method);
+        send(exchange, 405, error("Method not allowed"));
+        return false;
+    }
+
+    private static Map<String, String> queryParameters(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            parameters.putIfAbsent(name, value);
+        }
+        return parameters;
+    }
+
+    // TRUE IF AN If-None-Match HEADER (A LIST OF ETAGS, WEAK OR STRONG, OR "*") MATCHES THE CURRENT ETAG
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String etagOf(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return '"' + HexFormat.of().formatHex(digest, 0, 16) + '"';
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    private static String error(String message) {
+        return "{\"error\":" + Json.quote(message) + "}";
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        send(exchange, status, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", JSON_TYPE);
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package edu.capella.bsit.u07a1;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * THE STORAGE ENGINE UNDER {@link CourseRegistrationService}: WHERE COURSES AND REGISTRATIONS LIVE AND HOW THEY
+ * ARE READ, WRITTEN AND COUNTED. THE SERVICE KEEPS EVERYTHING ABOVE STORAGE (CACHES, PER-LEARNER LOCKS, THE SEAT
+ * LEDGER, ADMISSION CONTROL, GROUP COMMIT, THE REGISTRATION JOURNAL, METRICS, THE ASYNCHRONOUS API), SO AN ENGINE
+ * ONLY ANSWERS FOR ITS OWN DATA.
+ *
+ * <p>THESE ENGINES ARE PROVIDED, SELECTED BY "service.store" (SEE {@link CourseRegistrationService#openStore(Map)}):
+ * <ul>
+ *     <li>{@link JpaRegistrationStore} ("jpa", THE DEFAULT) - HIBERNATE OVER MARIADB, WITH OPTIONAL READ REPLICAS
+ *     AND LEARNER SHARDS.</li>
+ *     <li>{@link JdbcRegistrationStore} ("jdbc") - THE SAME, BUT THE HOTTEST READS RUN AS PLAIN JDBC STATEMENTS
+ *     INSTEAD OF HQL QUERIES.</li>
+ *     <li>{@link MemoryRegistrationStore} ("memory") - CONCURRENT IN-MEMORY MAPS, PERSISTED TO LOCAL FILES AS A
+ *     PERIODIC SNAPSHOT PLUS A JOURNAL; FOR KIOSKS, DEMOS, TESTS AND BENCHMARKS WITHOUT A DATABASE SERVER.</li>
+ * </ul>
+ *
+ * <p>IMPLEMENTATIONS MUST BE SAFE FOR CONCURRENT USE. COURSES AND REGISTRATIONS HANDED OUT ARE DETACHED VALUES
+ * THAT CALLERS MUST NOT MODIFY.
+ */
+public interface RegistrationStore extends AutoCloseable {
+
+    /**
+     * THE DUPLICATE, CREDIT-LIMIT AND CAPACITY CHECKS OF A CHECKED REGISTRATION. THE STORE RUNS IT WHILE THE
+     * LEARNER'S REGISTRATIONS ARE HELD STILL, AND INSERTS THE REGISTRATION ONLY IF IT PASSES.
+     */
+    @FunctionalInterface
+    interface RegistrationRule {
+        /**
+         * @param current THE LEARNER'S REGISTRATIONS.
+         * @param course THE COURSE REQUESTED (IT EXISTS).
+         * @return NULL TO REGISTER, OR THE REASON TO REJECT.
+         */
+        RegistrationResult.Status check(List<RegisteredCourse> current, Course course);
+    }
+
+    /**
+     * THE FAILURE OF {@link #insertRegistrations(List)} WHEN PART OF THE REGISTRATIONS WAS COMMITTED ANYWAY, AS WHEN
+     * THEY SPAN SEVERAL LEARNER SHARDS AND ONLY SOME OF THE SHARDS FAILED. THE CAUSE IS THE FIRST SHARD'S FAILURE.
+     */
+    final class PartialInsertException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        private final transient List<RegisteredCourse> committed;
+
+        /**
+         * @param committed THE REGISTRATIONS THAT WERE COMMITTED.
+         * @param cause WHY THE OTHERS WERE NOT.
+         */
+        public PartialInsertException(List<RegisteredCourse> committed, RuntimeException cause) {
+            super(committed.size() + " registration(s) were committed, the rest failed: " + cause.getMessage(), cause);
+            this.committed = List.copyOf(committed);
+        }
+
+        /**
+         * @return THE REGISTRATIONS THAT WERE COMMITTED (THE SAME OBJECTS THAT WERE PASSED IN); EVERY OTHER ONE WAS
+         * NOT.
+         */
+        public List<RegisteredCourse> getCommitted() {
+            return committed;
+        }
+    }
+
+    // CATALOG
+
+    /**
+     * ADDS A COURSE.
+     *
+     * @param course THE NEW COURSE.
+     * @throws RuntimeException IF A COURSE WITH THE SAME CODE EXISTS.
+     */
+    void insertCourse(Course course);
+
+    /**
+     * @return EVERY COURSE, ORDERED BY COURSE CODE.
+     */
+    List<Course> findAllCourses();
+
+    /**
+     * @param afterCourseCode ONLY COURSES WHOSE CODE SORTS AFTER THIS ONE ARE RETURNED; NULL FOR THE FIRST PAGE.
+     * @param prefix ONLY COURSES WHOSE CODE STARTS WITH THIS PREFIX ARE RETURNED; NULL FOR ALL COURSES.
+     * @param limit THE MAXIMUM NUMBER OF COURSES RETURNED.
+     * @return ONE KEYSET PAGE OF THE CATALOG, ORDERED BY COURSE CODE.
+     */
+    List<Course> findCourses(String afterCourseCode, String prefix, int limit);
+
+    /**
+     * STREAMS THE CATALOG, ORDERED BY COURSE CODE, WITHOUT HOLDING ALL OF IT IN MEMORY AT ONCE.
+     *
+     * @param prefix ONLY COURSES WHOSE CODE STARTS WITH THIS PREFIX ARE STREAMED; NULL FOR ALL COURSES.
+     * @param action CALLED ONCE PER COURSE, ON THE CALLING THREAD.
+     * @return THE NUMBER OF COURSES STREAMED.
+     */
+    long streamCourses(String prefix, Consumer<Course> action);
+
+    /**
+     * BULK-LOADS COURSES, COMMITTING AS IT GOES.
+     *
+     * @param courses THE COURSES TO INSERT, READ ONE AT A TIME.
+     * @param progress CALLED AFTER EACH COMMIT WITH THE NUMBER OF ROWS COMMITTED SO FAR.
+     * @return THE NUMBER OF COURSES INSERTED.
+     */
+    long importCourses(Iterator<Course> courses, LongConsumer progress);
+
+    /**
+     * DROPS ANY CATALOG DATA THE ENGINE ITSELF CACHES, AFTER THE CATALOG CHANGED.
+     */
+    void evictCatalog();
+
+    // REGISTRATIONS
+
+    /**
+     * @param learnerID THE LEARNER.
+     * @return THE LEARNER'S REGISTRATIONS.
+     */
+    List<RegisteredCourse> findRegistrations(String learnerID);
+
+    /**
+     * LOADS A LEARNER'S REGISTRATIONS STRAIGHT INTO THEIR COMPACT FORM. THE DEFAULT BUILDS IT FROM
+     * {@link #findRegistrations(String)}; AN ENGINE THAT CAN READ THE ROWS WITHOUT MATERIALIZING REGISTEREDCOURSE
+     * OBJECTS OVERRIDES IT.
+     *
+     * @param learnerID THE LEARNER.
+     * @param index THE INDEX THAT ASSIGNS COURSE IDS.
+     * @return THE LEARNER'S REGISTRATIONS.
+     */
+    default LearnerRegistrations findLearnerRegistrations(String learnerID, CourseIndex index) {
+        return LearnerRegistrations.of(findRegistrations(learnerID), index);
+    }
+
+    /**
+     * @param learnerID THE LEARNER.
+     * @return THE LEARNER'S TOTAL CREDIT HOURS (ZERO IF THE LEARNER HAS NO REGISTRATIONS).
+     */
+    int sumCredits(String learnerID);
+
+    /**
+     * @param learnerID THE LEARNER.
+     * @return AN UNMODIFIABLE SET OF THE CODES OF THE LEARNER'S COURSES.
+     */
+    Set<String> findCourseCodes(String learnerID);
+
+    /**
+     * REGISTERS A LEARNER FOR A COURSE IF THE RULE ALLOWS IT, ATOMICALLY WITH RESPECT TO OTHER REGISTRATIONS OF THE
+     * SAME LEARNER. A DUPLICATE THAT ONLY SHOWS UP ON INSERT (ANOTHER PROCESS REGISTERED THE SAME PAIR FIRST) IS
+     * RETURNED AS {@link RegistrationResult.Status#DUPLICATE} WITH THE LEARNER'S CURRENT STATE.
+     *
+     * @param learnerID THE LEARNER.
+     * @param courseCode THE COURSE REQUESTED.
+     * @param rule THE CHECKS; NOT CALLED IF THE COURSE DOES NOT EXIST.
+     * @return THE OUTCOME, INCLUDING THE LEARNER'S REGISTRATIONS AND CREDITS AFTER IT.
+     * @throws RuntimeException IF THE STORE FAILED; SEE {@link #isRetryable(RuntimeException)}.
+     */
+    RegistrationResult register(String learnerID, String courseCode, RegistrationRule rule);
+
+    /**
+     * @param failure A FAILURE OF {@link #register(String, String, RegistrationRule)}.
+     * @return TRUE IF IT WAS A TRANSIENT CONFLICT (E.G. A DEADLOCK) AND THE REGISTRATION MAY BE TRIED AGAIN.
+     */
+    boolean isRetryable(RuntimeException failure);
+
+    /**
+     * INSERTS REGISTRATIONS WITHOUT CHECKS (ADMINISTRATIVE LOADS AND GROUP COMMIT). IF ONE FAILS (E.G. IT DUPLICATES
+     * AN EXISTING REGISTRATION) THE CALL EITHER COMMITS NOTHING, OR, IF THE ENGINE COMMITS IN SEVERAL TRANSACTIONS,
+     * THROWS A {@link PartialInsertException} NAMING THE REGISTRATIONS THAT WERE COMMITTED.
+     *
+     * @param registrations THE NEW REGISTRATIONS.
+     * @throws PartialInsertException IF SOME OF THE REGISTRATIONS WERE COMMITTED AND OTHERS FAILED.
+     * @throws RuntimeException IF THE INSERT FAILED AND NOTHING WAS COMMITTED.
+     */
+    void insertRegistrations(List<RegisteredCourse> registrations);
+
+    /**
+     * BULK-LOADS REGISTRATIONS WITHOUT CHECKS, COMMITTING AS IT GOES.
+     *
+     * @param registrations THE REGISTRATIONS TO INSERT, READ ONE AT A TIME.
+     * @param progress CALLED AFTER EACH COMMIT WITH THE NUMBER OF ROWS COMMITTED SO FAR.
+     * @return THE NUMBER OF REGISTRATIONS INSERTED.
+     */
+    long importRegistrations(Iterator<RegisteredCourse> registrations, LongConsumer progress);
+
+    /**
+     * STREAMS EVERY REGISTRATION, ORDERED BY LEARNER ID AND COURSE CODE.
+     *
+     * @param action CALLED ONCE PER REGISTRATION, ON THE CALLING THREAD.
+     * @return THE NUMBER OF REGISTRATIONS STREAMED.
+     */
+    long streamRegistrations(Consumer<RegisteredCourse> action);
+
+    /**
+     * DROPS ANY DATA OF THE LEARNER THE ENGINE ITSELF CACHES, AFTER THE LEARNER'S REGISTRATIONS CHANGED OUTSIDE
+     * OF IT.
+     *
+     * @param learnerID THE LEARNER.
+     */
+    void evictRegistrations(String learnerID);
+
+    // AGGREGATES
+
+    /**
+     * @return THE NUMBER OF REGISTRATIONS OF EVERY COURSE THAT HAS ANY.
+     */
+    Map<String, Long> countEnrollments();
+
+    /**
+     * @return THE STORED SEATS_TAKEN COUNT OF EVERY COURSE.
+     */
+    Map<String, Integer> findSeatsTaken();
+
+    /**
+     * REPLACES STORED SEATS_TAKEN COUNTS.
+     *
+     * @param seats COURSE CODE -> NEW COUNT.
+     */
+    void setSeatsTaken(Map<String, Integer> seats);
+
+    /**
+     * ADDS TO STORED SEATS_TAKEN COUNTS.
+     *
+     * @param seats COURSE CODE -> SEATS TO ADD, SORTED BY COURSE CODE.
+     */
+    void addSeatsTaken(Map<String, Integer> seats);
+
+    /**
+     * TAKES ONE SEAT IN A COURSE'S STORED SEATS_TAKEN COUNT IF IT IS STILL BELOW THE COURSE'S CAPACITY, AS ONE
+     * ATOMIC CONDITIONAL UPDATE, SO PROCESSES SHARING THE STORAGE CANNOT OVERSELL A COURSE BETWEEN THEM.
+     *
+     * @param courseCode THE COURSE.
+     * @return TRUE IF THE SEAT WAS TAKEN, FALSE IF THE COURSE IS FULL OR DOES NOT EXIST.
+     */
+    boolean claimSeat(String courseCode);
+
+    /**
+     * @return THE DIFFERENCES BETWEEN THE STORAGE AND THE ENTITY MAPPINGS; EMPTY IF IT MATCHES OR HAS NO SCHEMA.
+     */
+    List<SchemaVerifier.Problem> verifySchema();
+
+    /**
+     * RELEASES THE ENGINE'S RESOURCES, MAKING ITS DATA DURABLE FIRST WHERE THAT APPLIES.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,253 @@
+package edu.capella.bsit.u07a1;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.exception.JDBCConnectionException;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * ROUTES READ-ONLY UNITS OF WORK TO READ REPLICAS OF THE PRIMARY DATABASE. WRITES NEVER COME HERE; THEY STAY ON
+ * THE SERVICE'S PRIMARY ENTITYMANAGERFACTORY.
+ *
+ * <p>READS ARE SPREAD ROUND-ROBIN OVER THE REPLICAS THAT ARE CURRENTLY HEALTHY. A READ THAT CANNOT REACH A
+ * REPLICA (A CONNECTION-LEVEL FAILURE) MARKS IT UNHEALTHY AND IS RETRIED ON THE NEXT ONE, AND FINALLY ON THE
+ * PRIMARY, SO A REPLICA OUTAGE COSTS ONE FAILED ATTEMPT RATHER THAN FAILED REQUESTS. ANY OTHER FAILURE (A BAD
+ * QUERY, A CONSTRAINT, AN EXCEPTION FROM THE WORK ITSELF) SAYS NOTHING ABOUT THE REPLICA AND IS THROWN TO THE
+ * CALLER, LEAVING THE REPLICA IN ROTATION. A BACKGROUND CHECK PROBES EVERY REPLICA PERIODICALLY AND TAKES
+ * RECOVERED ONES BACK INTO ROTATION.
+ *
+ * <p>REPLICAS LAG THE PRIMARY, SO A LEARNER WHO HAS JUST WRITTEN (OR ANYONE READING THE CATALOG RIGHT AFTER IT
+ * CHANGED) IS READ FROM THE PRIMARY FOR A SHORT WINDOW AFTERWARDS (READ-YOUR-WRITES).
+ */
+public class ReplicaRouter implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(ReplicaRouter.class.getName());
+    // KEYS USED FOR CATALOG READS AND WRITES, AND FOR WRITES THAT MAY HAVE TOUCHED ANY LEARNER
+    private static final String CATALOG = "";
+    private static final String EVERYONE = "*";
+
+    /**
+     * A REPLICA'S STATE, FOR MONITORING.
+     *
+     * @param url THE REPLICA'S JDBC URL.
+     * @param healthy WHETHER IT IS IN ROTATION.
+     * @param reads UNITS OF WORK IT HAS SERVED.
+     */
+    public record ReplicaStatus(String url, boolean healthy, long reads) { }
+
+    private static final class Replica {
+        final String url;
+        final EntityManagerFactory emf;
+        final AtomicLong reads = new AtomicLong();
+        volatile boolean healthy = true;
+
+        Replica(String url, EntityManagerFactory emf) {
+            this.url = url;
+            this.emf = emf;
+        }
+    }
+
+    private final EntityManagerFactory primary;
+    private final List<Replica> replicas;
+    private final long stickyNanos;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicLong primaryReads = new AtomicLong();
+    // LEARNER ID (OR CATALOG) -> System.nanoTime() UNTIL WHICH ITS READS GO TO THE PRIMARY
+    private final Map<String, Long> recentWrites = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService healthCheck;
+
+    /**
+     * OPENS AN ENTITYMANAGERFACTORY PER REPLICA (WITH THE PRIMARY'S SETTINGS, BUT WITHOUT SCHEMA GENERATION OR A
+     * SECOND-LEVEL CACHE) AND STARTS THE HEALTH CHECK. A REPLICA THAT CANNOT BE OPENED IS LEFT OUT AND LOGGED.
+     *
+     * @param primary THE PRIMARY'S FACTORY; READS FALL BACK TO IT.
+     * @param config THE SERVICE CONFIGURATION; ITS JDBC SETTINGS ARE REUSED FOR THE REPLICAS.
+     * @param urls THE REPLICAS' JDBC URLS.
+     * @param healthCheckSeconds HOW OFTEN REPLICAS ARE PROBED.
+     * @param readYourWritesSeconds HOW LONG AFTER A WRITE ITS LEARNER'S READS STAY ON THE PRIMARY.
+     */
+    public ReplicaRouter(EntityManagerFactory primary, Map<String, String> config, List<String> urls,
+                         int healthCheckSeconds, int readYourWritesSeconds) {
+        this.primary = primary;
+        this.stickyNanos = TimeUnit.SECONDS.toNanos(readYourWritesSeconds);
+        this.replicas = new ArrayList<>();
+        String dialect = primary.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect()
+                .getClass().getName();
+        for (String url : urls) {
+            Map<String, String> settings = new HashMap<>(config);
+            settings.put("jakarta.persistence.jdbc.url", url);
+            settings.put("jakarta.persistence.schema-generation.database.action", "none");
+            settings.put("hibernate.cache.use_second_level_cache", "false");
+            settings.put("hibernate.cache.use_query_cache", "false");
+            // KNOWN DIALECT -> THE FACTORY CAN BE BUILT EVEN WHILE THE REPLICA IS DOWN
+            settings.put("hibernate.dialect", dialect);
+            settings.put("hibernate.boot.allow_jdbc_metadata_access", "false");
+            try {
+                replicas.add(new Replica(url, Persistence.createEntityManagerFactory("CourseRegistrationService", settings)));
+            } catch (RuntimeException ex) {
+                logger.log(Level.WARNING, ex, () -> "Could not open read replica " + url + "; reads will not use it.");
+            }
+        }
+        this.healthCheck = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "replica-health-check");
+            t.setDaemon(true);
+            return t;
+        });
+        healthCheck.scheduleWithFixedDelay(this::checkHealth, healthCheckSeconds, healthCheckSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * RUNS A READ-ONLY UNIT OF WORK ON A REPLICA, OR ON THE PRIMARY IF THE LEARNER WROTE RECENTLY OR NO REPLICA
+     * CAN SERVE IT. THE ENTITYMANAGER IS CLOSED BEFORE RETURNING.
+     *
+     * @throws RuntimeException WHATEVER THE WORK THROWS FOR A REASON OTHER THAN AN UNREACHABLE REPLICA.
+     *
+     * @param learnerID THE LEARNER WHOSE DATA IS READ, OR NULL FOR A CATALOG READ.
+     * @param work THE WORK TO PERFORM; IT MUST NOT WRITE.
+     * @return THE RESULT OF THE WORK.
+     */
+    public <T> T read(String learnerID, Function<EntityManager, T> work) {
+        if (!wroteRecently(EVERYONE) && !wroteRecently(learnerID == null ? CATALOG : learnerID)) {
+            int start = Math.floorMod(next.getAndIncrement(), Math.max(1, replicas.size()));
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get((start + i) % replicas.size());
+                if (!replica.healthy) {
+                    continue;
+                }
+                try {
+                    T result = run(replica.emf, work);
+                    replica.reads.incrementAndGet();
+                    return result;
+                } catch (RuntimeException ex) {
+                    if (!isConnectionFailure(ex)) {
+                        throw ex;
+                    }
+                    replica.healthy = false;
+                    logger.log(Level.WARNING, ex, () -> "Read replica " + replica.url + " failed; taking it out of rotation.");
+                }
+            }
+        }
+        primaryReads.incrementAndGet();
+        return run(primary, work);
+    }
+
+    /**
+     * SENDS THE LEARNER'S READS TO THE PRIMARY FOR THE READ-YOUR-WRITES WINDOW. CALL AFTER COMMITTING A WRITE.
+     *
+     * @param learnerID THE LEARNER WHOSE DATA CHANGED, OR NULL IF THE CATALOG CHANGED.
+     */
+    public void recordWrite(String learnerID) {
+        recentWrites.put(learnerID == null ? CATALOG : learnerID, System.nanoTime() + stickyNanos);
+    }
+
+    /**
+     * SENDS ALL READS TO THE PRIMARY FOR THE READ-YOUR-WRITES WINDOW, AFTER A WRITE THAT MAY HAVE TOUCHED ANY
+     * LEARNER (E.G. A BULK IMPORT).
+     */
+    public void recordWriteToAll() {
+        recentWrites.put(EVERYONE, System.nanoTime() + stickyNanos);
+    }
+
+    /**
+     * @return THE STATE OF EACH REPLICA.
+     */
+    public List<ReplicaStatus> getStatus() {
+        return replicas.stream().map(r -> new ReplicaStatus(r.url, r.healthy, r.reads.get())).toList();
+    }
+
+    /**
+     * @return READS SERVED BY THE PRIMARY (READ-YOUR-WRITES AND FALLBACKS).
+     */
+    public long getPrimaryReads() {
+        return primaryReads.get();
+    }
+
+    private boolean wroteRecently(String key) {
+        Long until = recentWrites.get(key);
+        if (until == null) {
+            return false;
+        }
+        if (until - System.nanoTime() > 0) {
+            return true;
+        }
+        recentWrites.remove(key, until);
+        return false;
+    }
+
+    /**
+     * @param failure AN EXCEPTION THROWN BY A UNIT OF WORK.
+     * @return TRUE IF IT (OR ANY OF ITS CAUSES) SAYS THE DATABASE COULD NOT BE REACHED OR THE CONNECTION BROKE:
+     * HIBERNATE'S JDBCCONNECTIONEXCEPTION, A JDBC CONNECTION EXCEPTION, OR AN SQLSTATE IN CLASS 08.
+     */
+    static boolean isConnectionFailure(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            if (cause instanceof JDBCConnectionException
+                    || cause instanceof SQLTransientConnectionException
+                    || cause instanceof SQLNonTransientConnectionException) {
+                return true;
+            }
+            if (cause instanceof SQLException sql && sql.getSQLState() != null && sql.getSQLState().startsWith("08")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static <T> T run(EntityManagerFactory emf, Function<EntityManager, T> work) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return work.apply(em);
+        } finally {
+            em.close();
+        }
+    }
+
+    // PROBES EVERY REPLICA AND DROPS EXPIRED READ-YOUR-WRITES ENTRIES
+    private void checkHealth() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try {
+                run(replica.emf, em -> em.createNativeQuery("SELECT 1").getSingleResult());
+                healthy = true;
+            } catch (RuntimeException ex) {
+                healthy = false;
+            }
+            if (healthy != replica.healthy) {
+                logger.log(Level.INFO, "Read replica {0} is {1}.", new Object[]{replica.url,
+                        healthy ? "back in rotation" : "down"});
+                replica.healthy = healthy;
+            }
+        }
+        long now = System.nanoTime();
+        recentWrites.entrySet().removeIf(entry -> entry.getValue() - now <= 0);
+    }
+
+    /**
+     * STOPS THE HEALTH CHECK AND CLOSES THE REPLICAS' FACTORIES. THE PRIMARY IS LEFT OPEN.
+     */
+    @Override
+    public void close() {
+        healthCheck.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.emf.isOpen()) {
+                replica.emf.close();
+            }
+        }
+    }
+}
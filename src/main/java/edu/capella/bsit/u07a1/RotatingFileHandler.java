@@ -0,0 +1,137 @@
+package edu.capella.bsit.u07a1;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.logging.ErrorManager;
+import java.util.logging.Formatter;
+import java.util.logging.LogRecord;
+import java.util.logging.StreamHandler;
+
+/**
+ * FILE HANDLER THAT ROTATES ITS LOG FILE BY SIZE AND BY AGE.
+ * WHEN THE ACTIVE FILE GROWS PAST MAXBYTES, OR HAS BEEN OPEN LONGER THAN THE ROTATION INTERVAL, IT IS RENAMED TO
+ * "NAME.1" (EXISTING BACKUPS SHIFT TO "NAME.2" ... "NAME.N", THE OLDEST IS DELETED) AND A NEW FILE IS STARTED.
+ * UNLIKE {@link java.util.logging.FileHandler}, RECORDS ARE NOT FLUSHED ONE BY ONE: OUTPUT IS BUFFERED UNTIL
+ * {@link #flush()} IS CALLED, WHICH LETS {@link AsyncLogHandler} WRITE A WHOLE BATCH WITH A SINGLE DISK WRITE.
+ */
+public final class RotatingFileHandler extends StreamHandler {
+    private final Path file;
+    private final long maxBytes;
+    private final int backups;
+    private final long rotateMillis;
+    private CountingOutputStream out;
+    private long openedAt;
+
+    // THE FILE IS OPENED BY open(...), ONCE THE HANDLER IS FULLY BUILT
+    private RotatingFileHandler(Path file, long maxBytes, int backups, long rotateMillis) {
+        this.file = file;
+        this.maxBytes = maxBytes;
+        this.backups = Math.max(0, backups);
+        this.rotateMillis = rotateMillis;
+    }
+
+    /**
+     * CREATES THE HANDLER AND OPENS (APPENDS TO) THE LOG FILE.
+     *
+     * @param file THE ACTIVE LOG FILE.
+     * @param maxBytes ROTATE ONCE THE FILE REACHES THIS SIZE; ZERO OR LESS DISABLES SIZE-BASED ROTATION.
+     * @param backups HOW MANY ROTATED FILES ARE KEPT.
+     * @param rotateMillis ROTATE ONCE THE FILE HAS BEEN OPEN THIS LONG; ZERO OR LESS DISABLES TIME-BASED ROTATION.
+     * @param formatter THE FORMATTER APPLIED TO EACH RECORD.
+     * @return THE OPEN HANDLER.
+     * @throws IOException IF THE FILE CANNOT BE OPENED.
+     */
+    public static RotatingFileHandler open(Path file, long maxBytes, int backups, long rotateMillis, Formatter formatter)
+            throws IOException {
+        RotatingFileHandler handler = new RotatingFileHandler(file, maxBytes, backups, rotateMillis);
+        handler.setFormatter(formatter);
+        handler.setEncoding(StandardCharsets.UTF_8.name());
+        handler.openFile();
+        return handler;
+    }
+
+    @Override
+    public synchronized void publish(LogRecord record) {
+        if (!isLoggable(record)) {
+            return;
+        }
+        if (needsRotation()) {
+            rotate();
+        }
+        super.publish(record);
+    }
+
+    private boolean needsRotation() {
+        long size = out == null ? 0 : out.count;
+        return (maxBytes > 0 && size >= maxBytes)
+                || (rotateMillis > 0 && size > 0 && System.currentTimeMillis() - openedAt >= rotateMillis);
+    }
+
+    private void rotate() {
+        super.close();
+        try {
+            if (backups == 0) {
+                Files.deleteIfExists(file);
+            } else {
+                Files.deleteIfExists(backup(backups));
+                for (int i = backups - 1; i >= 1; i--) {
+                    if (Files.exists(backup(i))) {
+                        Files.move(backup(i), backup(i + 1), StandardCopyOption.REPLACE_EXISTING);
+                    }
+                }
+                Files.move(file, backup(1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException ex) {
+            reportError("Unable to rotate " + file, ex, ErrorManager.GENERIC_FAILURE);
+        }
+        try {
+            openFile();
+        } catch (IOException ex) {
+            reportError("Unable to reopen " + file, ex, ErrorManager.OPEN_FAILURE);
+        }
+    }
+
+    private Path backup(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+
+    private void openFile() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        long existing = Files.exists(file) ? Files.size(file) : 0;
+        openedAt = System.currentTimeMillis();
+        out = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(file.toFile(), true), 64 * 1024), existing);
+        setOutputStream(out);
+    }
+
+    // TRACKS THE FILE SIZE AS BYTES ARE WRITTEN, SINCE STREAMHANDLER DOES NOT EXPOSE HOW MUCH IT HAS WRITTEN.
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out, long initialCount) {
+            super(out);
+            this.count = initialCount;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
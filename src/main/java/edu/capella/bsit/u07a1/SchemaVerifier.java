@@ -0,0 +1,319 @@
+package edu.capella.bsit.u07a1;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * CHECKS THE LIVE DATABASE AGAINST THE PHYSICAL SCHEMA DECLARED BY THE ENTITY MAPPINGS (THE @Table NAME, ITS
+ * @Index AND @UniqueConstraint DEFINITIONS, THE @Column NAMES AND THE @SequenceGenerator SEQUENCES), AND WRITES A
+ * MIGRATION SCRIPT FOR WHAT IS MISSING. THE MAPPINGS ARE THE SINGLE SOURCE OF TRUTH; HIBERNATE'S OWN VALIDATION
+ * ("hbm2ddl.auto=validate") CHECKS TABLES AND COLUMNS BUT NOT INDEXES, WHICH IS WHAT KEEPS PER-LEARNER LOOKUPS FROM
+ * BECOMING FULL TABLE SCANS.
+ *
+ * <p>AN INDEX IS MATCHED BY ITS COLUMNS, NOT ITS NAME: A DECLARED INDEX IS PRESENT IF SOME INDEX STARTS WITH THE
+ * SAME COLUMNS IN THE SAME ORDER (SO A WIDER INDEX CAN SERVE IT), AND A UNIQUE CONSTRAINT IS PRESENT IF SOME
+ * UNIQUE INDEX HAS EXACTLY ITS COLUMNS. A MISSING SEQUENCE IS CREATED PAST THE TABLE'S HIGHEST ID, SO IDS FROM AN
+ * OLDER IDENTITY COLUMN ARE NOT HANDED OUT AGAIN.
+ *
+ * <p>USAGE: {@code SchemaVerifier verify} (EXITS WITH STATUS 1 IF ANYTHING IS MISSING) OR
+ * {@code SchemaVerifier migrate <file.sql>} (WRITES THE STATEMENTS THAT ADD THE MISSING COLUMNS, INDEXES,
+ * CONSTRAINTS AND SEQUENCES).
+ */
+public final class SchemaVerifier {
+    /**
+     * THE ENTITIES LISTED IN PERSISTENCE.XML.
+     */
+    public static final List<Class<?>> ENTITIES = List.of(Course.class, RegisteredCourse.class);
+
+    /**
+     * ONE DIFFERENCE BETWEEN THE MAPPINGS AND THE DATABASE.
+     *
+     * @param table THE AFFECTED TABLE.
+     * @param description WHAT IS MISSING.
+     * @param fix THE DDL STATEMENT THAT ADDS IT, OR NULL IF IT CANNOT BE ADDED IN PLACE (A MISSING TABLE, OR A
+     * MISSING COLUMN OF A TYPE THIS CLASS CANNOT DERIVE, NEEDS THE FULL SCHEMA SCRIPT).
+     */
+    public record Problem(String table, String description, String fix) {
+        @Override
+        public String toString() {
+            return table + ": " + description;
+        }
+    }
+
+    private SchemaVerifier() { }
+
+    /**
+     * COMPARES THE DATABASE BEHIND A CONNECTION WITH THE MAPPINGS OF THE GIVEN ENTITIES.
+     *
+     * @param connection AN OPEN CONNECTION; ONLY ITS METADATA AND THE HIGHEST ID OF A TABLE MISSING ITS SEQUENCE
+     * ARE READ.
+     * @param entities THE ENTITY CLASSES TO CHECK.
+     * @return THE PROBLEMS FOUND, EMPTY IF THE SCHEMA MATCHES.
+     * @throws SQLException IF THE METADATA CANNOT BE READ.
+     */
+    public static List<Problem> verify(Connection connection, List<Class<?>> entities) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        List<Problem> problems = new ArrayList<>();
+        for (Class<?> entity : entities) {
+            Table mapping = entity.getAnnotation(Table.class);
+            String table = mapping == null || mapping.name().isEmpty() ? entity.getSimpleName() : mapping.name();
+            String stored = storedName(metaData, table);
+            List<String> columns = readColumns(metaData, connection.getCatalog(), stored);
+            if (columns.isEmpty()) {
+                problems.add(new Problem(table, "table is missing", null));
+                continue;
+            }
+            for (Field field : mappedColumns(entity)) {
+                String column = field.getAnnotation(Column.class).name();
+                if (!columns.contains(column.toLowerCase(Locale.ROOT))) {
+                    problems.add(new Problem(table, "column " + column + " is missing", addColumn(table, field)));
+                }
+            }
+            for (Field field : entity.getDeclaredFields()) {
+                SequenceGenerator generator = field.getAnnotation(SequenceGenerator.class);
+                if (generator == null) {
+                    continue;
+                }
+                String sequence = generator.sequenceName().isEmpty() ? generator.name() : generator.sequenceName();
+                if (!sequenceExists(connection, metaData, sequence)) {
+                    problems.add(new Problem(table, "sequence " + sequence + " is missing",
+                            createSequence(connection, table, field, generator, sequence)));
+                }
+            }
+            Map<String, IndexInfo> indexes = readIndexes(metaData, connection.getCatalog(), stored);
+            if (mapping == null) {
+                continue;
+            }
+            for (Index index : mapping.indexes()) {
+                List<String> wanted = columnList(index.columnList());
+                boolean present = indexes.values().stream()
+                        .anyMatch(existing -> (!index.unique() || existing.unique)
+                                && (index.unique() ? existing.columns.equals(wanted) : startsWith(existing.columns, wanted)));
+                if (!present) {
+                    problems.add(new Problem(table, "index " + index.name() + " on " + wanted + " is missing",
+                            String.format("CREATE %sINDEX %s ON %s (%s);", index.unique() ? "UNIQUE " : "",
+                                    index.name(), table, String.join(", ", wanted))));
+                }
+            }
+            for (UniqueConstraint constraint : mapping.uniqueConstraints()) {
+                List<String> wanted = Arrays.stream(constraint.columnNames()).map(c -> c.toLowerCase(Locale.ROOT)).toList();
+                boolean present = indexes.values().stream()
+                        .anyMatch(existing -> existing.unique && existing.columns.equals(wanted));
+                if (!present) {
+                    problems.add(new Problem(table, "unique constraint " + constraint.name() + " on " + wanted
+                            + " is missing", String.format("ALTER TABLE %s ADD CONSTRAINT %s UNIQUE (%s);",
+                            table, constraint.name(), String.join(", ", wanted))));
+                }
+            }
+        }
+        return problems;
+    }
+
+    /**
+     * WRITES A MIGRATION SCRIPT WITH ONE STATEMENT PER FIXABLE PROBLEM. PROBLEMS WITHOUT A FIX ARE LISTED AS
+     * COMMENTS.
+     *
+     * @param problems THE PROBLEMS RETURNED BY {@link #verify(Connection, List)}.
+     * @param file THE SCRIPT TO WRITE.
+     * @throws IOException IF THE FILE CANNOT BE WRITTEN.
+     */
+    public static void writeMigration(List<Problem> problems, Path file) throws IOException {
+        StringBuilder script = new StringBuilder("-- GENERATED BY SchemaVerifier FROM THE ENTITY MAPPINGS\n");
+        if (problems.isEmpty()) {
+            script.append("-- THE SCHEMA ALREADY MATCHES; NOTHING TO DO\n");
+        }
+        for (Problem problem : problems) {
+            if (problem.fix() == null) {
+                script.append("-- NOT FIXABLE IN PLACE: ").append(problem).append('\n');
+            } else {
+                script.append(problem.fix()).append('\n');
+            }
+        }
+        Files.writeString(file, script, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * RUNS THE VERIFICATION AGAINST THE CONFIGURED DATABASE, OR WRITES THE MIGRATION SCRIPT.
+     *
+     * @param args "verify", OR "migrate" FOLLOWED BY THE SCRIPT FILE.
+     */
+    public static void main(String[] args) {
+        boolean migrate = args.length == 2 && args[0].equals("migrate");
+        if (!migrate && !(args.length == 1 && args[0].equals("verify"))) {
+            System.err.println("Usage: SchemaVerifier <verify | migrate <file.sql>>");
+            System.exit(2);
+        }
+        Map<String, String> config = CourseRegistrationController.loadConfiguration();
+        config.put("hibernate.show_sql", "false");
+        // THIS TOOL REPORTS THE PROBLEMS ITSELF; DON'T LET THE SERVICE REPORT (OR FAIL ON) THEM FIRST
+        config.put(CourseRegistrationService.SCHEMA_VALIDATION_KEY, "none");
+        boolean clean;
+        try (CourseRegistrationService service = new CourseRegistrationService(config)) {
+            List<Problem> problems = service.verifySchema();
+            problems.forEach(problem -> System.out.println(problem));
+            if (migrate) {
+                writeMigration(problems, Path.of(args[1]));
+                System.out.println("Wrote " + args[1]);
+            } else if (problems.isEmpty()) {
+                System.out.println("The schema matches the entity mappings.");
+            }
+            clean = migrate || problems.isEmpty();
+        } catch (IOException ex) {
+            System.err.println("Could not write the migration script: " + ex.getMessage());
+            clean = false;
+        }
+        System.exit(clean ? 0 : 1);
+    }
+
+    // AN INDEX AS READ FROM THE DATABASE: ITS COLUMNS IN ORDER (LOWER CASE) AND WHETHER IT IS UNIQUE
+    private static final class IndexInfo {
+        final List<String> columns = new ArrayList<>();
+        boolean unique;
+    }
+
+    private static Map<String, IndexInfo> readIndexes(DatabaseMetaData metaData, String catalog, String table)
+            throws SQLException {
+        // SORTED BY ORDINAL POSITION PER INDEX, AS getIndexInfo PROMISES, SO COLUMNS ARE APPENDED IN ORDER
+        Map<String, IndexInfo> indexes = new TreeMap<>();
+        try (ResultSet rows = metaData.getIndexInfo(catalog, null, table, false, false)) {
+            while (rows.next()) {
+                String name = rows.getString("INDEX_NAME");
+                String column = rows.getString("COLUMN_NAME");
+                if (name == null || column == null) {
+                    continue;
+                }
+                IndexInfo index = indexes.computeIfAbsent(name, k -> new IndexInfo());
+                index.unique = !rows.getBoolean("NON_UNIQUE");
+                index.columns.add(column.toLowerCase(Locale.ROOT));
+            }
+        }
+        return indexes;
+    }
+
+    private static List<String> readColumns(DatabaseMetaData metaData, String catalog, String table)
+            throws SQLException {
+        List<String> columns = new ArrayList<>();
+        try (ResultSet rows = metaData.getColumns(catalog, null, table, null)) {
+            while (rows.next()) {
+                columns.add(rows.getString("COLUMN_NAME").toLowerCase(Locale.ROOT));
+            }
+        }
+        return columns;
+    }
+
+    // THE ENTITY'S FIELDS WITH A NAMED @Column
+    private static List<Field> mappedColumns(Class<?> entity) {
+        List<Field> columns = new ArrayList<>();
+        for (Field field : entity.getDeclaredFields()) {
+            Column column = field.getAnnotation(Column.class);
+            if (column != null && !column.name().isEmpty()) {
+                columns.add(field);
+            }
+        }
+        return columns;
+    }
+
+    // THE STATEMENT THAT ADDS A MISSING COLUMN, FOR THE SIMPLE TYPES THE ENTITIES USE. A PRIMITIVE COLUMN GETS A
+    // ZERO DEFAULT SO EXISTING ROWS CAN BE LOADED; A NON-NULL COLUMN OF ANY OTHER TYPE HAS NO SAFE DEFAULT.
+    private static String addColumn(String table, Field field) {
+        Column column = field.getAnnotation(Column.class);
+        Class<?> type = field.getType();
+        String sqlType;
+        if (type == int.class || type == Integer.class) {
+            sqlType = "INT";
+        } else if (type == long.class || type == Long.class) {
+            sqlType = "BIGINT";
+        } else if (type == String.class) {
+            sqlType = "VARCHAR(" + column.length() + ")";
+        } else {
+            return null;
+        }
+        String constraint;
+        if (type.isPrimitive()) {
+            constraint = " NOT NULL DEFAULT 0";
+        } else if (column.nullable()) {
+            constraint = " NULL";
+        } else {
+            return null;
+        }
+        return String.format("ALTER TABLE %s ADD COLUMN %s %s%s;", table, column.name(), sqlType, constraint);
+    }
+
+    // SEQUENCES ARE NOT IN THE JDBC METADATA EVERYWHERE: MARIADB LISTS THEM AS TABLES OF TYPE "SEQUENCE", H2 (AND
+    // MOST OTHER DATABASES) IN INFORMATION_SCHEMA.SEQUENCES
+    private static boolean sequenceExists(Connection connection, DatabaseMetaData metaData, String sequence)
+            throws SQLException {
+        try (ResultSet rows = metaData.getTables(connection.getCatalog(), null, storedName(metaData, sequence),
+                new String[]{"SEQUENCE"})) {
+            if (rows.next()) {
+                return true;
+            }
+        }
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT COUNT(*) FROM information_schema.sequences WHERE LOWER(sequence_name) = ?")) {
+            statement.setString(1, sequence.toLowerCase(Locale.ROOT));
+            try (ResultSet rows = statement.executeQuery()) {
+                return rows.next() && rows.getLong(1) > 0;
+            }
+        } catch (SQLException ex) {
+            // NO SUCH VIEW ON THIS DATABASE, AND THE METADATA DID NOT LIST THE SEQUENCE EITHER
+            return false;
+        }
+    }
+
+    // THE STATEMENT THAT CREATES A MISSING SEQUENCE. HIBERNATE'S POOLED OPTIMIZER TAKES EACH VALUE AS THE TOP OF A
+    // BLOCK OF allocationSize IDS, SO THE FIRST VALUE IS THE HIGHEST EXISTING ID PLUS ONE BLOCK.
+    private static String createSequence(Connection connection, String table, Field id, SequenceGenerator generator,
+                                         String sequence) throws SQLException {
+        long highest = 0;
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT MAX(" + id.getAnnotation(Column.class).name() + ") FROM " + table);
+             ResultSet rows = statement.executeQuery()) {
+            if (rows.next()) {
+                highest = rows.getLong(1);
+            }
+        }
+        return String.format("CREATE SEQUENCE %s START WITH %d INCREMENT BY %d;", sequence,
+                highest + generator.allocationSize(), generator.allocationSize());
+    }
+
+    private static List<String> columnList(String columnList) {
+        return Arrays.stream(columnList.split(","))
+                .map(column -> column.trim().split("\\s+")[0].toLowerCase(Locale.ROOT))
+                .toList();
+    }
+
+    private static boolean startsWith(List<String> columns, List<String> prefix) {
+        return columns.size() >= prefix.size() && columns.subList(0, prefix.size()).equals(prefix);
+    }
+
+    // UNQUOTED IDENTIFIERS ARE FOLDED BY SOME DATABASES (E.G. UPPER CASE IN H2); METADATA LOOKUPS NEED THE STORED FORM
+    private static String storedName(DatabaseMetaData metaData, String name) throws SQLException {
+        if (metaData.storesUpperCaseIdentifiers()) {
+            return name.toUpperCase(Locale.ROOT);
+        }
+        if (metaData.storesLowerCaseIdentifiers()) {
+            return name.toLowerCase(Locale.ROOT);
+        }
+        return name;
+    }
+}
@@ -0,0 +1,276 @@
+package edu.capella.bsit.u07a1;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * COUNTS TAKEN SEATS PER COURSE IN MEMORY SO SEAT-CAPACITY CHECKS NEVER LOCK A COURSE ROW. WITHOUT IT, EVERY
+ * REGISTRATION FOR A POPULAR COURSE WOULD UPDATE (AND SO LOCK) THAT COURSE'S ROW, AND ALL OF THEM WOULD QUEUE
+ * BEHIND EACH OTHER AT SEMESTER OPEN.
+ *
+ * <p>EACH COURSE HAS A LOCK-FREE COUNTER: A RESERVATION IS A COMPARE-AND-SET THAT ONLY SUCCEEDS WHILE SEATS ARE
+ * LEFT, SO CONCURRENT REGISTRATIONS OF ONE COURSE IN THIS PROCESS NEVER WAIT FOR EACH OTHER, AND A FULL COURSE IS
+ * TURNED AWAY WITHOUT TOUCHING THE DATABASE. A RESERVATION IS EITHER CONFIRMED (ITS REGISTRATION COMMITTED) OR
+ * RELEASED. CONFIRMED SEATS OF COURSES WITHOUT A CAPACITY ARE WRITTEN TO THE COURSES' SEATS_TAKEN COLUMN IN
+ * BATCHES BY A BACKGROUND THREAD: ONE UPDATE PER CHANGED COURSE PER INTERVAL, HOWEVER MANY REGISTRATIONS IT
+ * COVERS.
+ *
+ * <p>SEVERAL PROCESSES (E.G. DESKTOP CLIENTS) MAY SHARE ONE DATABASE, AND EACH LEDGER ONLY SEES ITS OWN
+ * RESERVATIONS, SO FOR A COURSE WITH A CAPACITY THE DATABASE HAS THE LAST WORD: A RESERVATION THE COUNTER ALLOWS IS
+ * ALSO CLAIMED IN SEATS_TAKEN BY ONE CONDITIONAL UPDATE THAT ONLY SUCCEEDS WHILE SEATS_TAKEN IS BELOW THE CAPACITY,
+ * AND A RELEASED ONE GIVES ITS SEAT BACK THERE. ONLY CAPACITY-LIMITED REGISTRATIONS PAY THIS SHORT UPDATE; EACH
+ * FLUSH ALSO RE-READS SEATS_TAKEN FOR THOSE COURSES, SO THE COUNTERS FOLLOW THE SEATS OTHER PROCESSES TAKE.
+ *
+ * <p>THE REGISTRATION ROWS ARE THE SOURCE OF TRUTH. AT STARTUP THE LEDGER IS RECONCILED: THE SEATS ARE COUNTED
+ * FROM THE REGISTRATIONS (WHICH ALSO REPAIRS A SEATS_TAKEN COLUMN LEFT BEHIND BY AN UNFLUSHED SHUTDOWN).
+ */
+public final class SeatLedger implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(SeatLedger.class.getName());
+
+    // ONE COURSE'S COUNTERS
+    private static final class Seats {
+        // RESERVED PLUS CONFIRMED SEATS
+        final AtomicInteger taken = new AtomicInteger();
+        // CONFIRMED SEATS NOT YET WRITTEN TO THE DATABASE
+        final AtomicInteger unflushed = new AtomicInteger();
+        // WHETHER THE COURSE HAS A CAPACITY, SO ITS RESERVATIONS ARE CLAIMED IN THE DATABASE AS THEY ARE MADE
+        volatile boolean claimed;
+    }
+
+    private final Map<String, Seats> seats = new ConcurrentHashMap<>();
+    private final Supplier<Map<String, Integer>> counter;
+    private final Supplier<Map<String, Integer>> reader;
+    private final Consumer<Map<String, Integer>> writer;
+    private final Predicate<String> claimer;
+    private final ScheduledExecutorService flusher;
+    private volatile boolean reconciled;
+
+    /**
+     * STARTS THE FLUSH THREAD. CALL {@link #reconcile()} BEFORE THE FIRST RESERVATION (IT IS ALSO RETRIED BY THE
+     * FIRST RESERVATION IF IT FAILED).
+     *
+     * @param counter COUNTS THE REGISTRATIONS OF EVERY COURSE IN THE DATABASE (AND CORRECTS THE STORED SEAT
+     * COUNTS); COURSES MISSING FROM THE RESULT HAVE NONE.
+     * @param reader READS THE STORED SEAT COUNTS OF EVERY COURSE.
+     * @param writer ADDS CONFIRMED SEATS TO THE STORED SEAT COUNTS: COURSE CODE -> SEATS, SORTED BY COURSE CODE SO
+     * CONCURRENT WRITERS LOCK ROWS IN THE SAME ORDER. ALSO GIVES BACK (-1) A CLAIMED SEAT THAT WAS RELEASED.
+     * @param claimer TAKES ONE SEAT OF A COURSE IN THE STORED SEAT COUNT IF IT IS STILL BELOW THE CAPACITY; FALSE IF
+     * THE COURSE IS FULL.
+     * @param flushMillis HOW OFTEN CONFIRMED SEATS ARE WRITTEN.
+     */
+    public SeatLedger(Supplier<Map<String, Integer>> counter, Supplier<Map<String, Integer>> reader,
+                      Consumer<Map<String, Integer>> writer, Predicate<String> claimer, int flushMillis) {
+        this.counter = counter;
+        this.reader = reader;
+        this.writer = writer;
+        this.claimer = claimer;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "seat-ledger-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * LOADS THE TAKEN SEATS OF EVERY COURSE FROM THE DATABASE, REPLACING WHAT THE LEDGER HELD. MEANT FOR STARTUP,
+     * BEFORE REGISTRATIONS ARE TAKEN: A RESERVATION IN FLIGHT WHILE THIS RUNS MAY NOT BE COUNTED.
+     *
+     * @throws RuntimeException IF THE REGISTRATIONS CANNOT BE COUNTED.
+     */
+    public synchronized void reconcile() {
+        Map<String, Integer> counts = counter.get();
+        for (Map.Entry<String, Seats> entry : seats.entrySet()) {
+            entry.getValue().taken.set(counts.getOrDefault(entry.getKey(), 0));
+            entry.getValue().unflushed.set(0);
+        }
+        counts.forEach((courseCode, taken) -> seatsOf(courseCode).taken.set(taken));
+        reconciled = true;
+    }
+
+    /**
+     * RESERVES A SEAT IF ONE IS LEFT. WITH A CAPACITY THE SEAT IS ALSO CLAIMED IN THE DATABASE, SO IT IS NOT
+     * OVERSOLD BY OTHER PROCESSES. THE CALLER MUST LATER {@link #confirm(String) CONFIRM} OR
+     * {@link #release(String) RELEASE} A SUCCESSFUL RESERVATION.
+     *
+     * @param courseCode THE COURSE.
+     * @param capacity THE COURSE'S CAPACITY, OR NULL FOR NO LIMIT.
+     * @return TRUE IF A SEAT WAS RESERVED, FALSE IF THE COURSE IS FULL.
+     * @throws RuntimeException IF THE SEAT COULD NOT BE CLAIMED IN THE DATABASE; NOTHING IS RESERVED.
+     */
+    public boolean tryReserve(String courseCode, Integer capacity) {
+        if (!reconciled) {
+            synchronized (this) {
+                if (!reconciled) {
+                    reconcile();
+                }
+            }
+        }
+        Seats course = seatsOf(courseCode);
+        AtomicInteger taken = course.taken;
+        if (capacity == null) {
+            taken.incrementAndGet();
+            return true;
+        }
+        course.claimed = true;
+        for (int current = taken.get(); current < capacity; current = taken.get()) {
+            if (taken.compareAndSet(current, current + 1)) {
+                return claim(courseCode, taken);
+            }
+        }
+        return false;
+    }
+
+    // CLAIMS A SEAT THE COUNTER ALLOWED IN THE DATABASE; IF ANOTHER PROCESS TOOK THE LAST ONE, THE RESERVATION IS
+    // UNDONE
+    private boolean claim(String courseCode, AtomicInteger taken) {
+        boolean claimed;
+        try {
+            claimed = claimer.test(courseCode);
+        } catch (RuntimeException ex) {
+            taken.decrementAndGet();
+            throw ex;
+        }
+        if (!claimed) {
+            taken.decrementAndGet();
+        }
+        return claimed;
+    }
+
+    /**
+     * GIVES BACK A RESERVED SEAT WHOSE REGISTRATION WAS NOT COMMITTED.
+     *
+     * @param courseCode THE COURSE.
+     */
+    public void release(String courseCode) {
+        Seats course = seatsOf(courseCode);
+        course.taken.decrementAndGet();
+        if (course.claimed) {
+            try {
+                writer.accept(Map.of(courseCode, -1));
+            } catch (RuntimeException ex) {
+                logger.log(Level.WARNING, ex, () -> "Could not give back a seat of " + courseCode
+                        + "; the next start will reconcile it.");
+            }
+        }
+    }
+
+    /**
+     * MARKS A RESERVED SEAT AS TAKEN FOR GOOD; IT IS WRITTEN TO THE DATABASE WITH THE NEXT FLUSH.
+     *
+     * @param courseCode THE COURSE.
+     */
+    public void confirm(String courseCode) {
+        Seats course = seatsOf(courseCode);
+        // A CLAIMED SEAT IS IN THE DATABASE ALREADY
+        if (!course.claimed) {
+            course.unflushed.incrementAndGet();
+        }
+    }
+
+    /**
+     * COUNTS SEATS TAKEN WITHOUT A RESERVATION (ADMINISTRATIVE LOADS, WHICH ARE NOT CAPACITY-CHECKED). BEFORE THE
+     * LEDGER IS RECONCILED THIS DOES NOTHING: THE RECONCILIATION WILL COUNT THEM FROM THE DATABASE.
+     *
+     * @param courseCode THE COURSE.
+     * @param count THE NUMBER OF SEATS TAKEN.
+     */
+    public void add(String courseCode, int count) {
+        if (reconciled) {
+            Seats course = seatsOf(courseCode);
+            course.taken.addAndGet(count);
+            course.unflushed.addAndGet(count);
+        }
+    }
+
+    /**
+     * @param courseCode THE COURSE.
+     * @return THE SEATS TAKEN OR RESERVED, AS COUNTED IN MEMORY.
+     */
+    public int seatsTaken(String courseCode) {
+        Seats course = seats.get(courseCode);
+        return course == null ? 0 : course.taken.get();
+    }
+
+    /**
+     * WRITES THE CONFIRMED SEATS NOT YET IN THE DATABASE NOW, INSTEAD OF WAITING FOR THE NEXT INTERVAL, THEN
+     * REFRESHES THE COUNTERS OF CAPACITY-LIMITED COURSES FROM THE STORED SEAT COUNTS. IF THE WRITE FAILS THE SEATS
+     * STAY PENDING FOR THE NEXT ATTEMPT.
+     *
+     * @throws RuntimeException IF THE WRITE OR THE REFRESH FAILED.
+     */
+    public synchronized void flush() {
+        write();
+        refresh();
+    }
+
+    private void write() {
+        Map<String, Integer> pending = new TreeMap<>();
+        seats.forEach((courseCode, course) -> {
+            int count = course.unflushed.getAndSet(0);
+            if (count != 0) {
+                pending.put(courseCode, count);
+            }
+        });
+        if (pending.isEmpty()) {
+            return;
+        }
+        try {
+            writer.accept(pending);
+        } catch (RuntimeException ex) {
+            pending.forEach((courseCode, count) -> seatsOf(courseCode).unflushed.addAndGet(count));
+            throw ex;
+        }
+    }
+
+    // A CLAIMED COURSE'S STORED COUNT HOLDS EVERY PROCESS'S CLAIMS, INCLUDING THIS ONE'S RESERVATIONS IN FLIGHT
+    private void refresh() {
+        if (seats.values().stream().noneMatch(course -> course.claimed)) {
+            return;
+        }
+        reader.get().forEach((courseCode, stored) -> {
+            Seats course = seats.get(courseCode);
+            if (course != null && course.claimed) {
+                course.taken.set(stored);
+            }
+        });
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException ex) {
+            logger.log(Level.WARNING, "Could not write or refresh seat counts; they will be retried.", ex);
+        }
+    }
+
+    private Seats seatsOf(String courseCode) {
+        return seats.computeIfAbsent(courseCode, k -> new Seats());
+    }
+
+    /**
+     * STOPS THE FLUSH THREAD AND WRITES THE REMAINING CONFIRMED SEATS. IF THAT FAILS THE STORED COUNTS LAG UNTIL
+     * THE NEXT STARTUP RECONCILES THEM.
+     */
+    @Override
+    public void close() {
+        flusher.shutdownNow();
+        try {
+            synchronized (this) {
+                write();
+            }
+        } catch (RuntimeException ex) {
+            logger.log(Level.WARNING, "Could not write the final seat counts; the next start will reconcile them.", ex);
+        }
+    }
+}
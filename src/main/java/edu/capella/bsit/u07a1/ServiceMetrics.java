@@ -0,0 +1,307 @@
+package edu.capella.bsit.u07a1;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * OPERATION-LEVEL INSTRUMENTATION FOR {@link CourseRegistrationService}.
+ * EVERY SERVICE OPERATION IS TIMED THROUGH {@link #time(String, Supplier)}, WHICH KEEPS A CALL COUNT, FAILURE COUNT,
+ * IN-FLIGHT GAUGE AND LATENCY HISTOGRAM PER OPERATION. ASYNCHRONOUS CALLS ARE WRAPPED WITH
+ * {@link #queued(Supplier)} SO THE EXECUTOR'S QUEUE DEPTH AND THE TIME TASKS WAIT IN IT ARE KNOWN FOR BOTH THE
+ * PLATFORM POOL AND THE VIRTUAL-THREAD EXECUTOR.
+ *
+ * <p>EVERYTHING IS PUBLISHED AS MBEANS UNDER THE "edu.capella.bsit.u07a1" DOMAIN (ONE FOR THE SERVICE, ONE PER
+ * OPERATION, ONE FOR HIBERNATE'S STATISTICS), SO IT CAN BE WATCHED WITH JCONSOLE OR ANY JMX SCRAPER, AND A TEXT
+ * SNAPSHOT IS OPTIONALLY LOGGED ON A FIXED PERIOD. SETTINGS (READ FROM THE SERVICE'S CONFIGURATION MAP):
+ * <ul>
+ *     <li>service.metrics.enabled - "false" TURNS TIMING OFF ENTIRELY (DEFAULT TRUE)</li>
+ *     <li>service.metrics.jmx - "false" SKIPS MBEAN REGISTRATION (DEFAULT TRUE)</li>
+ *     <li>service.metrics.name - NAME OF THE SERVICE IN THE MBEAN NAMES (DEFAULT "registration"; A SUFFIX IS
+ *     ADDED IF ANOTHER SERVICE IN THE SAME JVM ALREADY USES IT)</li>
+ *     <li>service.metrics.dumpSeconds - PERIOD OF THE SNAPSHOT DUMP TO THE LOG; 0 DISABLES IT (DEFAULT 0)</li>
+ * </ul>
+ */
+public class ServiceMetrics implements ServiceMetricsMBean, AutoCloseable {
+    public static final String ENABLED_KEY = "service.metrics.enabled";
+    public static final String JMX_KEY = "service.metrics.jmx";
+    public static final String NAME_KEY = "service.metrics.name";
+    public static final String DUMP_SECONDS_KEY = "service.metrics.dumpSeconds";
+    static final String DOMAIN = "edu.capella.bsit.u07a1";
+    // THE PSEUDO-OPERATION THAT RECORDS HOW LONG ASYNCHRONOUS CALLS WAIT FOR AN EXECUTOR THREAD
+    static final String QUEUE_WAIT = "executorQueueWait";
+
+    private static final Logger logger = Logger.getLogger(ServiceMetrics.class.getName());
+
+    private final boolean enabled;
+    private final ExecutorService executor;
+    private final Supplier<LruCache.CacheStats> catalogCache;
+    private final Supplier<LruCache.CacheStats> registrationCache;
+    private final HibernateMetrics hibernate;
+    private final Map<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong active = new AtomicLong();
+    private final List<ObjectName> registered = new ArrayList<>();
+    private final String baseName;
+    private final boolean jmx;
+    private final int dumpSeconds;
+    private ScheduledExecutorService dumper;
+    private volatile String serviceName;
+
+    /**
+     * CREATES THE METRICS. NOTHING IS PUBLISHED UNTIL {@link #start()}; OPERATIONS CAN BE TIMED BEFORE THAT.
+     *
+     * @param config THE SERVICE'S CONFIGURATION MAP.
+     * @param executor THE SERVICE'S SHARED EXECUTOR.
+     * @param catalogCache SUPPLIES THE CATALOG CACHE COUNTERS.
+     * @param registrationCache SUPPLIES THE REGISTRATION CACHE COUNTERS.
+     * @param hibernate THE HIBERNATE STATISTICS BRIDGE.
+     */
+    public ServiceMetrics(Map<String, String> config, ExecutorService executor,
+                          Supplier<LruCache.CacheStats> catalogCache, Supplier<LruCache.CacheStats> registrationCache,
+                          HibernateMetrics hibernate) {
+        this.enabled = booleanSetting(config, ENABLED_KEY, true);
+        this.executor = executor;
+        this.catalogCache = catalogCache;
+        this.registrationCache = registrationCache;
+        this.hibernate = hibernate;
+        this.jmx = booleanSetting(config, JMX_KEY, true);
+        this.baseName = config == null ? "registration" : config.getOrDefault(NAME_KEY, "registration");
+        this.dumpSeconds = CourseRegistrationService.intSetting(config, DUMP_SECONDS_KEY, 0);
+    }
+
+    /**
+     * REGISTERS THE MBEANS AND STARTS THE SNAPSHOT DUMP AS CONFIGURED. CALLING IT AGAIN DOES NOTHING.
+     */
+    public synchronized void start() {
+        if (serviceName != null || dumper != null) {
+            return;
+        }
+        if (jmx) {
+            register(baseName);
+        }
+        if (dumpSeconds > 0) {
+            LogManager.addFileHandlerToLogger(logger);
+            dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "registration-metrics");
+                t.setDaemon(true);
+                return t;
+            });
+            dumper.scheduleAtFixedRate(() -> logger.log(Level.INFO, dumpSnapshot()), dumpSeconds, dumpSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    private static boolean booleanSetting(Map<String, String> config, String key, boolean defaultValue) {
+        String value = config == null ? null : config.get(key);
+        return value == null || value.isBlank() ? defaultValue : Boolean.parseBoolean(value.trim());
+    }
+
+    /**
+     * RUNS ONE SERVICE OPERATION, RECORDING ITS LATENCY AND WHETHER IT THREW.
+     *
+     * @param operation THE OPERATION NAME (THE SERVICE METHOD NAME).
+     * @param work THE OPERATION.
+     * @return THE OPERATION'S RESULT.
+     */
+    public <T> T time(String operation, Supplier<T> work) {
+        if (!enabled) {
+            return work.get();
+        }
+        OperationMetrics metrics = operation(operation);
+        long started = metrics.start();
+        boolean failed = true;
+        try {
+            T result = work.get();
+            failed = false;
+            return result;
+        } finally {
+            metrics.stop(started, failed);
+        }
+    }
+
+    /**
+     * WRAPS WORK THAT IS ABOUT TO BE SUBMITTED TO THE EXECUTOR SO IT COUNTS AS QUEUED UNTIL A THREAD PICKS IT UP,
+     * AND AS ACTIVE WHILE IT RUNS. THE WAIT IS RECORDED UNDER {@value #QUEUE_WAIT}.
+     *
+     * @param work THE WORK TO SUBMIT.
+     * @return THE WRAPPED WORK; IT MUST BE SUBMITTED EXACTLY ONCE.
+     */
+    public <T> Supplier<T> queued(Supplier<T> work) {
+        if (!enabled) {
+            return work;
+        }
+        long submitted = System.nanoTime();
+        queued.incrementAndGet();
+        return () -> {
+            queued.decrementAndGet();
+            operation(QUEUE_WAIT).record(System.nanoTime() - submitted);
+            active.incrementAndGet();
+            try {
+                return work.get();
+            } finally {
+                active.decrementAndGet();
+            }
+        };
+    }
+
+    /**
+     * @param name THE OPERATION NAME.
+     * @return THE METRICS OF THE OPERATION, CREATED (AND PUBLISHED) ON FIRST USE.
+     */
+    public OperationMetrics operation(String name) {
+        OperationMetrics metrics = operations.get(name);
+        if (metrics != null) {
+            return metrics;
+        }
+        return operations.computeIfAbsent(name, key -> {
+            OperationMetrics created = new OperationMetrics(key);
+            if (serviceName != null) {
+                registerBean(created, "type=Operation,service=" + serviceName + ",name=" + key);
+            }
+            return created;
+        });
+    }
+
+    /**
+     * @return THE HIBERNATE STATISTICS BRIDGE.
+     */
+    public HibernateMetrics getHibernateMetrics() {
+        return hibernate;
+    }
+
+    @Override
+    public long getExecutorQueueDepth() {
+        if (enabled) {
+            return queued.get();
+        }
+        return executor instanceof ThreadPoolExecutor pool ? pool.getQueue().size() : 0;
+    }
+
+    @Override
+    public long getExecutorActive() {
+        if (enabled) {
+            return active.get();
+        }
+        return executor instanceof ThreadPoolExecutor pool ? pool.getActiveCount() : 0;
+    }
+
+    @Override
+    public int getExecutorPoolSize() {
+        return executor instanceof ThreadPoolExecutor pool ? pool.getPoolSize() : -1;
+    }
+
+    @Override
+    public double getCatalogCacheHitRatio() {
+        return catalogCache.get().hitRatio();
+    }
+
+    @Override
+    public int getCatalogCacheSize() {
+        return catalogCache.get().size();
+    }
+
+    @Override
+    public double getRegistrationCacheHitRatio() {
+        return registrationCache.get().hitRatio();
+    }
+
+    @Override
+    public int getRegistrationCacheSize() {
+        return registrationCache.get().size();
+    }
+
+    @Override
+    public String[] getOperationNames() {
+        return operations.keySet().stream().sorted().toArray(String[]::new);
+    }
+
+    @Override
+    public String dumpSnapshot() {
+        StringBuilder text = new StringBuilder(512);
+        text.append(String.format("Service metrics: executor queued=%d active=%d poolSize=%d catalogCacheHit=%.1f%% "
+                        + "registrationCacheHit=%.1f%%", getExecutorQueueDepth(), getExecutorActive(),
+                getExecutorPoolSize(), getCatalogCacheHitRatio() * 100, getRegistrationCacheHitRatio() * 100));
+        for (String name : getOperationNames()) {
+            text.append(System.lineSeparator()).append("  ").append(operations.get(name));
+        }
+        if (hibernate != null && hibernate.isStatisticsEnabled()) {
+            text.append(System.lineSeparator()).append("  ").append(hibernate);
+        }
+        return text.toString();
+    }
+
+    @Override
+    public void resetAll() {
+        operations.values().forEach(OperationMetrics::reset);
+    }
+
+    // REGISTERS THE SERVICE, HIBERNATE AND ANY EXISTING OPERATION MBEANS UNDER THE FIRST FREE SERVICE NAME
+    private synchronized void register(String baseName) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (int instance = 1; serviceName == null; instance++) {
+            String candidate = instance == 1 ? baseName : baseName + "-" + instance;
+            try {
+                ObjectName name = new ObjectName(DOMAIN + ":type=Service,name=" + candidate);
+                server.registerMBean(this, name);
+                registered.add(name);
+                serviceName = candidate;
+            } catch (InstanceAlreadyExistsException ex) {
+                // ANOTHER SERVICE IN THIS JVM HAS THE NAME -> TRY THE NEXT SUFFIX
+            } catch (JMException ex) {
+                logger.log(Level.WARNING, "Could not register the service metrics MBean.", ex);
+                return;
+            }
+        }
+        if (hibernate != null) {
+            registerBean(hibernate, "type=Hibernate,service=" + serviceName);
+        }
+        operations.values().forEach(metrics -> registerBean(metrics,
+                "type=Operation,service=" + serviceName + ",name=" + metrics.getName()));
+    }
+
+    private synchronized void registerBean(Object bean, String properties) {
+        try {
+            ObjectName name = new ObjectName(DOMAIN + ":" + properties);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(bean, name);
+            registered.add(name);
+        } catch (JMException ex) {
+            logger.log(Level.WARNING, ex, () -> "Could not register MBean " + properties);
+        }
+    }
+
+    /**
+     * STOPS THE SNAPSHOT DUMP AND UNREGISTERS THE MBEANS.
+     */
+    @Override
+    public synchronized void close() {
+        if (dumper != null) {
+            dumper.shutdownNow();
+            dumper = null;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : registered) {
+            try {
+                server.unregisterMBean(name);
+            } catch (JMException ex) {
+                // ALREADY GONE
+            }
+        }
+        registered.clear();
+        serviceName = null;
+    }
+}
@@ -0,0 +1,43 @@
+package edu.capella.bsit.u07a1;
+
+/**
+ * JMX VIEW OF A {@link CourseRegistrationService}: EXECUTOR SATURATION AND CACHE EFFECTIVENESS. PER-OPERATION
+ * FIGURES ARE PUBLISHED AS SEPARATE {@link OperationMetricsMBean}S.
+ */
+public interface ServiceMetricsMBean {
+
+    /**
+     * @return ASYNCHRONOUS CALLS SUBMITTED TO THE EXECUTOR THAT HAVE NOT STARTED RUNNING YET.
+     */
+    long getExecutorQueueDepth();
+
+    /**
+     * @return ASYNCHRONOUS CALLS CURRENTLY RUNNING ON THE EXECUTOR.
+     */
+    long getExecutorActive();
+
+    /**
+     * @return THREADS IN THE EXECUTOR'S POOL, OR -1 FOR THE VIRTUAL-THREAD EXECUTOR.
+     */
+    int getExecutorPoolSize();
+
+    double getCatalogCacheHitRatio();
+
+    int getCatalogCacheSize();
+
+    double getRegistrationCacheHitRatio();
+
+    int getRegistrationCacheSize();
+
+    String[] getOperationNames();
+
+    /**
+     * @return THE SAME TEXT AS THE PERIODIC SNAPSHOT DUMP.
+     */
+    String dumpSnapshot();
+
+    /**
+     * RESETS THE COUNTERS AND HISTOGRAMS OF EVERY OPERATION.
+     */
+    void resetAll();
+}
@@ -0,0 +1,270 @@
+package edu.capella.bsit.u07a1;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * HASH-PARTITIONS LEARNERS ACROSS SEVERAL DATABASES ("SHARDS"), EACH WITH ITS OWN ENTITYMANAGERFACTORY. A
+ * LEARNER'S REGISTRATIONS LIVE ENTIRELY ON ONE SHARD, CHOSEN FROM THE HASH OF THE LEARNER ID, SO EVERY
+ * PER-LEARNER OPERATION (INCLUDING THE LOCKED CREDIT-LIMIT CHECK) IS A SINGLE-SHARD TRANSACTION.
+ *
+ * <p>THE COURSE CATALOG IS NOT SHARDED: IT STAYS ON THE CATALOG NODE (THE SERVICE'S PRIMARY DATABASE) AND IS READ
+ * FROM THERE. QUERIES THAT SPAN ALL LEARNERS ARE RUN ON EVERY SHARD IN PARALLEL AND MERGED: SMALL RESULTS (E.G.
+ * ADMINISTRATIVE COUNTS) WITH {@link #fanOut(Function)}, ORDERED ROW STREAMS (E.G. EXPORTS) WITH
+ * {@link #mergeOrdered}.
+ *
+ * <p>THE SHARD OF A LEARNER DEPENDS ON THE NUMBER OF SHARDS, SO CHANGING THE LIST MOVES LEARNERS; EXISTING ROWS
+ * MUST BE RE-DISTRIBUTED (E.G. EXPORTED AND RE-IMPORTED) WHEN SHARDS ARE ADDED OR REMOVED.
+ */
+public class ShardRouter implements AutoCloseable {
+    // ROWS EACH SHARD MAY READ AHEAD OF THE MERGE IN mergeOrdered
+    private static final int READ_AHEAD = 256;
+    // MARKS THE END OF A SHARD'S ROWS IN ITS mergeOrdered QUEUE
+    private static final Object END = new Object();
+
+    // CARRIES A SHARD'S FAILURE THROUGH ITS mergeOrdered QUEUE
+    private record Failure(RuntimeException cause) { }
+
+    private final List<String> urls;
+    private final List<EntityManagerFactory> shards;
+    private final ExecutorService fanOut;
+
+    /**
+     * OPENS AN ENTITYMANAGERFACTORY PER SHARD WITH THE CATALOG NODE'S SETTINGS (INCLUDING ITS SCHEMA ACTION, SO
+     * EMBEDDED SHARDS GET THEIR TABLES) BUT WITHOUT A SECOND-LEVEL CACHE. UNLIKE A READ REPLICA, A SHARD THAT
+     * CANNOT BE OPENED IS AN ERROR: ITS LEARNERS WOULD HAVE NOWHERE TO GO.
+     *
+     * @param catalog THE CATALOG NODE'S FACTORY; ITS DIALECT IS REUSED FOR THE SHARDS.
+     * @param config THE SERVICE CONFIGURATION; ITS JDBC SETTINGS ARE REUSED FOR THE SHARDS.
+     * @param urls THE SHARDS' JDBC URLS, IN A FIXED ORDER.
+     * @throws IllegalArgumentException IF NO URLS ARE GIVEN.
+     * @throws RuntimeException IF A SHARD CANNOT BE OPENED (THE SHARDS ALREADY OPENED ARE CLOSED AGAIN).
+     */
+    public ShardRouter(EntityManagerFactory catalog, Map<String, String> config, List<String> urls) {
+        if (urls.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard URL is required");
+        }
+        this.urls = List.copyOf(urls);
+        this.shards = new ArrayList<>();
+        String dialect = catalog.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect()
+                .getClass().getName();
+        for (String url : urls) {
+            Map<String, String> settings = new HashMap<>(config);
+            settings.put("jakarta.persistence.jdbc.url", url);
+            settings.put("hibernate.cache.use_second_level_cache", "false");
+            settings.put("hibernate.cache.use_query_cache", "false");
+            settings.put("hibernate.dialect", dialect);
+            try {
+                shards.add(Persistence.createEntityManagerFactory("CourseRegistrationService", settings));
+            } catch (RuntimeException ex) {
+                closeShards();
+                throw ex;
+            }
+        }
+        AtomicInteger counter = new AtomicInteger();
+        // UNBOUNDED: A MERGE HOLDS ONE THREAD PER SHARD UNTIL IT IS DRAINED, SO A FIXED POOL COULD LEAVE TWO
+        // CONCURRENT MERGES WAITING ON EACH OTHER'S THREADS
+        this.fanOut = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "shard-fan-out-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * @param learnerID A LEARNER ID.
+     * @return THE INDEX OF THE SHARD THAT HOLDS THE LEARNER'S REGISTRATIONS. STABLE ACROSS RUNS AND PROCESSES
+     * (STRING HASH CODES ARE PART OF THE JAVA SPECIFICATION) AS LONG AS THE SHARD LIST IS UNCHANGED.
+     */
+    public int shardOf(String learnerID) {
+        return Math.floorMod(learnerID.hashCode(), shards.size());
+    }
+
+    /**
+     * @param learnerID A LEARNER ID.
+     * @return THE FACTORY OF THE LEARNER'S SHARD.
+     */
+    public EntityManagerFactory factoryFor(String learnerID) {
+        return shards.get(shardOf(learnerID));
+    }
+
+    /**
+     * @param shard A SHARD INDEX.
+     * @return THE FACTORY OF THAT SHARD.
+     */
+    public EntityManagerFactory factory(int shard) {
+        return shards.get(shard);
+    }
+
+    /**
+     * @return THE NUMBER OF SHARDS.
+     */
+    public int size() {
+        return shards.size();
+    }
+
+    /**
+     * @return THE SHARDS' JDBC URLS, INDEXED BY SHARD.
+     */
+    public List<String> getUrls() {
+        return urls;
+    }
+
+    /**
+     * RUNS THE SAME READ-ONLY UNIT OF WORK ON EVERY SHARD IN PARALLEL, EACH WITH ITS OWN ENTITYMANAGER, AND WAITS
+     * FOR ALL OF THEM.
+     *
+     * @param work THE WORK TO PERFORM ON EACH SHARD.
+     * @return THE RESULTS, INDEXED BY SHARD.
+     * @throws RuntimeException THE FIRST FAILURE, IF ANY SHARD FAILED.
+     */
+    public <T> List<T> fanOut(Function<EntityManager, T> work) {
+        List<CompletableFuture<T>> results = new ArrayList<>(shards.size());
+        for (EntityManagerFactory shard : shards) {
+            results.add(CompletableFuture.supplyAsync(() -> {
+                EntityManager em = shard.createEntityManager();
+                try {
+                    return work.apply(em);
+                } finally {
+                    em.close();
+                }
+            }, fanOut));
+        }
+        try {
+            return results.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException ex) {
+            throw ex.getCause() instanceof RuntimeException cause ? cause : ex;
+        }
+    }
+
+    /**
+     * STREAMS THE ROWS OF A QUERY FROM EVERY SHARD TO A CONSUMER IN ONE GLOBAL ORDER, WITHOUT MATERIALIZING THEM.
+     * EACH SHARD RUNS THE QUERY ON ITS OWN THREAD AND READS UP TO A FEW HUNDRED ROWS AHEAD INTO A BOUNDED QUEUE;
+     * THE CALLING THREAD MERGES THE QUEUES' HEADS. THE PER-SHARD QUERY MUST RETURN ITS ROWS IN THE SAME ORDER.
+     *
+     * @param query OPENS THE ORDERED ROW STREAM ON ONE SHARD'S ENTITYMANAGER. THE PERSISTENCE CONTEXT IS CLEARED
+     * EVERY clearEvery ROWS, SO THE ROWS MUST NOT BE USED AS MANAGED ENTITIES.
+     * @param order THE ORDER OF THE QUERY'S ROWS.
+     * @param clearEvery HOW MANY ROWS A SHARD READS BETWEEN CLEARING ITS PERSISTENCE CONTEXT.
+     * @param action CALLED ONCE PER ROW, ON THE CALLING THREAD.
+     * @return THE NUMBER OF ROWS STREAMED.
+     * @throws RuntimeException THE FAILURE OF A SHARD'S QUERY; THE OTHER SHARDS ARE STOPPED.
+     */
+    public <T> long mergeOrdered(Function<EntityManager, Stream<T>> query, Comparator<T> order, int clearEvery,
+                                 Consumer<T> action) {
+        List<BlockingQueue<Object>> queues = new ArrayList<>(shards.size());
+        List<Future<?>> readers = new ArrayList<>(shards.size());
+        try {
+            for (EntityManagerFactory shard : shards) {
+                BlockingQueue<Object> queue = new ArrayBlockingQueue<>(READ_AHEAD);
+                queues.add(queue);
+                readers.add(fanOut.submit(() -> readShard(shard, query, clearEvery, queue)));
+            }
+            // HEAD ROW -> INDEX OF THE SHARD IT CAME FROM, SMALLEST ROW FIRST
+            PriorityQueue<Map.Entry<T, Integer>> heads = new PriorityQueue<>(Map.Entry.comparingByKey(order));
+            for (int i = 0; i < queues.size(); i++) {
+                T head = next(queues.get(i));
+                if (head != null) {
+                    heads.add(Map.entry(head, i));
+                }
+            }
+            long count = 0;
+            while (!heads.isEmpty()) {
+                Map.Entry<T, Integer> smallest = heads.poll();
+                action.accept(smallest.getKey());
+                count++;
+                T head = next(queues.get(smallest.getValue()));
+                if (head != null) {
+                    heads.add(Map.entry(head, smallest.getValue()));
+                }
+            }
+            return count;
+        } finally {
+            // STOPS READERS LEFT BLOCKED ON A FULL QUEUE WHEN THE MERGE ENDS EARLY
+            readers.forEach(reader -> reader.cancel(true));
+        }
+    }
+
+    // RUNS ON A FAN-OUT THREAD: COPIES ONE SHARD'S ROWS INTO ITS QUEUE, THEN THE END MARKER (OR THE FAILURE)
+    private static <T> void readShard(EntityManagerFactory shard, Function<EntityManager, Stream<T>> query,
+                                      int clearEvery, BlockingQueue<Object> queue) {
+        EntityManager em = shard.createEntityManager();
+        Object last = END;
+        try (Stream<T> rows = query.apply(em)) {
+            Iterator<T> it = rows.iterator();
+            long count = 0;
+            while (it.hasNext()) {
+                queue.put(it.next());
+                if (++count % clearEvery == 0) {
+                    em.clear();
+                }
+            }
+        } catch (InterruptedException ex) {
+            // THE MERGE WAS ABANDONED; NOBODY IS READING THE QUEUE ANY MORE
+            Thread.currentThread().interrupt();
+            return;
+        } catch (RuntimeException ex) {
+            last = new Failure(ex);
+        } finally {
+            em.close();
+        }
+        try {
+            queue.put(last);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // THE NEXT ROW OF A SHARD'S QUEUE, OR NULL AT ITS END
+    @SuppressWarnings("unchecked")
+    private static <T> T next(BlockingQueue<Object> queue) {
+        Object row;
+        try {
+            row = queue.take();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while merging shard results", ex);
+        }
+        if (row instanceof Failure failure) {
+            throw failure.cause();
+        }
+        return row == END ? null : (T) row;
+    }
+
+    /**
+     * STOPS THE FAN-OUT THREADS AND CLOSES THE SHARDS' FACTORIES. THE CATALOG NODE IS LEFT OPEN.
+     */
+    @Override
+    public void close() {
+        fanOut.shutdownNow();
+        closeShards();
+    }
+
+    private void closeShards() {
+        for (EntityManagerFactory shard : shards) {
+            if (shard.isOpen()) {
+                shard.close();
+            }
+        }
+    }
+}
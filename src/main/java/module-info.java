@@ -1,6 +1,9 @@
 module edu.capella.bsit.u07a1 {
     requires javafx.controls;
     requires java.sql;
+    requires java.naming;
+    requires java.management;
+    requires jdk.httpserver;
     requires jakarta.persistence;
     requires javafx.fxml;
     requires org.hibernate.orm.core;
@@ -0,0 +1,18 @@
+-- VERSION 2 OF THE REGISTRATION SCHEMA, FOR MARIADB 10.3 OR LATER. VERSION 1 IS THE ORIGINAL SCHEMA:
+-- course_offerings, AND learner_registration WITH AN AUTO-INCREMENT registration_id. RUN IT ONCE, BEFORE THE FIRST
+-- START OF THIS VERSION OF THE SERVICE; AFTERWARDS "SchemaVerifier verify" SHOULD REPORT NOTHING MISSING.
+
+-- SEAT CAPACITY (SEE Course): NULL MEANS NO LIMIT. THE SERVICE RECOUNTS seats_taken FROM THE REGISTRATIONS AT
+-- STARTUP, SO THE ZERO DEFAULT IS CORRECTED ON THE FIRST START.
+ALTER TABLE course_offerings ADD COLUMN capacity INT NULL;
+ALTER TABLE course_offerings ADD COLUMN seats_taken INT NOT NULL DEFAULT 0;
+
+-- REGISTRATION IDS NOW COME FROM A SEQUENCE, 50 AT A TIME (SEE RegisteredCourse). HIBERNATE TAKES EACH VALUE AS THE
+-- TOP OF A BLOCK OF 50 IDS, SO THE FIRST VALUE IS THE HIGHEST EXISTING ID PLUS 50. START WITH TAKES NO EXPRESSION,
+-- SO THE STATEMENT IS BUILT FROM THE TABLE.
+SET @registration_seq_start = (SELECT COALESCE(MAX(registration_id), 0) + 50 FROM learner_registration);
+SET @create_registration_seq = CONCAT('CREATE SEQUENCE learner_registration_seq START WITH ',
+        @registration_seq_start, ' INCREMENT BY 50');
+PREPARE create_registration_seq FROM @create_registration_seq;
+EXECUTE create_registration_seq;
+DEALLOCATE PREPARE create_registration_seq;
@@ -0,0 +1,95 @@
+package edu.capella.bsit.u07a1;
+
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * QUEUE ORDERING AND WAIT TIMEOUTS OF {@link AdmissionControl}, WITH A LIMIT OF ONE SO EVERY SUBMISSION AFTER THE
+ * FIRST HAS TO WAIT.
+ */
+class AdmissionControlTest {
+
+    @Test
+    void waitingTicketsRunInArrivalOrder() throws Exception {
+        try (AdmissionControl admission = new AdmissionControl(1, 1, 1, 10, 30, 0, 1)) {
+            CompletableFuture<Integer> blocker = new CompletableFuture<>();
+            AdmissionControl.Ticket<Integer> first = admission.submit("L0", () -> blocker);
+            List<Integer> started = new CopyOnWriteArrayList<>();
+            List<AdmissionControl.Ticket<Integer>> waiting = new CopyOnWriteArrayList<>();
+            for (int i = 1; i <= 3; i++) {
+                int n = i;
+                waiting.add(admission.submit("L" + n, () -> {
+                    started.add(n);
+                    return CompletableFuture.completedFuture(n);
+                }));
+            }
+            assertFalse(first.status().isWaiting());
+            for (int i = 0; i < waiting.size(); i++) {
+                assertEquals(i + 1, waiting.get(i).status().position());
+            }
+            assertTrue(started.isEmpty());
+
+            // THE SECOND IN LINE LEAVES; THE ONE BEHIND IT MOVES UP
+            waiting.get(1).result().cancel(false);
+            assertEquals(2, waiting.get(2).status().position());
+
+            blocker.complete(0);
+            assertEquals(0, first.result().get(5, TimeUnit.SECONDS));
+            assertEquals(1, waiting.get(0).result().get(5, TimeUnit.SECONDS));
+            assertEquals(3, waiting.get(2).result().get(5, TimeUnit.SECONDS));
+            assertEquals(List.of(1, 3), started);
+            assertEquals(0, admission.getQueueLength());
+        }
+    }
+
+    @Test
+    void ticketThatWaitsTooLongIsRejected() throws Exception {
+        try (AdmissionControl admission = new AdmissionControl(1, 1, 1, 10, 1, 0, 1)) {
+            CompletableFuture<Integer> blocker = new CompletableFuture<>();
+            admission.submit("L0", () -> blocker);
+            AtomicBoolean ran = new AtomicBoolean();
+            AdmissionControl.Ticket<Integer> late = admission.submit("L1", () -> {
+                ran.set(true);
+                return CompletableFuture.completedFuture(1);
+            });
+
+            ExecutionException failure = assertThrows(ExecutionException.class,
+                    () -> late.result().get(5, TimeUnit.SECONDS));
+            AdmissionControl.Rejected rejected = assertInstanceOf(AdmissionControl.Rejected.class, failure.getCause());
+            assertEquals(AdmissionControl.Reason.TIMED_OUT, rejected.getReason());
+            assertFalse(late.status().isWaiting());
+
+            // THE SLOT IT WOULD HAVE TAKEN GOES TO THE NEXT ARRIVAL, AND THE TIMED-OUT WORK NEVER RUNS
+            blocker.complete(0);
+            assertEquals(2, admission.submit("L2", () -> CompletableFuture.completedFuture(2)).result()
+                    .get(5, TimeUnit.SECONDS));
+            assertFalse(ran.get());
+            assertEquals(1, admission.getRejected());
+        }
+    }
+
+    @Test
+    void fullQueueRejectsAtOnce() {
+        try (AdmissionControl admission = new AdmissionControl(1, 1, 1, 1, 30, 0, 1)) {
+            admission.submit("L0", CompletableFuture::new);
+            admission.submit("L1", () -> CompletableFuture.completedFuture(1));
+            AdmissionControl.Ticket<Integer> overflow = admission.submit("L2",
+                    () -> CompletableFuture.completedFuture(2));
+
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> overflow.result().get());
+            assertEquals(AdmissionControl.Reason.QUEUE_FULL,
+                    assertInstanceOf(AdmissionControl.Rejected.class, failure.getCause()).getReason());
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package edu.capella.bsit.u07a1;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A DUPLICATE IN A {@link GroupCommitWriter} BATCH ROLLS THE BATCH BACK, BUT ONLY ITS OWN CALLER SEES THE FAILURE.
+ */
+class GroupCommitWriterTest {
+
+    // A TABLE WITH A UNIQUE (LEARNER, COURSE) KEY; A BATCH IS ONE TRANSACTION, SO ONE DUPLICATE WRITES NOTHING
+    private static final class UniqueTable implements GroupCommitWriter.BatchSink {
+        final Set<String> rows = new HashSet<>();
+        final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+        @Override
+        public synchronized void write(List<RegisteredCourse> batch) {
+            batchSizes.add(batch.size());
+            Set<String> inserted = new HashSet<>(rows);
+            for (RegisteredCourse registration : batch) {
+                if (!inserted.add(registration.getLearnerID() + "/" + registration.getCourseCode())) {
+                    throw new IllegalStateException("Duplicate registration " + registration.getLearnerID());
+                }
+            }
+            rows.addAll(inserted);
+        }
+    }
+
+    @Test
+    void duplicateFailsOnlyItsOwnFuture() throws Exception {
+        UniqueTable table = new UniqueTable();
+        table.rows.add("L2/IT4774");
+        List<CompletableFuture<RegisteredCourse>> futures = new ArrayList<>();
+        // A LONG DELAY SO ALL FOUR LAND IN ONE BATCH
+        try (ServiceMetrics metrics = new ServiceMetrics(null, null, null, null, null);
+             GroupCommitWriter writer = new GroupCommitWriter(100, 10, 1000, table, metrics)) {
+            for (int i = 1; i <= 4; i++) {
+                futures.add(writer.submit(new RegisteredCourse("L" + i, "IT4774", 3)));
+            }
+
+            for (int i : new int[]{0, 2, 3}) {
+                assertEquals("L" + (i + 1), futures.get(i).get(5, TimeUnit.SECONDS).getLearnerID());
+            }
+            ExecutionException failure = assertThrows(ExecutionException.class,
+                    () -> futures.get(1).get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, failure.getCause());
+        }
+        assertEquals(4, table.batchSizes.get(0));
+        assertTrue(table.rows.containsAll(Set.of("L1/IT4774", "L2/IT4774", "L3/IT4774", "L4/IT4774")));
+        assertEquals(4, table.rows.size());
+    }
+}
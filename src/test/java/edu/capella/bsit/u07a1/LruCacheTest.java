@@ -0,0 +1,76 @@
+package edu.capella.bsit.u07a1;
+
+import org.junit.jupiter.api.Test;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A LOAD IN {@link LruCache} THAT RACES WITH A WRITE OF ITS OWN KEY MUST NOT REPLACE THE NEWER VALUE.
+ */
+class LruCacheTest {
+
+    // STARTS A LOAD OF THE KEY THAT RETURNS "stale" ONLY ONCE release IS COUNTED DOWN
+    private static CompletableFuture<String> slowLoad(LruCache<String, String> cache, String key,
+                                                      CountDownLatch loading, CountDownLatch release) {
+        return CompletableFuture.supplyAsync(() -> cache.get(key, () -> {
+            loading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return "stale";
+        }));
+    }
+
+    @Test
+    void staleLoadDoesNotOverwriteNewerPut() throws Exception {
+        LruCache<String, String> cache = new LruCache<>(10, 0);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> load = slowLoad(cache, "L1", loading, release);
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        cache.put("L1", "fresh");
+        release.countDown();
+
+        // THE LOADING CALLER STILL GETS WHAT IT LOADED, BUT THE CACHE KEEPS THE WRITE
+        assertEquals("stale", load.get(5, TimeUnit.SECONDS));
+        assertEquals("fresh", cache.get("L1"));
+    }
+
+    @Test
+    void staleLoadDoesNotResurrectInvalidatedKey() throws Exception {
+        LruCache<String, String> cache = new LruCache<>(10, 0);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> load = slowLoad(cache, "L1", loading, release);
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        cache.invalidate("L1");
+        release.countDown();
+
+        assertEquals("stale", load.get(5, TimeUnit.SECONDS));
+        assertNull(cache.get("L1"));
+    }
+
+    @Test
+    void writeToAnotherKeyDoesNotDiscardTheLoad() throws Exception {
+        LruCache<String, String> cache = new LruCache<>(10, 0);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> load = slowLoad(cache, "L1", loading, release);
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        cache.put("L2", "other");
+        release.countDown();
+
+        assertEquals("stale", load.get(5, TimeUnit.SECONDS));
+        assertEquals("stale", cache.get("L1"));
+    }
+}
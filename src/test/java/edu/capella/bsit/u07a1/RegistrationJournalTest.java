@@ -0,0 +1,46 @@
+package edu.capella.bsit.u07a1;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * RECOVERY OF A {@link RegistrationJournal} WHOSE LAST WRITE WAS CUT SHORT BY A CRASH.
+ */
+class RegistrationJournalTest {
+
+    @Test
+    void tornLastLineIsDroppedAndTheRestReplayed(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("registrations.journal");
+        // REQUEST 1 WAS APPLIED, REQUEST 2 WAS NOT, AND REQUEST 3 WAS TORN (NO NEWLINE, SO NEVER ACKNOWLEDGED)
+        Files.writeString(file, "R\t1\tL1\tIT4774\nD\t1\tREGISTERED\nR\t2\tL2\tIT4774\nR\t3\tL3\tIT47",
+                StandardCharsets.UTF_8);
+        List<String> applied = new CopyOnWriteArrayList<>();
+        CompletableFuture<RegistrationJournal.Entry> replayed = new CompletableFuture<>();
+
+        try (RegistrationJournal journal = RegistrationJournal.open(file, (learnerID, courseCode) -> {
+            applied.add(learnerID + "/" + courseCode);
+            return new RegistrationResult(RegistrationResult.Status.REGISTERED,
+                    new RegisteredCourse(learnerID, courseCode, 3), 3, List.of());
+        }, ex -> false)) {
+            journal.addListener((entry, result) -> replayed.complete(entry));
+            assertEquals(2, replayed.get(5, TimeUnit.SECONDS).sequence());
+            // SEQUENCES CONTINUE AFTER THE LAST COMPLETE REQUEST
+            assertEquals(3, journal.append("L4", "IT4774").get(5, TimeUnit.SECONDS).sequence());
+        }
+
+        assertEquals("L2/IT4774", applied.get(0));
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(List.of("R\t1\tL1\tIT4774", "D\t1\tREGISTERED", "R\t2\tL2\tIT4774"), lines.subList(0, 3));
+        // NOTHING OF THE TORN LINE SURVIVES
+        lines.forEach(line -> assertEquals(-1, line.indexOf("L3")));
+    }
+}
@@ -0,0 +1,120 @@
+package edu.capella.bsit.u07a1;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * END-TO-END TEST OF READ-REPLICA ROUTING (SEE {@link ReplicaRouter}) AGAINST TWO EMBEDDED H2 DATABASES, A
+ * PRIMARY AND ONE REPLICA. THE REPLICA IS NOT REALLY REPLICATED: IT HOLDS A MARKER COURSE THE PRIMARY DOES NOT, SO
+ * EVERY READ SHOWS WHICH DATABASE SERVED IT.
+ */
+class ReplicaRouterTest {
+    private static final String REPLICA_URL = "jdbc:h2:mem:replica-check;MODE=MariaDB;DB_CLOSE_DELAY=-1";
+    // IFEXISTS: ONCE THE REPLICA IS SHUT DOWN THE ROUTER MUST NOT QUIETLY CONNECT TO A NEW, EMPTY ONE
+    private static final String ROUTED_REPLICA_URL = "jdbc:h2:mem:replica-check;MODE=MariaDB;IFEXISTS=TRUE";
+    private static final String PRIMARY_COURSE = "PRIMARY-ONLY";
+    private static final String REPLICA_COURSE = "REPLICA-ONLY";
+
+    private CourseRegistrationService service;
+    private ReplicaRouter router;
+
+    @BeforeEach
+    void startService() {
+        createReplica();
+        Map<String, String> config = EmbeddedDatabase.newDatabase();
+        config.put(CourseRegistrationService.REPLICA_URLS_KEY, ROUTED_REPLICA_URL);
+        config.put(CourseRegistrationService.REPLICA_HEALTH_CHECK_KEY, "1");
+        config.put(CourseRegistrationService.REPLICA_READ_YOUR_WRITES_KEY, "1");
+        service = new CourseRegistrationService(config);
+        router = ((JpaRegistrationStore) service.getStore()).getReplicaRouter();
+        assertNotNull(router);
+        assertEquals(1, router.getStatus().size());
+    }
+
+    @AfterEach
+    void closeService() {
+        service.close();
+    }
+
+    @Test
+    void readsFollowTheWriterToThePrimaryForTheReadYourWritesWindow() throws Exception {
+        service.createCourse(PRIMARY_COURSE, 3);
+        assertTrue(courseCodes().contains(PRIMARY_COURSE), "a catalog read right after a catalog write");
+        Thread.sleep(1_200);
+        assertTrue(courseCodes().contains(REPLICA_COURSE), "a catalog read after the window");
+
+        service.registerIfAllowed("L1", PRIMARY_COURSE);
+        assertEquals(1, registrationCount("L1"), "a learner's read right after their own registration");
+    }
+
+    @Test
+    void failuresOfTheWorkLeaveTheReplicaInRotation() {
+        long primaryReads = router.getPrimaryReads();
+        assertThrows(IllegalArgumentException.class, () -> router.read(null,
+                em -> em.createQuery("SELECT x FROM NoSuchEntity x").getResultList()));
+        assertThrows(IllegalStateException.class, () -> router.read(null, em -> {
+            throw new IllegalStateException("failure in the work");
+        }));
+        assertTrue(router.getStatus().get(0).healthy());
+        // NOT RETRIED ON THE PRIMARY EITHER
+        assertEquals(primaryReads, router.getPrimaryReads());
+    }
+
+    @Test
+    void unreachableReplicaIsTakenOutAndTakenBackWhenItRecovers() throws Exception {
+        service.createCourse(PRIMARY_COURSE, 3);
+        // PAST THE READ-YOUR-WRITES WINDOW, SO ONLY THE OUTAGE CAN SEND THE NEXT READ TO THE PRIMARY
+        Thread.sleep(1_200);
+        try (Connection connection = DriverManager.getConnection(REPLICA_URL, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("SHUTDOWN");
+        }
+        List<String> codes = courseCodes();
+        assertTrue(codes.contains(PRIMARY_COURSE), "a catalog read while the replica is down is served by the primary");
+        assertFalse(codes.contains(REPLICA_COURSE));
+        assertFalse(router.getStatus().get(0).healthy(), "the unreachable replica is out of rotation");
+
+        createReplica();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!router.getStatus().get(0).healthy() && System.nanoTime() - deadline < 0) {
+            Thread.sleep(50);
+        }
+        assertTrue(router.getStatus().get(0).healthy(), "the health check takes the recovered replica back");
+        assertTrue(courseCodes().contains(REPLICA_COURSE));
+    }
+
+    // (RE)CREATES THE REPLICA'S SCHEMA WITH ITS MARKER COURSE. WITHOUT A SECOND-LEVEL CACHE: THE CACHE PROVIDER IS
+    // SHARED BY EVERY FACTORY IN THE JVM, AND CLOSING THIS ONE WOULD CLOSE THE PRIMARY'S CACHE REGIONS WITH IT.
+    private static void createReplica() {
+        Map<String, String> config = EmbeddedDatabase.config(REPLICA_URL);
+        config.put("hibernate.cache.use_second_level_cache", "false");
+        config.put("hibernate.cache.use_query_cache", "false");
+        try (CourseRegistrationService replica = new CourseRegistrationService(config)) {
+            replica.createCourse(REPLICA_COURSE, 3);
+        }
+    }
+
+    private List<String> courseCodes() {
+        return router.read(null, em -> em.createQuery("SELECT c.courseCode FROM Course c", String.class)
+                .getResultList());
+    }
+
+    private long registrationCount(String learnerID) {
+        return router.read(learnerID, em -> em.createQuery(
+                        "SELECT COUNT(r) FROM RegisteredCourse r WHERE r.learnerID = :learnerID", Long.class)
+                .setParameter("learnerID", learnerID).getSingleResult());
+    }
+}
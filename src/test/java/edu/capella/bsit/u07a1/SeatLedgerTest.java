@@ -0,0 +1,109 @@
+package edu.capella.bsit.u07a1;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * CONCURRENT RESERVATIONS ON {@link SeatLedger}: HOWEVER THE THREADS INTERLEAVE, A COURSE IS NEVER OVERSOLD, NEITHER
+ * BY ONE LEDGER NOR BY TWO LEDGERS (TWO PROCESSES) SHARING ONE STORED SEAT COUNT.
+ */
+class SeatLedgerTest {
+    private static final String COURSE = "IT4774";
+    private static final int CAPACITY = 25;
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 20;
+
+    // THE DATABASE'S COURSE ROW: SEATS_TAKEN, CLAIMED WITH THE SAME CONDITION AS THE STORE'S CONDITIONAL UPDATE
+    private final AtomicInteger stored = new AtomicInteger();
+
+    private boolean claimSeat(String courseCode) {
+        for (int current = stored.get(); current < CAPACITY; current = stored.get()) {
+            if (stored.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeSeats(Map<String, Integer> seats) {
+        seats.values().forEach(stored::addAndGet);
+    }
+
+    private SeatLedger newLedger() {
+        SeatLedger ledger = new SeatLedger(Map::of, () -> Map.of(COURSE, stored.get()), this::writeSeats,
+                this::claimSeat, 60_000);
+        ledger.reconcile();
+        return ledger;
+    }
+
+    @Test
+    void oneLedgerNeverOversells() throws Exception {
+        // THE STORE ALWAYS AGREES, SO ONLY THE LEDGER'S OWN COUNTER STANDS BETWEEN THE THREADS AND AN OVERSOLD COURSE
+        try (SeatLedger ledger = new SeatLedger(Map::of, Map::of, seats -> { }, courseCode -> true, 60_000)) {
+            ledger.reconcile();
+            assertEquals(CAPACITY, race(List.of(ledger)));
+            assertEquals(CAPACITY, ledger.seatsTaken(COURSE));
+            assertFalse(ledger.tryReserve(COURSE, CAPACITY));
+        }
+    }
+
+    @Test
+    void twoLedgersSharingTheStoreNeverOversell() throws Exception {
+        try (SeatLedger first = newLedger(); SeatLedger second = newLedger()) {
+            assertEquals(CAPACITY, race(List.of(first, second)));
+            assertEquals(CAPACITY, stored.get());
+
+            // A RELEASED SEAT GOES BACK TO THE STORE, AND A FLUSH SHOWS EACH LEDGER THE SEATS THE OTHER TOOK
+            first.release(COURSE);
+            assertEquals(CAPACITY - 1, stored.get());
+            first.flush();
+            second.flush();
+            assertEquals(CAPACITY - 1, first.seatsTaken(COURSE));
+            assertEquals(CAPACITY - 1, second.seatsTaken(COURSE));
+        }
+    }
+
+    // RESERVES FROM MANY THREADS AT ONCE, SPREAD OVER THE LEDGERS, CONFIRMING EVERY SEAT GRANTED; RETURNS HOW MANY
+    private int race(List<SeatLedger> ledgers) throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch go = new CountDownLatch(1);
+            List<Future<Integer>> granted = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                SeatLedger ledger = ledgers.get(t % ledgers.size());
+                Callable<Integer> reserver = () -> {
+                    go.await();
+                    int seats = 0;
+                    for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                        if (ledger.tryReserve(COURSE, CAPACITY)) {
+                            ledger.confirm(COURSE);
+                            seats++;
+                        }
+                    }
+                    return seats;
+                };
+                granted.add(threads.submit(reserver));
+            }
+            go.countDown();
+            int total = 0;
+            for (Future<Integer> seats : granted) {
+                total += seats.get(30, TimeUnit.SECONDS);
+            }
+            return total;
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+}
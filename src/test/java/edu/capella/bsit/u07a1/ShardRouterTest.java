@@ -0,0 +1,172 @@
+package edu.capella.bsit.u07a1;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * END-TO-END TEST OF LEARNER SHARDING (SEE {@link ShardRouter}) AGAINST FOUR EMBEDDED H2 DATABASES: THE CATALOG
+ * NODE AND THREE SHARDS. EACH SHARD IS ALSO READ DIRECTLY OVER JDBC, SO THE TEST SEES WHERE ROWS REALLY LANDED.
+ * EVERY LEARNER STARTS OUT REGISTERED FOR C01 AND C02.
+ */
+class ShardRouterTest {
+    private static final int SHARDS = 3;
+    private static final int LEARNERS = 60;
+
+    private final List<String> shardUrls = new ArrayList<>();
+    private final List<Course> courses = new ArrayList<>();
+    private final List<String> learners = new ArrayList<>();
+    private CourseRegistrationService service;
+    private ShardRouter router;
+
+    @BeforeEach
+    void startService() {
+        for (int i = 0; i < SHARDS; i++) {
+            shardUrls.add("jdbc:h2:mem:shard-check-" + i + ";MODE=MariaDB;DB_CLOSE_DELAY=-1");
+        }
+        Map<String, String> config = EmbeddedDatabase.newDatabase();
+        config.put(CourseRegistrationService.SHARD_URLS_KEY, String.join(",", shardUrls));
+        config.put(CourseRegistrationService.GROUP_COMMIT_KEY, "true");
+        config.put(CourseRegistrationService.GROUP_COMMIT_MAX_BATCH_KEY, "1000");
+        config.put(CourseRegistrationService.GROUP_COMMIT_MAX_DELAY_KEY, "200");
+        service = new CourseRegistrationService(config);
+        router = ((JpaRegistrationStore) service.getStore()).getShardRouter();
+        assertNotNull(router);
+        assertEquals(SHARDS, router.size());
+
+        for (int i = 1; i <= 4; i++) {
+            courses.add(service.createCourse("C0" + i, 3));
+        }
+        Map<String, List<Course>> cohort = new LinkedHashMap<>();
+        for (int i = 0; i < LEARNERS; i++) {
+            String learnerID = String.format("L%03d", i);
+            learners.add(learnerID);
+            cohort.put(learnerID, List.of(courses.get(0), courses.get(1)));
+        }
+        service.createCourseRegistrations(cohort);
+    }
+
+    @AfterEach
+    void closeService() {
+        service.close();
+    }
+
+    @Test
+    void registrationsLandOnTheirLearnersShard() throws SQLException {
+        Set<Integer> used = new HashSet<>();
+        for (int shard = 0; shard < SHARDS; shard++) {
+            for (String learnerID : learnersOn(shardUrls.get(shard))) {
+                assertEquals(shard, router.shardOf(learnerID), learnerID);
+                used.add(shard);
+            }
+        }
+        assertEquals(SHARDS, used.size(), "the learners are spread over every shard");
+        assertEquals(2L * LEARNERS, countAll(), "each registration was inserted exactly once");
+        assertEquals(6, service.getTotalCredits(learners.get(7)));
+    }
+
+    @Test
+    void mergedStreamHasEveryRowInOrder() {
+        List<RegisteredCourse> streamed = new ArrayList<>();
+        long count = service.streamRegistrations(streamed::add);
+        List<RegisteredCourse> sorted = new ArrayList<>(streamed);
+        sorted.sort(Comparator.comparing(RegisteredCourse::getLearnerID).thenComparing(RegisteredCourse::getCourseCode));
+
+        assertEquals(2L * LEARNERS, count);
+        assertEquals(count, streamed.size());
+        assertEquals(sorted, streamed);
+    }
+
+    @Test
+    void cohortFailingOnOneShardKeepsAndReportsTheOtherShards() throws SQLException {
+        // EVERY LEARNER IN C03, BUT ONE LEARNER ALSO IN C01 AGAIN
+        String duplicate = learners.get(0);
+        int failedShard = router.shardOf(duplicate);
+        Map<String, List<Course>> cohort = new LinkedHashMap<>();
+        for (String learnerID : learners) {
+            cohort.put(learnerID, learnerID.equals(duplicate) ? List.of(courses.get(2), courses.get(0))
+                    : List.of(courses.get(2)));
+        }
+
+        RegistrationStore.PartialInsertException partial = assertThrows(RegistrationStore.PartialInsertException.class,
+                () -> service.createCourseRegistrations(cohort));
+        long onOtherShards = learners.stream().filter(id -> router.shardOf(id) != failedShard).count();
+        assertEquals(onOtherShards, partial.getCommitted().size());
+        assertTrue(partial.getCommitted().stream().allMatch(r -> router.shardOf(r.getLearnerID()) != failedShard),
+                "the partial insert names exactly the rows of the shards that committed");
+        assertEquals(onOtherShards, countCourse("C03"),
+                "the other shards committed their rows and the failed shard rolled its rows back");
+        String committedLearner = learners.stream().filter(id -> router.shardOf(id) != failedShard).findFirst()
+                .orElseThrow();
+        assertTrue(service.getRegisteredCourseCodes(committedLearner).contains("C03"));
+    }
+
+    @Test
+    void duplicateInAGroupCommitBatchFailsAlone() throws SQLException {
+        // EVERY LEARNER IN C04, AND ONE LEARNER IN C01 AGAIN
+        List<CompletableFuture<Void>> submitted = new ArrayList<>();
+        for (String learnerID : learners) {
+            submitted.add(service.createCourseRegistrationAsync(learnerID, "C04", 3));
+        }
+        CompletableFuture<Void> repeated = service.createCourseRegistrationAsync(learners.get(0), "C01", 3);
+
+        submitted.forEach(CompletableFuture::join);
+        assertThrows(CompletionException.class, repeated::join);
+        assertEquals(LEARNERS, countCourse("C04"), "each registration in the batch was inserted once");
+    }
+
+    private static List<String> learnersOn(String url) throws SQLException {
+        List<String> learners = new ArrayList<>();
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             PreparedStatement statement = connection.prepareStatement("SELECT learner_id FROM learner_registration");
+             ResultSet rows = statement.executeQuery()) {
+            while (rows.next()) {
+                learners.add(rows.getString(1));
+            }
+        }
+        return learners;
+    }
+
+    private long countAll() throws SQLException {
+        long count = 0;
+        for (String url : shardUrls) {
+            count += learnersOn(url).size();
+        }
+        return count;
+    }
+
+    private long countCourse(String courseCode) throws SQLException {
+        long count = 0;
+        for (String url : shardUrls) {
+            try (Connection connection = DriverManager.getConnection(url, "sa", "");
+                 PreparedStatement statement = connection.prepareStatement(
+                         "SELECT COUNT(*) FROM learner_registration WHERE course_code = ?")) {
+                statement.setString(1, courseCode);
+                try (ResultSet rows = statement.executeQuery()) {
+                    rows.next();
+                    count += rows.getLong(1);
+                }
+            }
+        }
+        return count;
+    }
+}